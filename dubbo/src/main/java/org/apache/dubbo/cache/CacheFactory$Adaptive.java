@@ -3,6 +3,8 @@ package org.apache.dubbo.cache;
 import org.apache.dubbo.common.extension.ExtensionLoader;
 
 public class CacheFactory$Adaptive implements org.apache.dubbo.cache.CacheFactory {
+    private final org.apache.dubbo.common.extension.AdaptiveExtensionCache extensions = new org.apache.dubbo.common.extension.AdaptiveExtensionCache(org.apache.dubbo.cache.CacheFactory.class);
+
     public org.apache.dubbo.cache.Cache getCache(org.apache.dubbo.common.URL arg0, org.apache.dubbo.rpc.Invocation arg1) {
         if (arg0 == null)
             throw new IllegalArgumentException("url == null");
@@ -13,7 +15,7 @@ public class CacheFactory$Adaptive implements org.apache.dubbo.cache.CacheFactor
         String extName = url.getMethodParameter(methodName, "cache", "lru");
         if (extName == null)
             throw new IllegalStateException("Failed to get extension (org.apache.dubbo.cache.CacheFactory) name from url (" + url.toString() + ") use keys([cache])");
-        org.apache.dubbo.cache.CacheFactory extension = (org.apache.dubbo.cache.CacheFactory) ExtensionLoader.getExtensionLoader(org.apache.dubbo.cache.CacheFactory.class).getExtension(extName);
+        org.apache.dubbo.cache.CacheFactory extension = (org.apache.dubbo.cache.CacheFactory) extensions.get(extName);
         return extension.getCache(arg0, arg1);
     }
 
@@ -46,7 +46,7 @@ public class CacheFilter implements Filter {
         return invoker.invoke(invocation);
     }
 
-    static class ValueWrapper implements Serializable {
+    public static class ValueWrapper implements Serializable {
 
         private static final long serialVersionUID = -1777337318019193256L;
 
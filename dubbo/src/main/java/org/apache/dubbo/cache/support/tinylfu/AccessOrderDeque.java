@@ -0,0 +1,56 @@
+package org.apache.dubbo.cache.support.tinylfu;
+
+/**
+ * 以Node自身的prev/next串联的双向队列，队首是最久未访问的节点
+ * 非线程安全，只在evictionLock内使用
+ */
+final class AccessOrderDeque {
+
+    private Node first;
+
+    private Node last;
+
+    Node peekFirst() {
+        return first;
+    }
+
+    Node peekLast() {
+        return last;
+    }
+
+    void addLast(Node node) {
+        node.prev = last;
+        node.next = null;
+        if (last == null) {
+            first = node;
+        } else {
+            last.next = node;
+        }
+        last = node;
+    }
+
+    void remove(Node node) {
+        Node prev = node.prev;
+        Node next = node.next;
+        if (prev == null) {
+            first = next;
+        } else {
+            prev.next = next;
+        }
+        if (next == null) {
+            last = prev;
+        } else {
+            next.prev = prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    void moveToBack(Node node) {
+        if (node != last) {
+            remove(node);
+            addLast(node);
+        }
+    }
+
+}
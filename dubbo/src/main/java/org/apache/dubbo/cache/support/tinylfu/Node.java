@@ -0,0 +1,52 @@
+package org.apache.dubbo.cache.support.tinylfu;
+
+/**
+ * 缓存条目
+ * value与expireAt供读线程无锁访问，其余字段只在evictionLock内修改
+ */
+final class Node {
+
+    static final int WINDOW = 0;
+
+    static final int PROBATION = 1;
+
+    static final int PROTECTED = 2;
+
+    static final int DEAD = 3;
+
+    final Object key;
+
+    volatile Object value;
+
+    volatile long expireAt;
+
+    int weight;
+
+    int queue;
+
+    /**
+     * 所在访问顺序队列中的前后节点
+     */
+    Node prev;
+
+    Node next;
+
+    /**
+     * 所在时间轮槽位中的前后节点
+     */
+    Node prevInWheel;
+
+    Node nextInWheel;
+
+    /**
+     * 所在时间轮槽位，-1表示未调度
+     */
+    int bucket = -1;
+
+    Node(Object key, Object value, int weight) {
+        this.key = key;
+        this.value = value;
+        this.weight = weight;
+    }
+
+}
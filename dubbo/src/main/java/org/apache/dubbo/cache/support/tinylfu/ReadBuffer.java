@@ -0,0 +1,77 @@
+package org.apache.dubbo.cache.support.tinylfu;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 按线程分段的有损环形缓冲区，记录读命中的节点，稍后在evictionLock内批量更新访问顺序和频率
+ * 读线程只做一次CAS，缓冲区满或CAS竞争失败时直接丢弃本次记录，访问统计允许少量丢失
+ */
+final class ReadBuffer {
+
+    private static final int BUFFER_SIZE = 16;
+
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+    private static final int STRIPES;
+
+    static {
+        int stripes = 1;
+        int target = Math.min(4 * Runtime.getRuntime().availableProcessors(), 64);
+        while (stripes < target) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    private final AtomicReferenceArray<Node> buffer = new AtomicReferenceArray<Node>(STRIPES * BUFFER_SIZE);
+
+    private final AtomicLongArray writeCounters = new AtomicLongArray(STRIPES);
+
+    private final AtomicLongArray readCounters = new AtomicLongArray(STRIPES);
+
+    /**
+     * @return 缓冲区已满时返回false，调用方应尝试drain
+     */
+    boolean offer(Node node) {
+        int stripe = stripe();
+        long head = readCounters.get(stripe);
+        long tail = writeCounters.get(stripe);
+        if (tail - head >= BUFFER_SIZE) {
+            return false;
+        }
+        if (writeCounters.compareAndSet(stripe, tail, tail + 1)) {
+            buffer.lazySet(stripe * BUFFER_SIZE + (int) (tail & BUFFER_MASK), node);
+        }
+        return true;
+    }
+
+    /**
+     * 只能在evictionLock内调用
+     */
+    void drainTo(Consumer<Node> consumer) {
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            long head = readCounters.get(stripe);
+            long tail = writeCounters.get(stripe);
+            for (; head != tail; head++) {
+                int index = stripe * BUFFER_SIZE + (int) (head & BUFFER_MASK);
+                Node node = buffer.get(index);
+                // 写线程已占位但还没有写入
+                if (node == null) {
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(node);
+            }
+            readCounters.lazySet(stripe, head);
+        }
+    }
+
+    private static int stripe() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9e3779b9;
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+}
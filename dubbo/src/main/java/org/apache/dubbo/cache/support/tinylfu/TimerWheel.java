@@ -0,0 +1,80 @@
+package org.apache.dubbo.cache.support.tinylfu;
+
+import java.util.function.Consumer;
+
+/**
+ * 单层哈希时间轮，按expireAt把节点挂到对应槽位，推进时只扫描经过的槽位，代替ExpiringMap的独立清理线程
+ * 槽位跨度是存活时间的两倍，节点在到期前基本不会被提前扫描到
+ * 读线程自己会检查expireAt，所以到期节点最多只是晚一个tick才被移除，不会被读到
+ * 非线程安全，只在evictionLock内使用
+ */
+final class TimerWheel {
+
+    private static final int BUCKETS = 64;
+
+    private final Node[] buckets = new Node[BUCKETS];
+
+    private final long tick;
+
+    private long currentTick;
+
+    TimerWheel(long expireAfterWrite, long now) {
+        this.tick = Math.max(1L, expireAfterWrite / (BUCKETS >> 1));
+        this.currentTick = Math.floorDiv(now, tick);
+    }
+
+    void schedule(Node node) {
+        if (node.bucket >= 0) {
+            deschedule(node);
+        }
+        int index = (int) (Math.floorDiv(node.expireAt, tick) & (BUCKETS - 1));
+        Node head = buckets[index];
+        node.prevInWheel = null;
+        node.nextInWheel = head;
+        if (head != null) {
+            head.prevInWheel = node;
+        }
+        buckets[index] = node;
+        node.bucket = index;
+    }
+
+    void deschedule(Node node) {
+        if (node.bucket < 0) {
+            return;
+        }
+        Node prev = node.prevInWheel;
+        Node next = node.nextInWheel;
+        if (prev == null) {
+            buckets[node.bucket] = next;
+        } else {
+            prev.nextInWheel = next;
+        }
+        if (next != null) {
+            next.prevInWheel = prev;
+        }
+        node.prevInWheel = null;
+        node.nextInWheel = null;
+        node.bucket = -1;
+    }
+
+    /**
+     * 从上次的tick推进到当前tick，把经过的槽位里已到期的节点交给expirer
+     * 当前tick所在的槽位每次都会重新扫描，因为其中可能有本tick内稍后才到期的节点
+     */
+    void advance(long now, Consumer<Node> expirer) {
+        long target = Math.floorDiv(now, tick);
+        long ticks = Math.min(target - currentTick + 1, BUCKETS);
+        for (long t = target - ticks + 1; t <= target; t++) {
+            Node node = buckets[(int) (t & (BUCKETS - 1))];
+            while (node != null) {
+                Node next = node.nextInWheel;
+                if (now - node.expireAt >= 0) {
+                    expirer.accept(node);
+                }
+                node = next;
+            }
+        }
+        currentTick = target;
+    }
+
+}
@@ -0,0 +1,331 @@
+package org.apache.dubbo.cache.support.tinylfu;
+
+import org.apache.dubbo.cache.Cache;
+import org.apache.dubbo.cache.filter.CacheFilter;
+import org.apache.dubbo.common.URL;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * W-TinyLFU缓存
+ * 新条目先进入容量1%的window区(LRU)，被挤出window后成为候选者，与main区probation段最久未访问的条目比较访问频率，频率高的留下
+ * main区分probation(20%)和protected(80%)两段，probation中的条目再次被访问时晋升到protected，protected溢出时降级回probation
+ * 频率由FrequencySketch估算，访问频率会周期性减半，因此能适应热点变化
+ * 读操作无锁：命中的节点写入ReadBuffer，由持有evictionLock的线程批量回放；写操作持有evictionLock，顺带完成回放、过期和淘汰
+ * 过期由TimerWheel在维护时推进，不需要额外的清理线程
+ * 容量按条目权重计算，cache.weigher=size时按值的元素个数（字符串长度、数组/集合/Map大小）估算权重，否则每个条目权重为1
+ */
+public class TinyLfuCache implements Cache {
+
+    private static final double WINDOW_PERCENT = 0.01D;
+
+    private static final double PROTECTED_PERCENT = 0.8D;
+
+    private final ConcurrentHashMap<Object, Node> data = new ConcurrentHashMap<Object, Node>();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final ReadBuffer readBuffer = new ReadBuffer();
+
+    private final AccessOrderDeque window = new AccessOrderDeque();
+
+    private final AccessOrderDeque probation = new AccessOrderDeque();
+
+    private final AccessOrderDeque protectedDeque = new AccessOrderDeque();
+
+    private final FrequencySketch sketch;
+
+    private final TimerWheel timerWheel;
+
+    private final Weigher weigher;
+
+    private final Stats stats = new Stats();
+
+    private final long maximum;
+
+    private final long windowMaximum;
+
+    private final long protectedMaximum;
+
+    /**
+     * 纳秒，0表示不过期
+     */
+    private final long expireAfterWrite;
+
+    private long weightedSize;
+
+    private long windowWeightedSize;
+
+    private long protectedWeightedSize;
+
+    public TinyLfuCache(URL url) {
+        this(url.getParameter("cache.size", 1000), TimeUnit.SECONDS.toNanos(url.getParameter("cache.seconds", 0)), "size".equals(url.getParameter("cache.weigher")) ? Weigher.SIZE : Weigher.SINGLETON);
+    }
+
+    public TinyLfuCache(long maximum, long expireAfterWrite, Weigher weigher) {
+        this.maximum = Math.max(maximum, 1);
+        this.windowMaximum = this.maximum - (long) (this.maximum * (1 - WINDOW_PERCENT));
+        this.protectedMaximum = (long) ((this.maximum - windowMaximum) * PROTECTED_PERCENT);
+        this.expireAfterWrite = Math.max(expireAfterWrite, 0);
+        this.timerWheel = this.expireAfterWrite > 0 ? new TimerWheel(this.expireAfterWrite, System.nanoTime()) : null;
+        this.sketch = new FrequencySketch(this.maximum);
+        this.weigher = weigher;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        int weight = Math.max(weigher.weigh(key, value), 1);
+        long now = System.nanoTime();
+        evictionLock.lock();
+        try {
+            readBuffer.drainTo(this::onAccess);
+            Node node = data.get(key);
+            if (node != null) {
+                int delta = weight - node.weight;
+                node.weight = weight;
+                weightedSize += delta;
+                if (node.queue == Node.WINDOW) {
+                    windowWeightedSize += delta;
+                } else if (node.queue == Node.PROTECTED) {
+                    protectedWeightedSize += delta;
+                }
+                if (timerWheel != null) {
+                    node.expireAt = now + expireAfterWrite;
+                    timerWheel.schedule(node);
+                }
+                node.value = value;
+                onAccess(node);
+            } else {
+                node = new Node(key, value, weight);
+                if (timerWheel != null) {
+                    node.expireAt = now + expireAfterWrite;
+                    timerWheel.schedule(node);
+                }
+                data.put(key, node);
+                sketch.increment(key);
+                node.queue = Node.WINDOW;
+                window.addLast(node);
+                windowWeightedSize += weight;
+                weightedSize += weight;
+            }
+            maintenance(now);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public Object get(Object key) {
+        Node node = data.get(key);
+        if (node == null) {
+            stats.misses.increment();
+            return null;
+        }
+        if (timerWheel != null && System.nanoTime() - node.expireAt >= 0) {
+            stats.misses.increment();
+            return null;
+        }
+        Object value = node.value;
+        stats.hits.increment();
+        if (!readBuffer.offer(node)) {
+            tryMaintenance();
+        }
+        return value;
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+
+    private void tryMaintenance() {
+        if (evictionLock.tryLock()) {
+            try {
+                readBuffer.drainTo(this::onAccess);
+                maintenance(System.nanoTime());
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void maintenance(long now) {
+        if (timerWheel != null) {
+            timerWheel.advance(now, node -> remove(node, true));
+        }
+        evictFromMain(evictFromWindow());
+    }
+
+    /**
+     * 回放一次访问：window内移到队尾，probation晋升到protected，protected内移到队尾
+     */
+    private void onAccess(Node node) {
+        if (node.queue == Node.DEAD) {
+            return;
+        }
+        sketch.increment(node.key);
+        if (node.queue == Node.WINDOW) {
+            window.moveToBack(node);
+        } else if (node.queue == Node.PROBATION) {
+            probation.remove(node);
+            node.queue = Node.PROTECTED;
+            protectedDeque.addLast(node);
+            protectedWeightedSize += node.weight;
+            while (protectedWeightedSize > protectedMaximum) {
+                Node demoted = protectedDeque.peekFirst();
+                if (demoted == null || demoted == node) {
+                    break;
+                }
+                protectedDeque.remove(demoted);
+                demoted.queue = Node.PROBATION;
+                probation.addLast(demoted);
+                protectedWeightedSize -= demoted.weight;
+            }
+        } else {
+            protectedDeque.moveToBack(node);
+        }
+    }
+
+    /**
+     * 把window溢出的条目移到probation队尾，返回移动的个数，即本轮的候选者数量
+     */
+    private int evictFromWindow() {
+        int candidates = 0;
+        while (windowWeightedSize > windowMaximum) {
+            Node node = window.peekFirst();
+            if (node == null) {
+                break;
+            }
+            window.remove(node);
+            node.queue = Node.PROBATION;
+            probation.addLast(node);
+            windowWeightedSize -= node.weight;
+            candidates++;
+        }
+        return candidates;
+    }
+
+    /**
+     * 超出容量时，用probation队尾的候选者与队首的受害者比较频率，淘汰频率较低的一方
+     */
+    private void evictFromMain(int candidates) {
+        while (weightedSize > maximum) {
+            Node victim = probation.peekFirst();
+            if (victim == null) {
+                victim = protectedDeque.peekFirst();
+            }
+            if (victim == null) {
+                victim = window.peekFirst();
+            }
+            if (victim == null) {
+                break;
+            }
+            Node candidate = candidates > 0 ? probation.peekLast() : null;
+            if (candidate == null || candidate == victim) {
+                candidates = candidate == null ? 0 : candidates - 1;
+                remove(victim, false);
+                continue;
+            }
+            candidates--;
+            if (candidate.weight > maximum || sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                remove(candidate, false);
+            } else {
+                remove(victim, false);
+            }
+        }
+    }
+
+    private void remove(Node node, boolean expired) {
+        if (node.queue == Node.DEAD) {
+            return;
+        }
+        data.remove(node.key, node);
+        if (node.queue == Node.WINDOW) {
+            window.remove(node);
+            windowWeightedSize -= node.weight;
+        } else if (node.queue == Node.PROBATION) {
+            probation.remove(node);
+        } else {
+            protectedDeque.remove(node);
+            protectedWeightedSize -= node.weight;
+        }
+        weightedSize -= node.weight;
+        if (timerWheel != null) {
+            timerWheel.deschedule(node);
+        }
+        node.queue = Node.DEAD;
+        if (expired) {
+            stats.expirations.increment();
+        } else {
+            stats.evictions.increment();
+        }
+    }
+
+    public interface Weigher {
+
+        Weigher SINGLETON = (key, value) -> 1;
+
+        Weigher SIZE = (key, value) -> {
+            if (value instanceof CacheFilter.ValueWrapper) {
+                value = ((CacheFilter.ValueWrapper) value).get();
+            }
+            if (value instanceof CharSequence) {
+                return ((CharSequence) value).length();
+            } else if (value instanceof Collection) {
+                return ((Collection<?>) value).size();
+            } else if (value instanceof Map) {
+                return ((Map<?, ?>) value).size();
+            } else if (value != null && value.getClass().isArray()) {
+                return Array.getLength(value);
+            }
+            return 1;
+        };
+
+        int weigh(Object key, Object value);
+
+    }
+
+    public static class Stats {
+
+        private final LongAdder hits = new LongAdder();
+
+        private final LongAdder misses = new LongAdder();
+
+        private final LongAdder evictions = new LongAdder();
+
+        private final LongAdder expirations = new LongAdder();
+
+        public long getHitCount() {
+            return hits.sum();
+        }
+
+        public long getMissCount() {
+            return misses.sum();
+        }
+
+        public long getEvictionCount() {
+            return evictions.sum();
+        }
+
+        public long getExpirationCount() {
+            return expirations.sum();
+        }
+
+        public double getHitRate() {
+            long hit = hits.sum();
+            long total = hit + misses.sum();
+            return total == 0 ? 1D : (double) hit / total;
+        }
+
+    }
+
+}
@@ -0,0 +1,14 @@
+package org.apache.dubbo.cache.support.tinylfu;
+
+import org.apache.dubbo.cache.Cache;
+import org.apache.dubbo.cache.support.AbstractCacheFactory;
+import org.apache.dubbo.common.URL;
+
+public class TinyLfuCacheFactory extends AbstractCacheFactory {
+
+    @Override
+    protected Cache createCache(URL url) {
+        return new TinyLfuCache(url);
+    }
+
+}
@@ -33,11 +33,9 @@ import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static org.apache.dubbo.common.constants.ConfigConstants.HOST_KEY;
@@ -45,7 +43,7 @@ import static org.apache.dubbo.common.constants.ConfigConstants.PORT_KEY;
 import static org.apache.dubbo.common.constants.CommonConstants.ANYHOST_KEY;
 import static org.apache.dubbo.common.constants.CommonConstants.ANYHOST_VALUE;
 import static org.apache.dubbo.common.constants.CommonConstants.COMMA_SPLIT_PATTERN;
-import static org.apache.dubbo.common.constants.CommonConstants.DEFAULT_KEY_PREFIX;
+import static org.apache.dubbo.common.constants.CommonConstants.DEFAULT_KEY;
 import static org.apache.dubbo.common.constants.CommonConstants.GROUP_KEY;
 import static org.apache.dubbo.common.constants.CommonConstants.INTERFACE_KEY;
 import static org.apache.dubbo.common.constants.CommonConstants.LOCALHOST_KEY;
@@ -106,11 +104,12 @@ class URL implements Serializable {
 
     private final String path;
 
+    /**
+     * 总是URLParameters，声明为Map是为了兼容hessian等把它还原成HashMap的序列化方式，见readResolve
+     */
     private final Map<String, String> parameters;
     // ==== cache ====
 
-    private volatile transient Map<String, Number> numbers;
-
     private volatile transient Map<String, URL> urls;
 
     private volatile transient String ip;
@@ -179,12 +178,7 @@ class URL implements Serializable {
             path = path.substring(1);
         }
         this.path = path;
-        if (parameters == null) {
-            parameters = new HashMap<>();
-        } else {
-            parameters = new HashMap<>(parameters);
-        }
-        this.parameters = Collections.unmodifiableMap(parameters);
+        this.parameters = URLParameters.of(parameters);
     }
 
     /**
@@ -485,11 +479,38 @@ class URL implements Serializable {
     }
 
     public String getParameter(String key) {
-        String value = parameters.get(key);
-        if (StringUtils.isEmpty(value)) {
-            value = parameters.get(DEFAULT_KEY_PREFIX + key);
+        int i = getParameterIndex(key);
+        return i < 0 ? null : getParameterTable().valueAt(i);
+    }
+
+    private URLParameters getParameterTable() {
+        return (URLParameters) parameters;
+    }
+
+    /**
+     * key的值为空时取default.key，返回值所在的下标
+     */
+    private int getParameterIndex(String key) {
+        URLParameters table = getParameterTable();
+        int i = table.indexOf(key);
+        if (i < 0 || StringUtils.isEmpty(table.valueAt(i))) {
+            return table.indexOf(DEFAULT_KEY, key);
         }
-        return value;
+        return i;
+    }
+
+    /**
+     * method.key的值为空时按getParameterIndex查找
+     */
+    private int getMethodParameterIndex(String method, String key) {
+        if (method != null) {
+            URLParameters table = getParameterTable();
+            int i = table.indexOf(method, key);
+            if (i >= 0 && StringUtils.isNotEmpty(table.valueAt(i))) {
+                return i;
+            }
+        }
+        return getParameterIndex(key);
     }
 
     public String getParameter(String key, String defaultValue) {
@@ -517,13 +538,6 @@ class URL implements Serializable {
         return Arrays.asList(strArray);
     }
 
-    private Map<String, Number> getNumbers() {
-        if (numbers == null) { // concurrent initialization is tolerant
-            numbers = new ConcurrentHashMap<>();
-        }
-        return numbers;
-    }
-
     private Map<String, URL> getUrls() {
         if (urls == null) { // concurrent initialization is tolerant
             urls = new ConcurrentHashMap<>();
@@ -546,86 +560,134 @@ class URL implements Serializable {
     }
 
     public double getParameter(String key, double defaultValue) {
-        Number n = getNumbers().get(key);
+        return doubleAt(getParameterIndex(key), defaultValue);
+    }
+
+    public float getParameter(String key, float defaultValue) {
+        return floatAt(getParameterIndex(key), defaultValue);
+    }
+
+    public long getParameter(String key, long defaultValue) {
+        return longAt(getParameterIndex(key), defaultValue);
+    }
+
+    public int getParameter(String key, int defaultValue) {
+        return intAt(getParameterIndex(key), defaultValue);
+    }
+
+    public short getParameter(String key, short defaultValue) {
+        return shortAt(getParameterIndex(key), defaultValue);
+    }
+
+    public byte getParameter(String key, byte defaultValue) {
+        return byteAt(getParameterIndex(key), defaultValue);
+    }
+
+    private double doubleAt(int index, double defaultValue) {
+        if (index < 0) {
+            return defaultValue;
+        }
+        URLParameters table = getParameterTable();
+        Number n = table.numberAt(index);
         if (n != null) {
             return n.doubleValue();
         }
-        String value = getParameter(key);
+        String value = table.valueAt(index);
         if (StringUtils.isEmpty(value)) {
             return defaultValue;
         }
         double d = Double.parseDouble(value);
-        getNumbers().put(key, d);
+        table.cacheNumber(index, d);
         return d;
     }
 
-    public float getParameter(String key, float defaultValue) {
-        Number n = getNumbers().get(key);
+    private float floatAt(int index, float defaultValue) {
+        if (index < 0) {
+            return defaultValue;
+        }
+        URLParameters table = getParameterTable();
+        Number n = table.numberAt(index);
         if (n != null) {
             return n.floatValue();
         }
-        String value = getParameter(key);
+        String value = table.valueAt(index);
         if (StringUtils.isEmpty(value)) {
             return defaultValue;
         }
         float f = Float.parseFloat(value);
-        getNumbers().put(key, f);
+        table.cacheNumber(index, f);
         return f;
     }
 
-    public long getParameter(String key, long defaultValue) {
-        Number n = getNumbers().get(key);
+    private long longAt(int index, long defaultValue) {
+        if (index < 0) {
+            return defaultValue;
+        }
+        URLParameters table = getParameterTable();
+        Number n = table.numberAt(index);
         if (n != null) {
             return n.longValue();
         }
-        String value = getParameter(key);
+        String value = table.valueAt(index);
         if (StringUtils.isEmpty(value)) {
             return defaultValue;
         }
         long l = Long.parseLong(value);
-        getNumbers().put(key, l);
+        table.cacheNumber(index, l);
         return l;
     }
 
-    public int getParameter(String key, int defaultValue) {
-        Number n = getNumbers().get(key);
+    private int intAt(int index, int defaultValue) {
+        if (index < 0) {
+            return defaultValue;
+        }
+        URLParameters table = getParameterTable();
+        Number n = table.numberAt(index);
         if (n != null) {
             return n.intValue();
         }
-        String value = getParameter(key);
+        String value = table.valueAt(index);
         if (StringUtils.isEmpty(value)) {
             return defaultValue;
         }
         int i = Integer.parseInt(value);
-        getNumbers().put(key, i);
+        table.cacheNumber(index, i);
         return i;
     }
 
-    public short getParameter(String key, short defaultValue) {
-        Number n = getNumbers().get(key);
+    private short shortAt(int index, short defaultValue) {
+        if (index < 0) {
+            return defaultValue;
+        }
+        URLParameters table = getParameterTable();
+        Number n = table.numberAt(index);
         if (n != null) {
             return n.shortValue();
         }
-        String value = getParameter(key);
+        String value = table.valueAt(index);
         if (StringUtils.isEmpty(value)) {
             return defaultValue;
         }
         short s = Short.parseShort(value);
-        getNumbers().put(key, s);
+        table.cacheNumber(index, s);
         return s;
     }
 
-    public byte getParameter(String key, byte defaultValue) {
-        Number n = getNumbers().get(key);
+    private byte byteAt(int index, byte defaultValue) {
+        if (index < 0) {
+            return defaultValue;
+        }
+        URLParameters table = getParameterTable();
+        Number n = table.numberAt(index);
         if (n != null) {
             return n.byteValue();
         }
-        String value = getParameter(key);
+        String value = table.valueAt(index);
         if (StringUtils.isEmpty(value)) {
             return defaultValue;
         }
         byte b = Byte.parseByte(value);
-        getNumbers().put(key, b);
+        table.cacheNumber(index, b);
         return b;
     }
 
@@ -725,11 +787,8 @@ class URL implements Serializable {
     }
 
     public String getMethodParameter(String method, String key) {
-        String value = parameters.get(method + "." + key);
-        if (StringUtils.isEmpty(value)) {
-            return getParameter(key);
-        }
-        return value;
+        int i = getMethodParameterIndex(method, key);
+        return i < 0 ? null : getParameterTable().valueAt(i);
     }
 
     public String getMethodParameter(String method, String key, String defaultValue) {
@@ -741,93 +800,27 @@ class URL implements Serializable {
     }
 
     public double getMethodParameter(String method, String key, double defaultValue) {
-        String methodKey = method + "." + key;
-        Number n = getNumbers().get(methodKey);
-        if (n != null) {
-            return n.doubleValue();
-        }
-        String value = getMethodParameter(method, key);
-        if (StringUtils.isEmpty(value)) {
-            return defaultValue;
-        }
-        double d = Double.parseDouble(value);
-        getNumbers().put(methodKey, d);
-        return d;
+        return doubleAt(getMethodParameterIndex(method, key), defaultValue);
     }
 
     public float getMethodParameter(String method, String key, float defaultValue) {
-        String methodKey = method + "." + key;
-        Number n = getNumbers().get(methodKey);
-        if (n != null) {
-            return n.floatValue();
-        }
-        String value = getMethodParameter(method, key);
-        if (StringUtils.isEmpty(value)) {
-            return defaultValue;
-        }
-        float f = Float.parseFloat(value);
-        getNumbers().put(methodKey, f);
-        return f;
+        return floatAt(getMethodParameterIndex(method, key), defaultValue);
     }
 
     public long getMethodParameter(String method, String key, long defaultValue) {
-        String methodKey = method + "." + key;
-        Number n = getNumbers().get(methodKey);
-        if (n != null) {
-            return n.longValue();
-        }
-        String value = getMethodParameter(method, key);
-        if (StringUtils.isEmpty(value)) {
-            return defaultValue;
-        }
-        long l = Long.parseLong(value);
-        getNumbers().put(methodKey, l);
-        return l;
+        return longAt(getMethodParameterIndex(method, key), defaultValue);
     }
 
     public int getMethodParameter(String method, String key, int defaultValue) {
-        String methodKey = method + "." + key;
-        Number n = getNumbers().get(methodKey);
-        if (n != null) {
-            return n.intValue();
-        }
-        String value = getMethodParameter(method, key);
-        if (StringUtils.isEmpty(value)) {
-            return defaultValue;
-        }
-        int i = Integer.parseInt(value);
-        getNumbers().put(methodKey, i);
-        return i;
+        return intAt(getMethodParameterIndex(method, key), defaultValue);
     }
 
     public short getMethodParameter(String method, String key, short defaultValue) {
-        String methodKey = method + "." + key;
-        Number n = getNumbers().get(methodKey);
-        if (n != null) {
-            return n.shortValue();
-        }
-        String value = getMethodParameter(method, key);
-        if (StringUtils.isEmpty(value)) {
-            return defaultValue;
-        }
-        short s = Short.parseShort(value);
-        getNumbers().put(methodKey, s);
-        return s;
+        return shortAt(getMethodParameterIndex(method, key), defaultValue);
     }
 
     public byte getMethodParameter(String method, String key, byte defaultValue) {
-        String methodKey = method + "." + key;
-        Number n = getNumbers().get(methodKey);
-        if (n != null) {
-            return n.byteValue();
-        }
-        String value = getMethodParameter(method, key);
-        if (StringUtils.isEmpty(value)) {
-            return defaultValue;
-        }
-        byte b = Byte.parseByte(value);
-        getNumbers().put(methodKey, b);
-        return b;
+        return byteAt(getMethodParameterIndex(method, key), defaultValue);
     }
 
     public double getMethodPositiveParameter(String method, String key, double defaultValue) {
@@ -1011,9 +1004,7 @@ class URL implements Serializable {
         if (value.equals(getParameters().get(key))) { // value != null
             return this;
         }
-        Map<String, String> map = new HashMap<>(getParameters());
-        map.put(key, value);
-        return new URL(protocol, username, password, host, port, path, map);
+        return new URL(protocol, username, password, host, port, path, getParameterTable().with(key, value));
     }
 
     public URL addParameterIfAbsent(String key, String value) {
@@ -1023,9 +1014,7 @@ class URL implements Serializable {
         if (hasParameter(key)) {
             return this;
         }
-        Map<String, String> map = new HashMap<>(getParameters());
-        map.put(key, value);
-        return new URL(protocol, username, password, host, port, path, map);
+        return new URL(protocol, username, password, host, port, path, getParameterTable().with(key, value));
     }
 
     /**
@@ -1057,18 +1046,23 @@ class URL implements Serializable {
         if (hasAndEqual) {
             return this;
         }
-        Map<String, String> map = new HashMap<>(getParameters());
-        map.putAll(parameters);
-        return new URL(protocol, username, password, host, port, path, map);
+        return new URL(protocol, username, password, host, port, path, getParameterTable().with(parameters));
     }
 
     public URL addParametersIfAbsent(Map<String, String> parameters) {
         if (CollectionUtils.isEmptyMap(parameters)) {
             return this;
         }
-        Map<String, String> map = new HashMap<>(parameters);
-        map.putAll(getParameters());
-        return new URL(protocol, username, password, host, port, path, map);
+        Map<String, String> absent = new HashMap<>();
+        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+            if (!getParameters().containsKey(entry.getKey())) {
+                absent.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (absent.isEmpty()) {
+            return this;
+        }
+        return new URL(protocol, username, password, host, port, path, getParameterTable().with(absent));
     }
 
     public URL addParameters(String... pairs) {
@@ -1111,18 +1105,15 @@ class URL implements Serializable {
         if (keys == null || keys.length == 0) {
             return this;
         }
-        Map<String, String> map = new HashMap<>(getParameters());
-        for (String key : keys) {
-            map.remove(key);
-        }
-        if (map.size() == getParameters().size()) {
+        URLParameters table = getParameterTable().without(keys);
+        if (table == getParameterTable()) {
             return this;
         }
-        return new URL(protocol, username, password, host, port, path, map);
+        return new URL(protocol, username, password, host, port, path, table);
     }
 
     public URL clearParameters() {
-        return new URL(protocol, username, password, host, port, path, new HashMap<>());
+        return new URL(protocol, username, password, host, port, path, URLParameters.EMPTY);
     }
 
     public String getRawParameter(String key) {
@@ -1221,7 +1212,8 @@ class URL implements Serializable {
         if (CollectionUtils.isNotEmptyMap(getParameters())) {
             List<String> includes = (ArrayUtils.isEmpty(parameters) ? null : Arrays.asList(parameters));
             boolean first = true;
-            for (Map.Entry<String, String> entry : new TreeMap<>(getParameters()).entrySet()) {
+            // URLParameters按键排序，不需要再拷贝到TreeMap
+            for (Map.Entry<String, String> entry : getParameters().entrySet()) {
                 if (entry.getKey() != null && entry.getKey().length() > 0 && (includes == null || includes.contains(entry.getKey()))) {
                     if (first) {
                         if (concat) {
@@ -1464,6 +1456,16 @@ class URL implements Serializable {
         return configuration;
     }
 
+    /**
+     * hessian反序列化时parameters会被还原成HashMap，这里重新转换成URLParameters
+     */
+    private Object readResolve() {
+        if (parameters == null || parameters instanceof URLParameters) {
+            return this;
+        }
+        return new URL(protocol, username, password, host, port, path, parameters);
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -0,0 +1,352 @@
+package org.apache.dubbo.common;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * URL的不可变参数表
+ * 键按字典序存放在数组中，值存放在对齐的数组中，另用开放寻址的int[]做散列索引，没有Entry对象
+ * 键在全局池中去重，注册中心推送的大量provider URL共用同一批键字符串
+ * 数字参数解析后按槽位缓存，同一个表派生出的URL共享这份缓存
+ * 只修改已有键的值时，新表与原表共享键数组和索引，只复制值数组
+ * 方法参数(method.key)按拼接后字符串的hash直接查找，不需要拼接
+ */
+final class URLParameters extends AbstractMap<String, String> implements Serializable {
+
+    private static final long serialVersionUID = 3517461542326452165L;
+
+    static final URLParameters EMPTY = new URLParameters(new String[0], new String[0]);
+
+    /**
+     * 键池上限，方法参数的键随方法数增长，超过上限后不再去重
+     */
+    private static final int MAX_INTERNED_KEYS = 64 * 1024;
+
+    private static final ConcurrentMap<String, String> KEYS = new ConcurrentHashMap<>();
+
+    private static final Comparator<String> KEY_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final String[] keys;
+
+    private final String[] values;
+
+    /**
+     * 槽位里存放 数组下标+1，0表示空槽
+     */
+    private final int[] index;
+
+    // ==== cache ====
+
+    private transient volatile Number[] numbers;
+
+    private transient int hash;
+
+    private URLParameters(String[] keys, String[] values) {
+        this(keys, buildIndex(keys), values);
+    }
+
+    private URLParameters(String[] keys, int[] index, String[] values) {
+        this.keys = keys;
+        this.index = index;
+        this.values = values;
+    }
+
+    static URLParameters of(Map<String, String> parameters) {
+        if (parameters instanceof URLParameters) {
+            return (URLParameters) parameters;
+        }
+        if (parameters == null || parameters.isEmpty()) {
+            return EMPTY;
+        }
+        @SuppressWarnings("unchecked")
+        Map.Entry<String, String>[] entries = parameters.entrySet().toArray(new Map.Entry[0]);
+        Arrays.sort(entries, (a, b) -> KEY_ORDER.compare(a.getKey(), b.getKey()));
+        String[] keys = new String[entries.length];
+        String[] values = new String[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            keys[i] = intern(entries[i].getKey());
+            values[i] = entries[i].getValue();
+        }
+        return new URLParameters(keys, values);
+    }
+
+    /**
+     * @return 键的下标，不存在时返回-1
+     */
+    int indexOf(String key) {
+        int mask = index.length - 1;
+        for (int slot = spread(key == null ? 0 : key.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            int i = index[slot] - 1;
+            if (i < 0) {
+                return -1;
+            }
+            String k = keys[i];
+            if (k == key || (k != null && k.equals(key))) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * 查找 prefix + "." + key，按String.hashCode的定义由两段的hash合成，不创建拼接后的字符串
+     */
+    int indexOf(String prefix, String key) {
+        int prefixLength = prefix.length();
+        int length = prefixLength + 1 + key.length();
+        int h = prefix.hashCode() * 31 + '.';
+        for (int j = 0; j < key.length(); j++) {
+            h *= 31;
+        }
+        h += key.hashCode();
+        int mask = index.length - 1;
+        for (int slot = spread(h) & mask; ; slot = (slot + 1) & mask) {
+            int i = index[slot] - 1;
+            if (i < 0) {
+                return -1;
+            }
+            String k = keys[i];
+            if (k != null && k.length() == length && k.charAt(prefixLength) == '.'
+                    && k.startsWith(prefix) && k.endsWith(key)) {
+                return i;
+            }
+        }
+    }
+
+    String keyAt(int i) {
+        return keys[i];
+    }
+
+    String valueAt(int i) {
+        return values[i];
+    }
+
+    Number numberAt(int i) {
+        Number[] cache = numbers;
+        return cache == null ? null : cache[i];
+    }
+
+    /**
+     * Number不可变，并发写入同一槽位是无害的
+     */
+    void cacheNumber(int i, Number number) {
+        Number[] cache = numbers;
+        if (cache == null) { // concurrent initialization is tolerant
+            cache = new Number[values.length];
+            numbers = cache;
+        }
+        cache[i] = number;
+    }
+
+    URLParameters with(String key, String value) {
+        int i = indexOf(key);
+        if (i >= 0) {
+            if (Objects.equals(values[i], value)) {
+                return this;
+            }
+            String[] newValues = values.clone();
+            newValues[i] = value;
+            return new URLParameters(keys, index, newValues);
+        }
+        int insertion = -Arrays.binarySearch(keys, key, KEY_ORDER) - 1;
+        String[] newKeys = new String[keys.length + 1];
+        String[] newValues = new String[values.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, insertion);
+        System.arraycopy(values, 0, newValues, 0, insertion);
+        newKeys[insertion] = intern(key);
+        newValues[insertion] = value;
+        System.arraycopy(keys, insertion, newKeys, insertion + 1, keys.length - insertion);
+        System.arraycopy(values, insertion, newValues, insertion + 1, values.length - insertion);
+        return new URLParameters(newKeys, newValues);
+    }
+
+    /**
+     * 覆盖或追加一批参数，都是已有键时共享键数组和索引
+     */
+    URLParameters with(Map<String, String> parameters) {
+        String[] newValues = null;
+        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+            int i = indexOf(entry.getKey());
+            if (i < 0) {
+                Map<String, String> merged = new HashMap<>(this);
+                merged.putAll(parameters);
+                return of(merged);
+            }
+            if (!Objects.equals(values[i], entry.getValue())) {
+                if (newValues == null) {
+                    newValues = values.clone();
+                }
+                newValues[i] = entry.getValue();
+            }
+        }
+        return newValues == null ? this : new URLParameters(keys, index, newValues);
+    }
+
+    URLParameters without(String... removed) {
+        boolean[] skip = null;
+        int count = 0;
+        for (String key : removed) {
+            int i = indexOf(key);
+            if (i >= 0) {
+                if (skip == null) {
+                    skip = new boolean[keys.length];
+                }
+                if (!skip[i]) {
+                    skip[i] = true;
+                    count++;
+                }
+            }
+        }
+        if (count == 0) {
+            return this;
+        }
+        if (count == keys.length) {
+            return EMPTY;
+        }
+        String[] newKeys = new String[keys.length - count];
+        String[] newValues = new String[keys.length - count];
+        for (int i = 0, j = 0; i < keys.length; i++) {
+            if (!skip[i]) {
+                newKeys[j] = keys[i];
+                newValues[j] = values[i];
+                j++;
+            }
+        }
+        return new URLParameters(newKeys, newValues);
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return (key == null || key instanceof String) && indexOf((String) key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        if (key != null && !(key instanceof String)) {
+            return null;
+        }
+        int i = indexOf((String) key);
+        return i < 0 ? null : values[i];
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<Entry<String, String>>() {
+                    private int i;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i < keys.length;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (i >= keys.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, String> entry = new SimpleImmutableEntry<>(keys[i], values[i]);
+                        i++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            for (int i = 0; i < keys.length; i++) {
+                h += Objects.hashCode(keys[i]) ^ Objects.hashCode(values[i]);
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof URLParameters) {
+            URLParameters other = (URLParameters) o;
+            return Arrays.equals(keys, other.keys) && Arrays.equals(values, other.values);
+        }
+        return super.equals(o);
+    }
+
+    /**
+     * 反序列化后重新去重键
+     */
+    private Object readResolve() {
+        String[] interned = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            interned[i] = intern(keys[i]);
+        }
+        return new URLParameters(interned, index, values);
+    }
+
+    private static String intern(String key) {
+        if (key == null) {
+            return null;
+        }
+        String interned = KEYS.get(key);
+        if (interned != null) {
+            return interned;
+        }
+        if (KEYS.size() >= MAX_INTERNED_KEYS) {
+            return key;
+        }
+        interned = KEYS.putIfAbsent(key, key);
+        return interned == null ? key : interned;
+    }
+
+    private static int[] buildIndex(String[] keys) {
+        int capacity = 2;
+        while (capacity < keys.length * 2) {
+            capacity <<= 1;
+        }
+        int[] index = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < keys.length; i++) {
+            int slot = spread(keys[i] == null ? 0 : keys[i].hashCode()) & mask;
+            while (index[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = i + 1;
+        }
+        return index;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+}
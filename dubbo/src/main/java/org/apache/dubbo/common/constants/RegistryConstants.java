@@ -69,6 +69,17 @@ public interface RegistryConstants {
 
     String REGISTRY_FILESAVE_SYNC_KEY = "save.file";
 
+    String REGISTRY_FILESAVE_INTERVAL_KEY = "save.file.interval";
+
+    int DEFAULT_REGISTRY_FILESAVE_INTERVAL = 1000;
+
+    /**
+     * RegistryDirectory合并通知的延迟（毫秒），0 表示每次通知立即刷新
+     */
+    String NOTIFY_DELAY_KEY = "notify.delay";
+
+    int DEFAULT_NOTIFY_DELAY = 100;
+
     String REGISTRY_RETRY_PERIOD_KEY = "retry.period";
 
     String REGISTRY_RETRY_TIMES_KEY = "retry.times";
@@ -88,6 +88,18 @@ public interface RpcConstants {
 
     long DEFAULT_TPS_LIMIT_INTERVAL = 60 * 1000;
 
+    String TPS_LIMITER_KEY = "tps.limiter";
+
+    String TPS_LIMIT_BURST_KEY = "tps.burst";
+
+    String TPS_LIMIT_SCOPE_KEY = "tps.scope";
+
+    String TPS_LIMIT_SCOPE_SERVICE = "service";
+
+    String TPS_LIMIT_SCOPE_METHOD = "method";
+
+    String TPS_LIMIT_SCOPE_APPLICATION = "application";
+
     String AUTO_ATTACH_INVOCATIONID_KEY = "invocationid.autoattach";
 
     String STUB_EVENT_KEY = "dubbo.stub.event";
@@ -110,6 +122,27 @@ public interface RpcConstants {
 
     String ACCESS_LOG_KEY = "accesslog";
 
+    /**
+     * 每个访问日志的环形缓冲区大小，会向上取整为2的幂
+     */
+    String ACCESS_LOG_BUFFER_KEY = "accesslog.buffer";
+
+    int DEFAULT_ACCESS_LOG_BUFFER = 8192;
+
+    /**
+     * 缓冲区满时的处理策略：drop直接丢弃，block等待写线程腾出空间（最多等待一段时间后丢弃）
+     */
+    String ACCESS_LOG_POLICY_KEY = "accesslog.policy";
+
+    String ACCESS_LOG_POLICY_DROP = "drop";
+
+    String ACCESS_LOG_POLICY_BLOCK = "block";
+
+    /**
+     * 单个日志文件的最大字节数，超过后滚动，0 表示只按天滚动
+     */
+    String ACCESS_LOG_MAX_FILE_SIZE_KEY = "accesslog.max.file.size";
+
     String ACTIVES_KEY = "actives";
 
     String CONNECTIONS_KEY = "connections";
@@ -132,6 +165,11 @@ public interface RpcConstants {
 
     String LOCAL_PROTOCOL = "injvm";
 
+    /**
+     * injvm直连模式，消费端不传递RpcContext，绕过服务端过滤链直接调用服务实现的Invoker，$invoke 和 $echo 除外
+     */
+    String INJVM_DIRECT_KEY = "injvm.direct";
+
     String KEEP_ALIVE_KEY = "keepalive";
 
     boolean DEFAULT_KEEP_ALIVE = true;
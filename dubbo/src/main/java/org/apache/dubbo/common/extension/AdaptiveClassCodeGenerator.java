@@ -24,6 +24,8 @@ public class AdaptiveClassCodeGenerator {
 
     private static final String CODE_CLASS_DECLARATION = "public class %s$Adaptive implements %s {\n";
 
+    private static final String CODE_EXTENSION_CACHE = "private final %s extensions = new %<s(%s.class);\n";
+
     private static final String CODE_METHOD_DECLARATION = "public %s %s(%s) %s {\n%s}\n";
 
     private static final String CODE_METHOD_ARGUMENT = "%s arg%d";
@@ -40,7 +42,7 @@ public class AdaptiveClassCodeGenerator {
 
     private static final String CODE_INVOCATION_ARGUMENT_NULL_CHECK = "if (arg%d == null) throw new IllegalArgumentException(\"invocation == null\"); " + "String methodName = arg%d.getMethodName();\n";
 
-    private static final String CODE_EXTENSION_ASSIGNMENT = "%s extension = (%<s)%s.getExtensionLoader(%s.class).getExtension(extName);\n";
+    private static final String CODE_EXTENSION_ASSIGNMENT = "%s extension = (%<s)extensions.get(extName);\n";
 
     private final Class<?> type;
 
@@ -67,6 +69,8 @@ public class AdaptiveClassCodeGenerator {
         code.append(generateImports());
         // 生成类代码：public class + type简单名称 + $Adaptive + implements + type全限定名 + {
         code.append(generateClassDeclaration());
+        // 生成扩展实例缓存字段：private final AdaptiveExtensionCache extensions = new AdaptiveExtensionCache(type全限定名.class);
+        code.append(generateExtensionCache());
         // 通过反射获取所有的方法
         Method[] methods = type.getMethods();
         // 遍历方法列表
@@ -93,6 +97,10 @@ public class AdaptiveClassCodeGenerator {
         return String.format(CODE_CLASS_DECLARATION, type.getSimpleName(), type.getCanonicalName());
     }
 
+    private String generateExtensionCache() {
+        return String.format(CODE_EXTENSION_CACHE, AdaptiveExtensionCache.class.getName(), type.getCanonicalName());
+    }
+
     private String generateUnsupported(Method method) {
         return String.format(CODE_UNSUPPORTED, method, type.getName());
     }
@@ -289,9 +297,9 @@ public class AdaptiveClassCodeGenerator {
 
     private String generateExtensionAssignment() {
         // 生成拓展获取代码，格式如下：
-        // type全限定名 extension = (type全限定名)ExtensionLoader全限定名.getExtensionLoader(type全限定名.class).getExtension(extName);
+        // type全限定名 extension = (type全限定名)extensions.get(extName);
         // Tips: 格式化字符串中的 %<s 表示使用前一个转换符所描述的参数，即type全限定名
-        return String.format(CODE_EXTENSION_ASSIGNMENT, type.getName(), ExtensionLoader.class.getSimpleName(), type.getName());
+        return String.format(CODE_EXTENSION_ASSIGNMENT, type.getName());
     }
 
     private String generateReturnAndInvocation(Method method) {
@@ -0,0 +1,40 @@
+package org.apache.dubbo.common.extension;
+
+import org.apache.dubbo.common.utils.Holder;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 生成的$Adaptive类使用的扩展实例缓存，每个$Adaptive实例持有一个
+ * 按扩展名缓存ExtensionLoader中的实例Holder，命中时只有一次Map查找，不再经过getExtensionLoader和getExtension
+ * replaceExtension会清空被替换的Holder，缓存读到null时重新从ExtensionLoader获取
+ */
+public class AdaptiveExtensionCache {
+
+    private final ExtensionLoader<?> loader;
+
+    private final ConcurrentMap<String, Holder<Object>> holders = new ConcurrentHashMap<>();
+
+    public AdaptiveExtensionCache(Class<?> type) {
+        this.loader = ExtensionLoader.getExtensionLoader(type);
+    }
+
+    public Object get(String name) {
+        Holder<Object> holder = holders.get(name);
+        if (holder != null) {
+            Object instance = holder.get();
+            if (instance != null) {
+                return instance;
+            }
+        }
+        Object instance = loader.getExtension(name);
+        holder = loader.getInstanceHolder(name);
+        // "true"取的是默认扩展，没有自己的Holder
+        if (holder != null) {
+            holders.put(name, holder);
+        }
+        return instance;
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.apache.dubbo.common.extension;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+
+/**
+ * 扩展配置文件索引 META-INF/dubbo/extensions.idx
+ * 构建时由main方法扫描classes目录生成，每行是一个扩展配置文件相对于classpath根的路径
+ * 启动参数-Ddubbo.extension.index=true时，ExtensionLoader每个ClassLoader只查找一次索引文件，按索引直接打开配置文件，
+ * 不再为每个扩展点的6个候选文件名分别扫描整个classpath，没有索引的jar中的扩展配置不会被加载
+ */
+public final class ExtensionIndex {
+
+    static final String INDEX_FILE = "META-INF/dubbo/extensions.idx";
+
+    static final String ENABLE_KEY = "dubbo.extension.index";
+
+    private static final String[] DIRECTORIES = {"META-INF/dubbo/internal/", "META-INF/dubbo/", "META-INF/services/"};
+
+    private static final Map<ClassLoader, ExtensionIndex> INDEXES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * 配置文件路径 - 各jar中同名配置文件的URL
+     */
+    private final Map<String, List<java.net.URL>> resources;
+
+    private ExtensionIndex(Map<String, List<java.net.URL>> resources) {
+        this.resources = resources;
+    }
+
+    static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLE_KEY);
+    }
+
+    static ExtensionIndex getIndex(ClassLoader classLoader) {
+        return INDEXES.computeIfAbsent(classLoader, ExtensionIndex::load);
+    }
+
+    List<java.net.URL> getResources(String fileName) {
+        List<java.net.URL> urls = resources.get(fileName);
+        return urls == null ? Collections.emptyList() : urls;
+    }
+
+    private static ExtensionIndex load(ClassLoader classLoader) {
+        Map<String, List<java.net.URL>> resources = new HashMap<>();
+        try {
+            Enumeration<java.net.URL> urls = classLoader != null ? classLoader.getResources(INDEX_FILE) : ClassLoader.getSystemResources(INDEX_FILE);
+            while (urls.hasMoreElements()) {
+                java.net.URL indexURL = urls.nextElement();
+                // 索引所在jar或目录的根路径
+                String base = indexURL.toString();
+                base = base.substring(0, base.length() - INDEX_FILE.length());
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(indexURL.openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        line = line.trim();
+                        if (line.length() > 0 && line.charAt(0) != '#') {
+                            resources.computeIfAbsent(line, k -> new ArrayList<>()).add(new java.net.URL(base + line));
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load extension index " + INDEX_FILE + ", cause: " + e.getMessage(), e);
+        }
+        return new ExtensionIndex(resources);
+    }
+
+    /**
+     * 构建时生成索引，参数为classes输出目录
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: ExtensionIndex <classes directory>");
+        }
+        File root = new File(args[0]);
+        TreeSet<String> files = new TreeSet<>();
+        for (String dir : DIRECTORIES) {
+            File[] children = new File(root, dir).listFiles();
+            if (children == null) {
+                continue;
+            }
+            for (File child : children) {
+                String path = dir + child.getName();
+                if (child.isFile() && !INDEX_FILE.equals(path)) {
+                    files.add(path);
+                }
+            }
+        }
+        File index = new File(root, INDEX_FILE);
+        if (files.isEmpty()) {
+            Files.deleteIfExists(index.toPath());
+            return;
+        }
+        Files.createDirectories(index.getParentFile().toPath());
+        try (Writer writer = Files.newBufferedWriter(index.toPath(), StandardCharsets.UTF_8)) {
+            for (String file : files) {
+                writer.write(file);
+                writer.write('\n');
+            }
+        }
+    }
+
+}
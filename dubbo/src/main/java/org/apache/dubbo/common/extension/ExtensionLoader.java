@@ -306,6 +306,13 @@ public class ExtensionLoader<T> {
         return holder;
     }
 
+    /**
+     * 已创建扩展实例的Holder，供AdaptiveExtensionCache缓存
+     */
+    Holder<Object> getInstanceHolder(String name) {
+        return cachedInstances.get(name);
+    }
+
     public Set<String> getLoadedExtensions() {
         return Collections.unmodifiableSet(new TreeSet<>(cachedInstances.keySet()));
     }
@@ -416,7 +423,11 @@ public class ExtensionLoader<T> {
             }
             cachedNames.put(clazz, name);
             cachedClasses.get().put(name, clazz);
-            cachedInstances.remove(name);
+            // 清空旧Holder，使AdaptiveExtensionCache中缓存的旧实例失效
+            Holder<Object> holder = cachedInstances.remove(name);
+            if (holder != null) {
+                holder.set(null);
+            }
         } else {
             if (cachedAdaptiveClass == null) {
                 throw new IllegalStateException("Adaptive Extension doesn't exist (Extension " + type + ")!");
@@ -645,6 +656,13 @@ public class ExtensionLoader<T> {
         try {
             Enumeration<java.net.URL> urls;
             ClassLoader classLoader = findClassLoader();
+            // 启用索引时只加载索引中列出的文件
+            if (ExtensionIndex.isEnabled()) {
+                for (java.net.URL resourceURL : ExtensionIndex.getIndex(classLoader).getResources(fileName)) {
+                    loadResource(extensionClasses, classLoader, resourceURL);
+                }
+                return;
+            }
             // 根据文件名加载所有的同名文件
             if (classLoader != null) {
                 urls = classLoader.getResources(fileName);
@@ -25,4 +25,6 @@ public interface Constants {
 
     byte PROTOBUF_JSON_SERIALIZATION_ID = 21;
 
+    byte BINARY_SERIALIZATION_ID = 25;
+
 }
@@ -0,0 +1,97 @@
+package org.apache.dubbo.common.serialize.binary;
+
+import org.apache.dubbo.common.serialize.support.SerializableClassRegistry;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * 二进制格式的类型标记，以及通过 SerializableClassRegistry 预先注册的类编号表
+ * <p>
+ * 预注册的类只写编号，因此两端注册的类及顺序必须一致；未注册的类在流中第一次出现时写类名，之后写流内编号
+ */
+final class BinaryFormat {
+
+    static final byte NULL = 0;
+    static final byte TRUE = 1;
+    static final byte FALSE = 2;
+    static final byte BYTE = 3;
+    static final byte SHORT = 4;
+    static final byte INT = 5;
+    static final byte LONG = 6;
+    static final byte FLOAT = 7;
+    static final byte DOUBLE = 8;
+    static final byte CHAR = 9;
+    static final byte STRING = 10;
+    static final byte BYTES = 11;
+    static final byte BIG_INTEGER = 12;
+    static final byte BIG_DECIMAL = 13;
+    static final byte DATE = 14;
+    static final byte ENUM = 15;
+    static final byte CLASS = 16;
+    static final byte ARRAY = 17;
+    static final byte COLLECTION = 18;
+    static final byte MAP = 19;
+    static final byte OBJECT = 20;
+    static final byte REF = 21;
+    /**
+     * 无法按字段布局处理的其他JDK类，退回Java原生序列化，默认关闭，见 ClassFilter
+     */
+    static final byte JAVA = 22;
+    /**
+     * 异常：类、消息、堆栈、原因、子类字段、被抑制的异常
+     */
+    static final byte THROWABLE = 23;
+    /**
+     * 常用JDK值类型，后跟一个字节的类型编号，见 ValueTypes
+     */
+    static final byte VALUE = 24;
+
+    /**
+     * 类引用：0 表示后面紧跟类名，1..n 为预注册类编号，之后为流内编号
+     */
+    static final int NEW_CLASS = 0;
+
+    private static volatile Class<?>[] registered = new Class<?>[0];
+
+    private static volatile Map<Class<?>, Integer> registeredIds = Collections.emptyMap();
+
+    private BinaryFormat() {
+    }
+
+    static Class<?>[] registeredClasses() {
+        refresh();
+        return registered;
+    }
+
+    /**
+     * @return 预注册类的编号（从1开始），未注册返回 -1
+     */
+    static int registeredId(Class<?> clazz) {
+        refresh();
+        Integer id = registeredIds.get(clazz);
+        return id == null ? -1 : id;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void refresh() {
+        Map<Class, Object> registrations = SerializableClassRegistry.getRegisteredClasses();
+        if (registrations.size() == registered.length) {
+            return;
+        }
+        synchronized (BinaryFormat.class) {
+            if (registrations.size() == registered.length) {
+                return;
+            }
+            Class<?>[] classes = registrations.keySet().toArray(new Class<?>[0]);
+            Map<Class<?>, Integer> ids = new IdentityHashMap<>(classes.length);
+            for (int i = 0; i < classes.length; i++) {
+                ids.put(classes[i], i + 1);
+            }
+            registeredIds = ids;
+            registered = classes;
+        }
+    }
+
+}
@@ -0,0 +1,625 @@
+package org.apache.dubbo.common.serialize.binary;
+
+import org.apache.dubbo.common.serialize.ObjectInput;
+import org.apache.dubbo.common.utils.ClassUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.ARRAY;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.BIG_DECIMAL;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.BIG_INTEGER;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.BYTE;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.BYTES;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.CHAR;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.CLASS;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.COLLECTION;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.DATE;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.DOUBLE;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.ENUM;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.FALSE;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.FLOAT;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.INT;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.JAVA;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.LONG;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.MAP;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.NEW_CLASS;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.NULL;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.OBJECT;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.REF;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.SHORT;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.STRING;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.THROWABLE;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.TRUE;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.VALUE;
+
+public class BinaryObjectInput implements ObjectInput {
+
+    private final InputStream in;
+
+    private List<Object> references;
+
+    private List<Class<?>> classes;
+
+    private char[] chars;
+
+    public BinaryObjectInput(InputStream in) {
+        this.in = in;
+    }
+
+    @Override
+    public boolean readBool() throws IOException {
+        return read() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return (byte) read();
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        return (short) readVarInt();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        return readVarInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return readVarLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readFixedInt());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(((long) readFixedInt() << 32) | (readFixedInt() & 0xFFFFFFFFL));
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        int utfLength = readVarInt();
+        if (utfLength < 0) {
+            return null;
+        }
+        if (chars == null || chars.length < utfLength) {
+            chars = new char[Math.max(utfLength, 64)];
+        }
+        int count = 0;
+        int i = 0;
+        while (i < utfLength) {
+            int b = read();
+            i++;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (read() & 0x3F));
+                i++;
+            } else if ((b & 0xF0) == 0xE0) {
+                chars[count++] = (char) (((b & 0x0F) << 12) | ((read() & 0x3F) << 6) | (read() & 0x3F));
+                i += 2;
+            } else {
+                int cp = ((b & 0x07) << 18) | ((read() & 0x3F) << 12) | ((read() & 0x3F) << 6) | (read() & 0x3F);
+                chars[count++] = Character.highSurrogate(cp);
+                chars[count++] = Character.lowSurrogate(cp);
+                i += 3;
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    @Override
+    public byte[] readBytes() throws IOException {
+        int length = readVarInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        readFully(bytes);
+        return bytes;
+    }
+
+    @Override
+    public Object readObject() throws IOException, ClassNotFoundException {
+        return readObject0(Object.class);
+    }
+
+    /**
+     * @param declared 声明类型，流中的类在加载和实例化前都要与之兼容
+     */
+    private Object readObject0(Class<?> declared) throws IOException, ClassNotFoundException {
+        byte tag = (byte) read();
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case BYTE:
+                return readByte();
+            case SHORT:
+                return (short) readVarInt();
+            case INT:
+                return readVarInt();
+            case LONG:
+                return readVarLong();
+            case FLOAT:
+                return readFloat();
+            case DOUBLE:
+                return readDouble();
+            case CHAR:
+                return (char) readVarInt();
+            case STRING:
+                return readUTF();
+            case BYTES:
+                return readBytes();
+            case BIG_INTEGER:
+                return new BigInteger(readBytes());
+            case BIG_DECIMAL:
+                return new BigDecimal(readUTF());
+            case DATE:
+                return new Date(readVarLong());
+            case ENUM:
+                return readEnum(declared);
+            case CLASS:
+                return ClassFilter.resolve(readUTF(), null);
+            case REF:
+                return checkType(references.get(readVarInt()), declared);
+            case ARRAY:
+                return readArray(readClass(declared.getComponentType()), declared);
+            case COLLECTION:
+                return readCollection(checkType(readClass(declared), Collection.class, declared), declared);
+            case MAP:
+                return readMap(checkType(readClass(declared), Map.class, declared), declared);
+            case OBJECT:
+                return readFields(checkType(readClass(declared), Object.class, declared));
+            case THROWABLE:
+                return readThrowable(declared);
+            case VALUE:
+                return checkType(ValueTypes.read(this, (byte) read()), declared);
+            case JAVA:
+                return checkType(readJava(), declared);
+            default:
+                throw new IOException("Unknown binary serialization tag: " + tag);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T readObject(Class<T> cls) throws IOException, ClassNotFoundException {
+        return (T) readObject0(cls == null || cls.isPrimitive() ? Object.class : cls);
+    }
+
+    @Override
+    public <T> T readObject(Class<T> cls, Type type) throws IOException, ClassNotFoundException {
+        return readObject(cls);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readEnum(Class<?> declared) throws IOException, ClassNotFoundException {
+        Class enumClass = checkType(readClass(declared), Enum.class, declared);
+        return Enum.valueOf(enumClass, readUTF());
+    }
+
+    private Object readArray(Class<?> componentType, Class<?> declared) throws IOException, ClassNotFoundException {
+        checkType(Array.newInstance(componentType, 0).getClass(), Object.class, declared);
+        int length = readVarInt();
+        Object array = Array.newInstance(componentType, length);
+        reference(array);
+        if (!componentType.isPrimitive()) {
+            Object[] objects = (Object[]) array;
+            for (int i = 0; i < length; i++) {
+                objects[i] = readObject0(componentType);
+            }
+            return array;
+        }
+        switch (ClassLayout.kindOf(componentType)) {
+            case 'Z':
+                boolean[] booleans = (boolean[]) array;
+                for (int i = 0; i < length; i++) {
+                    booleans[i] = readBool();
+                }
+                break;
+            case 'B':
+                readFully((byte[]) array);
+                break;
+            case 'S':
+                short[] shorts = (short[]) array;
+                for (int i = 0; i < length; i++) {
+                    shorts[i] = (short) readVarInt();
+                }
+                break;
+            case 'I':
+                int[] ints = (int[]) array;
+                for (int i = 0; i < length; i++) {
+                    ints[i] = readVarInt();
+                }
+                break;
+            case 'J':
+                long[] longs = (long[]) array;
+                for (int i = 0; i < length; i++) {
+                    longs[i] = readVarLong();
+                }
+                break;
+            case 'F':
+                float[] floats = (float[]) array;
+                for (int i = 0; i < length; i++) {
+                    floats[i] = readFloat();
+                }
+                break;
+            case 'D':
+                double[] doubles = (double[]) array;
+                for (int i = 0; i < length; i++) {
+                    doubles[i] = readDouble();
+                }
+                break;
+            default:
+                char[] characters = (char[]) array;
+                for (int i = 0; i < length; i++) {
+                    characters[i] = (char) readVarInt();
+                }
+        }
+        return array;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readCollection(Class<?> type, Class<?> declared) throws IOException, ClassNotFoundException {
+        Collection<Object> collection;
+        if (EnumSet.class.isAssignableFrom(type)) {
+            collection = EnumSet.noneOf((Class) checkType(readClass(null), Enum.class, null));
+        } else {
+            collection = (Collection<Object>) newContainer(type, declared);
+        }
+        reference(collection);
+        int size = readVarInt();
+        for (int i = 0; i < size; i++) {
+            collection.add(readObject());
+        }
+        return collection;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readMap(Class<?> type, Class<?> declared) throws IOException, ClassNotFoundException {
+        Map<Object, Object> map;
+        if (EnumMap.class.isAssignableFrom(type)) {
+            map = new EnumMap((Class) checkType(readClass(null), Enum.class, null));
+        } else {
+            map = (Map<Object, Object>) newContainer(type, declared);
+        }
+        reference(map);
+        int size = readVarInt();
+        for (int i = 0; i < size; i++) {
+            Object key = readObject();
+            map.put(key, readObject());
+        }
+        return map;
+    }
+
+    private Object readFields(Class<?> type) throws IOException, ClassNotFoundException {
+        ClassLayout layout = ClassLayout.of(type);
+        if (!layout.reflective) {
+            throw new IOException("Class " + type.getName() + " can not be deserialized by field layout");
+        }
+        try {
+            Object obj = layout.newInstance();
+            reference(obj);
+            readFieldValues(obj, layout);
+            return obj;
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Failed to deserialize " + type.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 与 BinaryObjectOutput.writeThrowable 的顺序一致；构造前先占住引用编号，
+     * 原因中对该异常本身的引用读出为null
+     */
+    private Object readThrowable(Class<?> declared) throws IOException, ClassNotFoundException {
+        Class<?> type = checkType(readThrowableClass(), Throwable.class, declared);
+        ClassLayout layout = ClassLayout.of(type);
+        int index = reference(null);
+        String message = readUTF();
+        StackTraceElement[] trace = new StackTraceElement[readVarInt()];
+        for (int i = 0; i < trace.length; i++) {
+            trace[i] = new StackTraceElement(readUTF(), readUTF(), readUTF(), readVarInt());
+        }
+        Throwable cause = (Throwable) readObject0(Throwable.class);
+        try {
+            Throwable t = layout.newThrowable(message, cause);
+            references.set(index, t);
+            t.setStackTrace(trace);
+            if (cause != null && t.getCause() != cause) {
+                try {
+                    t.initCause(cause);
+                } catch (IllegalStateException | IllegalArgumentException e) {
+                    // 构造器已经设置了其他原因
+                }
+            }
+            readFieldValues(t, layout);
+            int suppressed = readVarInt();
+            for (int i = 0; i < suppressed; i++) {
+                Throwable s = (Throwable) readObject0(Throwable.class);
+                if (s != null && s != t) {
+                    t.addSuppressed(s);
+                }
+            }
+            return t;
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Failed to deserialize " + type.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void readFieldValues(Object obj, ClassLayout layout) throws IOException, ClassNotFoundException, ReflectiveOperationException {
+        Field[] fields = layout.fields;
+        char[] kinds = layout.kinds;
+        for (int i = 0; i < fields.length; i++) {
+            Field field = fields[i];
+            switch (kinds[i]) {
+                case 'Z':
+                    field.setBoolean(obj, readBool());
+                    break;
+                case 'B':
+                    field.setByte(obj, readByte());
+                    break;
+                case 'S':
+                    field.setShort(obj, (short) readVarInt());
+                    break;
+                case 'I':
+                    field.setInt(obj, readVarInt());
+                    break;
+                case 'J':
+                    field.setLong(obj, readVarLong());
+                    break;
+                case 'F':
+                    field.setFloat(obj, readFloat());
+                    break;
+                case 'D':
+                    field.setDouble(obj, readDouble());
+                    break;
+                case 'C':
+                    field.setChar(obj, (char) readVarInt());
+                    break;
+                default:
+                    field.set(obj, readObject0(field.getType()));
+            }
+        }
+    }
+
+    private Object readJava() throws IOException, ClassNotFoundException {
+        if (!ClassFilter.JAVA_ENABLED) {
+            throw new IOException("Java serialization is disabled in binary serialization, enable it by -D" + ClassFilter.JAVA_ENABLE_KEY + "=true");
+        }
+        int index = reference(null);
+        try (ObjectInputStream ois = new FilteredObjectInputStream(new ByteArrayInputStream(readBytes()))) {
+            Object obj = ois.readObject();
+            references.set(index, obj);
+            return obj;
+        }
+    }
+
+    /**
+     * 优先使用实际类型的无参构造器；不可用时（如 Collections.unmodifiableList）使用声明类型的无参构造器，
+     * 声明类型是接口或抽象类时按实际类型实现的接口选择保持其语义的实现，结果必须与声明类型兼容
+     * 类型已经过 ClassFilter 检查并确认是 Collection 或 Map
+     */
+    private static Object newContainer(Class<?> type, Class<?> declared) throws IOException {
+        Object container = newInstance(type);
+        if (container == null && declared != Object.class && !declared.isInterface() && !Modifier.isAbstract(declared.getModifiers())) {
+            container = newInstance(declared);
+        }
+        if (container == null) {
+            container = defaultContainer(type);
+        }
+        if (!declared.isInstance(container)) {
+            throw new IOException("Can not create an instance of " + type.getName() + " compatible with declared type " + declared.getName());
+        }
+        return container;
+    }
+
+    private static Object newInstance(Class<?> type) {
+        try {
+            return type.getConstructor().newInstance();
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    private static Object defaultContainer(Class<?> type) {
+        if (Map.class.isAssignableFrom(type)) {
+            if (ConcurrentNavigableMap.class.isAssignableFrom(type)) {
+                return new ConcurrentSkipListMap<>();
+            } else if (ConcurrentMap.class.isAssignableFrom(type)) {
+                return new ConcurrentHashMap<>();
+            } else if (SortedMap.class.isAssignableFrom(type)) {
+                return new TreeMap<>();
+            }
+            return new LinkedHashMap<>();
+        } else if (SortedSet.class.isAssignableFrom(type)) {
+            return new TreeSet<>();
+        } else if (Set.class.isAssignableFrom(type)) {
+            return new LinkedHashSet<>();
+        } else if (BlockingDeque.class.isAssignableFrom(type)) {
+            return new LinkedBlockingDeque<>();
+        } else if (BlockingQueue.class.isAssignableFrom(type)) {
+            return new LinkedBlockingQueue<>();
+        } else if (Deque.class.isAssignableFrom(type) || Queue.class.isAssignableFrom(type)) {
+            return new LinkedList<>();
+        }
+        return new ArrayList<>();
+    }
+
+    private Class<?> readClass(Class<?> declared) throws IOException, ClassNotFoundException {
+        int id = readVarInt();
+        return id == NEW_CLASS ? addClass(ClassFilter.resolve(readUTF(), declared)) : classOf(id);
+    }
+
+    /**
+     * 异常类不要求注册，只要求是 Throwable 的子类
+     */
+    private Class<?> readThrowableClass() throws IOException, ClassNotFoundException {
+        int id = readVarInt();
+        return id == NEW_CLASS ? addClass(ClassFilter.resolveThrowable(readUTF())) : classOf(id);
+    }
+
+    private Class<?> addClass(Class<?> clazz) {
+        if (classes == null) {
+            classes = new ArrayList<>();
+        }
+        classes.add(clazz);
+        return clazz;
+    }
+
+    private Class<?> classOf(int id) {
+        Class<?>[] registered = BinaryFormat.registeredClasses();
+        if (id <= registered.length) {
+            return registered[id - 1];
+        }
+        return classes.get(id - registered.length - 1);
+    }
+
+    /**
+     * 流中的类型必须是expected的子类型，且与声明类型兼容
+     */
+    private static Class<?> checkType(Class<?> type, Class<?> expected, Class<?> declared) throws IOException {
+        if (!expected.isAssignableFrom(type) || (declared != null && !declared.isAssignableFrom(type))) {
+            throw new IOException("Class " + type.getName() + " is not compatible with declared type "
+                    + (declared == null ? expected : declared).getName());
+        }
+        return type;
+    }
+
+    private static Object checkType(Object obj, Class<?> declared) throws IOException {
+        if (obj != null) {
+            checkType(obj.getClass(), Object.class, declared);
+        }
+        return obj;
+    }
+
+    /**
+     * Java原生序列化流中的每个类都经过 ClassFilter 检查，不允许动态代理
+     */
+    private static class FilteredObjectInputStream extends ObjectInputStream {
+
+        FilteredObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            String name = desc.getName();
+            Class<?> primitive = ClassUtils.resolvePrimitiveClassName(name);
+            if (primitive != null) {
+                return primitive;
+            }
+            Class<?> clazz = Class.forName(name, false, ClassUtils.getClassLoader());
+            if (!ClassFilter.isJavaAllowed(name, clazz)) {
+                throw new InvalidClassException(name, "not allowed to be deserialized by binary serialization");
+            }
+            return clazz;
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+            throw new InvalidClassException("Proxy classes are not allowed to be deserialized by binary serialization");
+        }
+    }
+
+    private int reference(Object obj) {
+        if (references == null) {
+            references = new ArrayList<>();
+        }
+        references.add(obj);
+        return references.size() - 1;
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = read();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = read();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private int readFixedInt() throws IOException {
+        return (read() << 24) | (read() << 16) | (read() << 8) | read();
+    }
+
+    private void readFully(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            int n = in.read(bytes, offset, bytes.length - offset);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            offset += n;
+        }
+    }
+
+    private int read() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+}
@@ -0,0 +1,573 @@
+package org.apache.dubbo.common.serialize.binary;
+
+import org.apache.dubbo.common.serialize.Cleanable;
+import org.apache.dubbo.common.serialize.ObjectOutput;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.ARRAY;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.BIG_DECIMAL;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.BIG_INTEGER;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.BYTE;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.BYTES;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.CHAR;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.CLASS;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.COLLECTION;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.DATE;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.DOUBLE;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.ENUM;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.FALSE;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.FLOAT;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.INT;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.JAVA;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.LONG;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.MAP;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.NEW_CLASS;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.NULL;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.OBJECT;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.REF;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.SHORT;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.STRING;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.THROWABLE;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.TRUE;
+import static org.apache.dubbo.common.serialize.binary.BinaryFormat.VALUE;
+
+/**
+ * 写入缓冲区来自线程本地缓存，cleanup 时归还；整数使用 zigzag 变长编码，字符串使用 UTF-8
+ */
+public class BinaryObjectOutput implements ObjectOutput, Cleanable {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final ThreadLocal<byte[]> BUFFER_CACHE = new ThreadLocal<>();
+
+    private final OutputStream out;
+
+    private byte[] buffer;
+
+    private int position;
+
+    /**
+     * 已写出的对象，用于共享引用和循环引用
+     */
+    private Map<Object, Integer> references;
+
+    /**
+     * 流内未预注册的类编号
+     */
+    private Map<Class<?>, Integer> classes;
+
+    public BinaryObjectOutput(OutputStream out) {
+        this.out = out;
+        byte[] cached = BUFFER_CACHE.get();
+        if (cached != null) {
+            BUFFER_CACHE.set(null);
+            this.buffer = cached;
+        } else {
+            this.buffer = new byte[BUFFER_SIZE];
+        }
+    }
+
+    @Override
+    public void writeBool(boolean v) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) (v ? 1 : 0);
+    }
+
+    @Override
+    public void writeByte(byte v) throws IOException {
+        ensure(1);
+        buffer[position++] = v;
+    }
+
+    @Override
+    public void writeShort(short v) throws IOException {
+        writeVarInt(v);
+    }
+
+    @Override
+    public void writeInt(int v) throws IOException {
+        writeVarInt(v);
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+        writeVarLong(v);
+    }
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+        writeFixedInt(Float.floatToRawIntBits(v));
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+        writeFixedLong(Double.doubleToRawLongBits(v));
+    }
+
+    /**
+     * null 写为长度 -1
+     */
+    @Override
+    public void writeUTF(String v) throws IOException {
+        if (v == null) {
+            writeVarInt(-1);
+            return;
+        }
+        int length = v.length();
+        int utfLength = utf8Length(v, length);
+        writeVarInt(utfLength);
+        ensure(utfLength);
+        byte[] buf = buffer;
+        int pos = position;
+        if (utfLength == length) {
+            for (int i = 0; i < length; i++) {
+                buf[pos++] = (byte) v.charAt(i);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                char c = v.charAt(i);
+                if (c < 0x80) {
+                    buf[pos++] = (byte) c;
+                } else if (c < 0x800) {
+                    buf[pos++] = (byte) (0xC0 | (c >> 6));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(v.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, v.charAt(++i));
+                    buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+                } else {
+                    buf[pos++] = (byte) (0xE0 | (c >> 12));
+                    buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+        position = pos;
+    }
+
+    @Override
+    public void writeBytes(byte[] v) throws IOException {
+        if (v == null) {
+            writeVarInt(-1);
+            return;
+        }
+        writeBytes(v, 0, v.length);
+    }
+
+    @Override
+    public void writeBytes(byte[] v, int off, int len) throws IOException {
+        writeVarInt(len);
+        if (len > buffer.length - position) {
+            // 大块数据直接写入底层流，不经过缓冲区拷贝
+            flushBuffer();
+            out.write(v, off, len);
+            return;
+        }
+        System.arraycopy(v, off, buffer, position, len);
+        position += len;
+    }
+
+    @Override
+    public void writeObject(Object obj) throws IOException {
+        if (obj == null) {
+            writeByte(NULL);
+            return;
+        }
+        Class<?> clazz = obj.getClass();
+        byte valueType;
+        if (clazz == String.class) {
+            writeByte(STRING);
+            writeUTF((String) obj);
+        } else if (clazz == Integer.class) {
+            writeByte(INT);
+            writeVarInt((Integer) obj);
+        } else if (clazz == Long.class) {
+            writeByte(LONG);
+            writeVarLong((Long) obj);
+        } else if (clazz == Boolean.class) {
+            writeByte((Boolean) obj ? TRUE : FALSE);
+        } else if (clazz == Double.class) {
+            writeByte(DOUBLE);
+            writeDouble((Double) obj);
+        } else if (clazz == Float.class) {
+            writeByte(FLOAT);
+            writeFloat((Float) obj);
+        } else if (clazz == Short.class) {
+            writeByte(SHORT);
+            writeVarInt((Short) obj);
+        } else if (clazz == Byte.class) {
+            writeByte(BYTE);
+            writeByte((Byte) obj);
+        } else if (clazz == Character.class) {
+            writeByte(CHAR);
+            writeVarInt((Character) obj);
+        } else if (clazz == byte[].class) {
+            writeByte(BYTES);
+            writeBytes((byte[]) obj);
+        } else if (clazz == BigDecimal.class) {
+            writeByte(BIG_DECIMAL);
+            writeUTF(obj.toString());
+        } else if (clazz == BigInteger.class) {
+            writeByte(BIG_INTEGER);
+            writeBytes(((BigInteger) obj).toByteArray());
+        } else if (clazz == Date.class) {
+            writeByte(DATE);
+            writeVarLong(((Date) obj).getTime());
+        } else if (obj instanceof Enum) {
+            writeByte(ENUM);
+            writeClass(((Enum<?>) obj).getDeclaringClass());
+            writeUTF(((Enum<?>) obj).name());
+        } else if (clazz == Class.class) {
+            writeByte(CLASS);
+            writeUTF(((Class<?>) obj).getName());
+        } else if ((valueType = ValueTypes.typeOf(clazz)) != ValueTypes.NONE) {
+            writeByte(VALUE);
+            writeByte(valueType);
+            ValueTypes.write(this, valueType, obj);
+        } else if (writeReference(obj)) {
+            return;
+        } else if (clazz.isArray()) {
+            writeByte(ARRAY);
+            writeClass(clazz.getComponentType());
+            writeArray(obj, clazz.getComponentType());
+        } else if (obj instanceof Collection) {
+            writeByte(COLLECTION);
+            writeClass(clazz);
+            if (obj instanceof EnumSet) {
+                writeClass(elementType((EnumSet<?>) obj));
+            }
+            Collection<?> collection = (Collection<?>) obj;
+            writeVarInt(collection.size());
+            for (Object element : collection) {
+                writeObject(element);
+            }
+        } else if (obj instanceof Map) {
+            writeByte(MAP);
+            writeClass(clazz);
+            if (obj instanceof EnumMap) {
+                writeClass(keyType((EnumMap<?, ?>) obj));
+            }
+            Map<?, ?> map = (Map<?, ?>) obj;
+            writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeObject(entry.getKey());
+                writeObject(entry.getValue());
+            }
+        } else if (obj instanceof Throwable) {
+            writeByte(THROWABLE);
+            writeThrowable((Throwable) obj);
+        } else {
+            ClassLayout layout = ClassLayout.of(clazz);
+            if (layout.reflective) {
+                writeByte(OBJECT);
+                writeClass(clazz);
+                writeFields(obj, layout);
+            } else {
+                writeByte(JAVA);
+                writeJava(obj);
+            }
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    @Override
+    public void cleanup() {
+        if (buffer != null && buffer.length == BUFFER_SIZE) {
+            BUFFER_CACHE.set(buffer);
+        }
+        buffer = null;
+        references = null;
+        classes = null;
+    }
+
+    /**
+     * 已写过的对象只写引用编号，否则登记编号并返回false，编号顺序与读取端登记顺序一致
+     */
+    private boolean writeReference(Object obj) throws IOException {
+        if (references == null) {
+            references = new IdentityHashMap<>();
+        }
+        Integer index = references.get(obj);
+        if (index != null) {
+            writeByte(REF);
+            writeVarInt(index);
+            return true;
+        }
+        references.put(obj, references.size());
+        return false;
+    }
+
+    private void writeFields(Object obj, ClassLayout layout) throws IOException {
+        Field[] fields = layout.fields;
+        char[] kinds = layout.kinds;
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                Field field = fields[i];
+                switch (kinds[i]) {
+                    case 'Z':
+                        writeBool(field.getBoolean(obj));
+                        break;
+                    case 'B':
+                        writeByte(field.getByte(obj));
+                        break;
+                    case 'S':
+                        writeVarInt(field.getShort(obj));
+                        break;
+                    case 'I':
+                        writeVarInt(field.getInt(obj));
+                        break;
+                    case 'J':
+                        writeVarLong(field.getLong(obj));
+                        break;
+                    case 'F':
+                        writeFloat(field.getFloat(obj));
+                        break;
+                    case 'D':
+                        writeDouble(field.getDouble(obj));
+                        break;
+                    case 'C':
+                        writeVarInt(field.getChar(obj));
+                        break;
+                    default:
+                        writeObject(field.get(obj));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IOException("Failed to serialize " + obj.getClass().getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 消息和原因通过构造器还原，堆栈和被抑制的异常通过公开方法还原，非JDK子类的字段按字段布局读写
+     * 原因写在字段之前，读取端要先读出原因才能调用 (String, Throwable) 构造器
+     */
+    private void writeThrowable(Throwable t) throws IOException {
+        ClassLayout layout = ClassLayout.of(t.getClass());
+        writeClass(t.getClass());
+        writeUTF(t.getMessage());
+        StackTraceElement[] trace = t.getStackTrace();
+        writeVarInt(trace.length);
+        for (StackTraceElement element : trace) {
+            writeUTF(element.getClassName());
+            writeUTF(element.getMethodName());
+            writeUTF(element.getFileName());
+            writeVarInt(element.getLineNumber());
+        }
+        writeObject(t.getCause());
+        writeFields(t, layout);
+        Throwable[] suppressed = t.getSuppressed();
+        writeVarInt(suppressed.length);
+        for (Throwable s : suppressed) {
+            writeObject(s);
+        }
+    }
+
+    /**
+     * 读取端需要元素类型才能创建 EnumSet，空集合时取补集的元素类型
+     */
+    private static Class<?> elementType(EnumSet<?> set) throws IOException {
+        Collection<?> elements = set.isEmpty() ? EnumSet.complementOf(set) : set;
+        if (elements.isEmpty()) {
+            throw new IOException("Can not determine the element type of an EnumSet for an enum without constants");
+        }
+        return ((Enum<?>) elements.iterator().next()).getDeclaringClass();
+    }
+
+    /**
+     * 读取端需要键类型才能创建 EnumMap，空Map时只能通过反射读取
+     */
+    private static Class<?> keyType(EnumMap<?, ?> map) throws IOException {
+        if (!map.isEmpty()) {
+            return map.keySet().iterator().next().getDeclaringClass();
+        }
+        try {
+            Field field = EnumMap.class.getDeclaredField("keyType");
+            field.setAccessible(true);
+            return (Class<?>) field.get(map);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IOException("Can not determine the key type of an empty EnumMap: " + e.getMessage(), e);
+        }
+    }
+
+    private void writeArray(Object array, Class<?> componentType) throws IOException {
+        int length = Array.getLength(array);
+        writeVarInt(length);
+        if (!componentType.isPrimitive()) {
+            Object[] objects = (Object[]) array;
+            for (Object element : objects) {
+                writeObject(element);
+            }
+            return;
+        }
+        switch (ClassLayout.kindOf(componentType)) {
+            case 'Z':
+                for (boolean v : (boolean[]) array) {
+                    writeBool(v);
+                }
+                break;
+            case 'B':
+                byte[] bytes = (byte[]) array;
+                writeRaw(bytes);
+                break;
+            case 'S':
+                for (short v : (short[]) array) {
+                    writeVarInt(v);
+                }
+                break;
+            case 'I':
+                for (int v : (int[]) array) {
+                    writeVarInt(v);
+                }
+                break;
+            case 'J':
+                for (long v : (long[]) array) {
+                    writeVarLong(v);
+                }
+                break;
+            case 'F':
+                for (float v : (float[]) array) {
+                    writeFloat(v);
+                }
+                break;
+            case 'D':
+                for (double v : (double[]) array) {
+                    writeDouble(v);
+                }
+                break;
+            default:
+                for (char v : (char[]) array) {
+                    writeVarInt(v);
+                }
+        }
+    }
+
+    private void writeClass(Class<?> clazz) throws IOException {
+        int id = BinaryFormat.registeredId(clazz);
+        if (id > 0) {
+            writeVarInt(id);
+            return;
+        }
+        if (classes == null) {
+            classes = new HashMap<>();
+        }
+        Integer local = classes.get(clazz);
+        if (local != null) {
+            writeVarInt(local);
+            return;
+        }
+        classes.put(clazz, BinaryFormat.registeredClasses().length + classes.size() + 1);
+        writeVarInt(NEW_CLASS);
+        writeUTF(clazz.getName());
+    }
+
+    private void writeJava(Object obj) throws IOException {
+        if (!ClassFilter.JAVA_ENABLED) {
+            throw new IOException("Class " + obj.getClass().getName() + " requires Java serialization, which is disabled in binary serialization, " +
+                    "enable it by -D" + ClassFilter.JAVA_ENABLE_KEY + "=true");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(obj);
+        }
+        writeBytes(bytes.toByteArray());
+    }
+
+    private void writeRaw(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - position) {
+            flushBuffer();
+            out.write(bytes);
+            return;
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeVarInt(int v) throws IOException {
+        ensure(5);
+        int value = (v << 1) ^ (v >> 31);
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeVarLong(long v) throws IOException {
+        ensure(10);
+        long value = (v << 1) ^ (v >> 63);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeFixedInt(int v) throws IOException {
+        ensure(4);
+        buffer[position++] = (byte) (v >>> 24);
+        buffer[position++] = (byte) (v >>> 16);
+        buffer[position++] = (byte) (v >>> 8);
+        buffer[position++] = (byte) v;
+    }
+
+    private void writeFixedLong(long v) throws IOException {
+        writeFixedInt((int) (v >>> 32));
+        writeFixedInt((int) v);
+    }
+
+    /**
+     * 缓冲区剩余空间不足时先刷出；单次写入超过缓冲区大小时扩容
+     */
+    private void ensure(int size) throws IOException {
+        if (buffer.length - position >= size) {
+            return;
+        }
+        flushBuffer();
+        if (buffer.length < size) {
+            buffer = new byte[Math.max(size, buffer.length << 1)];
+        }
+    }
+
+    private static int utf8Length(String v, int length) {
+        int utfLength = length;
+        for (int i = 0; i < length; i++) {
+            char c = v.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    utfLength += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(v.charAt(i + 1))) {
+                    utfLength += 2;
+                    i++;
+                } else {
+                    utfLength += 2;
+                }
+            }
+        }
+        return utfLength;
+    }
+
+}
@@ -0,0 +1,40 @@
+package org.apache.dubbo.common.serialize.binary;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.serialize.ObjectInput;
+import org.apache.dubbo.common.serialize.ObjectOutput;
+import org.apache.dubbo.common.serialize.Serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.apache.dubbo.common.serialize.Constants.BINARY_SERIALIZATION_ID;
+
+/**
+ * 紧凑的二进制序列化：基本类型直接写入字节流，不装箱；
+ * 通过 SerializableClassRegistry 注册的类只写类编号，每个类的字段布局只解析一次并缓存
+ */
+public class BinarySerialization implements Serialization {
+
+    @Override
+    public byte getContentTypeId() {
+        return BINARY_SERIALIZATION_ID;
+    }
+
+    @Override
+    public String getContentType() {
+        return "x-application/binary";
+    }
+
+    @Override
+    public ObjectOutput serialize(URL url, OutputStream output) throws IOException {
+        return new BinaryObjectOutput(output);
+    }
+
+    @Override
+    public ObjectInput deserialize(URL url, InputStream input) throws IOException {
+        return new BinaryObjectInput(input);
+    }
+
+}
@@ -0,0 +1,142 @@
+package org.apache.dubbo.common.serialize.binary;
+
+import org.apache.dubbo.common.serialize.support.SerializableClassRegistry;
+import org.apache.dubbo.common.utils.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 反序列化时允许从流中按类名加载的类
+ * <ul>
+ * <li>通过 SerializableClassRegistry 注册的类</li>
+ * <li>与声明类型（方法参数、返回值、字段类型）完全相同的类</li>
+ * <li>基本类型包装类、String、java.math、java.util 及 java.util.concurrent 中的类</li>
+ * <li>-Ddubbo.serialization.binary.allowlist 中配置的类名，以 . 或 .* 结尾时为包前缀，多个用逗号分隔</li>
+ * </ul>
+ * 类只加载不初始化，实例化前还要检查与声明类型的兼容性；
+ * 异常类按 THROWABLE 格式编码，只要求是 Throwable 的子类；
+ * Java原生序列化默认关闭，-Ddubbo.serialization.binary.java=true 开启后流中的每个类同样经过上述检查，另外允许异常类
+ */
+final class ClassFilter {
+
+    static final String ALLOWLIST_KEY = "dubbo.serialization.binary.allowlist";
+
+    static final String JAVA_ENABLE_KEY = "dubbo.serialization.binary.java";
+
+    static final boolean JAVA_ENABLED = Boolean.getBoolean(JAVA_ENABLE_KEY);
+
+    private static final Set<String> PACKAGES = new HashSet<>();
+
+    private static final Set<String> JAVA_PACKAGES = new HashSet<>();
+
+    private static final Set<String> ALLOWED_CLASSES = new HashSet<>();
+
+    private static final List<String> ALLOWED_PREFIXES = new ArrayList<>();
+
+    static {
+        Collections.addAll(PACKAGES, "java.math", "java.util", "java.util.concurrent");
+        Collections.addAll(JAVA_PACKAGES, "java.lang", "java.math", "java.time", "java.util", "java.util.concurrent");
+        Collections.addAll(ALLOWED_CLASSES, String.class.getName(), Boolean.class.getName(), Byte.class.getName(),
+                Short.class.getName(), Integer.class.getName(), Long.class.getName(), Float.class.getName(),
+                Double.class.getName(), Character.class.getName(), Number.class.getName(), Object.class.getName());
+        String allowlist = System.getProperty(ALLOWLIST_KEY);
+        if (allowlist != null) {
+            for (String name : allowlist.split(",")) {
+                name = name.trim();
+                if (name.endsWith(".*")) {
+                    ALLOWED_PREFIXES.add(name.substring(0, name.length() - 1));
+                } else if (name.endsWith(".")) {
+                    ALLOWED_PREFIXES.add(name);
+                } else if (name.length() > 0) {
+                    ALLOWED_CLASSES.add(name);
+                }
+            }
+        }
+    }
+
+    private ClassFilter() {
+    }
+
+    /**
+     * 检查并加载流中的类名，不执行类的静态初始化
+     *
+     * @param declared 该位置的声明类型，没有时为null
+     */
+    static Class<?> resolve(String name, Class<?> declared) throws ClassNotFoundException {
+        Class<?> primitive = ClassUtils.resolvePrimitiveClassName(name);
+        if (primitive != null) {
+            return primitive;
+        }
+        if (!isAllowed(elementName(name), declared, PACKAGES)) {
+            throw new IllegalStateException("Class " + name + " is not allowed to be deserialized by binary serialization, " +
+                    "register it to SerializableClassRegistry or add it to -D" + ALLOWLIST_KEY);
+        }
+        return Class.forName(name, false, ClassUtils.getClassLoader());
+    }
+
+    /**
+     * 异常类只加载不初始化，确认是 Throwable 的子类后才会被实例化
+     */
+    static Class<?> resolveThrowable(String name) throws ClassNotFoundException {
+        Class<?> clazz = Class.forName(name, false, ClassUtils.getClassLoader());
+        if (!Throwable.class.isAssignableFrom(clazz)) {
+            throw new IllegalStateException("Class " + name + " is not a Throwable");
+        }
+        return clazz;
+    }
+
+    /**
+     * Java原生序列化流中的类，异常类按加载后的类型判断
+     */
+    static boolean isJavaAllowed(String name, Class<?> clazz) {
+        return isAllowed(elementName(name), null, JAVA_PACKAGES) || Throwable.class.isAssignableFrom(clazz);
+    }
+
+    private static boolean isAllowed(String name, Class<?> declared, Set<String> packages) {
+        if (name == null || ALLOWED_CLASSES.contains(name)) {
+            return true;
+        }
+        for (; declared != null; declared = declared.getComponentType()) {
+            if (declared.getName().equals(name)) {
+                return true;
+            }
+        }
+        int index = name.lastIndexOf('.');
+        if (index > 0 && packages.contains(name.substring(0, index))) {
+            return true;
+        }
+        for (String prefix : ALLOWED_PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        for (Object registered : SerializableClassRegistry.getRegisteredClasses().keySet()) {
+            if (((Class<?>) registered).getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 数组类名（[I、[[Lcom.foo.Bar;）取元素类名，基本类型数组返回null
+     */
+    private static String elementName(String name) {
+        int dimensions = 0;
+        while (dimensions < name.length() && name.charAt(dimensions) == '[') {
+            dimensions++;
+        }
+        if (dimensions == 0) {
+            return name;
+        }
+        if (name.charAt(dimensions) == 'L' && name.endsWith(";")) {
+            return name.substring(dimensions + 1, name.length() - 1);
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,233 @@
+package org.apache.dubbo.common.serialize.binary;
+
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 类的字段布局：按父类到子类、字段名排序的非静态非transient字段，以及基本类型字段的类型，
+ * 读写基本类型字段时直接调用 Field.getInt/setInt 等方法，避免装箱
+ * 异常类只包含非JDK子类中声明的字段，消息、堆栈、原因由 BinaryObjectOutput 单独编码
+ */
+final class ClassLayout {
+
+    static final char OBJECT_FIELD = 'L';
+
+    private static final ConcurrentMap<Class<?>, ClassLayout> LAYOUTS = new ConcurrentHashMap<>();
+
+    final Field[] fields;
+
+    /**
+     * 每个字段的类型：基本类型使用JVM描述符字符（Z/B/S/I/J/F/D/C），引用类型为 OBJECT_FIELD
+     */
+    final char[] kinds;
+
+    /**
+     * 是否可以按字段布局读写，为false时退回Java原生序列化
+     */
+    final boolean reflective;
+
+    /**
+     * 是否为异常类
+     */
+    final boolean throwable;
+
+    private final Constructor<?> constructor;
+
+    private final Object[] constructorArgs;
+
+    private ClassLayout(Field[] fields, char[] kinds, Constructor<?> constructor, Object[] constructorArgs, boolean reflective, boolean throwable) {
+        this.fields = fields;
+        this.kinds = kinds;
+        this.constructor = constructor;
+        this.constructorArgs = constructorArgs;
+        this.reflective = reflective;
+        this.throwable = throwable;
+    }
+
+    static ClassLayout of(Class<?> clazz) {
+        ClassLayout layout = LAYOUTS.get(clazz);
+        if (layout == null) {
+            layout = LAYOUTS.computeIfAbsent(clazz, ClassLayout::build);
+        }
+        return layout;
+    }
+
+    Object newInstance() throws ReflectiveOperationException {
+        return constructor.newInstance(constructorArgs);
+    }
+
+    /**
+     * 异常类优先使用 (String) 或 (String, Throwable) 构造器传入消息和原因，都没有时消息丢失
+     */
+    Throwable newThrowable(String message, Throwable cause) throws ReflectiveOperationException {
+        Class<?>[] types = constructor.getParameterTypes();
+        Object[] args = constructorArgs;
+        if (types.length > 0 && types[0] == String.class) {
+            args = args.clone();
+            args[0] = message;
+            if (types.length > 1 && types[1] == Throwable.class) {
+                args[1] = cause;
+            }
+        }
+        return (Throwable) constructor.newInstance(args);
+    }
+
+    private static ClassLayout build(Class<?> clazz) {
+        if (Throwable.class.isAssignableFrom(clazz)) {
+            return throwable(clazz);
+        }
+        if (isJdkClass(clazz)) {
+            return javaOnly(clazz);
+        }
+        try {
+            List<Class<?>> hierarchy = new ArrayList<>();
+            for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+                if (isJdkClass(c)) {
+                    // 继承了JDK类（例如AbstractList）时无法访问父类字段
+                    return javaOnly(clazz);
+                }
+                hierarchy.add(0, c);
+            }
+            List<Field> fields = fields(hierarchy);
+            Constructor<?> constructor = findConstructor(clazz);
+            return new ClassLayout(fields.toArray(new Field[0]), kinds(fields), constructor, defaultArgs(constructor), true, false);
+        } catch (RuntimeException e) {
+            // 无法反射访问（如模块限制）
+            return javaOnly(clazz);
+        }
+    }
+
+    private static ClassLayout throwable(Class<?> clazz) {
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> c = clazz; !isJdkClass(c); c = c.getSuperclass()) {
+            hierarchy.add(0, c);
+        }
+        List<Field> fields = fields(hierarchy);
+        Constructor<?> constructor = findThrowableConstructor(clazz);
+        return new ClassLayout(fields.toArray(new Field[0]), kinds(fields), constructor, defaultArgs(constructor), false, true);
+    }
+
+    private static List<Field> fields(List<Class<?>> hierarchy) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c : hierarchy) {
+            Field[] declared = c.getDeclaredFields();
+            Arrays.sort(declared, Comparator.comparing(Field::getName));
+            for (Field field : declared) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                    continue;
+                }
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private static char[] kinds(List<Field> fields) {
+        char[] kinds = new char[fields.size()];
+        for (int i = 0; i < kinds.length; i++) {
+            Class<?> type = fields.get(i).getType();
+            kinds[i] = type.isPrimitive() ? kindOf(type) : OBJECT_FIELD;
+        }
+        return kinds;
+    }
+
+    private static ClassLayout javaOnly(Class<?> clazz) {
+        if (!Serializable.class.isAssignableFrom(clazz)) {
+            throw new IllegalStateException("Class " + clazz.getName() + " can not be serialized by binary serialization, it must implement java.io.Serializable");
+        }
+        return new ClassLayout(new Field[0], new char[0], null, null, false, false);
+    }
+
+    private static boolean isJdkClass(Class<?> clazz) {
+        String name = clazz.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.") || name.startsWith("jdk.");
+    }
+
+    /**
+     * 优先使用无参构造器，否则使用参数最少的构造器并传入默认值
+     */
+    private static Constructor<?> findConstructor(Class<?> clazz) {
+        Constructor<?>[] constructors = clazz.getDeclaredConstructors();
+        if (constructors.length == 0) {
+            throw new IllegalStateException("Illegal constructor: " + clazz.getName());
+        }
+        Constructor<?> constructor = constructors[0];
+        for (Constructor<?> c : constructors) {
+            if (c.getParameterCount() < constructor.getParameterCount()) {
+                constructor = c;
+            }
+        }
+        constructor.setAccessible(true);
+        return constructor;
+    }
+
+    private static Constructor<?> findThrowableConstructor(Class<?> clazz) {
+        for (Class<?>[] types : new Class<?>[][]{{String.class}, {String.class, Throwable.class}}) {
+            try {
+                Constructor<?> constructor = clazz.getDeclaredConstructor(types);
+                constructor.setAccessible(true);
+                return constructor;
+            } catch (NoSuchMethodException | RuntimeException e) {
+                // 尝试下一个
+            }
+        }
+        return findConstructor(clazz);
+    }
+
+    private static Object[] defaultArgs(Constructor<?> constructor) {
+        Class<?>[] types = constructor.getParameterTypes();
+        Object[] args = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == boolean.class) {
+                args[i] = false;
+            } else if (types[i] == char.class) {
+                args[i] = Character.MIN_VALUE;
+            } else if (types[i] == byte.class) {
+                args[i] = (byte) 0;
+            } else if (types[i] == short.class) {
+                args[i] = (short) 0;
+            } else if (types[i] == int.class) {
+                args[i] = 0;
+            } else if (types[i] == long.class) {
+                args[i] = 0L;
+            } else if (types[i] == float.class) {
+                args[i] = 0F;
+            } else if (types[i] == double.class) {
+                args[i] = 0D;
+            }
+        }
+        return args;
+    }
+
+    static char kindOf(Class<?> primitive) {
+        if (primitive == boolean.class) {
+            return 'Z';
+        } else if (primitive == byte.class) {
+            return 'B';
+        } else if (primitive == short.class) {
+            return 'S';
+        } else if (primitive == int.class) {
+            return 'I';
+        } else if (primitive == long.class) {
+            return 'J';
+        } else if (primitive == float.class) {
+            return 'F';
+        } else if (primitive == double.class) {
+            return 'D';
+        } else if (primitive == char.class) {
+            return 'C';
+        }
+        throw new IllegalArgumentException("Not a primitive type: " + primitive);
+    }
+
+}
@@ -0,0 +1,193 @@
+package org.apache.dubbo.common.serialize.binary;
+
+import org.apache.dubbo.common.serialize.ObjectInput;
+import org.apache.dubbo.common.serialize.ObjectOutput;
+
+import java.io.IOException;
+import java.net.URI;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.Period;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 常用JDK值类型的编码，这些类不能按字段布局读写，原来只能走默认关闭的Java原生序列化
+ * 流中只写一个字节的类型编号，不写类名；值类型不登记引用
+ */
+final class ValueTypes {
+
+    static final byte NONE = 0;
+    static final byte SQL_TIMESTAMP = 1;
+    static final byte SQL_DATE = 2;
+    static final byte SQL_TIME = 3;
+    static final byte INSTANT = 4;
+    static final byte LOCAL_DATE = 5;
+    static final byte LOCAL_TIME = 6;
+    static final byte LOCAL_DATE_TIME = 7;
+    static final byte OFFSET_DATE_TIME = 8;
+    static final byte OFFSET_TIME = 9;
+    static final byte ZONED_DATE_TIME = 10;
+    static final byte DURATION = 11;
+    static final byte PERIOD = 12;
+    static final byte YEAR = 13;
+    static final byte YEAR_MONTH = 14;
+    static final byte MONTH_DAY = 15;
+    static final byte ZONE_ID = 16;
+    static final byte UUID_TYPE = 17;
+    static final byte LOCALE = 18;
+    static final byte CURRENCY = 19;
+    static final byte URI_TYPE = 20;
+
+    private static final Map<Class<?>, Byte> TYPES = new IdentityHashMap<>();
+
+    static {
+        TYPES.put(Timestamp.class, SQL_TIMESTAMP);
+        TYPES.put(java.sql.Date.class, SQL_DATE);
+        TYPES.put(Time.class, SQL_TIME);
+        TYPES.put(Instant.class, INSTANT);
+        TYPES.put(LocalDate.class, LOCAL_DATE);
+        TYPES.put(LocalTime.class, LOCAL_TIME);
+        TYPES.put(LocalDateTime.class, LOCAL_DATE_TIME);
+        TYPES.put(OffsetDateTime.class, OFFSET_DATE_TIME);
+        TYPES.put(OffsetTime.class, OFFSET_TIME);
+        TYPES.put(ZonedDateTime.class, ZONED_DATE_TIME);
+        TYPES.put(Duration.class, DURATION);
+        TYPES.put(Period.class, PERIOD);
+        TYPES.put(Year.class, YEAR);
+        TYPES.put(YearMonth.class, YEAR_MONTH);
+        TYPES.put(MonthDay.class, MONTH_DAY);
+        TYPES.put(UUID.class, UUID_TYPE);
+        TYPES.put(Locale.class, LOCALE);
+        TYPES.put(Currency.class, CURRENCY);
+        TYPES.put(URI.class, URI_TYPE);
+    }
+
+    private ValueTypes() {
+    }
+
+    /**
+     * @return 类型编号，不是支持的值类型时返回NONE
+     */
+    static byte typeOf(Class<?> clazz) {
+        Byte type = TYPES.get(clazz);
+        if (type != null) {
+            return type;
+        }
+        // ZoneOffset 和非公开的 ZoneRegion
+        return ZoneId.class.isAssignableFrom(clazz) ? ZONE_ID : NONE;
+    }
+
+    static void write(ObjectOutput out, byte type, Object obj) throws IOException {
+        switch (type) {
+            case SQL_TIMESTAMP:
+                Timestamp timestamp = (Timestamp) obj;
+                out.writeLong(timestamp.getTime());
+                out.writeInt(timestamp.getNanos());
+                break;
+            case SQL_DATE:
+            case SQL_TIME:
+                out.writeLong(((java.util.Date) obj).getTime());
+                break;
+            case INSTANT:
+                Instant instant = (Instant) obj;
+                out.writeLong(instant.getEpochSecond());
+                out.writeInt(instant.getNano());
+                break;
+            case LOCAL_DATE:
+                out.writeLong(((LocalDate) obj).toEpochDay());
+                break;
+            case LOCAL_TIME:
+                out.writeLong(((LocalTime) obj).toNanoOfDay());
+                break;
+            case LOCAL_DATE_TIME:
+                LocalDateTime dateTime = (LocalDateTime) obj;
+                out.writeLong(dateTime.toLocalDate().toEpochDay());
+                out.writeLong(dateTime.toLocalTime().toNanoOfDay());
+                break;
+            case UUID_TYPE:
+                UUID uuid = (UUID) obj;
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+                break;
+            case LOCALE:
+                out.writeUTF(((Locale) obj).toLanguageTag());
+                break;
+            case CURRENCY:
+                out.writeUTF(((Currency) obj).getCurrencyCode());
+                break;
+            case ZONE_ID:
+                out.writeUTF(((ZoneId) obj).getId());
+                break;
+            default:
+                // 其余类型的 toString 与 parse 互为逆操作
+                out.writeUTF(obj.toString());
+        }
+    }
+
+    static Object read(ObjectInput in, byte type) throws IOException {
+        switch (type) {
+            case SQL_TIMESTAMP:
+                Timestamp timestamp = new Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+            case SQL_DATE:
+                return new java.sql.Date(in.readLong());
+            case SQL_TIME:
+                return new Time(in.readLong());
+            case INSTANT:
+                return Instant.ofEpochSecond(in.readLong(), in.readInt());
+            case LOCAL_DATE:
+                return LocalDate.ofEpochDay(in.readLong());
+            case LOCAL_TIME:
+                return LocalTime.ofNanoOfDay(in.readLong());
+            case LOCAL_DATE_TIME:
+                LocalDate date = LocalDate.ofEpochDay(in.readLong());
+                return LocalDateTime.of(date, LocalTime.ofNanoOfDay(in.readLong()));
+            case OFFSET_DATE_TIME:
+                return OffsetDateTime.parse(in.readUTF());
+            case OFFSET_TIME:
+                return OffsetTime.parse(in.readUTF());
+            case ZONED_DATE_TIME:
+                return ZonedDateTime.parse(in.readUTF());
+            case DURATION:
+                return Duration.parse(in.readUTF());
+            case PERIOD:
+                return Period.parse(in.readUTF());
+            case YEAR:
+                return Year.of(Integer.parseInt(in.readUTF()));
+            case YEAR_MONTH:
+                return YearMonth.parse(in.readUTF());
+            case MONTH_DAY:
+                return MonthDay.parse(in.readUTF());
+            case ZONE_ID:
+                return ZoneId.of(in.readUTF());
+            case UUID_TYPE:
+                return new UUID(in.readLong(), in.readLong());
+            case LOCALE:
+                return Locale.forLanguageTag(in.readUTF());
+            case CURRENCY:
+                return Currency.getInstance(in.readUTF());
+            case URI_TYPE:
+                return URI.create(in.readUTF());
+            default:
+                throw new IOException("Unknown binary serialization value type: " + type);
+        }
+    }
+
+}
@@ -6,16 +6,28 @@ import com.alibaba.fastjson.serializer.SerializerFeature;
 import org.apache.dubbo.common.serialize.ObjectOutput;
 
 import java.io.*;
+import java.nio.charset.Charset;
 
 public class FastJsonObjectOutput implements ObjectOutput {
 
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(CHARSET);
+
+    /**
+     * 基于OutputStream构造时直接写字节，借助SerializeWriter的线程本地缓冲区编码，不再经过OutputStreamWriter中转
+     */
+    private final OutputStream out;
+
     private final PrintWriter writer;
 
     public FastJsonObjectOutput(OutputStream out) {
-        this(new OutputStreamWriter(out));
+        this.out = out;
+        this.writer = null;
     }
 
     public FastJsonObjectOutput(Writer writer) {
+        this.out = null;
         this.writer = new PrintWriter(writer);
     }
 
@@ -61,29 +73,46 @@ public class FastJsonObjectOutput implements ObjectOutput {
 
     @Override
     public void writeBytes(byte[] b) throws IOException {
-        writer.println(new String(b));
+        writeBytes(b, 0, b.length);
     }
 
     @Override
     public void writeBytes(byte[] b, int off, int len) throws IOException {
-        writer.println(new String(b, off, len));
+        if (out != null) {
+            out.write(b, off, len);
+            out.write(LINE_SEPARATOR);
+        } else {
+            writer.println(new String(b, off, len));
+        }
     }
 
     @Override
     public void writeObject(Object obj) throws IOException {
-        SerializeWriter out = new SerializeWriter();
-        JSONSerializer serializer = new JSONSerializer(out);
-        serializer.config(SerializerFeature.WriteEnumUsingToString, true);
-        serializer.write(obj);
-        out.writeTo(writer);
-        out.close();
-        writer.println();
-        writer.flush();
+        SerializeWriter json = new SerializeWriter();
+        try {
+            JSONSerializer serializer = new JSONSerializer(json);
+            serializer.config(SerializerFeature.WriteEnumUsingToString, true);
+            serializer.write(obj);
+            if (out != null) {
+                json.writeTo(out, CHARSET);
+                out.write(LINE_SEPARATOR);
+            } else {
+                json.writeTo(writer);
+                writer.println();
+                writer.flush();
+            }
+        } finally {
+            json.close();
+        }
     }
 
     @Override
     public void flushBuffer() throws IOException {
-        writer.flush();
+        if (out != null) {
+            out.flush();
+        } else {
+            writer.flush();
+        }
     }
 
 }
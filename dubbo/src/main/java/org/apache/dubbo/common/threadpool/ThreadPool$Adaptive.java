@@ -3,6 +3,8 @@ package org.apache.dubbo.common.threadpool;
 import org.apache.dubbo.common.extension.ExtensionLoader;
 
 public class ThreadPool$Adaptive implements org.apache.dubbo.common.threadpool.ThreadPool {
+    private final org.apache.dubbo.common.extension.AdaptiveExtensionCache extensions = new org.apache.dubbo.common.extension.AdaptiveExtensionCache(org.apache.dubbo.common.threadpool.ThreadPool.class);
+
     public java.util.concurrent.Executor getExecutor(org.apache.dubbo.common.URL arg0) {
         if (arg0 == null)
             throw new IllegalArgumentException("url == null");
@@ -10,7 +12,7 @@ public class ThreadPool$Adaptive implements org.apache.dubbo.common.threadpool.T
         String extName = url.getParameter("threadpool", "fixed");
         if (extName == null)
             throw new IllegalStateException("Failed to get extension (org.apache.dubbo.common.threadpool.ThreadPool) name from url (" + url.toString() + ") use keys([threadpool])");
-        org.apache.dubbo.common.threadpool.ThreadPool extension = (org.apache.dubbo.common.threadpool.ThreadPool) ExtensionLoader.getExtensionLoader(org.apache.dubbo.common.threadpool.ThreadPool.class).getExtension(extName);
+        org.apache.dubbo.common.threadpool.ThreadPool extension = (org.apache.dubbo.common.threadpool.ThreadPool) extensions.get(extName);
         return extension.getExecutor(arg0);
     }
 
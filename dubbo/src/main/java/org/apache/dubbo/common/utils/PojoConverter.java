@@ -0,0 +1,341 @@
+package org.apache.dubbo.common.utils;
+
+import org.apache.dubbo.common.bytecode.ClassGenerator;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * 为下面的类生成的转换器
+ *
+ * public class User {
+ *     public String nick;
+ *     private String remark;
+ *     public String getName() {...}
+ *     public void setName(String name) {...}
+ *     public int getAge() {...}
+ *     public void setAge(int age) {...}
+ * }
+ *
+ * public class PojoConverter0 extends PojoConverter {
+ *     public void generalize(Object o, java.util.Map m, java.util.Map h) {
+ *         User w = (User) $1;
+ *         // 声明类型在PojoUtils中原样返回的属性不再递归
+ *         $2.put("name", w.getName());
+ *         $2.put("age", Integer.valueOf(w.getAge()));
+ *         if (w.nick != null) {
+ *             $2.put("nick", w.nick);
+ *         }
+ *     }
+ *
+ *     protected void setProperty(Object o, int i, Object v) {
+ *         User w = (User) $1;
+ *         if ($2 == 0) { w.setName((java.lang.String) $3); return; }
+ *         if ($2 == 1) { w.setAge(((Number) $3).intValue()); return; }
+ *         if ($2 == 2) { w.nick = (java.lang.String) $3; return; }
+ *         // 非public字段仍通过反射设置
+ *         setField($2, $1, $3);
+ *     }
+ * }
+ */
+
+/**
+ * PojoUtils中POJO与Map互转时使用的生成类，每个POJO类一个，按类缓存
+ * generalize直接调用getter和public字段，realize按属性下标直接调用setter，不再逐个反射调用和查找方法缓存
+ * 属性的选择和优先级与PojoUtils的反射实现相同；有重载setter等生成代码无法等价处理的类不生成转换器，仍走反射
+ */
+public abstract class PojoConverter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PojoConverter.class);
+
+    private static final Map<Class<?>, PojoConverter> CONVERTER_MAP = new ConcurrentHashMap<Class<?>, PojoConverter>();
+
+    /**
+     * 不能生成转换器的类在缓存中的占位
+     */
+    private static final PojoConverter NONE = new PojoConverter() {
+        @Override
+        public void generalize(Object pojo, Map map, Map history) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void setProperty(Object pojo, int index, Object value) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private static final AtomicLong CONVERTER_CLASS_COUNTER = new AtomicLong(0);
+
+    /**
+     * Map的键 - 属性下标，键的首字母大小写两种形式都登记，与PojoUtils#getSetterMethod一致
+     */
+    private Map<String, Integer> indexes;
+
+    private Class<?>[] types;
+
+    private Type[] genericTypes;
+
+    private Field[] fields;
+
+    private int capacity;
+
+    /**
+     * @return 不能生成转换器时返回null
+     */
+    static PojoConverter getConverter(Class<?> c) {
+        PojoConverter converter = CONVERTER_MAP.get(c);
+        if (converter == null) {
+            converter = makeConverter(c);
+            CONVERTER_MAP.put(c, converter);
+        }
+        return converter == NONE ? null : converter;
+    }
+
+    /**
+     * generalize时Map的初始容量
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 把pojo的属性放入map，"class"由调用方放入
+     */
+    public abstract void generalize(Object pojo, Map map, Map history);
+
+    /**
+     * 把map中的属性设置到pojo
+     */
+    void realize(Map<Object, Object> map, Object pojo, Map<Object, Object> history) {
+        for (Map.Entry<Object, Object> entry : map.entrySet()) {
+            Object key = entry.getKey();
+            Object value = entry.getValue();
+            if (!(key instanceof String) || value == null) {
+                continue;
+            }
+            Integer index = indexes.get(key);
+            if (index != null) {
+                int i = index;
+                value = PojoUtils.realize0(value, types[i], genericTypes[i], history);
+                try {
+                    setProperty(pojo, i, value);
+                } catch (RuntimeException e) {
+                    String exceptionDescription = "Failed to set pojo " + pojo.getClass().getSimpleName() + " property " + key + " value " + value + "(" + value.getClass() + "), cause: " + e.getMessage();
+                    logger.error(exceptionDescription, e);
+                    throw new RuntimeException(exceptionDescription, e);
+                }
+            }
+        }
+    }
+
+    protected abstract void setProperty(Object pojo, int index, Object value);
+
+    protected final Object generalizeValue(Object value, Map history) {
+        return PojoUtils.generalize(value, history);
+    }
+
+    protected final void setField(int index, Object pojo, Object value) {
+        Field field = fields[index];
+        try {
+            field.set(pojo, value);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Failed to set field " + field.getName() + " of pojo " + pojo.getClass().getName() + " : " + e.getMessage(), e);
+        }
+    }
+
+    private static PojoConverter makeConverter(Class<?> c) {
+        if (c.isPrimitive() || c.isArray() || c.isInterface() || !isAccessible(c) || ClassGenerator.isDynamicClass(c)) {
+            return NONE;
+        }
+        String name = c.getName();
+        ClassLoader cl = ClassUtils.getClassLoader(c);
+        // generalize
+        StringBuilder c1 = new StringBuilder("public void generalize(Object o, java.util.Map m, java.util.Map h){ ");
+        c1.append(name).append(" w = (").append(name).append(")$1;");
+        int capacity = 1;
+        Map<String, Method> getters = new LinkedHashMap<>();
+        for (Method method : c.getMethods()) {
+            if (ReflectUtils.isBeanPropertyReadMethod(method)) {
+                if (!isAccessible(method.getDeclaringClass())) {
+                    return NONE;
+                }
+                getters.put(ReflectUtils.getPropertyNameFromBeanReadMethod(method), method);
+            }
+        }
+        for (Map.Entry<String, Method> entry : getters.entrySet()) {
+            Method method = entry.getValue();
+            c1.append(" $2.put(\"").append(entry.getKey()).append("\", ")
+                    .append(value(method.getReturnType(), "w." + method.getName() + "()")).append(");");
+            capacity++;
+        }
+        for (Field field : c.getFields()) {
+            if (!ReflectUtils.isPublicInstanceField(field) || getters.containsKey(field.getName())) {
+                continue;
+            }
+            if (!isAccessible(field.getDeclaringClass())) {
+                return NONE;
+            }
+            Class<?> ft = field.getType();
+            if (ft.isPrimitive()) {
+                c1.append(" $2.put(\"").append(field.getName()).append("\", ").append(value(ft, "w." + field.getName())).append(");");
+            } else {
+                c1.append(" if (w.").append(field.getName()).append(" != null) { $2.put(\"").append(field.getName()).append("\", ")
+                        .append(value(ft, "w." + field.getName())).append("); }");
+            }
+            capacity++;
+        }
+        c1.append(" }");
+
+        // setProperty，每个属性一个下标
+        StringBuilder c2 = new StringBuilder("protected void setProperty(Object o, int i, Object v){ ");
+        c2.append(name).append(" w = (").append(name).append(")$1;");
+        Map<String, Integer> indexes = new HashMap<>();
+        List<Class<?>> types = new ArrayList<>();
+        List<Type> genericTypes = new ArrayList<>();
+        List<Field> fields = new ArrayList<>();
+        Map<String, Method> setters = new HashMap<>();
+        for (Method method : c.getMethods()) {
+            if (ReflectUtils.isBeanPropertyWriteMethod(method)) {
+                // 重载的setter由反射实现按值的类型选择，生成代码无法等价处理
+                if (setters.put(method.getName(), method) != null || !isAccessible(method.getDeclaringClass())
+                        || !isAccessible(method.getParameterTypes()[0])) {
+                    return NONE;
+                }
+            }
+        }
+        for (Method method : setters.values()) {
+            int index = types.size();
+            String property = method.getName().substring(3);
+            // PojoUtils#getSetterMethod把键的首字母转为大写后拼出setter名
+            indexes.put(property, index);
+            indexes.put(property.substring(0, 1).toLowerCase() + property.substring(1), index);
+            types.add(method.getParameterTypes()[0]);
+            genericTypes.add(method.getGenericParameterTypes()[0]);
+            fields.add(null);
+            c2.append(" if( $2 == ").append(index).append(" ){ w.").append(method.getName()).append("(")
+                    .append(arg(method.getParameterTypes()[0], "$3")).append("); return; }");
+        }
+        // 没有setter时设置字段：先找本类声明的字段，再找public实例字段
+        List<Field> candidates = new ArrayList<>();
+        for (Field field : c.getDeclaredFields()) {
+            if (!field.isSynthetic()) {
+                candidates.add(field);
+            }
+        }
+        for (Field field : c.getFields()) {
+            if (ReflectUtils.isPublicInstanceField(field) && field.getDeclaringClass() != c) {
+                candidates.add(field);
+            }
+        }
+        for (Field field : candidates) {
+            String fn = field.getName();
+            if (indexes.containsKey(fn)) {
+                continue;
+            }
+            int index = types.size();
+            indexes.put(fn, index);
+            types.add(field.getType());
+            genericTypes.add(field.getGenericType());
+            fields.add(field);
+            if (ReflectUtils.isPublicInstanceField(field) && isAccessible(field.getDeclaringClass()) && isAccessible(field.getType())) {
+                c2.append(" if( $2 == ").append(index).append(" ){ w.").append(fn).append(" = ").append(arg(field.getType(), "$3")).append("; return; }");
+            } else {
+                field.setAccessible(true);
+            }
+        }
+        c2.append(" setField($2, $1, $3); }");
+
+        long id = CONVERTER_CLASS_COUNTER.getAndIncrement();
+        ClassGenerator cc = ClassGenerator.newInstance(cl);
+        cc.setClassName(PojoConverter.class.getName() + id);
+        cc.setSuperClass(PojoConverter.class);
+        cc.addDefaultConstructor();
+        cc.addMethod(c1.toString());
+        cc.addMethod(c2.toString());
+        try {
+            PojoConverter converter = (PojoConverter) cc.toClass().newInstance();
+            converter.indexes = indexes;
+            converter.types = types.toArray(new Class<?>[0]);
+            converter.genericTypes = genericTypes.toArray(new Type[0]);
+            converter.fields = fields.toArray(new Field[0]);
+            // HashMap默认负载因子0.75
+            converter.capacity = capacity * 4 / 3 + 1;
+            return converter;
+        } catch (Throwable t) {
+            logger.warn("Failed to generate pojo converter for " + name + ", fall back to reflection, cause: " + t.getMessage(), t);
+            return NONE;
+        } finally {
+            cc.release();
+        }
+    }
+
+    /**
+     * 生成的类在本包中，只能直接访问public类及其成员
+     */
+    private static boolean isAccessible(Class<?> c) {
+        while (c.isArray()) {
+            c = c.getComponentType();
+        }
+        return c.isPrimitive() || Modifier.isPublic(c.getModifiers());
+    }
+
+    /**
+     * 读取属性值的代码，声明类型在PojoUtils#generalize中会被原样返回时不再递归
+     */
+    private static String value(Class<?> cl, String expression) {
+        if (cl.isPrimitive()) {
+            return ReflectUtils.getBoxedClass(cl).getName() + ".valueOf(" + expression + ")";
+        }
+        if (ReflectUtils.isPrimitives(cl)) {
+            return expression;
+        }
+        return "generalizeValue(" + expression + ", $3)";
+    }
+
+    /**
+     * 转型代码
+     */
+    private static String arg(Class<?> cl, String name) {
+        if (cl.isPrimitive()) {
+            if (cl == Boolean.TYPE) {
+                return "((Boolean)" + name + ").booleanValue()";
+            }
+            if (cl == Byte.TYPE) {
+                return "((Byte)" + name + ").byteValue()";
+            }
+            if (cl == Character.TYPE) {
+                return "((Character)" + name + ").charValue()";
+            }
+            if (cl == Double.TYPE) {
+                return "((Number)" + name + ").doubleValue()";
+            }
+            if (cl == Float.TYPE) {
+                return "((Number)" + name + ").floatValue()";
+            }
+            if (cl == Integer.TYPE) {
+                return "((Number)" + name + ").intValue()";
+            }
+            if (cl == Long.TYPE) {
+                return "((Number)" + name + ").longValue()";
+            }
+            if (cl == Short.TYPE) {
+                return "((Number)" + name + ").shortValue()";
+            }
+            throw new RuntimeException("Unknown primitive type: " + cl.getName());
+        }
+        return "(" + ReflectUtils.getName(cl) + ")" + name;
+    }
+
+}
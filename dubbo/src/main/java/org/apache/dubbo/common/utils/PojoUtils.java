@@ -52,7 +52,7 @@ public class PojoUtils {
     }
 
     @SuppressWarnings("unchecked")
-    private static Object generalize(Object pojo, Map<Object, Object> history) {
+    static Object generalize(Object pojo, Map<Object, Object> history) {
         if (pojo == null) {
             return null;
         }
@@ -107,6 +107,15 @@ public class PojoUtils {
             }
             return dest;
         }
+        // 优先使用按类生成的转换器
+        PojoConverter converter = PojoConverter.getConverter(pojo.getClass());
+        if (converter != null) {
+            Map<String, Object> map = new HashMap<String, Object>(converter.capacity());
+            history.put(pojo, map);
+            map.put("class", pojo.getClass().getName());
+            converter.generalize(pojo, map, history);
+            return map;
+        }
         Map<String, Object> map = new HashMap<String, Object>();
         history.put(pojo, map);
         map.put("class", pojo.getClass().getName());
@@ -237,7 +246,7 @@ public class PojoUtils {
     }
 
     @SuppressWarnings({"unchecked", "rawtypes"})
-    private static Object realize0(Object pojo, Class<?> type, Type genericType, final Map<Object, Object> history) {
+    static Object realize0(Object pojo, Class<?> type, Type genericType, final Map<Object, Object> history) {
         if (pojo == null) {
             return null;
         }
@@ -369,33 +378,38 @@ public class PojoUtils {
             } else {
                 Object dest = newInstance(type);
                 history.put(pojo, dest);
-                for (Map.Entry<Object, Object> entry : map.entrySet()) {
-                    Object key = entry.getKey();
-                    if (key instanceof String) {
-                        String name = (String) key;
-                        Object value = entry.getValue();
-                        if (value != null) {
-                            Method method = getSetterMethod(dest.getClass(), name, value.getClass());
-                            Field field = getField(dest.getClass(), name);
-                            if (method != null) {
-                                if (!method.isAccessible()) {
-                                    method.setAccessible(true);
-                                }
-                                Type ptype = method.getGenericParameterTypes()[0];
-                                value = realize0(value, method.getParameterTypes()[0], ptype, history);
-                                try {
-                                    method.invoke(dest, value);
-                                } catch (Exception e) {
-                                    String exceptionDescription = "Failed to set pojo " + dest.getClass().getSimpleName() + " property " + name + " value " + value + "(" + value.getClass() + "), cause: " + e.getMessage();
-                                    logger.error(exceptionDescription, e);
-                                    throw new RuntimeException(exceptionDescription, e);
-                                }
-                            } else if (field != null) {
-                                value = realize0(value, field.getType(), field.getGenericType(), history);
-                                try {
-                                    field.set(dest, value);
-                                } catch (IllegalAccessException e) {
-                                    throw new RuntimeException("Failed to set field " + name + " of pojo " + dest.getClass().getName() + " : " + e.getMessage(), e);
+                PojoConverter converter = PojoConverter.getConverter(dest.getClass());
+                if (converter != null) {
+                    converter.realize(map, dest, history);
+                } else {
+                    for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                        Object key = entry.getKey();
+                        if (key instanceof String) {
+                            String name = (String) key;
+                            Object value = entry.getValue();
+                            if (value != null) {
+                                Method method = getSetterMethod(dest.getClass(), name, value.getClass());
+                                Field field = getField(dest.getClass(), name);
+                                if (method != null) {
+                                    if (!method.isAccessible()) {
+                                        method.setAccessible(true);
+                                    }
+                                    Type ptype = method.getGenericParameterTypes()[0];
+                                    value = realize0(value, method.getParameterTypes()[0], ptype, history);
+                                    try {
+                                        method.invoke(dest, value);
+                                    } catch (Exception e) {
+                                        String exceptionDescription = "Failed to set pojo " + dest.getClass().getSimpleName() + " property " + name + " value " + value + "(" + value.getClass() + "), cause: " + e.getMessage();
+                                        logger.error(exceptionDescription, e);
+                                        throw new RuntimeException(exceptionDescription, e);
+                                    }
+                                } else if (field != null) {
+                                    value = realize0(value, field.getType(), field.getGenericType(), history);
+                                    try {
+                                        field.set(dest, value);
+                                    } catch (IllegalAccessException e) {
+                                        throw new RuntimeException("Failed to set field " + name + " of pojo " + dest.getClass().getName() + " : " + e.getMessage(), e);
+                                    }
                                 }
                             }
                         }
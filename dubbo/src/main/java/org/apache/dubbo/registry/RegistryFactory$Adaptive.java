@@ -3,6 +3,8 @@ package org.apache.dubbo.registry;
 import org.apache.dubbo.common.extension.ExtensionLoader;
 
 public class RegistryFactory$Adaptive implements org.apache.dubbo.registry.RegistryFactory {
+    private final org.apache.dubbo.common.extension.AdaptiveExtensionCache extensions = new org.apache.dubbo.common.extension.AdaptiveExtensionCache(org.apache.dubbo.registry.RegistryFactory.class);
+
     public org.apache.dubbo.registry.Registry getRegistry(org.apache.dubbo.common.URL arg0) {
         if (arg0 == null)
             throw new IllegalArgumentException("url == null");
@@ -10,7 +12,7 @@ public class RegistryFactory$Adaptive implements org.apache.dubbo.registry.Regis
         String extName = (url.getProtocol() == null ? "dubbo" : url.getProtocol());
         if (extName == null)
             throw new IllegalStateException("Failed to get extension (org.apache.dubbo.registry.RegistryFactory) name from url (" + url.toString() + ") use keys([protocol])");
-        org.apache.dubbo.registry.RegistryFactory extension = (org.apache.dubbo.registry.RegistryFactory) ExtensionLoader.getExtensionLoader(org.apache.dubbo.registry.RegistryFactory.class).getExtension(extName);
+        org.apache.dubbo.registry.RegistryFactory extension = (org.apache.dubbo.registry.RegistryFactory) extensions.get(extName);
         return extension.getRegistry(arg0);
     }
 
@@ -11,6 +11,7 @@ import org.apache.dubbo.common.utils.*;
 import org.apache.dubbo.configcenter.DynamicConfiguration;
 import org.apache.dubbo.registry.NotifyListener;
 import org.apache.dubbo.registry.Registry;
+import org.apache.dubbo.rpc.AdaptiveMetrics;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Protocol;
@@ -23,6 +24,10 @@ import org.apache.dubbo.rpc.model.ApplicationModel;
 import org.apache.dubbo.rpc.protocol.InvokerWrapper;
 
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.apache.dubbo.common.constants.CommonConstants.*;
@@ -44,6 +49,8 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
 
     private static final RouterFactory ROUTER_FACTORY = ExtensionLoader.getExtensionLoader(RouterFactory.class).getAdaptiveExtension();
 
+    private static final ScheduledExecutorService REFRESH_EXECUTOR = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("DubboRegistryDirectoryRefresh", true));
+
     private final String serviceKey;
 
     private final Class<T> serviceType;
@@ -72,6 +79,24 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
 
     private volatile Set<URL> cachedInvokerUrls;
 
+    /**
+     * 提供者原始url(toFullString) -> mergeUrl的结果，配置器变化时清空，未变化的提供者不再重复合并
+     */
+    private Map<String, URL> mergedUrlCache = new HashMap<>();
+
+    /**
+     * 首次通知之后，在notifyDelay毫秒内到达的多次通知合并为一次刷新，以下字段都由this保护
+     */
+    private final long notifyDelay;
+
+    private List<URL> pendingProviderUrls;
+
+    private boolean configuratorsChanged = true;
+
+    private boolean routersChanged;
+
+    private ScheduledFuture<?> pendingRefresh;
+
     private static final ConsumerConfigurationListener CONSUMER_CONFIGURATION_LISTENER = new ConsumerConfigurationListener();
 
     private ReferenceConfigurationListener serviceConfigurationListener;
@@ -90,6 +115,7 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
         this.overrideDirectoryUrl = this.directoryUrl = turnRegistryUrlToConsumerUrl(url);
         String group = directoryUrl.getParameter(GROUP_KEY, "");
         this.multiGroup = group != null && (ANY_VALUE.equals(group) || group.contains(","));
+        this.notifyDelay = directoryUrl.getParameter(NOTIFY_DELAY_KEY, url.getParameter(NOTIFY_DELAY_KEY, DEFAULT_NOTIFY_DELAY));
     }
 
     private URL turnRegistryUrlToConsumerUrl(URL url) {
@@ -136,6 +162,12 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
             logger.warn("unexpected error when unsubscribe service " + serviceKey + "from registry" + registry.getUrl(), t);
         }
         super.destroy();
+        synchronized (this) {
+            if (pendingRefresh != null) {
+                pendingRefresh.cancel(false);
+                pendingRefresh = null;
+            }
+        }
         try {
             destroyAllInvokers();
         } catch (Throwable t) {
@@ -168,18 +200,67 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
         }));
         List<URL> configuratorURLs = categoryUrls.getOrDefault(CONFIGURATORS_CATEGORY, Collections.emptyList());
         // 将url转成Configurator
-        this.configurators = Configurator.toConfigurators(configuratorURLs).orElse(this.configurators);
+        Optional<List<Configurator>> newConfigurators = Configurator.toConfigurators(configuratorURLs);
+        if (newConfigurators.isPresent()) {
+            this.configurators = newConfigurators.get();
+            configuratorsChanged = true;
+        }
         List<URL> routerURLs = categoryUrls.getOrDefault(ROUTERS_CATEGORY, Collections.emptyList());
         // 将url转成Router
-        toRouters(routerURLs).ifPresent(this::addRouters);
+        toRouters(routerURLs).ifPresent(routers -> {
+            addRouters(routers);
+            routersChanged = true;
+        });
         List<URL> providerURLs = categoryUrls.getOrDefault(PROVIDERS_CATEGORY, Collections.emptyList());
+        // 空列表表示沿用缓存的提供者，不能覆盖还没处理的非空列表
+        if (!providerURLs.isEmpty() || pendingProviderUrls == null) {
+            pendingProviderUrls = providerURLs;
+        }
         // 刷新Invoker列表
-        refreshOverrideAndInvoker(providerURLs);
+        scheduleRefresh();
     }
 
-    private void refreshOverrideAndInvoker(List<URL> urls) {
-        overrideDirectoryUrl();
-        refreshInvoker(urls);
+    /**
+     * 动态配置变化，需要重新合并所有提供者url
+     */
+    private synchronized void refreshOverrides() {
+        configuratorsChanged = true;
+        scheduleRefresh();
+    }
+
+    /**
+     * 首次通知同步刷新，保证subscribe返回时已有Invoker；之后的通知延迟notifyDelay毫秒合并刷新
+     */
+    private void scheduleRefresh() {
+        if (notifyDelay <= 0 || urlInvokerMap == null) {
+            refreshOverrideAndInvoker();
+            return;
+        }
+        if (pendingRefresh == null) {
+            pendingRefresh = REFRESH_EXECUTOR.schedule(() -> {
+                synchronized (this) {
+                    pendingRefresh = null;
+                    if (!isDestroyed()) {
+                        refreshOverrideAndInvoker();
+                    }
+                }
+            }, notifyDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void refreshOverrideAndInvoker() {
+        List<URL> urls = pendingProviderUrls == null ? Collections.emptyList() : pendingProviderUrls;
+        pendingProviderUrls = null;
+        if (configuratorsChanged) {
+            configuratorsChanged = false;
+            mergedUrlCache = new HashMap<>();
+            overrideDirectoryUrl();
+        }
+        try {
+            refreshInvoker(urls);
+        } catch (Throwable t) {
+            logger.error("Failed to refresh invokers for service " + serviceKey + ", cause: " + t.getMessage(), t);
+        }
     }
 
     private void refreshInvoker(List<URL> invokerUrls) {
@@ -235,6 +316,11 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
                 logger.error(new IllegalStateException("urls to invokers error .invokerUrls.size :" + invokerUrls.size() + ", invoker.size :0. urls :" + invokerUrls.toString()));
                 return;
             }
+            // url对应的Invoker会被复用，key集合不变说明Invoker列表没有变化，不需要重建路由链
+            if (!routersChanged && oldUrlInvokerMap != null && oldUrlInvokerMap.keySet().equals(newUrlInvokerMap.keySet())) {
+                return;
+            }
+            routersChanged = false;
             List<Invoker<T>> newInvokers = Collections.unmodifiableList(new ArrayList<>(newUrlInvokerMap.values()));
             routerChain.setInvokers(newInvokers);
             // 合并多个组的Invoker
@@ -302,12 +388,14 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
             return newUrlInvokerMap;
         }
         Set<String> keys = new HashSet<>();
+        Map<String, URL> cachedMergedUrls = this.mergedUrlCache;
+        Map<String, URL> newMergedUrls = new HashMap<>(urls.size() * 4 / 3 + 1);
         // 获取服务消费端配置的协议
         String queryProtocols = this.queryMap.get(PROTOCOL_KEY);
+        String[] acceptProtocols = queryProtocols != null && queryProtocols.length() > 0 ? queryProtocols.split(",") : null;
         for (URL providerUrl : urls) {
-            if (queryProtocols != null && queryProtocols.length() > 0) {
+            if (acceptProtocols != null) {
                 boolean accept = false;
-                String[] acceptProtocols = queryProtocols.split(",");
                 // 检测服务提供者协议是否被服务消费者所支持
                 for (String acceptProtocol : acceptProtocols) {
                     if (providerUrl.getProtocol().equals(acceptProtocol)) {
@@ -329,8 +417,13 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
                 logger.error(new IllegalStateException("Unsupported protocol " + providerUrl.getProtocol() + " in notified url: " + providerUrl + " from registry " + getUrl().getAddress() + " to consumer " + NetUtils.getLocalHost() + ", supported protocol: " + ExtensionLoader.getExtensionLoader(Protocol.class).getSupportedExtensions()));
                 continue;
             }
-            // 合并url
-            URL url = mergeUrl(providerUrl);
+            // 合并url，未变化的提供者直接使用上次的合并结果
+            String rawKey = providerUrl.toFullString();
+            URL url = cachedMergedUrls.get(rawKey);
+            if (url == null) {
+                url = mergeUrl(providerUrl);
+            }
+            newMergedUrls.put(rawKey, url);
             String key = url.toFullString();
             if (keys.contains(key)) {
                 // 忽略重复url
@@ -371,6 +464,7 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
             }
         }
         keys.clear();
+        this.mergedUrlCache = newMergedUrls;
         return newUrlInvokerMap;
     }
 
@@ -420,6 +514,7 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
             for (Invoker<T> invoker : new ArrayList<>(localUrlInvokerMap.values())) {
                 try {
                     invoker.destroy();
+                    AdaptiveMetrics.removeMetrics(invoker.getUrl());
                 } catch (Throwable t) {
                     logger.warn("Failed to destroy service " + serviceKey + " to provider " + invoker.getUrl(), t);
                 }
@@ -436,12 +531,10 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
         }
         List<String> deleted = null;
         if (oldUrlInvokerMap != null) {
-            // 获取新生成的Invoker列表
-            Collection<Invoker<T>> newInvokers = newUrlInvokerMap.values();
             // 遍历老的 <url, Invoker> 映射表
             for (Map.Entry<String, Invoker<T>> entry : oldUrlInvokerMap.entrySet()) {
-                // 检测newInvokers中是否包含老的Invoker
-                if (!newInvokers.contains(entry.getValue())) {
+                // 同一url的Invoker会被复用，新映射表中没有该url说明老的Invoker已不再使用
+                if (!newUrlInvokerMap.containsKey(entry.getKey())) {
                     if (deleted == null) {
                         deleted = new ArrayList<>();
                     }
@@ -460,6 +553,8 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
                         try {
                             // 销毁Invoker
                             invoker.destroy();
+                            // 该Invoker的负载均衡统计不再使用
+                            AdaptiveMetrics.removeMetrics(invoker.getUrl());
                             if (logger.isDebugEnabled()) {
                                 logger.debug("destroy invoker[" + invoker.getUrl() + "] success. ");
                             }
@@ -596,7 +691,7 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
 
         @Override
         protected void notifyOverrides() {
-            directory.refreshInvoker(Collections.emptyList());
+            directory.refreshOverrides();
         }
 
     }
@@ -614,7 +709,7 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
 
         @Override
         protected void notifyOverrides() {
-            listeners.forEach(listener -> listener.refreshInvoker(Collections.emptyList()));
+            listeners.forEach(RegistryDirectory::refreshOverrides);
         }
 
     }
@@ -29,9 +29,12 @@ import org.apache.dubbo.rpc.RpcException;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.dubbo.common.constants.CommonConstants.*;
@@ -45,6 +48,9 @@ import static org.apache.dubbo.registry.Constants.UNREGISTER;
 
 /**
  * RedisRegistry
+ * 所有订阅共用一个Notifier线程和一条pub/sub连接，新增的订阅在已建立的连接上追加psubscribe
+ * 收到的变更事件按key合并后交给DubboRedisNotify线程读取并分发给所有匹配的NotifyListener，订阅线程只负责读消息
+ * 续期、清理和批量读取都通过pipeline一次往返完成
  */
 public class RedisRegistry extends FailbackRegistry {
 
@@ -62,7 +68,14 @@ public class RedisRegistry extends FailbackRegistry {
 
     private final Map<String, JedisPool> jedisPools = new ConcurrentHashMap<>();
 
-    private final ConcurrentMap<String, Notifier> notifiers = new ConcurrentHashMap<>();
+    private final Notifier notifier = new Notifier();
+
+    private final ExecutorService notifyExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("DubboRedisNotify", true));
+
+    /**
+     * 已提交但还没有处理的变更key，同一个key的连续事件只处理一次
+     */
+    private final Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
 
     private final int reconnectPeriod;
 
@@ -160,14 +173,26 @@ public class RedisRegistry extends FailbackRegistry {
             JedisPool jedisPool = entry.getValue();
             try {
                 try (Jedis jedis = jedisPool.getResource()) {
+                    String expire = String.valueOf(System.currentTimeMillis() + expirePeriod);
+                    List<String> keys = new ArrayList<>();
+                    List<Response<Long>> responses = new ArrayList<>();
+                    Pipeline pipeline = jedis.pipelined();
                     for (URL url : new HashSet<>(getRegistered())) {
                         if (url.getParameter(DYNAMIC_KEY, true)) {
                             String key = toCategoryPath(url);
-                            if (jedis.hset(key, url.toFullString(), String.valueOf(System.currentTimeMillis() + expirePeriod)) == 1) {
-                                jedis.publish(key, REGISTER);
-                            }
+                            keys.add(key);
+                            responses.add(pipeline.hset(key, url.toFullString(), expire));
                         }
                     }
+                    pipeline.sync();
+                    // hset返回1说明字段是新建的，即该地址已被清理过，需要重新广播
+                    Set<String> recreated = new HashSet<>();
+                    for (int i = 0; i < keys.size(); i++) {
+                        if (responses.get(i).get() == 1) {
+                            recreated.add(keys.get(i));
+                        }
+                    }
+                    publish(jedis, recreated, REGISTER);
                     if (admin) {
                         clean(jedis);
                     }
@@ -184,31 +209,58 @@ public class RedisRegistry extends FailbackRegistry {
     // The monitoring center is responsible for deleting outdated dirty data
     private void clean(Jedis jedis) {
         Set<String> keys = jedis.keys(root + ANY_VALUE);
-        if (CollectionUtils.isNotEmpty(keys)) {
-            for (String key : keys) {
-                Map<String, String> values = jedis.hgetAll(key);
-                if (CollectionUtils.isNotEmptyMap(values)) {
-                    boolean delete = false;
-                    long now = System.currentTimeMillis();
-                    for (Map.Entry<String, String> entry : values.entrySet()) {
-                        URL url = URL.valueOf(entry.getKey());
-                        if (url.getParameter(DYNAMIC_KEY, true)) {
-                            long expire = Long.parseLong(entry.getValue());
-                            if (expire < now) {
-                                jedis.hdel(key, entry.getKey());
-                                delete = true;
-                                if (logger.isWarnEnabled()) {
-                                    logger.warn("Delete expired key: " + key + " -> value: " + entry.getKey() + ", expire: " + new Date(expire) + ", now: " + new Date(now));
-                                }
-                            }
+        if (CollectionUtils.isEmpty(keys)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Set<String> deleted = new HashSet<>();
+        Pipeline pipeline = jedis.pipelined();
+        for (Map.Entry<String, Map<String, String>> keyValues : hgetAll(jedis, keys).entrySet()) {
+            String key = keyValues.getKey();
+            for (Map.Entry<String, String> entry : keyValues.getValue().entrySet()) {
+                URL url = URL.valueOf(entry.getKey());
+                if (url.getParameter(DYNAMIC_KEY, true)) {
+                    long expire = Long.parseLong(entry.getValue());
+                    if (expire < now) {
+                        pipeline.hdel(key, entry.getKey());
+                        deleted.add(key);
+                        if (logger.isWarnEnabled()) {
+                            logger.warn("Delete expired key: " + key + " -> value: " + entry.getKey() + ", expire: " + new Date(expire) + ", now: " + new Date(now));
                         }
                     }
-                    if (delete) {
-                        jedis.publish(key, UNREGISTER);
-                    }
                 }
             }
         }
+        pipeline.sync();
+        publish(jedis, deleted, UNREGISTER);
+    }
+
+    private void publish(Jedis jedis, Collection<String> keys, String msg) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Pipeline pipeline = jedis.pipelined();
+        for (String key : keys) {
+            pipeline.publish(key, msg);
+        }
+        pipeline.sync();
+    }
+
+    /**
+     * 通过pipeline批量读取多个key
+     */
+    private Map<String, Map<String, String>> hgetAll(Jedis jedis, Collection<String> keys) {
+        Map<String, Response<Map<String, String>>> responses = new LinkedHashMap<>();
+        Pipeline pipeline = jedis.pipelined();
+        for (String key : keys) {
+            responses.put(key, pipeline.hgetAll(key));
+        }
+        pipeline.sync();
+        Map<String, Map<String, String>> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Response<Map<String, String>>> entry : responses.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
     }
 
     @Override
@@ -233,12 +285,11 @@ public class RedisRegistry extends FailbackRegistry {
             logger.warn(t.getMessage(), t);
         }
         try {
-            for (Notifier notifier : notifiers.values()) {
-                notifier.shutdown();
-            }
+            notifier.shutdown();
         } catch (Throwable t) {
             logger.warn(t.getMessage(), t);
         }
+        notifyExecutor.shutdownNow();
         for (Map.Entry<String, JedisPool> entry : jedisPools.entrySet()) {
             JedisPool jedisPool = entry.getValue();
             try {
@@ -314,15 +365,7 @@ public class RedisRegistry extends FailbackRegistry {
     @Override
     public void doSubscribe(final URL url, final NotifyListener listener) {
         String service = toServicePath(url);
-        Notifier notifier = notifiers.get(service);
-        if (notifier == null) {
-            Notifier newNotifier = new Notifier(service);
-            notifiers.putIfAbsent(service, newNotifier);
-            notifier = notifiers.get(service);
-            if (notifier == newNotifier) {
-                notifier.start();
-            }
-        }
+        notifier.subscribe(service.endsWith(ANY_VALUE) ? service : service + PATH_SEPARATOR + ANY_VALUE);
         boolean success = false;
         RpcException exception = null;
         for (Map.Entry<String, JedisPool> entry : jedisPools.entrySet()) {
@@ -366,9 +409,19 @@ public class RedisRegistry extends FailbackRegistry {
     public void doUnsubscribe(URL url, NotifyListener listener) {
     }
 
+    /**
+     * key变更后只读取一次，再分发给所有订阅了它的URL
+     */
     private void doNotify(Jedis jedis, String key) {
+        Map<String, Map<String, String>> keyValues = null;
         for (Map.Entry<URL, Set<NotifyListener>> entry : new HashMap<>(getSubscribed()).entrySet()) {
-            doNotify(jedis, Collections.singletonList(key), entry.getKey(), new HashSet<>(entry.getValue()));
+            if (entry.getValue().isEmpty() || !isSubscribedKey(entry.getKey(), key)) {
+                continue;
+            }
+            if (keyValues == null) {
+                keyValues = Collections.singletonMap(key, jedis.hgetAll(key));
+            }
+            doNotify(keyValues, entry.getKey(), new HashSet<>(entry.getValue()));
         }
     }
 
@@ -377,23 +430,35 @@ public class RedisRegistry extends FailbackRegistry {
                 || listeners == null || listeners.isEmpty()) {
             return;
         }
-        long now = System.currentTimeMillis();
-        List<URL> result = new ArrayList<>();
-        List<String> categories = Arrays.asList(url.getParameter(CATEGORY_KEY, new String[0]));
-        String consumerService = url.getServiceInterface();
+        List<String> subscribedKeys = new ArrayList<>();
         for (String key : keys) {
-            if (!ANY_VALUE.equals(consumerService)) {
-                String providerService = toServiceName(key);
-                if (!providerService.equals(consumerService)) {
-                    continue;
-                }
+            if (isSubscribedKey(url, key)) {
+                subscribedKeys.add(key);
             }
+        }
+        if (subscribedKeys.isEmpty()) {
+            return;
+        }
+        doNotify(hgetAll(jedis, subscribedKeys), url, listeners);
+    }
+
+    private boolean isSubscribedKey(URL url, String key) {
+        String consumerService = url.getServiceInterface();
+        if (!ANY_VALUE.equals(consumerService) && !toServiceName(key).equals(consumerService)) {
+            return false;
+        }
+        List<String> categories = Arrays.asList(url.getParameter(CATEGORY_KEY, new String[0]));
+        return categories.contains(ANY_VALUE) || categories.contains(toCategoryName(key));
+    }
+
+    private void doNotify(Map<String, Map<String, String>> keyValues, URL url, Collection<NotifyListener> listeners) {
+        long now = System.currentTimeMillis();
+        List<URL> result = new ArrayList<>();
+        for (Map.Entry<String, Map<String, String>> keyValue : keyValues.entrySet()) {
+            String key = keyValue.getKey();
             String category = toCategoryName(key);
-            if (!categories.contains(ANY_VALUE) && !categories.contains(category)) {
-                continue;
-            }
             List<URL> urls = new ArrayList<>();
-            Map<String, String> values = jedis.hgetAll(key);
+            Map<String, String> values = keyValue.getValue();
             if (CollectionUtils.isNotEmptyMap(values)) {
                 for (Map.Entry<String, String> entry : values.entrySet()) {
                     URL u = URL.valueOf(entry.getKey());
@@ -460,14 +525,64 @@ public class RedisRegistry extends FailbackRegistry {
         return toServicePath(url) + PATH_SEPARATOR + url.getParameter(CATEGORY_KEY, DEFAULT_CATEGORY);
     }
 
+    /**
+     * 合并同一个key的连续事件，交给通知线程处理
+     */
+    private void scheduleNotify(JedisPool jedisPool, String key) {
+        if (!pendingKeys.add(key)) {
+            return;
+        }
+        try {
+            notifyExecutor.execute(() -> {
+                // 先移除再读取，读取期间到达的事件会再次触发
+                pendingKeys.remove(key);
+                try (Jedis jedis = jedisPool.getResource()) {
+                    doNotify(jedis, key);
+                } catch (Throwable t) { // TODO Notification failure does not restore mechanism guarantee
+                    logger.error(t.getMessage(), t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingKeys.remove(key);
+        }
+    }
+
     private class NotifySub extends JedisPubSub {
 
         private final JedisPool jedisPool;
 
+        /**
+         * 已经发出psubscribe的pattern
+         */
+        private final Set<String> requested = new HashSet<>();
+
         public NotifySub(JedisPool jedisPool) {
             this.jedisPool = jedisPool;
         }
 
+        /**
+         * 把还没有订阅的pattern追加到当前连接上
+         * 连接建立前调用时什么也不做，等onPSubscribe确认后再补发
+         */
+        private synchronized void sync(Collection<String> patterns) {
+            if (!isSubscribed()) {
+                return;
+            }
+            List<String> added = new ArrayList<>();
+            for (String pattern : patterns) {
+                if (requested.add(pattern)) {
+                    added.add(pattern);
+                }
+            }
+            if (!added.isEmpty()) {
+                psubscribe(added.toArray(new String[0]));
+            }
+        }
+
+        private synchronized void request(Collection<String> patterns) {
+            requested.addAll(patterns);
+        }
+
         @Override
         public void onMessage(String key, String msg) {
             if (logger.isInfoEnabled()) {
@@ -477,16 +592,7 @@ public class RedisRegistry extends FailbackRegistry {
             }
             if (msg.equals(REGISTER)
                     || msg.equals(UNREGISTER)) {
-                try {
-                    Jedis jedis = jedisPool.getResource();
-                    try {
-                        doNotify(jedis, key);
-                    } finally {
-                        jedis.close();
-                    }
-                } catch (Throwable t) { // TODO Notification failure does not restore mechanism guarantee
-                    logger.error(t.getMessage(), t);
-                }
+                scheduleNotify(jedisPool, key);
             }
         }
 
@@ -501,6 +607,7 @@ public class RedisRegistry extends FailbackRegistry {
 
         @Override
         public void onPSubscribe(String pattern, int num) {
+            notifier.onSubscribed(this);
         }
 
         @Override
@@ -513,20 +620,43 @@ public class RedisRegistry extends FailbackRegistry {
 
     }
 
+    /**
+     * 唯一的订阅线程，在一条连接上psubscribe所有服务的pattern
+     */
     private class Notifier extends Thread {
 
-        private final String service;
+        private final Set<String> patterns = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean started = new AtomicBoolean();
         private final AtomicInteger connectSkip = new AtomicInteger();
         private final AtomicInteger connectSkipped = new AtomicInteger();
         private volatile Jedis jedis;
+        private volatile NotifySub sub;
         private volatile boolean first = true;
         private volatile boolean running = true;
         private volatile int connectRandom;
 
-        public Notifier(String service) {
+        public Notifier() {
             super.setDaemon(true);
             super.setName("DubboRedisSubscribe");
-            this.service = service;
+        }
+
+        public void subscribe(String pattern) {
+            if (!patterns.add(pattern)) {
+                return;
+            }
+            if (started.compareAndSet(false, true)) {
+                start();
+                return;
+            }
+            // sub为null说明订阅线程还没有取pattern快照，新pattern会包含在快照里
+            NotifySub current = sub;
+            if (current != null) {
+                current.sync(patterns);
+            }
+        }
+
+        private void onSubscribed(NotifySub current) {
+            current.sync(patterns);
         }
 
         private void resetSkip() {
@@ -563,31 +693,31 @@ public class RedisRegistry extends FailbackRegistry {
                                 try {
                                     jedis = jedisPool.getResource();
                                     try {
-                                        if (service.endsWith(ANY_VALUE)) {
-                                            if (first) {
-                                                first = false;
-                                                Set<String> keys = jedis.keys(service);
-                                                if (CollectionUtils.isNotEmpty(keys)) {
-                                                    for (String s : keys) {
-                                                        doNotify(jedis, s);
-                                                    }
-                                                }
-                                                resetSkip();
-                                            }
-                                            jedis.psubscribe(new NotifySub(jedisPool), service); // blocking
+                                        NotifySub current = new NotifySub(jedisPool);
+                                        sub = current;
+                                        List<String> snapshot = new ArrayList<>(patterns);
+                                        if (first) {
+                                            first = false;
                                         } else {
-                                            if (first) {
-                                                first = false;
-                                                doNotify(jedis, service);
-                                                resetSkip();
+                                            // 断线期间的事件已经丢失，重连后重新读取一遍订阅的key
+                                            for (String pattern : snapshot) {
+                                                for (String key : jedis.keys(pattern)) {
+                                                    scheduleNotify(jedisPool, key);
+                                                }
                                             }
-                                            jedis.psubscribe(new NotifySub(jedisPool), service + PATH_SEPARATOR + ANY_VALUE); // blocking
                                         }
+                                        resetSkip();
+                                        current.request(snapshot);
+                                        jedis.psubscribe(current, snapshot.toArray(new String[0])); // blocking
                                         break;
                                     } finally {
+                                        sub = null;
                                         jedis.close();
                                     }
                                 } catch (Throwable t) { // Retry another server
+                                    if (!running) {
+                                        break;
+                                    }
                                     logger.warn("Failed to subscribe service from redis registry. registry: " + entry.getKey() + ", cause: " + t.getMessage(), t);
                                     // If you only have a single redis, you need to take a rest to avoid overtaking a lot of CPU resources
                                     sleep(reconnectPeriod);
@@ -605,11 +735,10 @@ public class RedisRegistry extends FailbackRegistry {
         }
 
         public void shutdown() {
-            try {
-                running = false;
-                jedis.disconnect();
-            } catch (Throwable t) {
-                logger.warn(t.getMessage(), t);
+            running = false;
+            Jedis current = jedis;
+            if (current != null) {
+                current.disconnect();
             }
         }
 
@@ -8,13 +8,13 @@ import org.apache.dubbo.registry.NotifyListener;
 import org.apache.dubbo.registry.Registry;
 
 import java.io.*;
-import java.nio.channels.FileChannel;
-import java.nio.channels.FileLock;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -34,10 +34,19 @@ public abstract class AbstractRegistry implements Registry {
 
     private final Properties properties = new Properties();
 
-    private final ExecutorService registryCacheExecutor = Executors.newFixedThreadPool(1, new NamedThreadFactory("DubboSaveRegistryCache", true));
+    private final ScheduledExecutorService registryCacheExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("DubboSaveRegistryCache", true));
+
+    /**
+     * 尚未写入缓存文件的变更，同一个服务的多次变更只保留最后一次
+     */
+    private final ConcurrentMap<String, String> pendingCache = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
 
     private final boolean syncSaveFile;
 
+    private final long saveInterval;
+
     private final AtomicLong lastCacheChanged = new AtomicLong();
 
     private final AtomicInteger savePropertiesRetryTimes = new AtomicInteger();
@@ -52,9 +61,12 @@ public abstract class AbstractRegistry implements Registry {
 
     private File file;
 
+    private RegistryCacheStore cacheStore;
+
     public AbstractRegistry(URL url) {
         setUrl(url);
         syncSaveFile = url.getParameter(REGISTRY_FILESAVE_SYNC_KEY, false);
+        saveInterval = url.getParameter(REGISTRY_FILESAVE_INTERVAL_KEY, DEFAULT_REGISTRY_FILESAVE_INTERVAL);
         String filename = url.getParameter(FILE_KEY, System.getProperty("user.home") + "/.dubbo/dubbo-registry-" + url.getParameter(APPLICATION_KEY) + "-" + url.getAddress() + ".cache");
         File file = null;
         if (ConfigUtils.isNotEmpty(filename)) {
@@ -66,6 +78,7 @@ public abstract class AbstractRegistry implements Registry {
             }
         }
         this.file = file;
+        this.cacheStore = file == null ? null : new RegistryCacheStore(file);
         loadProperties();
         notify(url.getBackupUrls());
     }
@@ -115,57 +128,49 @@ public abstract class AbstractRegistry implements Registry {
         return lastCacheChanged;
     }
 
+    /**
+     * 把pendingCache中合并后的变更追加到缓存文件
+     * 一次写入包含此前所有未写的变更，所以不再按version跳过旧任务
+     */
     public void doSaveProperties(long version) {
-        if (version < lastCacheChanged.get()) {
+        if (cacheStore == null) {
             return;
         }
-        if (file == null) {
+        Map<String, String> entries = new HashMap<>(pendingCache);
+        if (entries.isEmpty()) {
             return;
         }
         try {
-            File lockfile = new File(file.getAbsolutePath() + ".lock");
-            if (!lockfile.exists()) {
-                lockfile.createNewFile();
-            }
-            try (RandomAccessFile raf = new RandomAccessFile(lockfile, "rw"); FileChannel channel = raf.getChannel()) {
-                FileLock lock = channel.tryLock();
-                if (lock == null) {
-                    throw new IOException("Can not lock the registry cache file " + file.getAbsolutePath() + ", ignore and retry later, maybe multi java process use the file, please config: dubbo.registry.file=xxx.properties");
-                }
-                try {
-                    if (!file.exists()) {
-                        file.createNewFile();
-                    }
-                    try (FileOutputStream outputFile = new FileOutputStream(file)) {
-                        properties.store(outputFile, "Dubbo Registry Cache");
-                    }
-                } finally {
-                    lock.release();
-                }
+            cacheStore.append(entries, properties);
+            // 写入期间又变化的服务保留在pendingCache中，下次写入
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                pendingCache.remove(entry.getKey(), entry.getValue());
             }
+            savePropertiesRetryTimes.set(0);
         } catch (Throwable e) {
-            savePropertiesRetryTimes.incrementAndGet();
-            if (savePropertiesRetryTimes.get() >= MAX_RETRY_TIMES_SAVE_PROPERTIES) {
+            if (savePropertiesRetryTimes.incrementAndGet() >= MAX_RETRY_TIMES_SAVE_PROPERTIES) {
                 logger.warn("Failed to save registry cache file after retrying " + MAX_RETRY_TIMES_SAVE_PROPERTIES + " times, cause: " + e.getMessage(), e);
                 savePropertiesRetryTimes.set(0);
                 return;
             }
-            if (version < lastCacheChanged.get()) {
-                savePropertiesRetryTimes.set(0);
-                return;
-            } else {
-                registryCacheExecutor.execute(new SaveProperties(lastCacheChanged.incrementAndGet()));
-            }
+            scheduleSaveProperties(lastCacheChanged.incrementAndGet());
             logger.warn("Failed to save registry cache file, will retry, cause: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 延迟saveInterval毫秒写文件，期间的变更合并到同一次写入
+     */
+    private void scheduleSaveProperties(long version) {
+        if (saveScheduled.compareAndSet(false, true)) {
+            registryCacheExecutor.schedule(new SaveProperties(version), saveInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
     private void loadProperties() {
-        if (file != null && file.exists()) {
-            InputStream in = null;
+        if (cacheStore != null) {
             try {
-                in = new FileInputStream(file);
-                properties.load(in);
+                cacheStore.load(properties);
                 if (logger.isInfoEnabled()) {
                     // {
                     // org.apache.dubbo.demo.DemoService:1.0.0=
@@ -189,14 +194,6 @@ public abstract class AbstractRegistry implements Registry {
                 }
             } catch (Throwable e) {
                 logger.warn("Failed to load registry cache file " + file, e);
-            } finally {
-                if (in != null) {
-                    try {
-                        in.close();
-                    } catch (IOException e) {
-                        logger.warn(e.getMessage(), e);
-                    }
-                }
             }
         }
     }
@@ -558,12 +555,14 @@ public abstract class AbstractRegistry implements Registry {
                     }
                 }
             }
-            properties.setProperty(url.getServiceKey(), buf.toString());
+            String value = buf.toString();
+            properties.setProperty(url.getServiceKey(), value);
+            pendingCache.put(url.getServiceKey(), value);
             long version = lastCacheChanged.incrementAndGet();
             if (syncSaveFile) {
                 doSaveProperties(version);
             } else {
-                registryCacheExecutor.execute(new SaveProperties(version));
+                scheduleSaveProperties(version);
             }
         } catch (Throwable t) {
             logger.warn(t.getMessage(), t);
@@ -683,6 +682,8 @@ public abstract class AbstractRegistry implements Registry {
                 }
             }
         }
+        // 写出尚未落盘的缓存变更
+        doSaveProperties(lastCacheChanged.get());
     }
 
     @Override
@@ -699,6 +700,7 @@ public abstract class AbstractRegistry implements Registry {
 
         @Override
         public void run() {
+            saveScheduled.set(false);
             doSaveProperties(version);
         }
 
@@ -0,0 +1,209 @@
+package org.apache.dubbo.registry.support;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 注册中心本地缓存文件，由快照文件和追加日志两部分组成
+ * 快照仍是原来的Properties格式文件，日志文件(.log)里是按Properties格式转义的增量记录，后写的覆盖先写的
+ * 每次变更只追加变化的服务，日志超过快照大小(且不小于COMPACT_MIN_SIZE)时合并：全量写临时文件再原子替换快照，然后清空日志
+ * 合并中途退出也没有问题，重放日志是幂等的
+ * 加载完成后立即解除内存映射，否则Windows上在缓冲区被GC回收前无法替换快照或截断日志
+ * 所有写操作都持有.lock文件上的FileLock，与原来一致
+ */
+class RegistryCacheStore {
+
+    private static final int COMPACT_MIN_SIZE = 64 * 1024;
+
+    private static final char[] HEX_DIGIT = "0123456789ABCDEF".toCharArray();
+
+    private final File file;
+
+    private final File logFile;
+
+    private final File lockFile;
+
+    RegistryCacheStore(File file) {
+        this.file = file;
+        this.logFile = new File(file.getAbsolutePath() + ".log");
+        this.lockFile = new File(file.getAbsolutePath() + ".lock");
+    }
+
+    /**
+     * 先加载快照再重放日志，两个文件都通过内存映射读取，避免逐字节读流
+     */
+    void load(Properties properties) throws IOException {
+        load(file, properties);
+        load(logFile, properties);
+    }
+
+    /**
+     * 追加一批变更，必要时合并
+     */
+    void append(Map<String, String> entries, Properties properties) throws IOException {
+        StringBuilder buf = new StringBuilder();
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            escape(entry.getKey(), buf);
+            buf.append('=');
+            escape(entry.getValue(), buf);
+            buf.append('\n');
+        }
+        byte[] bytes = buf.toString().getBytes(StandardCharsets.ISO_8859_1);
+        if (!lockFile.exists()) {
+            lockFile.createNewFile();
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(lockFile, "rw"); FileChannel channel = raf.getChannel()) {
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                throw new IOException("Can not lock the registry cache file " + file.getAbsolutePath() + ", ignore and retry later, maybe multi java process use the file, please config: dubbo.registry.file=xxx.properties");
+            }
+            try {
+                long logSize;
+                try (FileOutputStream out = new FileOutputStream(logFile, true)) {
+                    out.write(bytes);
+                    logSize = out.getChannel().size();
+                }
+                if (logSize > Math.max(file.length(), COMPACT_MIN_SIZE)) {
+                    compact(properties);
+                }
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private void compact(Properties properties) throws IOException {
+        File tmp = new File(file.getAbsolutePath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            properties.store(out, "Dubbo Registry Cache");
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(logFile, "rw")) {
+            raf.setLength(0);
+        }
+    }
+
+    private static void load(File file, Properties properties) throws IOException {
+        if (!file.exists() || file.length() == 0) {
+            return;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                properties.load(new ByteBufferInputStream(buffer));
+            } finally {
+                unmap(buffer);
+            }
+        }
+    }
+
+    /**
+     * Java 9及以上通过 Unsafe.invokeCleaner，Java 8通过 DirectByteBuffer.cleaner()，都不可用时只能等GC回收
+     * 解除映射后不能再访问该缓冲区
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner;
+            try {
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (NoSuchMethodException e) {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+                return;
+            }
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (Throwable t) {
+            // 忽略，映射在缓冲区被回收时解除
+        }
+    }
+
+    /**
+     * 与Properties.store相同的转义规则，保证load时能原样还原
+     */
+    private static void escape(String s, StringBuilder buf) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case ' ':
+                case '=':
+                case ':':
+                case '#':
+                case '!':
+                case '\\':
+                    buf.append('\\').append(c);
+                    break;
+                case '\t':
+                    buf.append("\\t");
+                    break;
+                case '\n':
+                    buf.append("\\n");
+                    break;
+                case '\r':
+                    buf.append("\\r");
+                    break;
+                case '\f':
+                    buf.append("\\f");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        buf.append("\\u").append(HEX_DIGIT[(c >> 12) & 0xF]).append(HEX_DIGIT[(c >> 8) & 0xF]).append(HEX_DIGIT[(c >> 4) & 0xF]).append(HEX_DIGIT[c & 0xF]);
+                    } else {
+                        buf.append(c);
+                    }
+            }
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+    }
+
+}
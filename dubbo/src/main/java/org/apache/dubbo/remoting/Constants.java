@@ -34,4 +34,82 @@ public interface Constants {
 
     int TICKS_PER_WHEEL = 128;
 
+    String WRITE_BATCH_KEY = "write.batch";
+
+    String WRITE_BATCH_BYTES_KEY = "write.batch.bytes";
+
+    int DEFAULT_WRITE_BATCH_BYTES = 64 * 1024;
+
+    /**
+     * 批量写最大等待时间（微秒），0 表示在当前事件循环任务结束时刷出
+     */
+    String WRITE_BATCH_LATENCY_KEY = "write.batch.latency";
+
+    int DEFAULT_WRITE_BATCH_LATENCY = 0;
+
+    /**
+     * isolation派发策略下每个服务独立线程池的线程数与队列长度
+     */
+    String ISOLATION_THREADS_KEY = "isolation.threads";
+
+    int DEFAULT_ISOLATION_THREADS = 20;
+
+    String ISOLATION_QUEUES_KEY = "isolation.queues";
+
+    int DEFAULT_ISOLATION_QUEUES = 200;
+
+    /**
+     * 排队时间预算（毫秒），0 表示不限制
+     */
+    String ISOLATION_BUDGET_KEY = "isolation.budget";
+
+    int DEFAULT_ISOLATION_BUDGET = 0;
+
+    /**
+     * 方法级配置，相同分组的方法共用一个线程池，未配置时整个服务共用一个线程池
+     */
+    String ISOLATION_GROUP_KEY = "isolation.group";
+
+    /**
+     * 流式传输：为true时InputStream类型的参数和返回值以分块事件发送，由发送方的通道URL决定
+     */
+    String STREAM_KEY = "stream";
+
+    /**
+     * 接收方为每个流缓存的最大字节数，即发送方可以超前发送的字节数
+     */
+    String STREAM_WINDOW_KEY = "stream.window";
+
+    int DEFAULT_STREAM_WINDOW = 256 * 1024;
+
+    /**
+     * 流建立时双方默认的初始窗口，接收方窗口更大时在创建流后补发差额
+     */
+    int STREAM_INITIAL_WINDOW = 64 * 1024;
+
+    String STREAM_CHUNK_KEY = "stream.chunk";
+
+    int DEFAULT_STREAM_CHUNK = 32 * 1024;
+
+    /**
+     * 每个连接上同时接收的流的最大数量
+     */
+    String STREAM_MAX_KEY = "stream.max";
+
+    int DEFAULT_STREAM_MAX = 32;
+
+    /**
+     * 等待数据或发送额度的最长时间（毫秒）
+     */
+    String STREAM_TIMEOUT_KEY = "stream.timeout";
+
+    int DEFAULT_STREAM_TIMEOUT = 60 * 1000;
+
+    /**
+     * 发送线程池的线程数，所有连接共享，由第一个发送流的通道URL决定；等待额度的流不占用线程
+     */
+    String STREAM_THREADS_KEY = "stream.threads";
+
+    int DEFAULT_STREAM_THREADS = 16;
+
 }
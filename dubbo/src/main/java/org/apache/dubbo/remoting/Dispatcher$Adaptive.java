@@ -3,6 +3,8 @@ package org.apache.dubbo.remoting;
 import org.apache.dubbo.common.extension.ExtensionLoader;
 
 public class Dispatcher$Adaptive implements org.apache.dubbo.remoting.Dispatcher {
+    private final org.apache.dubbo.common.extension.AdaptiveExtensionCache extensions = new org.apache.dubbo.common.extension.AdaptiveExtensionCache(org.apache.dubbo.remoting.Dispatcher.class);
+
     public org.apache.dubbo.remoting.ChannelHandler dispatch(org.apache.dubbo.remoting.ChannelHandler arg0, org.apache.dubbo.common.URL arg1) {
         if (arg1 == null)
             throw new IllegalArgumentException("url == null");
@@ -10,7 +12,7 @@ public class Dispatcher$Adaptive implements org.apache.dubbo.remoting.Dispatcher
         String extName = url.getParameter("dispatcher", url.getParameter("dispather", url.getParameter("channel.handler", "all")));
         if (extName == null)
             throw new IllegalStateException("Failed to get extension (org.apache.dubbo.remoting.Dispatcher) name from url (" + url.toString() + ") use keys([dispatcher, dispather, channel.handler])");
-        org.apache.dubbo.remoting.Dispatcher extension = (org.apache.dubbo.remoting.Dispatcher) ExtensionLoader.getExtensionLoader(org.apache.dubbo.remoting.Dispatcher.class).getExtension(extName);
+        org.apache.dubbo.remoting.Dispatcher extension = (org.apache.dubbo.remoting.Dispatcher) extensions.get(extName);
         return extension.dispatch(arg0, arg1);
     }
 
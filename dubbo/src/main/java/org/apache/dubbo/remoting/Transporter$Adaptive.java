@@ -3,6 +3,8 @@ package org.apache.dubbo.remoting;
 import org.apache.dubbo.common.extension.ExtensionLoader;
 
 public class Transporter$Adaptive implements org.apache.dubbo.remoting.Transporter {
+    private final org.apache.dubbo.common.extension.AdaptiveExtensionCache extensions = new org.apache.dubbo.common.extension.AdaptiveExtensionCache(org.apache.dubbo.remoting.Transporter.class);
+
     public org.apache.dubbo.remoting.Client connect(org.apache.dubbo.common.URL arg0, org.apache.dubbo.remoting.ChannelHandler arg1) throws org.apache.dubbo.remoting.RemotingException {
         if (arg0 == null)
             throw new IllegalArgumentException("url == null");
@@ -10,7 +12,7 @@ public class Transporter$Adaptive implements org.apache.dubbo.remoting.Transport
         String extName = url.getParameter("client", url.getParameter("transporter", "netty"));
         if (extName == null)
             throw new IllegalStateException("Failed to get extension (org.apache.dubbo.remoting.Transporter) name from url (" + url.toString() + ") use keys([client, transporter])");
-        org.apache.dubbo.remoting.Transporter extension = (org.apache.dubbo.remoting.Transporter) ExtensionLoader.getExtensionLoader(org.apache.dubbo.remoting.Transporter.class).getExtension(extName);
+        org.apache.dubbo.remoting.Transporter extension = (org.apache.dubbo.remoting.Transporter) extensions.get(extName);
         return extension.connect(arg0, arg1);
     }
 
@@ -21,7 +23,7 @@ public class Transporter$Adaptive implements org.apache.dubbo.remoting.Transport
         String extName = url.getParameter("server", url.getParameter("transporter", "netty"));
         if (extName == null)
             throw new IllegalStateException("Failed to get extension (org.apache.dubbo.remoting.Transporter) name from url (" + url.toString() + ") use keys([server, transporter])");
-        org.apache.dubbo.remoting.Transporter extension = (org.apache.dubbo.remoting.Transporter) ExtensionLoader.getExtensionLoader(org.apache.dubbo.remoting.Transporter.class).getExtension(extName);
+        org.apache.dubbo.remoting.Transporter extension = (org.apache.dubbo.remoting.Transporter) extensions.get(extName);
         return extension.bind(arg0, arg1);
     }
 
@@ -18,6 +18,7 @@ import org.apache.dubbo.remoting.buffer.ChannelBufferOutputStream;
 import org.apache.dubbo.remoting.exchange.Request;
 import org.apache.dubbo.remoting.exchange.Response;
 import org.apache.dubbo.remoting.exchange.support.DefaultFuture;
+import org.apache.dubbo.remoting.exchange.support.stream.StreamFrame;
 import org.apache.dubbo.remoting.telnet.codec.TelnetCodec;
 import org.apache.dubbo.remoting.transport.CodecSupport;
 import org.apache.dubbo.remoting.transport.ExceedPayloadLimitException;
@@ -277,7 +278,8 @@ public class ExchangeCodec extends TelnetCodec {
         Bytes.long2bytes(req.getId(), header, 4);
         // 获取buffer当前的写位置
         int savedWriteIndex = buffer.writerIndex();
-        // 更新writerIndex，为消息头预留16个字节的空间
+        // 更新writerIndex，为消息头预留16个字节的空间，消息体直接写在预留空间之后
+        buffer.ensureWritableBytes(HEADER_LENGTH);
         buffer.writerIndex(savedWriteIndex + HEADER_LENGTH);
         ChannelBufferOutputStream bos = new ChannelBufferOutputStream(buffer);
         // 创建序列化器，比如Hessian2ObjectOutput
@@ -300,12 +302,8 @@ public class ExchangeCodec extends TelnetCodec {
         checkPayload(channel, len);
         // 将消息体长度写入到消息头中
         Bytes.int2bytes(len, header, 12);
-        // 将buffer指针移动到savedWriteIndex，为写消息头做准备
-        buffer.writerIndex(savedWriteIndex);
-        // 从savedWriteIndex 下标处写入消息头
-        buffer.writeBytes(header);
-        // 设置新的writerIndex，writerIndex = 原写下标 + 消息头长度 + 消息体长度
-        buffer.writerIndex(savedWriteIndex + HEADER_LENGTH + len);
+        // 直接回填预留的消息头，不再移动writerIndex
+        buffer.setBytes(savedWriteIndex, header);
     }
 
     protected void encodeResponse(Channel channel, ChannelBuffer buffer, Response res) throws IOException {
@@ -329,7 +327,8 @@ public class ExchangeCodec extends TelnetCodec {
             header[3] = status;
             // 设置请求id
             Bytes.long2bytes(res.getId(), header, 4);
-            // 更新writerIndex，为消息头预留16个字节的空间
+            // 更新writerIndex，为消息头预留16个字节的空间，消息体直接写在预留空间之后
+            buffer.ensureWritableBytes(HEADER_LENGTH);
             buffer.writerIndex(savedWriteIndex + HEADER_LENGTH);
             ChannelBufferOutputStream bos = new ChannelBufferOutputStream(buffer);
             ObjectOutput out = serialization.serialize(channel.getUrl(), bos);
@@ -356,12 +355,8 @@ public class ExchangeCodec extends TelnetCodec {
             checkPayload(channel, len);
             // 将消息体长度写入到消息头中
             Bytes.int2bytes(len, header, 12);
-            // 将buffer指针移动到savedWriteIndex，为写消息头做准备
-            buffer.writerIndex(savedWriteIndex);
-            // 从savedWriteIndex下标处写入消息头
-            buffer.writeBytes(header);
-            // 设置新的writerIndex，writerIndex = 原写下标 + 消息头长度 + 消息体长度
-            buffer.writerIndex(savedWriteIndex + HEADER_LENGTH + len);
+            // 直接回填预留的消息头，不再移动writerIndex
+            buffer.setBytes(savedWriteIndex, header);
         } catch (Throwable t) {
             // 异常处理逻辑
             buffer.writerIndex(savedWriteIndex);
@@ -436,6 +431,12 @@ public class ExchangeCodec extends TelnetCodec {
     }
 
     private void encodeEventData(ObjectOutput out, Object data) throws IOException {
+        if (data instanceof StreamFrame) {
+            // 流分块逐个写字段，见StreamFrame
+            out.writeObject(StreamFrame.EVENT);
+            ((StreamFrame) data).writeTo(out);
+            return;
+        }
         out.writeObject(data);
     }
 
@@ -458,20 +459,25 @@ public class ExchangeCodec extends TelnetCodec {
     }
 
     protected Object decodeEventData(Channel channel, ObjectInput in) throws IOException {
-        try {
-            return in.readObject();
-        } catch (ClassNotFoundException e) {
-            throw new IOException(StringUtils.toString("Read object failed.", e));
-        }
+        return readEventData(in);
     }
 
     @Deprecated
     protected Object decodeHeartbeatData(Channel channel, ObjectInput in) throws IOException {
+        return readEventData(in);
+    }
+
+    /**
+     * 解码时请求事件的数据还未设置，isHeartbeat()为true，心跳和其他事件都从这里读取
+     */
+    private Object readEventData(ObjectInput in) throws IOException {
+        Object data;
         try {
-            return in.readObject();
+            data = in.readObject();
         } catch (ClassNotFoundException e) {
             throw new IOException(StringUtils.toString("Read object failed.", e));
         }
+        return StreamFrame.EVENT.equals(data) ? StreamFrame.readFrom(in) : data;
     }
 
     protected Object decodeRequestData(Channel channel, ObjectInput in) throws IOException {
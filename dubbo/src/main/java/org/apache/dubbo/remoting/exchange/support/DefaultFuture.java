@@ -2,10 +2,6 @@ package org.apache.dubbo.remoting.exchange.support;
 
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
-import org.apache.dubbo.common.timer.HashedWheelTimer;
-import org.apache.dubbo.common.timer.Timeout;
-import org.apache.dubbo.common.timer.Timer;
-import org.apache.dubbo.common.timer.TimerTask;
 import org.apache.dubbo.common.utils.NamedThreadFactory;
 import org.apache.dubbo.remoting.Channel;
 import org.apache.dubbo.remoting.RemotingException;
@@ -17,8 +13,8 @@ import org.apache.dubbo.remoting.exchange.ResponseFuture;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
@@ -31,17 +27,21 @@ public class DefaultFuture implements ResponseFuture {
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultFuture.class);
 
+    private static final long TIMEOUT_CHECK_TICK = 30;
+
     /**
-     * <请求ID, 消息通道>
+     * 未完成状态的RPC请求，按请求ID和通道登记
      */
-    private static final Map<Long, Channel> CHANNELS = new ConcurrentHashMap<>();
+    private static final InFlightRequests FUTURES = new InFlightRequests(TIMEOUT_CHECK_TICK);
 
     /**
-     * <请求ID, 未完成状态的RPC请求>
+     * 超时检测不再为每个请求创建定时任务，而是每个tick取出登记表时间轮中到期的请求，对已超时的请求构建超时响应
      */
-    private static final Map<Long, DefaultFuture> FUTURES = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService TIME_OUT_SCANNER = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("dubbo-future-timeout", true));
 
-    public static final Timer TIME_OUT_TIMER = new HashedWheelTimer(new NamedThreadFactory("dubbo-future-timeout", true), 30, TimeUnit.MILLISECONDS);
+    static {
+        TIME_OUT_SCANNER.scheduleWithFixedDelay(DefaultFuture::scanTimeout, TIMEOUT_CHECK_TICK, TIMEOUT_CHECK_TICK, TimeUnit.MILLISECONDS);
+    }
 
     /**
      * RPC调用的请求ID，构造器中从Request获取
@@ -83,6 +83,13 @@ public class DefaultFuture implements ResponseFuture {
      */
     private volatile ResponseCallback callback;
 
+    /**
+     * 超时时间轮中到期的tick和同一个桶中的下一个请求，由InFlightRequests维护
+     */
+    long expireTick;
+
+    DefaultFuture nextExpire;
+
     /**
      * 构造器
      */
@@ -94,21 +101,27 @@ public class DefaultFuture implements ResponseFuture {
 
         this.timeout = timeout > 0 ? timeout : channel.getUrl().getPositiveParameter(TIMEOUT_KEY, DEFAULT_TIMEOUT);
         // <requestId, DefaultFuture>
-        FUTURES.put(id, this);
-        CHANNELS.put(id, channel);
+        FUTURES.put(this);
     }
 
-    private static void timeoutCheck(DefaultFuture future) {
-        TimeoutCheckTask task = new TimeoutCheckTask(future);
-        // 对已超时的RPC请求，构建相应的超时响应Response并触发received()方法
-        TIME_OUT_TIMER.newTimeout(task, future.getTimeout(), TimeUnit.MILLISECONDS);
+    private static void scanTimeout() {
+        try {
+            FUTURES.expire(future -> {
+                // 对已超时的RPC请求，构建相应的超时响应Response并触发received()方法
+                if (!future.isDone()) {
+                    Response timeoutResponse = new Response(future.getId());
+                    timeoutResponse.setStatus(future.isSent() ? Response.SERVER_TIMEOUT : Response.CLIENT_TIMEOUT);
+                    timeoutResponse.setErrorMessage(future.getTimeoutMessage(true));
+                    DefaultFuture.received(future.getChannel(), timeoutResponse);
+                }
+            });
+        } catch (Throwable t) {
+            logger.warn("Failed to scan timeout futures: " + t.getMessage(), t);
+        }
     }
 
     public static DefaultFuture newFuture(Channel channel, Request request, int timeout) {
-        final DefaultFuture future = new DefaultFuture(channel, request, timeout);
-
-        timeoutCheck(future);
-        return future;
+        return new DefaultFuture(channel, request, timeout);
     }
 
     public static DefaultFuture getFuture(long id) {
@@ -116,7 +129,7 @@ public class DefaultFuture implements ResponseFuture {
     }
 
     public static boolean hasFuture(Channel channel) {
-        return CHANNELS.containsValue(channel);
+        return FUTURES.contains(channel);
     }
 
     public static void sent(Channel channel, Request request) {
@@ -127,31 +140,24 @@ public class DefaultFuture implements ResponseFuture {
     }
 
     public static void closeChannel(Channel channel) {
-        for (Map.Entry<Long, Channel> entry : CHANNELS.entrySet()) {
-            if (channel.equals(entry.getValue())) {
-                DefaultFuture future = getFuture(entry.getKey());
-                if (future != null && !future.isDone()) {
-                    Response disconnectResponse = new Response(future.getId());
-                    disconnectResponse.setStatus(Response.CHANNEL_INACTIVE);
-                    disconnectResponse.setErrorMessage("Channel " + channel + " is inactive. Directly return the unFinished request : " + future.getRequest());
-                    DefaultFuture.received(channel, disconnectResponse);
-                }
+        FUTURES.close(channel, future -> {
+            if (!future.isDone()) {
+                Response disconnectResponse = new Response(future.getId());
+                disconnectResponse.setStatus(Response.CHANNEL_INACTIVE);
+                disconnectResponse.setErrorMessage("Channel " + channel + " is inactive. Directly return the unFinished request : " + future.getRequest());
+                DefaultFuture.received(channel, disconnectResponse);
             }
-        }
+        });
     }
 
     public static void received(Channel channel, Response response) {
-        try {
-            // 根据调用编号从FUTURES集合中查找指定的DefaultFuture对象
-            DefaultFuture future = FUTURES.remove(response.getId());
-            if (future != null) {
-                // 继续向下调用
-                future.doReceived(response);
-            } else {
-                logger.warn("The timeout response finally returned at " + (new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date())) + ", response " + response + (channel == null ? "" : ", channel: " + channel.getLocalAddress() + " -> " + channel.getRemoteAddress()));
-            }
-        } finally {
-            CHANNELS.remove(response.getId());
+        // 根据调用编号从FUTURES中取出指定的DefaultFuture对象
+        DefaultFuture future = FUTURES.remove(response.getId());
+        if (future != null) {
+            // 继续向下调用
+            future.doReceived(response);
+        } else {
+            logger.warn("The timeout response finally returned at " + (new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date())) + ", response " + response + (channel == null ? "" : ", channel: " + channel.getLocalAddress() + " -> " + channel.getRemoteAddress()));
         }
     }
 
@@ -204,7 +210,6 @@ public class DefaultFuture implements ResponseFuture {
         errorResult.setErrorMessage("request future has been canceled.");
         response = errorResult;
         FUTURES.remove(id);
-        CHANNELS.remove(id);
     }
 
     @Override
@@ -235,28 +240,6 @@ public class DefaultFuture implements ResponseFuture {
         }
     }
 
-    private static class TimeoutCheckTask implements TimerTask {
-
-        private DefaultFuture future;
-
-        TimeoutCheckTask(DefaultFuture future) {
-            this.future = future;
-        }
-
-        @Override
-        public void run(Timeout timeout) {
-            if (future == null || future.isDone()) {
-                return;
-            }
-            Response timeoutResponse = new Response(future.getId());
-            timeoutResponse.setStatus(future.isSent() ? Response.SERVER_TIMEOUT : Response.CLIENT_TIMEOUT);
-            timeoutResponse.setErrorMessage(future.getTimeoutMessage(true));
-            DefaultFuture.received(future.getChannel(), timeoutResponse);
-
-        }
-
-    }
-
     private void invokeCallback(ResponseCallback c) {
         ResponseCallback callbackCopy = c;
         if (callbackCopy == null) {
@@ -305,11 +288,11 @@ public class DefaultFuture implements ResponseFuture {
         throw new RemotingException(channel, res.getErrorMessage());
     }
 
-    private long getId() {
+    long getId() {
         return id;
     }
 
-    private Channel getChannel() {
+    Channel getChannel() {
         return channel;
     }
 
@@ -321,14 +304,10 @@ public class DefaultFuture implements ResponseFuture {
         return request;
     }
 
-    private int getTimeout() {
+    int getTimeout() {
         return timeout;
     }
 
-    private long getStartTimestamp() {
-        return start;
-    }
-
     private void doSent() {
         sent = System.currentTimeMillis();
     }
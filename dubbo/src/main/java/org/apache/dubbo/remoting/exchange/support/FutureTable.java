@@ -0,0 +1,103 @@
+package org.apache.dubbo.remoting.exchange.support;
+
+/**
+ * 以请求ID为键的开放寻址表，键是long，不产生装箱和Map节点
+ * 线性探测，删除时把后面的元素前移填补空位，不留墓碑；容量随在途请求数翻倍增长
+ */
+final class FutureTable {
+
+    private long[] ids;
+
+    private DefaultFuture[] futures;
+
+    private int mask;
+
+    private int size;
+
+    FutureTable(int capacity) {
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.ids = new long[size];
+        this.futures = new DefaultFuture[size];
+        this.mask = size - 1;
+    }
+
+    synchronized void put(long id, DefaultFuture future) {
+        if ((size + 1) << 1 > futures.length) {
+            resize(futures.length << 1);
+        }
+        int i = index(id);
+        while (futures[i] != null) {
+            if (ids[i] == id) {
+                futures[i] = future;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        ids[i] = id;
+        futures[i] = future;
+        size++;
+    }
+
+    synchronized DefaultFuture get(long id) {
+        int i = find(id);
+        return i < 0 ? null : futures[i];
+    }
+
+    /**
+     * 移除并返回请求，并发调用时只有一个调用者能拿到非null结果
+     */
+    synchronized DefaultFuture remove(long id) {
+        int i = find(id);
+        if (i < 0) {
+            return null;
+        }
+        DefaultFuture future = futures[i];
+        // 后续同一探测链上的元素如果可以放到空位上就前移
+        for (int j = (i + 1) & mask; futures[j] != null; j = (j + 1) & mask) {
+            if (((j - index(ids[j])) & mask) >= ((j - i) & mask)) {
+                ids[i] = ids[j];
+                futures[i] = futures[j];
+                i = j;
+            }
+        }
+        futures[i] = null;
+        size--;
+        return future;
+    }
+
+    private int find(long id) {
+        for (int i = index(id); futures[i] != null; i = (i + 1) & mask) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        long[] oldIds = ids;
+        DefaultFuture[] oldFutures = futures;
+        ids = new long[capacity];
+        futures = new DefaultFuture[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldFutures.length; i++) {
+            if (oldFutures[i] != null) {
+                int j = index(oldIds[i]);
+                while (futures[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                ids[j] = oldIds[i];
+                futures[j] = oldFutures[i];
+            }
+        }
+    }
+
+    private int index(long id) {
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+}
@@ -0,0 +1,153 @@
+package org.apache.dubbo.remoting.exchange.support;
+
+import org.apache.dubbo.remoting.Channel;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 未完成请求的登记表
+ * <ul>
+ * <li>按请求ID分段的FutureTable：响应只带请求ID，且到达的通道不一定是登记时的通道，所以按ID全局查找</li>
+ * <li>每个通道一个并发集合：hasFuture、closeChannel只访问该通道自己的请求；同一连接上的调用线程并发登记和移除，
+ * 集合不加全表锁。集合在通道关闭时移除，关闭后才登记的请求只会超时，由超时扫描移除其空集合</li>
+ * <li>超时时间轮：请求按到期的tick挂到对应的桶上，每个tick只取出到期的桶，扫描量与到期的请求数成正比</li>
+ * </ul>
+ */
+final class InFlightRequests {
+
+    private static final int STRIPES = 64;
+
+    private static final int WHEEL_SIZE = 512;
+
+    private final FutureTable[] stripes = new FutureTable[STRIPES];
+
+    private final ConcurrentMap<Channel, Set<DefaultFuture>> channels = new ConcurrentHashMap<>();
+
+    /**
+     * 时间轮的桶，每个桶是以DefaultFuture.nextExpire串起来的单链表，登记时CAS压入，扫描时整桶取出
+     * 已完成的请求不从桶中删除，到期扫描时丢弃
+     */
+    private final AtomicReferenceArray<DefaultFuture> wheel = new AtomicReferenceArray<>(WHEEL_SIZE);
+
+    private final long tickNanos;
+
+    private final long origin = System.nanoTime();
+
+    /**
+     * 已经扫描过的最后一个tick，只由扫描线程修改
+     */
+    private long expiredTick = -1;
+
+    InFlightRequests(long tickMillis) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new FutureTable(64);
+        }
+    }
+
+    /**
+     * 先登记到通道集合再登记到ID表，移除从ID表开始，所以能被移除的请求一定已经在通道集合中
+     */
+    void put(DefaultFuture future) {
+        Channel channel = future.getChannel();
+        Set<DefaultFuture> futures = channels.get(channel);
+        if (futures == null) {
+            futures = channels.computeIfAbsent(channel, k -> ConcurrentHashMap.newKeySet());
+        }
+        futures.add(future);
+        stripe(future.getId()).put(future.getId(), future);
+        schedule(future);
+    }
+
+    DefaultFuture get(long id) {
+        return stripe(id).get(id);
+    }
+
+    /**
+     * 移除并返回请求，并发调用时只有一个调用者能拿到非null结果
+     */
+    DefaultFuture remove(long id) {
+        DefaultFuture future = stripe(id).remove(id);
+        if (future != null) {
+            Channel channel = future.getChannel();
+            Set<DefaultFuture> futures = channels.get(channel);
+            if (futures != null) {
+                futures.remove(future);
+            }
+        }
+        return future;
+    }
+
+    boolean contains(Channel channel) {
+        Set<DefaultFuture> futures = channels.get(channel);
+        return futures != null && !futures.isEmpty();
+    }
+
+    /**
+     * 移除通道的集合，再对其中的请求执行action，action可以移除请求
+     */
+    void close(Channel channel, Consumer<DefaultFuture> action) {
+        Set<DefaultFuture> futures = channels.remove(channel);
+        if (futures != null) {
+            futures.forEach(action);
+        }
+    }
+
+    /**
+     * 取出截至当前已到期的桶，对其中仍未完成的请求执行action，只由扫描线程调用
+     * 到期tick落后当前一个tick，保证登记线程压入的桶还没有被扫描过
+     */
+    void expire(Consumer<DefaultFuture> action) {
+        long now = (System.nanoTime() - origin) / tickNanos - 1;
+        long tick = Math.max(expiredTick + 1, now - WHEEL_SIZE + 1);
+        for (; tick <= now; tick++) {
+            DefaultFuture future = wheel.getAndSet((int) (tick & (WHEEL_SIZE - 1)), null);
+            while (future != null) {
+                DefaultFuture next = future.nextExpire;
+                future.nextExpire = null;
+                if (future.expireTick > tick) {
+                    // 超时时间超过一圈，留到下一圈
+                    push(future);
+                } else if (get(future.getId()) == future) {
+                    action.accept(future);
+                    removeIfClosed(future.getChannel());
+                }
+                future = next;
+            }
+        }
+        expiredTick = now;
+    }
+
+    private void removeIfClosed(Channel channel) {
+        Set<DefaultFuture> futures = channels.get(channel);
+        if (futures != null && futures.isEmpty() && !channel.isConnected()) {
+            channels.remove(channel, futures);
+        }
+    }
+
+    private void schedule(DefaultFuture future) {
+        // 向上取整，请求不会早于超时时间被判定超时，扫描又落后一个tick，最多晚两个tick
+        long deadline = System.nanoTime() - origin + TimeUnit.MILLISECONDS.toNanos(future.getTimeout());
+        future.expireTick = (deadline + tickNanos - 1) / tickNanos;
+        push(future);
+    }
+
+    private void push(DefaultFuture future) {
+        int index = (int) (future.expireTick & (WHEEL_SIZE - 1));
+        DefaultFuture head;
+        do {
+            head = wheel.get(index);
+            future.nextExpire = head;
+        } while (!wheel.compareAndSet(index, head, future));
+    }
+
+    private FutureTable stripe(long id) {
+        return stripes[(int) (id & (STRIPES - 1))];
+    }
+
+}
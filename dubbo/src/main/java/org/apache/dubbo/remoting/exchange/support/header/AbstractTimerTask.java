@@ -1,21 +1,25 @@
 package org.apache.dubbo.remoting.exchange.support.header;
 
-import org.apache.dubbo.common.timer.Timeout;
-import org.apache.dubbo.common.timer.Timer;
-import org.apache.dubbo.common.timer.TimerTask;
 import org.apache.dubbo.remoting.Channel;
 
 import java.util.Collection;
-import java.util.concurrent.TimeUnit;
 
-public abstract class AbstractTimerTask implements TimerTask {
+/**
+ * 心跳、重连、空闲关闭任务的基类，由IdleChecker按tick间隔统一调度
+ */
+public abstract class AbstractTimerTask {
 
     private final ChannelProvider channelProvider;
 
-    private final Long tick;
+    private final long tick;
 
     protected volatile boolean cancel = false;
 
+    /**
+     * 下一次执行的时间，只在IdleChecker线程上读写
+     */
+    private long nextRun;
+
     AbstractTimerTask(ChannelProvider channelProvider, Long tick) {
         if (channelProvider == null || tick == null) {
             throw new IllegalArgumentException();
@@ -24,49 +28,49 @@ public abstract class AbstractTimerTask implements TimerTask {
         this.channelProvider = channelProvider;
     }
 
-    static Long lastRead(Channel channel) {
-        return (Long) channel.getAttribute(HeaderExchangeHandler.KEY_READ_TIMESTAMP);
-    }
-
-    static Long lastWrite(Channel channel) {
-        return (Long) channel.getAttribute(HeaderExchangeHandler.KEY_WRITE_TIMESTAMP);
+    /**
+     * @return 通道还没有读记录时返回0
+     */
+    static long lastRead(Channel channel) {
+        ChannelActivity activity = ChannelActivity.get(channel);
+        return activity == null ? 0 : activity.getLastRead();
     }
 
-    static Long now() {
-        return System.currentTimeMillis();
+    /**
+     * @return 通道还没有写记录时返回0
+     */
+    static long lastWrite(Channel channel) {
+        ChannelActivity activity = ChannelActivity.get(channel);
+        return activity == null ? 0 : activity.getLastWrite();
     }
 
     public void cancel() {
         this.cancel = true;
     }
 
-    private void reput(Timeout timeout, Long tick) {
-        if (timeout == null || tick == null) {
-            throw new IllegalArgumentException();
-        }
-        if (cancel) {
-            return;
-        }
-        Timer timer = timeout.timer();
-        if (timer.isStop() || timeout.isCancelled()) {
-            return;
-        }
-        timer.newTimeout(timeout.task(), tick, TimeUnit.MILLISECONDS);
+    boolean isCancelled() {
+        return cancel;
+    }
+
+    boolean isDue(long now) {
+        return now - nextRun >= 0;
+    }
+
+    void schedule(long now) {
+        nextRun = now + tick;
     }
 
-    @Override
-    public void run(Timeout timeout) throws Exception {
+    void run(long now) {
         Collection<Channel> c = channelProvider.getChannels();
         for (Channel channel : c) {
             if (channel.isClosed()) {
                 continue;
             }
-            doTask(channel);
+            doTask(channel, now);
         }
-        reput(timeout, tick);
     }
 
-    protected abstract void doTask(Channel channel);
+    protected abstract void doTask(Channel channel, long now);
 
     interface ChannelProvider {
         Collection<Channel> getChannels();
@@ -0,0 +1,61 @@
+package org.apache.dubbo.remoting.exchange.support.header;
+
+import org.apache.dubbo.remoting.Channel;
+
+/**
+ * 通道最近一次读写的时间，以一个对象存放在通道属性中
+ * 每次读写只更新long字段，不再为时间戳装箱并写入属性Map，空闲检测直接读取字段
+ */
+final class ChannelActivity {
+
+    static final String KEY = "CHANNEL_ACTIVITY";
+
+    private volatile long lastRead;
+
+    private volatile long lastWrite;
+
+    long getLastRead() {
+        return lastRead;
+    }
+
+    long getLastWrite() {
+        return lastWrite;
+    }
+
+    /**
+     * @return 通道还没有读写记录时返回null
+     */
+    static ChannelActivity get(Channel channel) {
+        return (ChannelActivity) channel.getAttribute(KEY);
+    }
+
+    static void read(Channel channel) {
+        getOrCreate(channel).lastRead = System.currentTimeMillis();
+    }
+
+    static void write(Channel channel) {
+        getOrCreate(channel).lastWrite = System.currentTimeMillis();
+    }
+
+    static void readAndWrite(Channel channel) {
+        ChannelActivity activity = getOrCreate(channel);
+        long now = System.currentTimeMillis();
+        activity.lastRead = now;
+        activity.lastWrite = now;
+    }
+
+    static void clear(Channel channel) {
+        channel.removeAttribute(KEY);
+    }
+
+    private static ChannelActivity getOrCreate(Channel channel) {
+        ChannelActivity activity = (ChannelActivity) channel.getAttribute(KEY);
+        if (activity == null) {
+            // 同一通道的事件通常在同一个IO线程上，并发创建时以后写入的为准，只丢失一次时间
+            activity = new ChannelActivity();
+            channel.setAttribute(KEY, activity);
+        }
+        return activity;
+    }
+
+}
@@ -16,12 +16,11 @@ public class CloseTimerTask extends AbstractTimerTask {
     }
 
     @Override
-    protected void doTask(Channel channel) {
+    protected void doTask(Channel channel, long now) {
         try {
-            Long lastRead = lastRead(channel);
-            Long lastWrite = lastWrite(channel);
-            Long now = now();
-            if ((lastRead != null && now - lastRead > idleTimeout) || (lastWrite != null && now - lastWrite > idleTimeout)) {
+            long lastRead = lastRead(channel);
+            long lastWrite = lastWrite(channel);
+            if ((lastRead > 0 && now - lastRead > idleTimeout) || (lastWrite > 0 && now - lastWrite > idleTimeout)) {
                 logger.warn("Close channel " + channel + ", because idleCheck timeout: " + idleTimeout + "ms");
                 channel.close();
             }
@@ -2,9 +2,7 @@ package org.apache.dubbo.remoting.exchange.support.header;
 
 import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.constants.RemotingConstants;
-import org.apache.dubbo.common.timer.HashedWheelTimer;
 import org.apache.dubbo.common.utils.Assert;
-import org.apache.dubbo.common.utils.NamedThreadFactory;
 import org.apache.dubbo.remoting.ChannelHandler;
 import org.apache.dubbo.remoting.Client;
 import org.apache.dubbo.remoting.RemotingException;
@@ -15,7 +13,6 @@ import org.apache.dubbo.remoting.exchange.ResponseFuture;
 
 import java.net.InetSocketAddress;
 import java.util.Collections;
-import java.util.concurrent.TimeUnit;
 
 import static org.apache.dubbo.common.utils.UrlUtils.getHeartbeat;
 import static org.apache.dubbo.common.utils.UrlUtils.getIdleTimeout;
@@ -27,8 +24,6 @@ public class HeaderExchangeClient implements ExchangeClient {
 
     private final ExchangeChannel channel;
 
-    private static final HashedWheelTimer IDLE_CHECK_TIMER = new HashedWheelTimer(new NamedThreadFactory("dubbo-client-idleCheck", true), 1, TimeUnit.SECONDS, TICKS_PER_WHEEL);
-
     private HeartbeatTimerTask heartBeatTimerTask;
 
     private ReconnectTimerTask reconnectTimerTask;
@@ -165,7 +160,7 @@ public class HeaderExchangeClient implements ExchangeClient {
             long heartbeatTick = calculateLeastDuration(heartbeat);
             this.heartBeatTimerTask = new HeartbeatTimerTask(cp, heartbeatTick, heartbeat);
             // 开启心跳检测定时器
-            IDLE_CHECK_TIMER.newTimeout(heartBeatTimerTask, heartbeatTick, TimeUnit.MILLISECONDS);
+            IdleChecker.CLIENT.add(heartBeatTimerTask);
         }
     }
 
@@ -175,17 +170,17 @@ public class HeaderExchangeClient implements ExchangeClient {
             int idleTimeout = getIdleTimeout(url);
             long heartbeatTimeoutTick = calculateLeastDuration(idleTimeout);
             this.reconnectTimerTask = new ReconnectTimerTask(cp, heartbeatTimeoutTick, idleTimeout);
-            IDLE_CHECK_TIMER.newTimeout(reconnectTimerTask, heartbeatTimeoutTick, TimeUnit.MILLISECONDS);
+            IdleChecker.CLIENT.add(reconnectTimerTask);
         }
     }
 
     private void doClose() {
         // 停止心跳检测定时器
         if (heartBeatTimerTask != null) {
-            heartBeatTimerTask.cancel();
+            IdleChecker.CLIENT.remove(heartBeatTimerTask);
         }
         if (reconnectTimerTask != null) {
-            reconnectTimerTask.cancel();
+            IdleChecker.CLIENT.remove(reconnectTimerTask);
         }
     }
 
@@ -5,10 +5,8 @@ import org.apache.dubbo.common.Version;
 import org.apache.dubbo.common.constants.RemotingConstants;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
-import org.apache.dubbo.common.timer.HashedWheelTimer;
 import org.apache.dubbo.common.utils.Assert;
 import org.apache.dubbo.common.utils.CollectionUtils;
-import org.apache.dubbo.common.utils.NamedThreadFactory;
 import org.apache.dubbo.common.utils.UrlUtils;
 import org.apache.dubbo.remoting.Channel;
 import org.apache.dubbo.remoting.ChannelHandler;
@@ -21,7 +19,6 @@ import org.apache.dubbo.remoting.exchange.Request;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.util.Collections.unmodifiableCollection;
@@ -35,8 +32,6 @@ public class HeaderExchangeServer implements ExchangeServer {
 
     private AtomicBoolean closed = new AtomicBoolean(false);
 
-    private static final HashedWheelTimer IDLE_CHECK_TIMER = new HashedWheelTimer(new NamedThreadFactory("dubbo-server-idleCheck", true), 1, TimeUnit.SECONDS, TICKS_PER_WHEEL);
-
     private CloseTimerTask closeTimerTask;
 
     public HeaderExchangeServer(Server server) {
@@ -122,7 +117,7 @@ public class HeaderExchangeServer implements ExchangeServer {
 
     private void cancelCloseTask() {
         if (closeTimerTask != null) {
-            closeTimerTask.cancel();
+            IdleChecker.SERVER.remove(closeTimerTask);
         }
     }
 
@@ -229,7 +224,7 @@ public class HeaderExchangeServer implements ExchangeServer {
             long idleTimeoutTick = calculateLeastDuration(idleTimeout);
             CloseTimerTask closeTimerTask = new CloseTimerTask(cp, idleTimeoutTick, idleTimeout);
             this.closeTimerTask = closeTimerTask;
-            IDLE_CHECK_TIMER.newTimeout(closeTimerTask, idleTimeoutTick, TimeUnit.MILLISECONDS);
+            IdleChecker.SERVER.add(closeTimerTask);
         }
     }
 
@@ -8,14 +8,20 @@ import org.apache.dubbo.remoting.ChannelHandler;
 import org.apache.dubbo.remoting.RemotingException;
 import org.apache.dubbo.remoting.exchange.Request;
 import org.apache.dubbo.remoting.exchange.Response;
+import org.apache.dubbo.remoting.exchange.support.stream.ChannelStreams;
 import org.apache.dubbo.remoting.transport.AbstractChannelHandlerDelegate;
 
 public class HeartbeatHandler extends AbstractChannelHandlerDelegate {
 
     private static final Logger logger = LoggerFactory.getLogger(HeartbeatHandler.class);
 
+    /**
+     * @deprecated 读写时间改由ChannelActivity记录，不再写入这两个通道属性
+     */
+    @Deprecated
     public static final String KEY_READ_TIMESTAMP = "READ_TIMESTAMP";
 
+    @Deprecated
     public static final String KEY_WRITE_TIMESTAMP = "WRITE_TIMESTAMP";
 
     public HeartbeatHandler(ChannelHandler handler) {
@@ -24,15 +30,14 @@ public class HeartbeatHandler extends AbstractChannelHandlerDelegate {
 
     @Override
     public void connected(Channel channel) throws RemotingException {
-        setReadTimestamp(channel);
-        setWriteTimestamp(channel);
+        ChannelActivity.readAndWrite(channel);
         handler.connected(channel);
     }
 
     @Override
     public void disconnected(Channel channel) throws RemotingException {
-        clearReadTimestamp(channel);
-        clearWriteTimestamp(channel);
+        clearTimestamps(channel);
+        ChannelStreams.close(channel);
         handler.disconnected(channel);
     }
 
@@ -66,23 +71,24 @@ public class HeartbeatHandler extends AbstractChannelHandlerDelegate {
             }
             return;
         }
+        // 流的分块在IO线程上直接交给对应的流，读取流的业务线程可能正占满线程池
+        if (ChannelStreams.isStreamFrame(message)) {
+            ChannelStreams.received(channel, (Request) message);
+            return;
+        }
         handler.received(channel, message);
     }
 
     private void setReadTimestamp(Channel channel) {
-        channel.setAttribute(KEY_READ_TIMESTAMP, System.currentTimeMillis());
+        ChannelActivity.read(channel);
     }
 
     private void setWriteTimestamp(Channel channel) {
-        channel.setAttribute(KEY_WRITE_TIMESTAMP, System.currentTimeMillis());
-    }
-
-    private void clearReadTimestamp(Channel channel) {
-        channel.removeAttribute(KEY_READ_TIMESTAMP);
+        ChannelActivity.write(channel);
     }
 
-    private void clearWriteTimestamp(Channel channel) {
-        channel.removeAttribute(KEY_WRITE_TIMESTAMP);
+    private void clearTimestamps(Channel channel) {
+        ChannelActivity.clear(channel);
     }
 
     private boolean isHeartbeatRequest(Object message) {
@@ -18,11 +18,12 @@ public class HeartbeatTimerTask extends AbstractTimerTask {
     }
 
     @Override
-    protected void doTask(Channel channel) {
+    protected void doTask(Channel channel, long now) {
         try {
-            Long lastRead = lastRead(channel);
-            Long lastWrite = lastWrite(channel);
-            if ((lastRead != null && now() - lastRead > heartbeat) || (lastWrite != null && now() - lastWrite > heartbeat)) {
+            long lastRead = lastRead(channel);
+            long lastWrite = lastWrite(channel);
+            // 业务请求和响应同样会刷新读写时间，只有在一个心跳周期内没有任何流量时才发送心跳
+            if ((lastRead > 0 && now - lastRead > heartbeat) || (lastWrite > 0 && now - lastWrite > heartbeat)) {
                 Request req = new Request();
                 req.setVersion(Version.getProtocolVersion());
                 req.setTwoWay(true);
@@ -0,0 +1,74 @@
+package org.apache.dubbo.remoting.exchange.support.header;
+
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.timer.HashedWheelTimer;
+import org.apache.dubbo.common.timer.Timeout;
+import org.apache.dubbo.common.timer.TimerTask;
+import org.apache.dubbo.common.utils.NamedThreadFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.apache.dubbo.remoting.Constants.LEAST_HEARTBEAT_DURATION;
+import static org.apache.dubbo.remoting.Constants.TICKS_PER_WHEEL;
+
+/**
+ * 空闲检测
+ * 所有客户端共用一个实例，所有服务端共用一个实例，各自只在时间轮上保留一个定时任务
+ * 每LEAST_HEARTBEAT_DURATION执行一轮，把本轮到期的心跳、重连、关闭任务一起处理，任务不再各自反复投递到时间轮
+ */
+final class IdleChecker implements TimerTask {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdleChecker.class);
+
+    static final IdleChecker CLIENT = new IdleChecker("dubbo-client-idleCheck");
+
+    static final IdleChecker SERVER = new IdleChecker("dubbo-server-idleCheck");
+
+    private final String name;
+
+    private final Set<AbstractTimerTask> tasks = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private IdleChecker(String name) {
+        this.name = name;
+    }
+
+    void add(AbstractTimerTask task) {
+        task.schedule(System.currentTimeMillis());
+        tasks.add(task);
+        if (started.compareAndSet(false, true)) {
+            HashedWheelTimer timer = new HashedWheelTimer(new NamedThreadFactory(name, true), 1, TimeUnit.SECONDS, TICKS_PER_WHEEL);
+            timer.newTimeout(this, LEAST_HEARTBEAT_DURATION, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void remove(AbstractTimerTask task) {
+        task.cancel();
+        tasks.remove(task);
+    }
+
+    @Override
+    public void run(Timeout timeout) {
+        long now = System.currentTimeMillis();
+        try {
+            for (AbstractTimerTask task : tasks) {
+                if (task.isCancelled()) {
+                    tasks.remove(task);
+                } else if (task.isDue(now)) {
+                    task.schedule(now);
+                    task.run(now);
+                }
+            }
+        } catch (Throwable t) {
+            logger.warn("Exception when checking idle channels", t);
+        } finally {
+            timeout.timer().newTimeout(this, LEAST_HEARTBEAT_DURATION, TimeUnit.MILLISECONDS);
+        }
+    }
+
+}
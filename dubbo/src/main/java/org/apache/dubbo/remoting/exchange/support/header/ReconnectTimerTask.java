@@ -17,10 +17,9 @@ public class ReconnectTimerTask extends AbstractTimerTask {
     }
 
     @Override
-    protected void doTask(Channel channel) {
+    protected void doTask(Channel channel, long now) {
         try {
-            Long lastRead = lastRead(channel);
-            Long now = now();
+            long lastRead = lastRead(channel);
             if (!channel.isConnected()) {
                 try {
                     logger.info("Initial connection to " + channel);
@@ -29,7 +28,7 @@ public class ReconnectTimerTask extends AbstractTimerTask {
                     logger.error("Fail to connect to " + channel, e);
                 }
 
-            } else if (lastRead != null && now - lastRead > idleTimeout) {
+            } else if (lastRead > 0 && now - lastRead > idleTimeout) {
                 logger.warn("Reconnect to channel " + channel + ", because heartbeat read idle time out: " + idleTimeout + "ms");
                 try {
                     ((Client) channel).reconnect();
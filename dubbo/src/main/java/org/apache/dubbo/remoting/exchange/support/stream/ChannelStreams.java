@@ -0,0 +1,290 @@
+package org.apache.dubbo.remoting.exchange.support.stream;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.threadlocal.NamedInternalThreadFactory;
+import org.apache.dubbo.common.timer.HashedWheelTimer;
+import org.apache.dubbo.common.timer.Timeout;
+import org.apache.dubbo.common.timer.TimerTask;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.RemotingException;
+import org.apache.dubbo.remoting.exchange.Request;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.dubbo.remoting.Constants.DEFAULT_STREAM_CHUNK;
+import static org.apache.dubbo.remoting.Constants.DEFAULT_STREAM_MAX;
+import static org.apache.dubbo.remoting.Constants.DEFAULT_STREAM_THREADS;
+import static org.apache.dubbo.remoting.Constants.DEFAULT_STREAM_TIMEOUT;
+import static org.apache.dubbo.remoting.Constants.DEFAULT_STREAM_WINDOW;
+import static org.apache.dubbo.remoting.Constants.STREAM_CHUNK_KEY;
+import static org.apache.dubbo.remoting.Constants.STREAM_INITIAL_WINDOW;
+import static org.apache.dubbo.remoting.Constants.STREAM_KEY;
+import static org.apache.dubbo.remoting.Constants.STREAM_MAX_KEY;
+import static org.apache.dubbo.remoting.Constants.STREAM_THREADS_KEY;
+import static org.apache.dubbo.remoting.Constants.STREAM_TIMEOUT_KEY;
+import static org.apache.dubbo.remoting.Constants.STREAM_WINDOW_KEY;
+
+/**
+ * 一个连接上正在收发的流，存放在通道属性中
+ * <p>
+ * 发送方编码时把InputStream换成StreamReference，在发送线程池中把内容分块作为单向事件写出；
+ * 接收方解码时把StreamReference换成InboundStream，分块事件在IO线程上直接放入对应的流，不经过业务线程池。
+ * 分块可能先于引用到达，两侧都按ID懒创建流。
+ * 每个连接最多同时接收stream.max个流，每个流最多缓存stream.window字节，连接上流占用的内存因此有上界；
+ * 发送线程池有stream.threads个线程，流在等待额度时不占用线程
+ */
+public final class ChannelStreams {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChannelStreams.class);
+
+    private static final String KEY = "CHANNEL_STREAMS";
+
+    static final int INITIAL_WINDOW = STREAM_INITIAL_WINDOW;
+
+    /**
+     * 已收到分块但一直没有被引用取走的流的最长保留时间
+     */
+    static final long UNCLAIMED_TIMEOUT = 10 * 1000;
+
+    private static final AtomicLong ID = new AtomicLong();
+
+    private static volatile ExecutorService executor;
+
+    private static volatile HashedWheelTimer timer;
+
+    private final Channel channel;
+
+    private final ConcurrentMap<Long, InboundStream> inbounds = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Long, OutboundStream> outbounds = new ConcurrentHashMap<>();
+
+    private ChannelStreams(Channel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * 发送方是否以流的方式发送InputStream
+     */
+    public static boolean isEnabled(Channel channel) {
+        URL url = channel.getUrl();
+        return url != null && url.getParameter(STREAM_KEY, false);
+    }
+
+    public static boolean isStreamFrame(Object message) {
+        return message instanceof Request && ((Request) message).isEvent()
+                && ((Request) message).getData() instanceof StreamFrame;
+    }
+
+    /**
+     * 开始发送source，返回代替它被序列化的引用
+     */
+    public static StreamReference send(Channel channel, InputStream source) {
+        long id = ID.incrementAndGet();
+        URL url = channel.getUrl();
+        int chunk = Math.max(1, url.getParameter(STREAM_CHUNK_KEY, DEFAULT_STREAM_CHUNK));
+        long timeout = url.getParameter(STREAM_TIMEOUT_KEY, DEFAULT_STREAM_TIMEOUT);
+        ChannelStreams streams = getOrCreate(channel);
+        OutboundStream stream = new OutboundStream(streams, channel, id, source, chunk, timeout, getExecutor(url));
+        streams.outbounds.put(id, stream);
+        stream.start();
+        return new StreamReference(id);
+    }
+
+    /**
+     * 解码时取得引用对应的输入流
+     */
+    public static InputStream receive(Channel channel, StreamReference reference) throws IOException {
+        InboundStream stream = getOrCreate(channel).getOrCreateInbound(reference.getId());
+        if (stream == null) {
+            throw new IOException("Too many streams on channel " + channel + ", limit " + maxStreams(channel));
+        }
+        stream.claim();
+        return stream;
+    }
+
+    /**
+     * IO线程上处理收到的分块
+     */
+    public static void received(Channel channel, Request request) {
+        StreamFrame frame = (StreamFrame) request.getData();
+        ChannelStreams streams = getOrCreate(channel);
+        long id = frame.getStreamId();
+        switch (frame.getType()) {
+            case StreamFrame.DATA: {
+                InboundStream stream = streams.getOrCreateInbound(id);
+                if (stream == null) {
+                    logger.warn("Too many streams on channel " + channel + ", cancel stream " + id);
+                    streams.sendQuietly(StreamFrame.cancel(id));
+                } else if (!stream.onData(frame.getData() == null ? new byte[0] : frame.getData(), frame.isLast())) {
+                    streams.sendQuietly(StreamFrame.cancel(id));
+                }
+                break;
+            }
+            case StreamFrame.ERROR: {
+                InboundStream stream = streams.getOrCreateInbound(id);
+                if (stream != null) {
+                    stream.fail(new IOException(frame.getMessage()));
+                }
+                break;
+            }
+            case StreamFrame.CREDIT: {
+                OutboundStream stream = streams.outbounds.get(id);
+                if (stream != null) {
+                    stream.onCredit(frame.getCredit());
+                }
+                break;
+            }
+            case StreamFrame.CANCEL: {
+                OutboundStream stream = streams.outbounds.get(id);
+                if (stream != null) {
+                    stream.cancel();
+                }
+                break;
+            }
+            default:
+                logger.warn("Unknown stream frame " + frame + " from " + channel.getRemoteAddress());
+        }
+    }
+
+    /**
+     * 连接断开时结束所有流
+     */
+    public static void close(Channel channel) {
+        ChannelStreams streams = (ChannelStreams) channel.getAttribute(KEY);
+        if (streams == null) {
+            return;
+        }
+        channel.removeAttribute(KEY);
+        for (InboundStream stream : streams.inbounds.values()) {
+            stream.fail(new IOException("Channel " + channel + " closed"));
+        }
+        streams.inbounds.clear();
+        for (OutboundStream stream : streams.outbounds.values()) {
+            stream.cancel();
+        }
+    }
+
+    private static ChannelStreams getOrCreate(Channel channel) {
+        ChannelStreams streams = (ChannelStreams) channel.getAttribute(KEY);
+        if (streams == null) {
+            synchronized (channel) {
+                streams = (ChannelStreams) channel.getAttribute(KEY);
+                if (streams == null) {
+                    streams = new ChannelStreams(channel);
+                    channel.setAttribute(KEY, streams);
+                }
+            }
+        }
+        return streams;
+    }
+
+    private static int maxStreams(Channel channel) {
+        return channel.getUrl().getParameter(STREAM_MAX_KEY, DEFAULT_STREAM_MAX);
+    }
+
+    private static ExecutorService getExecutor(URL url) {
+        if (executor == null) {
+            synchronized (ChannelStreams.class) {
+                if (executor == null) {
+                    int threads = Math.max(1, url.getParameter(STREAM_THREADS_KEY, DEFAULT_STREAM_THREADS));
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(), new NamedInternalThreadFactory("DubboStreamSender", true));
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = pool;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 发送方等待额度的超时检查
+     */
+    static Timeout newTimeout(TimerTask task, long delay) {
+        if (timer == null) {
+            synchronized (ChannelStreams.class) {
+                if (timer == null) {
+                    timer = new HashedWheelTimer(new NamedInternalThreadFactory("DubboStreamTimer", true), 100, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        return timer.newTimeout(task, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return 超出连接上的流数量限制时返回null
+     */
+    private InboundStream getOrCreateInbound(long id) {
+        InboundStream stream = inbounds.get(id);
+        if (stream != null) {
+            return stream;
+        }
+        URL url = channel.getUrl();
+        if (inbounds.size() >= maxStreams(channel)) {
+            purgeStale();
+            if (inbounds.size() >= maxStreams(channel)) {
+                return null;
+            }
+        }
+        int window = Math.max(INITIAL_WINDOW, url.getParameter(STREAM_WINDOW_KEY, DEFAULT_STREAM_WINDOW));
+        long timeout = url.getParameter(STREAM_TIMEOUT_KEY, DEFAULT_STREAM_TIMEOUT);
+        stream = new InboundStream(this, id, window, timeout);
+        InboundStream old = inbounds.putIfAbsent(id, stream);
+        if (old != null) {
+            return old;
+        }
+        if (window > INITIAL_WINDOW) {
+            // 发送方按初始窗口开始发送，补足本端配置的窗口
+            sendQuietly(StreamFrame.credit(id, window - INITIAL_WINDOW));
+        }
+        return stream;
+    }
+
+    private void purgeStale() {
+        long now = System.currentTimeMillis();
+        for (Iterator<InboundStream> it = inbounds.values().iterator(); it.hasNext(); ) {
+            InboundStream stream = it.next();
+            if (stream.isStale(now)) {
+                it.remove();
+                stream.fail(new IOException("Stream " + stream.getId() + " expired"));
+                sendQuietly(StreamFrame.cancel(stream.getId()));
+            }
+        }
+    }
+
+    void removeInbound(long id) {
+        inbounds.remove(id);
+    }
+
+    void removeOutbound(long id) {
+        outbounds.remove(id);
+    }
+
+    void send(StreamFrame frame) throws RemotingException {
+        Request request = new Request();
+        request.setTwoWay(false);
+        request.setEvent(true);
+        request.setData(frame);
+        channel.send(request);
+    }
+
+    void sendQuietly(StreamFrame frame) {
+        try {
+            send(frame);
+        } catch (Throwable t) {
+            logger.warn("Failed to send " + frame + " to " + channel.getRemoteAddress() + ", cause: " + t.getMessage(), t);
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+package org.apache.dubbo.remoting.exchange.support.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+
+/**
+ * 接收一个流：IO线程放入收到的分块，业务线程读取
+ * 缓存的字节数不超过窗口，读走半个窗口后向发送方归还额度；提前close时通知发送方取消
+ */
+final class InboundStream extends InputStream {
+
+    private final ChannelStreams streams;
+
+    private final long id;
+
+    private final int window;
+
+    private final long timeout;
+
+    private final ArrayDeque<byte[]> chunks = new ArrayDeque<>();
+
+    private byte[] current;
+
+    private int position;
+
+    private int buffered;
+
+    private int consumed;
+
+    private boolean finished;
+
+    private boolean closed;
+
+    /**
+     * 是否已被解码出的StreamReference取走，未取走的流在超时后被清理
+     */
+    private boolean claimed;
+
+    private IOException error;
+
+    private volatile long lastActive = System.currentTimeMillis();
+
+    InboundStream(ChannelStreams streams, long id, int window, long timeout) {
+        this.streams = streams;
+        this.id = id;
+        this.window = window;
+        this.timeout = timeout;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    synchronized void claim() {
+        claimed = true;
+    }
+
+    /**
+     * 长时间没有读写的流视为被遗弃，例如调用已超时，结果中的流不会再被读取
+     */
+    synchronized boolean isStale(long now) {
+        return now - lastActive > (claimed ? timeout : Math.min(timeout, ChannelStreams.UNCLAIMED_TIMEOUT));
+    }
+
+    /**
+     * @return false表示超出窗口，发送方没有遵守流控
+     */
+    synchronized boolean onData(byte[] data, boolean last) {
+        lastActive = System.currentTimeMillis();
+        if (closed) {
+            return true;
+        }
+        if (buffered + data.length > window) {
+            fail(new IOException("Stream " + id + " exceeds the receive window " + window));
+            return false;
+        }
+        if (data.length > 0) {
+            chunks.addLast(data);
+            buffered += data.length;
+        }
+        finished = last;
+        notifyAll();
+        return true;
+    }
+
+    synchronized void fail(IOException e) {
+        if (error == null && !finished) {
+            error = e;
+        }
+        chunks.clear();
+        current = null;
+        buffered = 0;
+        notifyAll();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int n;
+        int credit = 0;
+        boolean end;
+        synchronized (this) {
+            if (!awaitData()) {
+                return -1;
+            }
+            n = Math.min(len, current.length - position);
+            System.arraycopy(current, position, b, off, n);
+            position += n;
+            if (position == current.length) {
+                current = null;
+            }
+            buffered -= n;
+            consumed += n;
+            if (consumed >= window / 2) {
+                credit = consumed;
+                consumed = 0;
+            }
+            end = finished && current == null && chunks.isEmpty();
+            lastActive = System.currentTimeMillis();
+        }
+        if (end) {
+            streams.removeInbound(id);
+        } else if (credit > 0) {
+            streams.sendQuietly(StreamFrame.credit(id, credit));
+        }
+        return n;
+    }
+
+    /**
+     * @return false表示流已结束
+     */
+    private boolean awaitData() throws IOException {
+        if (current == null || position == current.length) {
+            current = chunks.pollFirst();
+            position = 0;
+        }
+        long deadline = System.currentTimeMillis() + timeout;
+        while (current == null) {
+            if (closed) {
+                throw new IOException("Stream " + id + " closed");
+            }
+            if (error != null) {
+                throw error;
+            }
+            if (finished) {
+                return false;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new IOException("Waiting for stream " + id + " data timeout after " + timeout + "ms");
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for stream " + id + " data", e);
+            }
+            current = chunks.pollFirst();
+            position = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized int available() {
+        return buffered;
+    }
+
+    @Override
+    public void close() {
+        boolean cancel;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            cancel = !finished && error == null;
+            chunks.clear();
+            current = null;
+            buffered = 0;
+            notifyAll();
+        }
+        streams.removeInbound(id);
+        if (cancel) {
+            streams.sendQuietly(StreamFrame.cancel(id));
+        }
+    }
+
+}
@@ -0,0 +1,204 @@
+package org.apache.dubbo.remoting.exchange.support.stream;
+
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.timer.Timeout;
+import org.apache.dubbo.remoting.Channel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+
+/**
+ * 发送一个流：在发送线程池中从源InputStream读取并以DATA事件写出
+ * 每次最多发送当前额度的字节，额度用完后让出线程，收到接收方的CREDIT后重新提交；
+ * 等待额度不占用线程，发送线程池的大小因此与流的数量无关。在途数据不超过接收方窗口
+ */
+final class OutboundStream implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundStream.class);
+
+    /**
+     * 每次执行最多发送的分块数，之后重新排队，避免一个流长期占用线程
+     */
+    private static final int BATCH = 16;
+
+    private final ChannelStreams streams;
+
+    private final Channel channel;
+
+    private final long id;
+
+    private final InputStream source;
+
+    private final int chunk;
+
+    private final long timeout;
+
+    private final Executor executor;
+
+    private long credit;
+
+    private boolean cancelled;
+
+    /**
+     * 等待额度超时，由run发送ERROR
+     */
+    private boolean expired;
+
+    /**
+     * 已提交到线程池或正在执行
+     */
+    private boolean scheduled;
+
+    private boolean finished;
+
+    /**
+     * 开始等待额度的时间
+     */
+    private long parkedAt;
+
+    private Timeout timer;
+
+    private byte[] buffer;
+
+    OutboundStream(ChannelStreams streams, Channel channel, long id, InputStream source, int chunk, long timeout, Executor executor) {
+        this.streams = streams;
+        this.channel = channel;
+        this.id = id;
+        this.source = source;
+        this.chunk = chunk;
+        this.timeout = timeout;
+        this.executor = executor;
+        this.credit = ChannelStreams.INITIAL_WINDOW;
+    }
+
+    synchronized void start() {
+        schedule();
+    }
+
+    synchronized void onCredit(int n) {
+        credit += n;
+        schedule();
+    }
+
+    synchronized void cancel() {
+        cancelled = true;
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled || finished) {
+            return;
+        }
+        scheduled = true;
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+        try {
+            executor.execute(this);
+        } catch (Throwable t) {
+            // 线程池已关闭
+            scheduled = false;
+            finish();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int i = 0; i < BATCH; i++) {
+                int n = take();
+                if (n <= 0) {
+                    return;
+                }
+                if (buffer == null || buffer.length < n) {
+                    buffer = new byte[n];
+                }
+                int read = source.read(buffer, 0, n);
+                if (read < 0) {
+                    streams.send(StreamFrame.data(id, new byte[0], true));
+                    synchronized (this) {
+                        finish();
+                    }
+                    return;
+                }
+                if (read > 0) {
+                    byte[] data = new byte[read];
+                    System.arraycopy(buffer, 0, data, 0, read);
+                    synchronized (this) {
+                        credit -= read;
+                    }
+                    streams.send(StreamFrame.data(id, data, false));
+                }
+            }
+            // 还有额度，重新排队让其他流先发送
+            executor.execute(this);
+        } catch (IOException e) {
+            logger.warn("Failed to read stream " + id + " to " + channel.getRemoteAddress() + ", cause: " + e.getMessage(), e);
+            streams.sendQuietly(StreamFrame.error(id, "Failed to read stream on " + channel.getLocalAddress() + ", cause: " + e.getMessage()));
+            synchronized (this) {
+                finish();
+            }
+        } catch (Throwable t) {
+            logger.warn("Failed to send stream " + id + " to " + channel.getRemoteAddress() + ", cause: " + t.getMessage(), t);
+            synchronized (this) {
+                finish();
+            }
+        }
+    }
+
+    /**
+     * @return 本次可发送的字节数，没有额度或已结束时返回0并让出线程
+     */
+    private synchronized int take() {
+        if (expired) {
+            streams.sendQuietly(StreamFrame.error(id, "Waiting for stream credit timeout after " + timeout + "ms, the receiver on "
+                    + channel.getRemoteAddress() + " stopped reading"));
+        }
+        if (cancelled || expired || !channel.isConnected()) {
+            finish();
+            return 0;
+        }
+        if (credit <= 0) {
+            scheduled = false;
+            parkedAt = System.currentTimeMillis();
+            timer = ChannelStreams.newTimeout(t -> checkTimeout(), timeout);
+            return 0;
+        }
+        return (int) Math.min(chunk, credit);
+    }
+
+    private synchronized void checkTimeout() {
+        if (scheduled || finished) {
+            return;
+        }
+        long remaining = parkedAt + timeout - System.currentTimeMillis();
+        if (remaining > 0) {
+            timer = ChannelStreams.newTimeout(t -> checkTimeout(), remaining);
+            return;
+        }
+        expired = true;
+        schedule();
+    }
+
+    private void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        scheduled = false;
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+        streams.removeOutbound(id);
+        try {
+            source.close();
+        } catch (IOException ignored) {
+            // ignore
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package org.apache.dubbo.remoting.exchange.support.stream;
+
+import org.apache.dubbo.common.serialize.ObjectInput;
+import org.apache.dubbo.common.serialize.ObjectOutput;
+
+import java.io.IOException;
+
+/**
+ * 流的一个分块，作为单向事件请求的数据发送，由HeartbeatHandler在IO线程上交给ChannelStreams处理
+ * DATA和ERROR由发送方发出，CREDIT和CANCEL由接收方发出
+ * <p>
+ * 事件数据先写EVENT字符串，再逐个写字段，不依赖序列化方式保留类型信息（fastjson等不写类型，读回来的是JSONObject）
+ */
+public class StreamFrame {
+
+    /**
+     * 事件数据中分块的标记
+     */
+    public static final String EVENT = "dubbo.stream";
+
+    public static final byte DATA = 0;
+
+    public static final byte CREDIT = 1;
+
+    public static final byte CANCEL = 2;
+
+    public static final byte ERROR = 3;
+
+    private long streamId;
+
+    private byte type;
+
+    private byte[] data;
+
+    /**
+     * DATA是否为最后一块
+     */
+    private boolean last;
+
+    /**
+     * CREDIT追加的字节数
+     */
+    private int credit;
+
+    private String message;
+
+    public StreamFrame() {
+    }
+
+    static StreamFrame data(long streamId, byte[] data, boolean last) {
+        StreamFrame frame = new StreamFrame();
+        frame.streamId = streamId;
+        frame.type = DATA;
+        frame.data = data;
+        frame.last = last;
+        return frame;
+    }
+
+    static StreamFrame credit(long streamId, int credit) {
+        StreamFrame frame = new StreamFrame();
+        frame.streamId = streamId;
+        frame.type = CREDIT;
+        frame.credit = credit;
+        return frame;
+    }
+
+    static StreamFrame cancel(long streamId) {
+        StreamFrame frame = new StreamFrame();
+        frame.streamId = streamId;
+        frame.type = CANCEL;
+        return frame;
+    }
+
+    static StreamFrame error(long streamId, String message) {
+        StreamFrame frame = new StreamFrame();
+        frame.streamId = streamId;
+        frame.type = ERROR;
+        frame.message = message;
+        return frame;
+    }
+
+    /**
+     * 写入EVENT之后的字段
+     */
+    public void writeTo(ObjectOutput out) throws IOException {
+        out.writeLong(streamId);
+        out.writeByte(type);
+        switch (type) {
+            case DATA:
+                out.writeBytes(data == null ? new byte[0] : data);
+                out.writeBool(last);
+                break;
+            case CREDIT:
+                out.writeInt(credit);
+                break;
+            case ERROR:
+                out.writeUTF(message == null ? "" : message);
+                break;
+            default:
+        }
+    }
+
+    /**
+     * 读取EVENT之后的字段
+     */
+    public static StreamFrame readFrom(ObjectInput in) throws IOException {
+        StreamFrame frame = new StreamFrame();
+        frame.streamId = in.readLong();
+        frame.type = in.readByte();
+        switch (frame.type) {
+            case DATA:
+                frame.data = in.readBytes();
+                frame.last = in.readBool();
+                break;
+            case CREDIT:
+                frame.credit = in.readInt();
+                break;
+            case ERROR:
+                frame.message = in.readUTF();
+                break;
+            default:
+        }
+        return frame;
+    }
+
+    public long getStreamId() {
+        return streamId;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public boolean isLast() {
+        return last;
+    }
+
+    public int getCredit() {
+        return credit;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamFrame [id=" + streamId + ", type=" + type + ", length=" + (data == null ? 0 : data.length)
+                + ", last=" + last + ", credit=" + credit + "]";
+    }
+
+}
@@ -0,0 +1,47 @@
+package org.apache.dubbo.remoting.exchange.support.stream;
+
+/**
+ * 序列化时代替InputStream参数或返回值的占位，解码时按ID换成接收该流的InputStream
+ * 以带前缀的字符串写出，不依赖序列化方式保留类型信息
+ */
+public class StreamReference {
+
+    private static final String PREFIX = "dubbo.stream:";
+
+    private final long id;
+
+    public StreamReference(long id) {
+        this.id = id;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * 代替流被序列化的字符串
+     */
+    public String toToken() {
+        return PREFIX + id;
+    }
+
+    /**
+     * @return value不是引用时返回null
+     */
+    public static StreamReference parse(Object value) {
+        if (value instanceof String && ((String) value).startsWith(PREFIX)) {
+            try {
+                return new StreamReference(Long.parseLong(((String) value).substring(PREFIX.length())));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamReference [id=" + id + "]";
+    }
+
+}
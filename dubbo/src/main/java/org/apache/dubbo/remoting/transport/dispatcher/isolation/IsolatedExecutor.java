@@ -0,0 +1,108 @@
+package org.apache.dubbo.remoting.transport.dispatcher.isolation;
+
+import org.apache.dubbo.common.threadlocal.NamedInternalThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个服务（或方法分组）独享的有界线程池，记录排队时间和执行时间
+ * 配置了排队时间预算时：
+ * 提交时按 队列长度 * 平均执行时间 / 线程数 估算排队时间，超出预算直接拒绝，调用方可以立刻得到错误而不是等到超时
+ * 出队时实际排队时间已超出预算的任务不再执行，交给expired回调快速返回错误
+ */
+public class IsolatedExecutor {
+
+    private final String name;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int threads;
+
+    private final long budget;
+
+    private final LatencyHistogram queueTime = new LatencyHistogram();
+
+    private final LatencyHistogram executeTime = new LatencyHistogram();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 执行时间的指数移动平均，纳秒，允许并发更新时丢失个别样本
+     */
+    private volatile long averageExecuteTime;
+
+    IsolatedExecutor(String name, int threads, int queues, long budget) {
+        this.name = name;
+        this.threads = threads;
+        this.budget = budget;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(Math.max(queues, 1)), new NamedInternalThreadFactory("DubboIsolated-" + name, true));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @param expired 任务出队时排队时间已超出预算，代替task执行
+     */
+    public void execute(Runnable task, Runnable expired) {
+        if (budget > 0 && (long) executor.getQueue().size() * averageExecuteTime / threads > budget) {
+            rejected.increment();
+            throw new RejectedExecutionException("Isolated thread pool " + name + " estimated queue wait exceeds budget " + TimeUnit.NANOSECONDS.toMillis(budget) + "ms, queue size: " + executor.getQueue().size());
+        }
+        long enqueued = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                long wait = start - enqueued;
+                queueTime.record(wait);
+                if (budget > 0 && wait > budget) {
+                    rejected.increment();
+                    expired.run();
+                    return;
+                }
+                try {
+                    task.run();
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    executeTime.record(elapsed);
+                    long average = averageExecuteTime;
+                    averageExecuteTime = average == 0 ? elapsed : average + ((elapsed - average) >> 3);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new RejectedExecutionException("Isolated thread pool " + name + " is exhausted, threads: " + threads + ", queue size: " + executor.getQueue().size(), e);
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public LatencyHistogram getQueueTime() {
+        return queueTime;
+    }
+
+    public LatencyHistogram getExecuteTime() {
+        return executeTime;
+    }
+
+}
@@ -0,0 +1,98 @@
+package org.apache.dubbo.remoting.transport.dispatcher.isolation;
+
+import org.apache.dubbo.common.URL;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.dubbo.remoting.Constants.*;
+
+/**
+ * 各服务独立线程池的注册表
+ * 服务暴露时登记服务URL（其中带有ServiceConfig/MethodConfig上的isolation.*参数），线程池在该服务第一次收到请求时按这些参数创建
+ * 同一个端口上的所有服务共用一个Server，服务键由协议层登记的 IsolationKeyResolver 计算，线程池以 服务键[#方法分组] 区分
+ */
+public final class IsolatedExecutors {
+
+    private static final ConcurrentMap<String, URL> SERVICES = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<String, IsolatedExecutor> EXECUTORS = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<Integer, IsolationKeyResolver> RESOLVERS = new ConcurrentHashMap<>();
+
+    private IsolatedExecutors() {
+    }
+
+    public static void register(URL url, IsolationKeyResolver resolver) {
+        RESOLVERS.put(url.getPort(), resolver);
+        SERVICES.put(resolver.serviceKey(url), url);
+    }
+
+    public static void unregister(URL url) {
+        IsolationKeyResolver resolver = RESOLVERS.get(url.getPort());
+        if (resolver == null) {
+            return;
+        }
+        String key = resolver.serviceKey(url);
+        if (SERVICES.remove(key) == null) {
+            return;
+        }
+        for (Map.Entry<String, IsolatedExecutor> entry : EXECUTORS.entrySet()) {
+            if (entry.getKey().equals(key) || entry.getKey().startsWith(key + "#")) {
+                if (EXECUTORS.remove(entry.getKey(), entry.getValue())) {
+                    entry.getValue().shutdown();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param data 已解码的请求数据
+     * @return 服务未登记时返回null，由调用方使用Server的公共线程池
+     */
+    static IsolatedExecutor getExecutor(int port, Object data) {
+        IsolationKeyResolver resolver = RESOLVERS.get(port);
+        String key = resolver == null ? null : resolver.serviceKey(port, data);
+        URL url = key == null ? null : SERVICES.get(key);
+        if (url == null) {
+            return null;
+        }
+        String methodName = resolver.methodName(data);
+        String isolationGroup = url.getMethodParameter(methodName, ISOLATION_GROUP_KEY);
+        String executorKey = isolationGroup == null || isolationGroup.length() == 0 ? key : key + "#" + isolationGroup;
+        IsolatedExecutor executor = EXECUTORS.get(executorKey);
+        if (executor == null) {
+            int threads = url.getMethodParameter(methodName, ISOLATION_THREADS_KEY, DEFAULT_ISOLATION_THREADS);
+            int queues = url.getMethodParameter(methodName, ISOLATION_QUEUES_KEY, DEFAULT_ISOLATION_QUEUES);
+            long budget = TimeUnit.MILLISECONDS.toNanos(url.getMethodParameter(methodName, ISOLATION_BUDGET_KEY, DEFAULT_ISOLATION_BUDGET));
+            executor = EXECUTORS.computeIfAbsent(executorKey, k -> new IsolatedExecutor(k, threads, queues, budget));
+        }
+        return executor;
+    }
+
+    /**
+     * 关闭某个端口上的所有独立线程池，Server关闭时调用
+     */
+    static void shutdown(int port) {
+        for (Map.Entry<String, URL> service : SERVICES.entrySet()) {
+            if (service.getValue().getPort() != port) {
+                continue;
+            }
+            String key = service.getKey();
+            for (Map.Entry<String, IsolatedExecutor> entry : EXECUTORS.entrySet()) {
+                if ((entry.getKey().equals(key) || entry.getKey().startsWith(key + "#"))
+                        && EXECUTORS.remove(entry.getKey(), entry.getValue())) {
+                    entry.getValue().shutdown();
+                }
+            }
+        }
+    }
+
+    public static Map<String, IsolatedExecutor> getExecutors() {
+        return Collections.unmodifiableMap(EXECUTORS);
+    }
+
+}
@@ -0,0 +1,154 @@
+package org.apache.dubbo.remoting.transport.dispatcher.isolation;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.ChannelHandler;
+import org.apache.dubbo.remoting.Decodeable;
+import org.apache.dubbo.remoting.ExecutionException;
+import org.apache.dubbo.remoting.RemotingException;
+import org.apache.dubbo.remoting.exchange.Request;
+import org.apache.dubbo.remoting.exchange.Response;
+import org.apache.dubbo.remoting.transport.dispatcher.ChannelEventRunnable;
+import org.apache.dubbo.remoting.transport.dispatcher.ChannelEventRunnable.ChannelState;
+import org.apache.dubbo.remoting.transport.dispatcher.WrappedChannelHandler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.apache.dubbo.common.constants.RpcConstants.DECODE_IN_IO_THREAD_KEY;
+import static org.apache.dubbo.common.constants.RpcConstants.DEFAULT_DECODE_IN_IO_THREAD;
+
+/**
+ * 请求按服务（或方法分组）派发到各自独立的线程池，一个服务变慢只会占满自己的线程池，不会影响同一端口上的其他服务
+ * 响应、连接、断开和异常事件与all策略一样派发到Server的公共线程池
+ * 没有登记到IsolatedExecutors的服务也使用公共线程池
+ * decode.in.io=false时请求体不在IO线程上解码，先在公共线程池中解码，再转到服务的独立线程池
+ */
+public class IsolationChannelHandler extends WrappedChannelHandler {
+
+    private final boolean decodeInIo;
+
+    public IsolationChannelHandler(ChannelHandler handler, URL url) {
+        super(handler, url);
+        this.decodeInIo = url.getParameter(DECODE_IN_IO_THREAD_KEY, DEFAULT_DECODE_IN_IO_THREAD);
+    }
+
+    @Override
+    public void connected(Channel channel) throws RemotingException {
+        ExecutorService executor = getExecutorService();
+        try {
+            executor.execute(new ChannelEventRunnable(channel, handler, ChannelState.CONNECTED));
+        } catch (Throwable t) {
+            throw new ExecutionException("connect event", channel, getClass() + " error when process connected event .", t);
+        }
+    }
+
+    @Override
+    public void disconnected(Channel channel) throws RemotingException {
+        ExecutorService executor = getExecutorService();
+        try {
+            executor.execute(new ChannelEventRunnable(channel, handler, ChannelState.DISCONNECTED));
+        } catch (Throwable t) {
+            throw new ExecutionException("disconnect event", channel, getClass() + " error when process disconnected event .", t);
+        }
+    }
+
+    @Override
+    public void received(Channel channel, Object message) throws RemotingException {
+        try {
+            ChannelEventRunnable task = new ChannelEventRunnable(channel, handler, ChannelState.RECEIVED, message);
+            if (!(message instanceof Request)) {
+                getExecutorService().execute(task);
+            } else if (!decodeInIo && ((Request) message).getData() instanceof Decodeable) {
+                Request request = (Request) message;
+                getExecutorService().execute(() -> decodeAndDispatch(channel, request, task));
+            } else {
+                Request request = (Request) message;
+                IsolatedExecutor isolated = select(request);
+                if (isolated == null) {
+                    getExecutorService().execute(task);
+                } else {
+                    isolated.execute(task, () -> rejectExpired(channel, request, isolated));
+                }
+            }
+        } catch (Throwable t) {
+            if (message instanceof Request && t instanceof RejectedExecutionException) {
+                Request request = (Request) message;
+                if (request.isTwoWay()) {
+                    rejectRequest(channel, request, "Server side(" + url.getIp() + "," + url.getPort() + ") threadpool is exhausted ,detail msg:" + t.getMessage());
+                    return;
+                }
+            }
+            throw new ExecutionException(message, channel, getClass() + " error when process received event .", t);
+        }
+    }
+
+    @Override
+    public void caught(Channel channel, Throwable exception) throws RemotingException {
+        ExecutorService executor = getExecutorService();
+        try {
+            executor.execute(new ChannelEventRunnable(channel, handler, ChannelState.CAUGHT, exception));
+        } catch (Throwable t) {
+            throw new ExecutionException("caught event", channel, getClass() + " error when process caught event .", t);
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        IsolatedExecutors.shutdown(url.getPort());
+    }
+
+    /**
+     * 在公共线程池中解码后选择线程池，没有独立线程池或解码失败时直接在当前线程处理
+     * 已解码过的请求体在 DecodeHandler 中不会重复解码，解码失败时由 DecodeHandler 重试并处理
+     */
+    private void decodeAndDispatch(Channel channel, Request request, ChannelEventRunnable task) {
+        IsolatedExecutor isolated;
+        try {
+            ((Decodeable) request.getData()).decode();
+            isolated = select(request);
+        } catch (Throwable t) {
+            isolated = null;
+        }
+        if (isolated == null) {
+            task.run();
+            return;
+        }
+        try {
+            IsolatedExecutor selected = isolated;
+            isolated.execute(task, () -> rejectExpired(channel, request, selected));
+        } catch (RejectedExecutionException e) {
+            rejectRequest(channel, request, "Server side(" + url.getIp() + "," + url.getPort() + ") threadpool is exhausted ,detail msg:" + e.getMessage());
+        }
+    }
+
+    /**
+     * 由协议登记的 IsolationKeyResolver 按已解码的请求选择线程池
+     */
+    private IsolatedExecutor select(Request request) {
+        if (request.isEvent() || request.isBroken()) {
+            return null;
+        }
+        return IsolatedExecutors.getExecutor(url.getPort(), request.getData());
+    }
+
+    private void rejectExpired(Channel channel, Request request, IsolatedExecutor isolated) {
+        rejectRequest(channel, request, "Server side(" + url.getIp() + "," + url.getPort() + ") isolated threadpool " + isolated.getName() + " queue wait exceeds budget");
+    }
+
+    private void rejectRequest(Channel channel, Request request, String msg) {
+        if (!request.isTwoWay()) {
+            return;
+        }
+        Response response = new Response(request.getId(), request.getVersion());
+        response.setStatus(Response.SERVER_THREADPOOL_EXHAUSTED_ERROR);
+        response.setErrorMessage(msg);
+        try {
+            channel.send(response);
+        } catch (RemotingException e) {
+            logger.warn("Failed to send rejected response to " + channel.getRemoteAddress() + ", cause: " + e.getMessage(), e);
+        }
+    }
+
+}
@@ -0,0 +1,16 @@
+package org.apache.dubbo.remoting.transport.dispatcher.isolation;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.remoting.ChannelHandler;
+import org.apache.dubbo.remoting.Dispatcher;
+
+public class IsolationDispatcher implements Dispatcher {
+
+    public static final String NAME = "isolation";
+
+    @Override
+    public ChannelHandler dispatch(ChannelHandler handler, URL url) {
+        return new IsolationChannelHandler(handler, url);
+    }
+
+}
@@ -0,0 +1,24 @@
+package org.apache.dubbo.remoting.transport.dispatcher.isolation;
+
+import org.apache.dubbo.common.URL;
+
+/**
+ * 从请求数据中取出服务键和方法名，由协议层实现，随服务URL一起登记到 IsolatedExecutors
+ * remoting层不依赖具体协议的请求格式，同一端口上的服务使用同一个实现
+ */
+public interface IsolationKeyResolver {
+
+    /**
+     * 服务暴露URL对应的服务键，与 serviceKey(int, Object) 的结果一致
+     */
+    String serviceKey(URL url);
+
+    /**
+     * @param data 已解码的请求数据
+     * @return 不是该协议的调用时返回null
+     */
+    String serviceKey(int port, Object data);
+
+    String methodName(Object data);
+
+}
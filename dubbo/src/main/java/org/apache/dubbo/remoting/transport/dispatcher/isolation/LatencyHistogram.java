@@ -0,0 +1,65 @@
+package org.apache.dubbo.remoting.transport.dispatcher.isolation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 以微秒为单位、按2的幂分桶的延迟直方图，第i个桶记录[2^(i-1), 2^i)微秒的样本
+ * 记录只是一次LongAdder累加，分位数按桶上界估算
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 32;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long micros = Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0);
+        int index = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+        buckets[index].increment();
+        count.increment();
+        sum.add(micros);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 平均值，微秒
+     */
+    public long getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : sum.sum() / n;
+    }
+
+    /**
+     * 分位数的上界估算，微秒
+     */
+    public long getPercentile(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(n * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i].sum();
+            if (seen >= threshold) {
+                return i == 0 ? 0 : 1L << i;
+            }
+        }
+        return 1L << (BUCKETS - 1);
+    }
+
+}
@@ -52,9 +52,11 @@ public class NettyBackedChannelBuffer implements ChannelBuffer {
 
     @Override
     public void getBytes(int index, ChannelBuffer dst, int dstIndex, int length) {
-        byte[] data = new byte[length];
-        buffer.getBytes(index, data, 0, length);
-        dst.setBytes(dstIndex, data, 0, length);
+        if (dst instanceof NettyBackedChannelBuffer) {
+            buffer.getBytes(index, ((NettyBackedChannelBuffer) dst).buffer, dstIndex, length);
+        } else {
+            dst.setBytes(dstIndex, buffer.nioBuffer(index, length));
+        }
     }
 
     @Override
@@ -84,9 +86,11 @@ public class NettyBackedChannelBuffer implements ChannelBuffer {
 
     @Override
     public void setBytes(int index, ChannelBuffer src, int srcIndex, int length) {
-        byte[] data = new byte[length];
-        buffer.getBytes(srcIndex, data, 0, length);
-        setBytes(index, data, 0, length);
+        if (src instanceof NettyBackedChannelBuffer) {
+            buffer.setBytes(index, ((NettyBackedChannelBuffer) src).buffer, srcIndex, length);
+        } else {
+            buffer.setBytes(index, src.toByteBuffer(srcIndex, length));
+        }
     }
 
     @Override
@@ -212,9 +216,8 @@ public class NettyBackedChannelBuffer implements ChannelBuffer {
         if (readableBytes() < length) {
             throw new IndexOutOfBoundsException();
         }
-        byte[] data = new byte[length];
-        buffer.readBytes(data, 0, length);
-        dst.setBytes(dstIndex, data, 0, length);
+        getBytes(buffer.readerIndex(), dst, dstIndex, length);
+        buffer.skipBytes(length);
     }
 
     @Override
@@ -327,9 +330,11 @@ public class NettyBackedChannelBuffer implements ChannelBuffer {
 
     @Override
     public void writeBytes(ChannelBuffer src, int srcIndex, int length) {
-        byte[] data = new byte[length];
-        src.getBytes(srcIndex, data, 0, length);
-        writeBytes(data, 0, length);
+        if (src instanceof NettyBackedChannelBuffer) {
+            buffer.writeBytes(((NettyBackedChannelBuffer) src).buffer, srcIndex, length);
+        } else {
+            buffer.writeBytes(src.toByteBuffer(srcIndex, length));
+        }
     }
 
     @Override
@@ -26,6 +26,7 @@ import org.apache.dubbo.remoting.transport.AbstractClient;
 import java.net.InetSocketAddress;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.dubbo.remoting.Constants.WRITE_BATCH_KEY;
 
 public class NettyClient extends AbstractClient {
 
@@ -43,6 +44,8 @@ public class NettyClient extends AbstractClient {
 
     private volatile Channel channel;
 
+    private final NettyWriteBatchHandler.Stats writeBatchStats = new NettyWriteBatchHandler.Stats();
+
     public NettyClient(final URL url, final ChannelHandler handler) throws RemotingException {
         // 线程池包裹
         super(url, wrapChannelHandler(url, handler));
@@ -70,6 +73,10 @@ public class NettyClient extends AbstractClient {
                         .addLast("client-idle-handler", new IdleStateHandler(heartbeatInterval, 0, 0, MILLISECONDS))
                         // 消息处理
                         .addLast("handler", nettyClientHandler);
+                if (getUrl().getParameter(WRITE_BATCH_KEY, false)) {
+                    // 合并写放在编码器之后，统计编码后的字节数
+                    ch.pipeline().addBefore("encoder", "write-batch", new NettyWriteBatchHandler(getUrl(), writeBatchStats));
+                }
                 String socksProxyHost = ConfigUtils.getProperty(SOCKS_PROXY_HOST);
                 if (socksProxyHost != null) {
                     int socksProxyPort = Integer.parseInt(ConfigUtils.getProperty(SOCKS_PROXY_PORT, DEFAULT_SOCKS_PROXY_PORT));
@@ -80,6 +87,10 @@ public class NettyClient extends AbstractClient {
         });
     }
 
+    public NettyWriteBatchHandler.Stats getWriteBatchStats() {
+        return writeBatchStats;
+    }
+
     @Override
     protected void doConnect() throws Throwable {
         long start = System.currentTimeMillis();
@@ -15,6 +15,8 @@ import java.util.List;
 
 final public class NettyCodecAdapter {
 
+    private static final int MIN_ENCODE_BUFFER_SIZE = 256;
+
     private final ChannelHandler encoder = new InternalEncoder();
 
     private final ChannelHandler decoder = new InternalDecoder();
@@ -41,6 +43,16 @@ final public class NettyCodecAdapter {
 
     private class InternalEncoder extends MessageToByteEncoder {
 
+        /**
+         * 最近编码结果大小的估计值，按此预分配池化的直接内存，避免消息体写入时反复扩容拷贝
+         */
+        private int estimatedSize = MIN_ENCODE_BUFFER_SIZE;
+
+        @Override
+        protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, Object msg, boolean preferDirect) throws Exception {
+            return preferDirect ? ctx.alloc().ioBuffer(estimatedSize) : ctx.alloc().heapBuffer(estimatedSize);
+        }
+
         @Override
         protected void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) throws Exception {
             org.apache.dubbo.remoting.buffer.ChannelBuffer buffer = new NettyBackedChannelBuffer(out);
@@ -51,6 +63,9 @@ final public class NettyCodecAdapter {
             } finally {
                 NettyChannel.removeChannelIfDisconnected(ch);
             }
+            // 向上取最近一次编码大小，向下则缓慢收敛，防止偶发的大消息长期占用大块内存
+            int size = out.readableBytes();
+            estimatedSize = size > estimatedSize ? size : Math.max(MIN_ENCODE_BUFFER_SIZE, estimatedSize - ((estimatedSize - size) >> 3));
         }
 
     }
@@ -0,0 +1,184 @@
+package org.apache.dubbo.remoting.transport.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.apache.dubbo.common.URL;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.apache.dubbo.remoting.Constants.DEFAULT_WRITE_BATCH_BYTES;
+import static org.apache.dubbo.remoting.Constants.DEFAULT_WRITE_BATCH_LATENCY;
+import static org.apache.dubbo.remoting.Constants.WRITE_BATCH_BYTES_KEY;
+import static org.apache.dubbo.remoting.Constants.WRITE_BATCH_LATENCY_KEY;
+
+/**
+ * 合并写：位于编码器之后，拦截每条消息的 flush，把同一个事件循环 tick 内（或 write.batch.latency 微秒内）
+ * 编码好的消息攒成一批再调用一次 flush，减少一次 RPC 一次系统调用的开销；
+ * 待刷出的字节数达到 write.batch.bytes 时立即刷出
+ * <p>
+ * 该 handler 持有每个连接的状态，不可共享
+ */
+public class NettyWriteBatchHandler extends ChannelDuplexHandler {
+
+    private final int maxBatchBytes;
+
+    private final long maxLatencyMicros;
+
+    private final Stats stats;
+
+    private int pendingMessages;
+
+    private long pendingBytes;
+
+    private boolean flushScheduled;
+
+    private ScheduledFuture<?> delayedFlush;
+
+    private ChannelHandlerContext ctx;
+
+    private final Runnable flushTask = () -> {
+        flushScheduled = false;
+        delayedFlush = null;
+        flushNow();
+    };
+
+    public NettyWriteBatchHandler(URL url, Stats stats) {
+        this.maxBatchBytes = url.getPositiveParameter(WRITE_BATCH_BYTES_KEY, DEFAULT_WRITE_BATCH_BYTES);
+        this.maxLatencyMicros = Math.max(0, url.getParameter(WRITE_BATCH_LATENCY_KEY, DEFAULT_WRITE_BATCH_LATENCY));
+        this.stats = stats;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof ByteBuf) {
+            pendingBytes += ((ByteBuf) msg).readableBytes();
+        }
+        pendingMessages++;
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (pendingMessages == 0) {
+            ctx.flush();
+            return;
+        }
+        if (pendingBytes >= maxBatchBytes) {
+            flushNow();
+            return;
+        }
+        if (!flushScheduled) {
+            flushScheduled = true;
+            if (maxLatencyMicros > 0) {
+                delayedFlush = ctx.executor().schedule(flushTask, maxLatencyMicros, TimeUnit.MICROSECONDS);
+            } else {
+                // 排在当前已提交的写任务之后执行，同一 tick 内的写请求合并为一次 flush
+                ctx.executor().execute(flushTask);
+            }
+        }
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushNow();
+        ctx.close(promise);
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushNow();
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (!ctx.channel().isWritable()) {
+            // 出站缓冲区已满，尽快把积压数据交给 socket
+            flushNow();
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    private void flushNow() {
+        if (delayedFlush != null) {
+            // 取消的定时任务不会再执行，由这里清除标记，否则之后的flush不会再安排刷出
+            delayedFlush.cancel(false);
+            delayedFlush = null;
+            flushScheduled = false;
+        }
+        if (pendingMessages > 0) {
+            stats.record(pendingMessages, pendingBytes);
+            pendingMessages = 0;
+            pendingBytes = 0;
+        }
+        ctx.flush();
+    }
+
+    /**
+     * 批量写统计，同一个客户端的所有连接共享
+     */
+    public static class Stats {
+
+        private final LongAdder batches = new LongAdder();
+
+        private final LongAdder messages = new LongAdder();
+
+        private final LongAdder bytes = new LongAdder();
+
+        private final AtomicLong maxBatchMessages = new AtomicLong();
+
+        void record(int batchMessages, long batchBytes) {
+            batches.increment();
+            messages.add(batchMessages);
+            bytes.add(batchBytes);
+            long max;
+            while (batchMessages > (max = maxBatchMessages.get())) {
+                if (maxBatchMessages.compareAndSet(max, batchMessages)) {
+                    break;
+                }
+            }
+        }
+
+        public long getBatches() {
+            return batches.sum();
+        }
+
+        public long getMessages() {
+            return messages.sum();
+        }
+
+        public long getBytes() {
+            return bytes.sum();
+        }
+
+        public long getMaxBatchMessages() {
+            return maxBatchMessages.get();
+        }
+
+        public double getAverageBatchMessages() {
+            long count = getBatches();
+            return count == 0 ? 0 : (double) getMessages() / count;
+        }
+
+        public double getAverageBatchBytes() {
+            long count = getBatches();
+            return count == 0 ? 0 : (double) getBytes() / count;
+        }
+
+        @Override
+        public String toString() {
+            return "WriteBatchStats [batches=" + getBatches() + ", messages=" + getMessages() + ", bytes=" + getBytes() + ", maxBatchMessages=" + getMaxBatchMessages() + ", avgBatchMessages=" + getAverageBatchMessages() + ", avgBatchBytes=" + getAverageBatchBytes() + "]";
+        }
+    }
+
+}
@@ -3,6 +3,8 @@ package org.apache.dubbo.remoting.zookeeper;
 import org.apache.dubbo.common.extension.ExtensionLoader;
 
 public class ZookeeperTransporter$Adaptive implements org.apache.dubbo.remoting.zookeeper.ZookeeperTransporter {
+    private final org.apache.dubbo.common.extension.AdaptiveExtensionCache extensions = new org.apache.dubbo.common.extension.AdaptiveExtensionCache(org.apache.dubbo.remoting.zookeeper.ZookeeperTransporter.class);
+
     public org.apache.dubbo.remoting.zookeeper.ZookeeperClient connect(org.apache.dubbo.common.URL arg0) {
         if (arg0 == null)
             throw new IllegalArgumentException("url == null");
@@ -10,7 +12,7 @@ public class ZookeeperTransporter$Adaptive implements org.apache.dubbo.remoting.
         String extName = url.getParameter("client", url.getParameter("transporter", "curator"));
         if (extName == null)
             throw new IllegalStateException("Failed to get extension (org.apache.dubbo.remoting.zookeeper.ZookeeperTransporter) name from url (" + url.toString() + ") use keys([client, transporter])");
-        org.apache.dubbo.remoting.zookeeper.ZookeeperTransporter extension = (org.apache.dubbo.remoting.zookeeper.ZookeeperTransporter) ExtensionLoader.getExtensionLoader(org.apache.dubbo.remoting.zookeeper.ZookeeperTransporter.class).getExtension(extName);
+        org.apache.dubbo.remoting.zookeeper.ZookeeperTransporter extension = (org.apache.dubbo.remoting.zookeeper.ZookeeperTransporter) extensions.get(extName);
         return extension.connect(arg0);
     }
 
@@ -0,0 +1,120 @@
+package org.apache.dubbo.rpc;
+
+import org.apache.dubbo.common.URL;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 每个Invoker每个方法的响应时间EWMA与在途请求数，供AdaptiveLoadBalance使用
+ * 采用peak-EWMA：采样值高于当前值时直接跳到采样值，否则按时间衰减平滑，因此能快速感知变慢的节点
+ * 读取时同样按空闲时间衰减，长时间没有请求的节点代价逐渐归零，会被重新探测
+ * 状态通过CAS替换不可变快照更新，没有锁
+ * 以Invoker的完整URL区分，Invoker被服务目录销毁时通过removeMetrics移除
+ */
+public class AdaptiveMetrics {
+
+    private static final ConcurrentMap<String, ConcurrentMap<String, AdaptiveMetrics>> METHOD_METRICS = new ConcurrentHashMap<String, ConcurrentMap<String, AdaptiveMetrics>>();
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private final AtomicReference<Ewma> ewma = new AtomicReference<Ewma>(new Ewma(0D, System.nanoTime(), false));
+
+    private AdaptiveMetrics() {
+    }
+
+    public static AdaptiveMetrics getMetrics(URL url, String methodName) {
+        String uri = url.toFullString();
+        ConcurrentMap<String, AdaptiveMetrics> map = METHOD_METRICS.get(uri);
+        if (map == null) {
+            METHOD_METRICS.putIfAbsent(uri, new ConcurrentHashMap<String, AdaptiveMetrics>());
+            map = METHOD_METRICS.get(uri);
+        }
+        AdaptiveMetrics metrics = map.get(methodName);
+        if (metrics == null) {
+            map.putIfAbsent(methodName, new AdaptiveMetrics());
+            metrics = map.get(methodName);
+        }
+        return metrics;
+    }
+
+    public static void removeMetrics(URL url) {
+        METHOD_METRICS.remove(url.toFullString());
+    }
+
+    public void begin() {
+        inflight.incrementAndGet();
+    }
+
+    /**
+     * @param elapsed 本次调用耗时，纳秒
+     * @param decay   衰减时间常数，纳秒
+     */
+    public void end(long elapsed, long decay) {
+        inflight.decrementAndGet();
+        long now = System.nanoTime();
+        for (; ; ) {
+            Ewma current = ewma.get();
+            double value;
+            if (!current.sampled || elapsed > current.value) {
+                value = elapsed;
+            } else {
+                double w = weight(now - current.stamp, decay);
+                value = current.value * w + elapsed * (1 - w);
+            }
+            if (ewma.compareAndSet(current, new Ewma(value, Math.max(now, current.stamp), true))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 代价 = 衰减后的EWMA * (在途请求数 + 1)
+     * 还没有任何采样的节点若已有在途请求，以penalty作为延迟估计，避免新节点在首个响应返回前被打满
+     */
+    public double getCost(long decay, long penalty) {
+        Ewma current = ewma.get();
+        int active = inflight.get();
+        double latency;
+        if (!current.sampled) {
+            latency = active > 0 ? penalty : 0D;
+        } else {
+            latency = current.value * weight(System.nanoTime() - current.stamp, decay);
+        }
+        return latency * (active + 1);
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public long getLatency(TimeUnit unit) {
+        return unit.convert((long) ewma.get().value, TimeUnit.NANOSECONDS);
+    }
+
+    private static double weight(long idle, long decay) {
+        if (idle <= 0) {
+            return 1D;
+        }
+        return Math.exp(-(double) idle / decay);
+    }
+
+    private static final class Ewma {
+
+        private final double value;
+
+        private final long stamp;
+
+        private final boolean sampled;
+
+        private Ewma(double value, long stamp, boolean sampled) {
+            this.value = value;
+            this.stamp = stamp;
+            this.sampled = sampled;
+        }
+    }
+
+}
@@ -0,0 +1,257 @@
+package org.apache.dubbo.rpc;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * RpcContext的附件表
+ * 附件通常只有几个到十几个，键、值和键的hash存放在三个平行数组中，按hash顺序比较，没有Entry对象
+ * 删除时用最后一个元素填补空位；数组在第一次写入时才分配，没有附件的上下文不占用数组
+ * 键在全局池中去重，解码得到的键与常量键共用同一个字符串，比较时大多命中==
+ */
+final class AttachmentMap extends AbstractMap<String, String> {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static final int MAX_INTERNED_KEYS = 4096;
+
+    private static final ConcurrentMap<String, String> KEYS = new ConcurrentHashMap<>();
+
+    private static final int[] EMPTY_HASHES = new int[0];
+
+    private static final String[] EMPTY = new String[0];
+
+    private int[] hashes = EMPTY_HASHES;
+
+    private String[] keys = EMPTY;
+
+    private String[] values = EMPTY;
+
+    private int size;
+
+    private int modCount;
+
+    private int indexOf(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        for (int i = 0; i < size; i++) {
+            if (hashes[i] == hash) {
+                String k = keys[i];
+                if (k == key || (k != null && k.equals(key))) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        int i = indexOf(key);
+        return i < 0 ? null : values[i];
+    }
+
+    @Override
+    public String put(String key, String value) {
+        int i = indexOf(key);
+        if (i >= 0) {
+            String old = values[i];
+            values[i] = value;
+            return old;
+        }
+        if (size == keys.length) {
+            int capacity = size == 0 ? INITIAL_CAPACITY : size << 1;
+            hashes = Arrays.copyOf(hashes, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        hashes[size] = key == null ? 0 : key.hashCode();
+        keys[size] = intern(key);
+        values[size] = value;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends String> m) {
+        for (Entry<? extends String, ? extends String> entry : m.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public String remove(Object key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        String old = values[i];
+        removeAt(i);
+        return old;
+    }
+
+    private void removeAt(int i) {
+        int last = --size;
+        hashes[i] = hashes[last];
+        keys[i] = keys[last];
+        values[i] = values[last];
+        keys[last] = null;
+        values[last] = null;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void clear() {
+                AttachmentMap.this.clear();
+            }
+        };
+    }
+
+    private static String intern(String key) {
+        if (key == null) {
+            return null;
+        }
+        String interned = KEYS.get(key);
+        if (interned != null) {
+            return interned;
+        }
+        if (KEYS.size() >= MAX_INTERNED_KEYS) {
+            return key;
+        }
+        interned = KEYS.putIfAbsent(key, key);
+        return interned == null ? key : interned;
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, String>> {
+
+        private int next;
+
+        private int last = -1;
+
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return new AttachmentEntry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            // 最后一个元素被移到了last位置，下次从last继续
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    private final class AttachmentEntry implements Entry<String, String> {
+
+        private final int index;
+
+        private final String key;
+
+        AttachmentEntry(int index) {
+            this.index = index;
+            this.key = keys[index];
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public String getValue() {
+            return index < size && keys[index] == key ? values[index] : get(key);
+        }
+
+        @Override
+        public String setValue(String value) {
+            return put(key, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return Objects.equals(key, e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+
+}
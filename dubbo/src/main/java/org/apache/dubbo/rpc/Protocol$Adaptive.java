@@ -3,6 +3,8 @@ package org.apache.dubbo.rpc;
 import org.apache.dubbo.common.extension.ExtensionLoader;
 
 public class Protocol$Adaptive implements org.apache.dubbo.rpc.Protocol {
+    private final org.apache.dubbo.common.extension.AdaptiveExtensionCache extensions = new org.apache.dubbo.common.extension.AdaptiveExtensionCache(org.apache.dubbo.rpc.Protocol.class);
+
     public void destroy() {
         throw new UnsupportedOperationException("The method public abstract void org.apache.dubbo.rpc.Protocol.destroy() of interface org.apache.dubbo.rpc.Protocol is not adaptive method!");
     }
@@ -20,7 +22,7 @@ public class Protocol$Adaptive implements org.apache.dubbo.rpc.Protocol {
         String extName = (url.getProtocol() == null ? "dubbo" : url.getProtocol());
         if (extName == null)
             throw new IllegalStateException("Failed to get extension (org.apache.dubbo.rpc.Protocol) name from url (" + url.toString() + ") use keys([protocol])");
-        org.apache.dubbo.rpc.Protocol extension = (org.apache.dubbo.rpc.Protocol) ExtensionLoader.getExtensionLoader(org.apache.dubbo.rpc.Protocol.class).getExtension(extName);
+        org.apache.dubbo.rpc.Protocol extension = (org.apache.dubbo.rpc.Protocol) extensions.get(extName);
         return extension.export(arg0);
     }
 
@@ -34,7 +36,7 @@ public class Protocol$Adaptive implements org.apache.dubbo.rpc.Protocol {
             throw new IllegalStateException("Failed to get extension (org.apache.dubbo.rpc.Protocol) name from url (" + url.toString() + ") use keys([protocol])");
 
         // 通过扩展名动态获取扩展实例对象，调用扩展实例对象方法
-        org.apache.dubbo.rpc.Protocol extension = (org.apache.dubbo.rpc.Protocol) ExtensionLoader.getExtensionLoader(org.apache.dubbo.rpc.Protocol.class).getExtension(extName);
+        org.apache.dubbo.rpc.Protocol extension = (org.apache.dubbo.rpc.Protocol) extensions.get(extName);
         return extension.refer(arg0, arg1);
     }
 
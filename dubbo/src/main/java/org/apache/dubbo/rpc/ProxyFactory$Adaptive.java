@@ -3,6 +3,8 @@ package org.apache.dubbo.rpc;
 import org.apache.dubbo.common.extension.ExtensionLoader;
 
 public class ProxyFactory$Adaptive implements org.apache.dubbo.rpc.ProxyFactory {
+    private final org.apache.dubbo.common.extension.AdaptiveExtensionCache extensions = new org.apache.dubbo.common.extension.AdaptiveExtensionCache(org.apache.dubbo.rpc.ProxyFactory.class);
+
     public java.lang.Object getProxy(org.apache.dubbo.rpc.Invoker arg0) throws org.apache.dubbo.rpc.RpcException {
         if (arg0 == null)
             throw new IllegalArgumentException("org.apache.dubbo.rpc.Invoker argument == null");
@@ -12,7 +14,7 @@ public class ProxyFactory$Adaptive implements org.apache.dubbo.rpc.ProxyFactory
         String extName = url.getParameter("proxy", "javassist");
         if (extName == null)
             throw new IllegalStateException("Failed to get extension (org.apache.dubbo.rpc.ProxyFactory) name from url (" + url.toString() + ") use keys([proxy])");
-        org.apache.dubbo.rpc.ProxyFactory extension = (org.apache.dubbo.rpc.ProxyFactory) ExtensionLoader.getExtensionLoader(org.apache.dubbo.rpc.ProxyFactory.class).getExtension(extName);
+        org.apache.dubbo.rpc.ProxyFactory extension = (org.apache.dubbo.rpc.ProxyFactory) extensions.get(extName);
         return extension.getProxy(arg0);
     }
 
@@ -25,7 +27,7 @@ public class ProxyFactory$Adaptive implements org.apache.dubbo.rpc.ProxyFactory
         String extName = url.getParameter("proxy", "javassist");
         if (extName == null)
             throw new IllegalStateException("Failed to get extension (org.apache.dubbo.rpc.ProxyFactory) name from url (" + url.toString() + ") use keys([proxy])");
-        org.apache.dubbo.rpc.ProxyFactory extension = (org.apache.dubbo.rpc.ProxyFactory) ExtensionLoader.getExtensionLoader(org.apache.dubbo.rpc.ProxyFactory.class).getExtension(extName);
+        org.apache.dubbo.rpc.ProxyFactory extension = (org.apache.dubbo.rpc.ProxyFactory) extensions.get(extName);
         return extension.getProxy(arg0, arg1);
     }
 
@@ -36,7 +38,7 @@ public class ProxyFactory$Adaptive implements org.apache.dubbo.rpc.ProxyFactory
         String extName = url.getParameter("proxy", "javassist");
         if (extName == null)
             throw new IllegalStateException("Failed to get extension (org.apache.dubbo.rpc.ProxyFactory) name from url (" + url.toString() + ") use keys([proxy])");
-        org.apache.dubbo.rpc.ProxyFactory extension = (org.apache.dubbo.rpc.ProxyFactory) ExtensionLoader.getExtensionLoader(org.apache.dubbo.rpc.ProxyFactory.class).getExtension(extName);
+        org.apache.dubbo.rpc.ProxyFactory extension = (org.apache.dubbo.rpc.ProxyFactory) extensions.get(extName);
         return extension.getInvoker(arg0, arg1, arg2);
     }
 
@@ -30,9 +30,9 @@ public class RpcContext {
         }
     };
 
-    private final Map<String, String> attachments = new HashMap<String, String>();
+    private final Map<String, String> attachments = new AttachmentMap();
 
-    private final Map<String, Object> values = new HashMap<String, Object>();
+    private Map<String, Object> values;
 
     private Future<?> future;
 
@@ -93,7 +93,9 @@ public class RpcContext {
     public RpcContext copyOf() {
         RpcContext copy = new RpcContext();
         copy.attachments.putAll(this.attachments);
-        copy.values.putAll(this.values);
+        if (this.values != null) {
+            copy.get().putAll(this.values);
+        }
         copy.future = this.future;
         copy.urls = this.urls;
         copy.url = this.url;
@@ -322,25 +324,32 @@ public class RpcContext {
     }
 
     public Map<String, Object> get() {
+        if (values == null) {
+            values = new HashMap<String, Object>();
+        }
         return values;
     }
 
     public RpcContext set(String key, Object value) {
         if (value == null) {
-            values.remove(key);
+            if (values != null) {
+                values.remove(key);
+            }
         } else {
-            values.put(key, value);
+            get().put(key, value);
         }
         return this;
     }
 
     public RpcContext remove(String key) {
-        values.remove(key);
+        if (values != null) {
+            values.remove(key);
+        }
         return this;
     }
 
     public Object get(String key) {
-        return values.get(key);
+        return values == null ? null : values.get(key);
     }
 
     @Deprecated
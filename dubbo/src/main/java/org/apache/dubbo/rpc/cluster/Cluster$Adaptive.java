@@ -3,6 +3,8 @@ package org.apache.dubbo.rpc.cluster;
 import org.apache.dubbo.common.extension.ExtensionLoader;
 
 public class Cluster$Adaptive implements org.apache.dubbo.rpc.cluster.Cluster {
+    private final org.apache.dubbo.common.extension.AdaptiveExtensionCache extensions = new org.apache.dubbo.common.extension.AdaptiveExtensionCache(org.apache.dubbo.rpc.cluster.Cluster.class);
+
     public org.apache.dubbo.rpc.Invoker join(org.apache.dubbo.rpc.cluster.Directory arg0) throws org.apache.dubbo.rpc.RpcException {
         if (arg0 == null)
             throw new IllegalArgumentException("org.apache.dubbo.rpc.cluster.Directory argument == null");
@@ -12,7 +14,7 @@ public class Cluster$Adaptive implements org.apache.dubbo.rpc.cluster.Cluster {
         String extName = url.getParameter("cluster", "failover");
         if (extName == null)
             throw new IllegalStateException("Failed to get extension (org.apache.dubbo.rpc.cluster.Cluster) name from url (" + url.toString() + ") use keys([cluster])");
-        org.apache.dubbo.rpc.cluster.Cluster extension = (org.apache.dubbo.rpc.cluster.Cluster) ExtensionLoader.getExtensionLoader(org.apache.dubbo.rpc.cluster.Cluster.class).getExtension(extName);
+        org.apache.dubbo.rpc.cluster.Cluster extension = (org.apache.dubbo.rpc.cluster.Cluster) extensions.get(extName);
         return extension.join(arg0);
     }
 
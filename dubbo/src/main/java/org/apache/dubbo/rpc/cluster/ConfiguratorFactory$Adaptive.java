@@ -3,6 +3,8 @@ package org.apache.dubbo.rpc.cluster;
 import org.apache.dubbo.common.extension.ExtensionLoader;
 
 public class ConfiguratorFactory$Adaptive implements org.apache.dubbo.rpc.cluster.ConfiguratorFactory {
+    private final org.apache.dubbo.common.extension.AdaptiveExtensionCache extensions = new org.apache.dubbo.common.extension.AdaptiveExtensionCache(org.apache.dubbo.rpc.cluster.ConfiguratorFactory.class);
+
     public org.apache.dubbo.rpc.cluster.Configurator getConfigurator(org.apache.dubbo.common.URL arg0) {
         if (arg0 == null)
             throw new IllegalArgumentException("url == null");
@@ -10,7 +12,7 @@ public class ConfiguratorFactory$Adaptive implements org.apache.dubbo.rpc.cluste
         String extName = url.getProtocol();
         if (extName == null)
             throw new IllegalStateException("Failed to get extension (org.apache.dubbo.rpc.cluster.ConfiguratorFactory) name from url (" + url.toString() + ") use keys([protocol])");
-        org.apache.dubbo.rpc.cluster.ConfiguratorFactory extension = (org.apache.dubbo.rpc.cluster.ConfiguratorFactory) ExtensionLoader.getExtensionLoader(org.apache.dubbo.rpc.cluster.ConfiguratorFactory.class).getExtension(extName);
+        org.apache.dubbo.rpc.cluster.ConfiguratorFactory extension = (org.apache.dubbo.rpc.cluster.ConfiguratorFactory) extensions.get(extName);
         return extension.getConfigurator(arg0);
     }
 
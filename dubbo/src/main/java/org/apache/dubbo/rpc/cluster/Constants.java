@@ -63,4 +63,20 @@ public interface Constants {
 
     String TAG_KEY = "dubbo.tag";
 
+    String ROUTER_BITMAP_KEY = "router.bitmap";
+
+    int DEFAULT_ROUTER_BITMAP_CACHE_SIZE = 256;
+
+    String ADAPTIVE_DECAY_KEY = "adaptive.decay";
+
+    int DEFAULT_ADAPTIVE_DECAY = 10 * 1000;
+
+    String CLUSTER_THREADS_KEY = "cluster.threads";
+
+    int DEFAULT_CLUSTER_THREADS = 200;
+
+    String CLUSTER_QUEUES_KEY = "cluster.queues";
+
+    int DEFAULT_CLUSTER_QUEUES = 1000;
+
 }
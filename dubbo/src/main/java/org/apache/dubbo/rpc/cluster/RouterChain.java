@@ -5,12 +5,19 @@ import org.apache.dubbo.common.extension.ExtensionLoader;
 import org.apache.dubbo.common.utils.CollectionUtils;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.cluster.router.BitmapRouter;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
+import static org.apache.dubbo.rpc.cluster.Constants.DEFAULT_ROUTER_BITMAP_CACHE_SIZE;
+import static org.apache.dubbo.rpc.cluster.Constants.ROUTER_BITMAP_KEY;
+
 public class RouterChain<T> {
 
     private List<Invoker<T>> invokers = Collections.emptyList();
@@ -19,11 +26,19 @@ public class RouterChain<T> {
 
     private List<Router> builtinRouters = Collections.emptyList();
 
+    /**
+     * 位图路由模式：BitmapRouter 在 setInvokers 时预先计算匹配位图，调用时只做位图求交
+     */
+    private boolean bitmap;
+
+    private volatile BitmapSnapshot<T> snapshot = new BitmapSnapshot<>(Collections.emptyList());
+
     public static <T> RouterChain<T> buildChain(URL url) {
         return new RouterChain<>(url);
     }
 
     private RouterChain(URL url) {
+        this.bitmap = url.getParameter(ROUTER_BITMAP_KEY, false);
         List<RouterFactory> extensionFactories = ExtensionLoader.getExtensionLoader(RouterFactory.class).getActivateExtension(url, (String[]) null);
         List<Router> routers = extensionFactories.stream().map(factory -> factory.getRouter(url)).collect(Collectors.toList());
         initWithRouters(routers);
@@ -48,6 +63,9 @@ public class RouterChain<T> {
     }
 
     public List<Invoker<T>> route(URL url, Invocation invocation) {
+        if (bitmap) {
+            return bitmapRoute(url, invocation);
+        }
         List<Invoker<T>> finalInvokers = invokers;
         for (Router router : routers) {
             finalInvokers = router.route(finalInvokers, url, invocation);
@@ -55,9 +73,79 @@ public class RouterChain<T> {
         return finalInvokers;
     }
 
+    /**
+     * BitmapRouter 在位图上求交；不支持位图的 Router 在物化的列表上路由，原样返回输入列表时继续使用位图，
+     * 否则之后的 Router 都在列表上路由
+     */
+    private List<Invoker<T>> bitmapRoute(URL url, Invocation invocation) {
+        BitmapSnapshot<T> current = snapshot;
+        List<Invoker<T>> finalInvokers = current.invokers;
+        BitSet candidates = current.all;
+        for (Router router : routers) {
+            if (candidates == null) {
+                finalInvokers = router.route(finalInvokers, url, invocation);
+                continue;
+            }
+            if (router instanceof BitmapRouter) {
+                BitSet routed = ((BitmapRouter) router).route(current.invokers, candidates, url, invocation);
+                if (routed != null) {
+                    candidates = routed;
+                    continue;
+                }
+            }
+            List<Invoker<T>> input = current.materialize(candidates);
+            finalInvokers = router.route(input, url, invocation);
+            if (finalInvokers != input) {
+                candidates = null;
+            }
+        }
+        return candidates != null ? current.materialize(candidates) : finalInvokers;
+    }
+
     public void setInvokers(List<Invoker<T>> invokers) {
         this.invokers = (invokers == null ? Collections.emptyList() : invokers);
         routers.forEach(router -> router.notify(this.invokers));
+        if (bitmap) {
+            routers.stream().filter(router -> router instanceof BitmapRouter).forEach(router -> ((BitmapRouter) router).prepare(this.invokers));
+            this.snapshot = new BitmapSnapshot<>(this.invokers);
+        }
+    }
+
+    /**
+     * 某一版本 invoker 列表的位图视图，并缓存最近的路由结果，使相同的方法/消费者参数组合复用同一个列表
+     */
+    private static final class BitmapSnapshot<T> {
+        final List<Invoker<T>> invokers;
+
+        final BitSet all;
+
+        final ConcurrentMap<BitSet, List<Invoker<T>>> routed = new ConcurrentHashMap<>();
+
+        BitmapSnapshot(List<Invoker<T>> invokers) {
+            this.invokers = invokers;
+            this.all = new BitSet(invokers.size());
+            this.all.set(0, invokers.size());
+        }
+
+        List<Invoker<T>> materialize(BitSet candidates) {
+            int size = candidates.cardinality();
+            if (size == invokers.size()) {
+                return invokers;
+            }
+            List<Invoker<T>> result = routed.get(candidates);
+            if (result != null) {
+                return result;
+            }
+            List<Invoker<T>> selected = new ArrayList<>(size);
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                selected.add(invokers.get(i));
+            }
+            result = Collections.unmodifiableList(selected);
+            if (routed.size() < DEFAULT_ROUTER_BITMAP_CACHE_SIZE) {
+                routed.putIfAbsent(candidates, result);
+            }
+            return result;
+        }
     }
 
 }
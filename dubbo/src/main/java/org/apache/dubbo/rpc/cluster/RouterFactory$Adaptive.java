@@ -3,6 +3,8 @@ package org.apache.dubbo.rpc.cluster;
 import org.apache.dubbo.common.extension.ExtensionLoader;
 
 public class RouterFactory$Adaptive implements org.apache.dubbo.rpc.cluster.RouterFactory {
+    private final org.apache.dubbo.common.extension.AdaptiveExtensionCache extensions = new org.apache.dubbo.common.extension.AdaptiveExtensionCache(org.apache.dubbo.rpc.cluster.RouterFactory.class);
+
     public org.apache.dubbo.rpc.cluster.Router getRouter(org.apache.dubbo.common.URL arg0) {
         if (arg0 == null)
             throw new IllegalArgumentException("url == null");
@@ -10,7 +12,7 @@ public class RouterFactory$Adaptive implements org.apache.dubbo.rpc.cluster.Rout
         String extName = url.getProtocol();
         if (extName == null)
             throw new IllegalStateException("Failed to get extension (org.apache.dubbo.rpc.cluster.RouterFactory) name from url (" + url.toString() + ") use keys([protocol])");
-        org.apache.dubbo.rpc.cluster.RouterFactory extension = (org.apache.dubbo.rpc.cluster.RouterFactory) ExtensionLoader.getExtensionLoader(org.apache.dubbo.rpc.cluster.RouterFactory.class).getExtension(extName);
+        org.apache.dubbo.rpc.cluster.RouterFactory extension = (org.apache.dubbo.rpc.cluster.RouterFactory) extensions.get(extName);
         return extension.getRouter(arg0);
     }
 
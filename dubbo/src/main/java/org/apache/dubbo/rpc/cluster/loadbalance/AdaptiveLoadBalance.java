@@ -0,0 +1,59 @@
+package org.apache.dubbo.rpc.cluster.loadbalance;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.AdaptiveMetrics;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.dubbo.common.constants.CommonConstants.DEFAULT_TIMEOUT;
+import static org.apache.dubbo.common.constants.CommonConstants.TIMEOUT_KEY;
+import static org.apache.dubbo.rpc.cluster.Constants.ADAPTIVE_DECAY_KEY;
+import static org.apache.dubbo.rpc.cluster.Constants.DEFAULT_ADAPTIVE_DECAY;
+
+/**
+ * 自适应负载均衡，power of two choices + peak-EWMA
+ * 随机挑选两个Invoker，比较 衰减后的响应时间EWMA * (在途请求数 + 1) / 权重，选择代价较小的一个
+ * 响应时间和在途数由AdaptiveLoadBalanceFilter在消费端采集，见AdaptiveMetrics
+ * 与LeastActiveLoadBalance相比，除了活跃数还能感知响应变慢的节点；与遍历全部节点相比，只看两个节点，避免所有请求同时涌向同一个“最优”节点
+ * 空闲节点的代价随时间衰减，慢节点恢复后会被重新探测
+ */
+public class AdaptiveLoadBalance extends AbstractLoadBalance {
+
+    public static final String NAME = "adaptive";
+
+    @Override
+    protected <T> Invoker<T> doSelect(List<Invoker<T>> invokers, URL url, Invocation invocation) {
+        int length = invokers.size();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(length);
+        int second = random.nextInt(length - 1);
+        if (second >= first) {
+            second++;
+        }
+        Invoker<T> a = invokers.get(first);
+        Invoker<T> b = invokers.get(second);
+        double costA = getCost(a, invocation);
+        double costB = getCost(b, invocation);
+        if (costA == costB) {
+            return random.nextBoolean() ? a : b;
+        }
+        return costA < costB ? a : b;
+    }
+
+    private double getCost(Invoker<?> invoker, Invocation invocation) {
+        int weight = getWeight(invoker, invocation);
+        if (weight <= 0) {
+            return Double.MAX_VALUE;
+        }
+        URL url = invoker.getUrl();
+        String methodName = invocation.getMethodName();
+        long decay = TimeUnit.MILLISECONDS.toNanos(url.getMethodParameter(methodName, ADAPTIVE_DECAY_KEY, DEFAULT_ADAPTIVE_DECAY));
+        long penalty = TimeUnit.MILLISECONDS.toNanos(url.getMethodParameter(methodName, TIMEOUT_KEY, DEFAULT_TIMEOUT));
+        return AdaptiveMetrics.getMetrics(url, methodName).getCost(decay, penalty) / weight;
+    }
+
+}
@@ -0,0 +1,53 @@
+package org.apache.dubbo.rpc.cluster.loadbalance;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.dubbo.common.constants.CommonConstants.CONSUMER;
+import static org.apache.dubbo.common.constants.CommonConstants.DEFAULT_TIMEOUT;
+import static org.apache.dubbo.common.constants.CommonConstants.TIMEOUT_KEY;
+import static org.apache.dubbo.rpc.cluster.Constants.*;
+
+/**
+ * 为AdaptiveLoadBalance采集每次调用的在途数与响应时间
+ * 只有loadbalance=adaptive时才生效，异步调用在结果完成时记录
+ * 调用失败按超时时间记录，避免快速失败的节点看起来“很快”
+ */
+@Activate(group = CONSUMER, value = LOADBALANCE_KEY)
+public class AdaptiveLoadBalanceFilter implements Filter {
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        URL url = invoker.getUrl();
+        String methodName = invocation.getMethodName();
+        if (!AdaptiveLoadBalance.NAME.equals(url.getMethodParameter(methodName, LOADBALANCE_KEY, DEFAULT_LOADBALANCE))) {
+            return invoker.invoke(invocation);
+        }
+        AdaptiveMetrics metrics = AdaptiveMetrics.getMetrics(url, methodName);
+        long decay = TimeUnit.MILLISECONDS.toNanos(url.getMethodParameter(methodName, ADAPTIVE_DECAY_KEY, DEFAULT_ADAPTIVE_DECAY));
+        long failure = TimeUnit.MILLISECONDS.toNanos(url.getMethodParameter(methodName, TIMEOUT_KEY, DEFAULT_TIMEOUT));
+        long begin = System.nanoTime();
+        metrics.begin();
+        Result result;
+        try {
+            result = invoker.invoke(invocation);
+        } catch (RuntimeException t) {
+            metrics.end(Math.max(System.nanoTime() - begin, failure), decay);
+            throw t;
+        }
+        if (result instanceof AsyncRpcResult) {
+            ((AsyncRpcResult) result).getResultFuture().whenComplete((r, t) -> {
+                long elapsed = System.nanoTime() - begin;
+                metrics.end(t != null || (r != null && r.hasException()) ? Math.max(elapsed, failure) : elapsed, decay);
+            });
+        } else {
+            long elapsed = System.nanoTime() - begin;
+            metrics.end(result.hasException() ? Math.max(elapsed, failure) : elapsed, decay);
+        }
+        return result;
+    }
+
+}
@@ -3,14 +3,18 @@ package org.apache.dubbo.rpc.cluster.loadbalance;
 import org.apache.dubbo.common.URL;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.RpcStatus;
 import org.apache.dubbo.rpc.support.RpcUtils;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -24,6 +28,11 @@ import static org.apache.dubbo.common.constants.CommonConstants.COMMA_SPLIT_PATT
  * 如果当前节点挂了，则在下一次查询或写入缓存时，为缓存项查找另一个大于其hash值的缓存节点即可
  * 如果缓存项的key的hash值小于缓存节点hash值，则到该缓存节点中存储或读取缓存项
  * 由于cache-3挂了，原本应该存到该节点中的缓存项最终会存储到cache-4节点中
+ * 圆环用排好序的long[]存放，每个元素的高位是虚拟节点的hash，低31位是Invoker下标，二分查找定位
+ * invokers变化时基于上一个selector增量更新，只为新增的地址计算虚拟节点，下线地址的虚拟节点直接过滤掉
+ * hash.function=murmur3时用非加密的Murmur3代替MD5
+ * hash.load.factor大于1时启用有界负载：活跃数达到 load.factor * 平均活跃数 的Invoker被跳过，沿圆环顺时针找下一个，
+ * 活跃数来自RpcStatus，与LeastActiveLoadBalance一样需要在消费端配置actives启用ActiveLimitFilter
  */
 public class ConsistentHashLoadBalance extends AbstractLoadBalance {
     public static final String NAME = "consistenthash";
@@ -32,6 +41,22 @@ public class ConsistentHashLoadBalance extends AbstractLoadBalance {
 
     public static final String HASH_ARGUMENTS = "hash.arguments";
 
+    public static final String HASH_FUNCTION = "hash.function";
+
+    public static final String HASH_LOAD_FACTOR = "hash.load.factor";
+
+    public static final String HASH_FUNCTION_MD5 = "md5";
+
+    public static final String HASH_FUNCTION_MURMUR3 = "murmur3";
+
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    });
+
     private final ConcurrentMap<String, ConsistentHashSelector<?>> selectors = new ConcurrentHashMap<String, ConsistentHashSelector<?>>();
 
     @SuppressWarnings("unchecked")
@@ -39,15 +64,11 @@ public class ConsistentHashLoadBalance extends AbstractLoadBalance {
     protected <T> Invoker<T> doSelect(List<Invoker<T>> invokers, URL url, Invocation invocation) {
         String methodName = RpcUtils.getMethodName(invocation);
         String key = invokers.get(0).getUrl().getServiceKey() + "." + methodName;
-        // 获取invokers原始的hashcode
-        int identityHashCode = System.identityHashCode(invokers);
         ConsistentHashSelector<T> selector = (ConsistentHashSelector<T>) selectors.get(key);
-        // 如果invokers是一个新的List对象，意味着服务提供者数量发生了变化，可能新增也可能减少了
-        // 此时selector.identityHashCode != identityHashCode条件成立
-        if (selector == null || selector.identityHashCode != identityHashCode) {
-            // 创建新的ConsistentHashSelector
-            selectors.put(key, new ConsistentHashSelector<T>(invokers, methodName, identityHashCode));
-            selector = (ConsistentHashSelector<T>) selectors.get(key);
+        // 如果invokers是一个新的List对象，意味着服务提供者可能发生了变化，在原selector的基础上增量更新
+        if (selector == null || selector.invokers != invokers) {
+            selector = new ConsistentHashSelector<T>(invokers, methodName, selector);
+            selectors.put(key, selector);
         }
         // 调用ConsistentHashSelector的select方法选择Invoker
         return selector.select(invocation);
@@ -55,54 +76,166 @@ public class ConsistentHashLoadBalance extends AbstractLoadBalance {
 
     private static final class ConsistentHashSelector<T> {
 
+        private static final int INDEX_BITS = 31;
+
+        private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+        private final List<Invoker<T>> invokers;
+
         /**
-         * TreeMap存储Invoker虚拟节点
+         * 与ring中的下标对应
          */
-        private final TreeMap<Long, Invoker<T>> virtualInvokers;
+        private final Invoker<T>[] nodes;
+
+        private final String[] addresses;
+
+        /**
+         * 按hash排序的虚拟节点，hash << 31 | nodes下标
+         */
+        private final long[] ring;
 
         private final int replicaNumber;
 
-        private final int identityHashCode;
+        private final boolean murmur3;
+
+        private final double loadFactor;
 
         private final int[] argumentIndex;
 
-        ConsistentHashSelector(List<Invoker<T>> invokers, String methodName, int identityHashCode) {
-            this.virtualInvokers = new TreeMap<Long, Invoker<T>>();
-            this.identityHashCode = identityHashCode;
+        @SuppressWarnings("unchecked")
+        ConsistentHashSelector(List<Invoker<T>> invokers, String methodName, ConsistentHashSelector<T> previous) {
+            this.invokers = invokers;
             URL url = invokers.get(0).getUrl();
             // 获取虚拟节点数，默认为160
             this.replicaNumber = url.getMethodParameter(methodName, HASH_NODES, 160);
+            this.murmur3 = HASH_FUNCTION_MURMUR3.equals(url.getMethodParameter(methodName, HASH_FUNCTION, HASH_FUNCTION_MD5));
+            this.loadFactor = url.getMethodParameter(methodName, HASH_LOAD_FACTOR, 0d);
             // 获取参与hash计算的参数下标值，默认对第一个参数进行hash运算
             String[] index = COMMA_SPLIT_PATTERN.split(url.getMethodParameter(methodName, HASH_ARGUMENTS, "0"));
             argumentIndex = new int[index.length];
             for (int i = 0; i < index.length; i++) {
                 argumentIndex[i] = Integer.parseInt(index[i]);
             }
-            for (Invoker<T> invoker : invokers) {
-                String address = invoker.getUrl().getAddress();
-                for (int i = 0; i < replicaNumber / 4; i++) {
+            // 虚拟节点的算法变了，圆环需要重建
+            if (previous != null && (previous.replicaNumber != replicaNumber || previous.murmur3 != murmur3)) {
+                previous = null;
+            }
+            this.nodes = invokers.toArray(new Invoker[0]);
+            this.addresses = new String[nodes.length];
+            // 同一地址出现多次时以最后一个为准
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < nodes.length; i++) {
+                addresses[i] = nodes[i].getUrl().getAddress();
+                positions.put(addresses[i], i);
+            }
+            // 保留仍在线地址的虚拟节点，换成新的下标
+            long[] kept = new long[0];
+            int keptCount = 0;
+            Set<String> existing = new HashSet<>();
+            if (previous != null) {
+                int[] remap = new int[previous.addresses.length];
+                for (int i = 0; i < remap.length; i++) {
+                    Integer position = positions.get(previous.addresses[i]);
+                    remap[i] = position == null ? -1 : position;
+                    if (position != null) {
+                        existing.add(previous.addresses[i]);
+                    }
+                }
+                kept = new long[previous.ring.length];
+                for (long node : previous.ring) {
+                    int position = remap[(int) (node & INDEX_MASK)];
+                    if (position >= 0) {
+                        kept[keptCount++] = (node & ~INDEX_MASK) | position;
+                    }
+                }
+            }
+            // 为新增地址计算虚拟节点
+            int points = Math.max(replicaNumber / 4, 1) * 4;
+            long[] added = new long[(positions.size() - existing.size()) * points];
+            int addedCount = 0;
+            for (Map.Entry<String, Integer> entry : positions.entrySet()) {
+                if (!existing.contains(entry.getKey())) {
+                    addedCount = addVirtualNodes(added, addedCount, entry.getKey(), entry.getValue(), points);
+                }
+            }
+            Arrays.sort(added, 0, addedCount);
+            this.ring = merge(kept, keptCount, added, addedCount);
+        }
+
+        private int addVirtualNodes(long[] ring, int offset, String address, int position, int points) {
+            for (int i = 0; i < points / 4; i++) {
+                if (murmur3) {
+                    byte[] bytes = (address + i).getBytes(StandardCharsets.UTF_8);
+                    for (int h = 0; h < 4; h++) {
+                        ring[offset++] = murmur3(bytes, h) << INDEX_BITS | position;
+                    }
+                } else {
                     // 对 address + i 进行md5运算，得到一个长度为16的字节数组
                     byte[] digest = md5(address + i);
                     // 对digest部分字节进行4次hash运算，得到四个不同的long型正整数
                     for (int h = 0; h < 4; h++) {
-                        // h = 0 时，取 digest 中下标为 0 ~ 3 的4个字节进行位运算
-                        // h = 1 时，取 digest 中下标为 4 ~ 7 的4个字节进行位运算
-                        // h = 2, h = 3 时过程同上
-                        long m = hash(digest, h);
-                        // 将hash到invoker的映射关系存储到virtualInvokers中，virtualInvokers需要提供高效的查询操作，因此选用TreeMa
-                        virtualInvokers.put(m, invoker);
+                        ring[offset++] = hash(digest, h) << INDEX_BITS | position;
                     }
                 }
             }
+            return offset;
+        }
+
+        /**
+         * 按hash合并两段有序的虚拟节点
+         */
+        private static long[] merge(long[] a, int aLength, long[] b, int bLength) {
+            long[] merged = new long[aLength + bLength];
+            int i = 0, j = 0, k = 0;
+            while (i < aLength && j < bLength) {
+                merged[k++] = (a[i] >>> INDEX_BITS) <= (b[j] >>> INDEX_BITS) ? a[i++] : b[j++];
+            }
+            while (i < aLength) {
+                merged[k++] = a[i++];
+            }
+            while (j < bLength) {
+                merged[k++] = b[j++];
+            }
+            return merged;
         }
 
         public Invoker<T> select(Invocation invocation) {
             // 将参数转为key
             String key = toKey(invocation.getArguments());
-            // 对参数key进行md5
-            byte[] digest = md5(key);
-            // 取digest数组的前四个字节进行hash运算，再将hash传给selectForKey方法，寻找合适的Invoker
-            return selectForKey(hash(digest, 0));
+            long hash;
+            if (murmur3) {
+                hash = murmur3(key.getBytes(StandardCharsets.UTF_8), 0);
+            } else {
+                // 对参数key进行md5，取digest数组的前四个字节进行hash运算
+                hash = hash(md5(key), 0);
+            }
+            // 寻找合适的Invoker
+            int i = ceiling(hash);
+            if (loadFactor <= 1 || nodes.length == 1) {
+                return nodes[indexOf(ring[i])];
+            }
+            return selectBounded(i, invocation.getMethodName());
+        }
+
+        /**
+         * 从hash命中的虚拟节点开始顺时针查找活跃数未超过上限的Invoker
+         * 上限为 ceil(loadFactor * (总活跃数 + 1) / Invoker数)，总有Invoker低于上限
+         */
+        private Invoker<T> selectBounded(int start, String methodName) {
+            int[] actives = new int[nodes.length];
+            long total = 0;
+            for (int i = 0; i < nodes.length; i++) {
+                actives[i] = RpcStatus.getStatus(nodes[i].getUrl(), methodName).getActive();
+                total += actives[i];
+            }
+            double capacity = Math.ceil(loadFactor * (total + 1) / nodes.length);
+            for (int n = 0; n < ring.length; n++) {
+                int index = indexOf(ring[(start + n) % ring.length]);
+                if (actives[index] < capacity) {
+                    return nodes[index];
+                }
+            }
+            return nodes[indexOf(ring[start])];
         }
 
         private String toKey(Object[] args) {
@@ -115,34 +248,81 @@ public class ConsistentHashLoadBalance extends AbstractLoadBalance {
             return buf.toString();
         }
 
-        private Invoker<T> selectForKey(long hash) {
-            // 到TreeMap中查找第一个节点值大于或等于当前hash的Invoker
-            Map.Entry<Long, Invoker<T>> entry = virtualInvokers.ceilingEntry(hash);
-            // 如果hash大于Invoker在圆环上最大的位置，此时entry = null，需要将TreeMap的头节点赋值给entry
-            if (entry == null) {
-                entry = virtualInvokers.firstEntry();
+        /**
+         * 第一个hash大于或等于给定hash的虚拟节点，超过圆环上最大的位置时回到第一个
+         */
+        private int ceiling(long hash) {
+            int low = 0;
+            int high = ring.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if ((ring[mid] >>> INDEX_BITS) < hash) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
             }
-            // 返回Invoker
-            return entry.getValue();
+            return low == ring.length ? 0 : low;
         }
 
-        private long hash(byte[] digest, int number) {
+        private static int indexOf(long node) {
+            return (int) (node & INDEX_MASK);
+        }
+
+        private static long hash(byte[] digest, int number) {
             return (((long) (digest[3 + number * 4] & 0xFF) << 24) | ((long) (digest[2 + number * 4] & 0xFF) << 16) | ((long) (digest[1 + number * 4] & 0xFF) << 8) | (digest[number * 4] & 0xFF)) & 0xFFFFFFFFL;
         }
 
-        private byte[] md5(String value) {
-            MessageDigest md5;
-            try {
-                md5 = MessageDigest.getInstance("MD5");
-            } catch (NoSuchAlgorithmException e) {
-                throw new IllegalStateException(e.getMessage(), e);
-            }
+        private static byte[] md5(String value) {
+            MessageDigest md5 = MD5.get();
             md5.reset();
             byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
             md5.update(bytes);
             return md5.digest();
         }
 
+        /**
+         * MurmurHash3 x86_32，返回无符号32位值
+         */
+        private static long murmur3(byte[] data, int seed) {
+            final int c1 = 0xcc9e2d51;
+            final int c2 = 0x1b873593;
+            int h = seed;
+            int blocks = data.length >> 2;
+            for (int i = 0; i < blocks; i++) {
+                int j = i << 2;
+                int k = (data[j] & 0xff) | ((data[j + 1] & 0xff) << 8) | ((data[j + 2] & 0xff) << 16) | (data[j + 3] << 24);
+                k *= c1;
+                k = Integer.rotateLeft(k, 15);
+                k *= c2;
+                h ^= k;
+                h = Integer.rotateLeft(h, 13);
+                h = h * 5 + 0xe6546b64;
+            }
+            int tail = blocks << 2;
+            int k = 0;
+            switch (data.length & 3) {
+                case 3:
+                    k ^= (data[tail + 2] & 0xff) << 16;
+                case 2:
+                    k ^= (data[tail + 1] & 0xff) << 8;
+                case 1:
+                    k ^= data[tail] & 0xff;
+                    k *= c1;
+                    k = Integer.rotateLeft(k, 15);
+                    k *= c2;
+                    h ^= k;
+                default:
+            }
+            h ^= data.length;
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            h ^= h >>> 16;
+            return h & 0xFFFFFFFFL;
+        }
+
     }
 
 }
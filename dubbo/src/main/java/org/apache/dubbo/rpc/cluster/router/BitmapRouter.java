@@ -0,0 +1,30 @@
+package org.apache.dubbo.rpc.cluster.router;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.cluster.Router;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 支持位图路由的Router：在 invoker 列表变更时预先计算好每个 invoker 的匹配结果，
+ * 调用时只需在候选位图上求交集，不再逐个遍历 invoker 重新匹配规则
+ * <p>
+ * 位图的第 i 位对应 {@link org.apache.dubbo.rpc.cluster.RouterChain#setInvokers(List)} 传入列表的第 i 个 invoker
+ */
+public interface BitmapRouter extends Router {
+
+    /**
+     * invoker 列表变更时调用，预先计算与调用无关的匹配位图
+     */
+    <T> void prepare(List<Invoker<T>> invokers);
+
+    /**
+     * 在候选位图上执行路由，不允许修改入参 candidates；返回 candidates 本身表示不做过滤，
+     * 返回 null 表示本次无法使用位图，调用方需退回到 {@link #route(List, URL, Invocation)}
+     */
+    <T> BitSet route(List<Invoker<T>> invokers, BitSet candidates, URL url, Invocation invocation);
+
+}
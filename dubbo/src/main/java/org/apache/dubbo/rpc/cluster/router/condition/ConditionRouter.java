@@ -11,9 +11,12 @@ import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.RpcException;
 import org.apache.dubbo.rpc.cluster.router.AbstractRouter;
+import org.apache.dubbo.rpc.cluster.router.BitmapRouter;
 
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -21,7 +24,7 @@ import static org.apache.dubbo.common.constants.CommonConstants.*;
 import static org.apache.dubbo.common.constants.ConfigConstants.HOST_KEY;
 import static org.apache.dubbo.rpc.cluster.Constants.*;
 
-public class ConditionRouter extends AbstractRouter {
+public class ConditionRouter extends AbstractRouter implements BitmapRouter {
     public static final String NAME = "condition";
 
     private static final Logger logger = LoggerFactory.getLogger(ConditionRouter.class);
@@ -32,8 +35,22 @@ public class ConditionRouter extends AbstractRouter {
 
     protected Map<String, MatchPair> thenCondition;
 
+    /**
+     * whenCondition 匹配结果缓存的最大方法数
+     */
+    private static final int WHEN_CACHE_SIZE = 256;
+
     private boolean enabled;
 
+    /**
+     * thenCondition 中是否引用了服务消费者参数（$xxx），引用时匹配位图还依赖消费者 url
+     */
+    private boolean thenReferParam;
+
+    private volatile ThenBitmap thenBitmap;
+
+    private volatile WhenCache whenCache;
+
     public ConditionRouter(String rule, boolean force, boolean enabled) {
         this.force = force;
         this.enabled = enabled;
@@ -66,6 +83,9 @@ public class ConditionRouter extends AbstractRouter {
             // 将解析出的匹配规则分别赋值给 whenCondition 和 thenCondition 成员变量
             this.whenCondition = when;
             this.thenCondition = then;
+            this.thenReferParam = referParam(then);
+            this.thenBitmap = null;
+            this.whenCache = null;
         } catch (ParseException e) {
             throw new IllegalStateException(e.getMessage(), e);
         }
@@ -221,6 +241,97 @@ public class ConditionRouter extends AbstractRouter {
         return invokers;
     }
 
+    @Override
+    public <T> void prepare(List<Invoker<T>> invokers) {
+        if (enabled && CollectionUtils.isNotEmptyMap(thenCondition) && !thenReferParam && CollectionUtils.isNotEmpty(invokers)) {
+            this.thenBitmap = buildThenBitmap(invokers, null);
+        }
+    }
+
+    @Override
+    public <T> BitSet route(List<Invoker<T>> invokers, BitSet candidates, URL url, Invocation invocation) {
+        if (!enabled || candidates.isEmpty()) {
+            return candidates;
+        }
+        try {
+            // 消费者条件不匹配，本条规则不适用，原样返回
+            if (!cachedMatchWhen(url, invocation)) {
+                return candidates;
+            }
+            if (thenCondition == null) {
+                logger.warn("The current consumer in the service blacklist. consumer: " + NetUtils.getLocalHost() + ", service: " + url.getServiceKey());
+                return new BitSet();
+            }
+            BitSet result = (BitSet) candidates.clone();
+            result.and(getThenBitmap(invokers, url));
+            if (!result.isEmpty()) {
+                return result;
+            } else if (force) {
+                logger.warn("The route result is empty and force execute. consumer: " + NetUtils.getLocalHost() + ", service: " + url.getServiceKey() + ", router: " + url.getParameterAndDecoded(RULE_KEY));
+                return result;
+            }
+        } catch (Throwable t) {
+            logger.error("Failed to execute condition router rule: " + getUrl() + ", invokers: " + invokers + ", cause: " + t.getMessage(), t);
+        }
+        return candidates;
+    }
+
+    private <T> BitSet getThenBitmap(List<Invoker<T>> invokers, URL url) {
+        ThenBitmap bitmap = thenBitmap;
+        // invoker 列表已变更，或引用的消费者参数可能不同，需重新计算
+        if (bitmap == null || bitmap.invokers != invokers || (thenReferParam && !url.equals(bitmap.url))) {
+            bitmap = buildThenBitmap(invokers, thenReferParam ? url : null);
+            thenBitmap = bitmap;
+        }
+        return bitmap.bits;
+    }
+
+    private <T> ThenBitmap buildThenBitmap(List<Invoker<T>> invokers, URL url) {
+        BitSet bits = new BitSet(invokers.size());
+        for (int i = 0; i < invokers.size(); i++) {
+            if (matchThen(invokers.get(i).getUrl(), url)) {
+                bits.set(i);
+            }
+        }
+        return new ThenBitmap(invokers, url, bits);
+    }
+
+    private boolean cachedMatchWhen(URL url, Invocation invocation) {
+        WhenCache cache = whenCache;
+        if (cache == null || (cache.url != url && !cache.url.equals(url))) {
+            cache = new WhenCache(url);
+            whenCache = cache;
+        }
+        String method = invocation == null || invocation.getMethodName() == null ? "" : invocation.getMethodName();
+        Boolean matched = cache.results.get(method);
+        if (matched == null) {
+            matched = matchWhen(url, invocation);
+            if (cache.results.size() < WHEN_CACHE_SIZE) {
+                cache.results.put(method, matched);
+            }
+        }
+        return matched;
+    }
+
+    private static boolean referParam(Map<String, MatchPair> condition) {
+        if (condition == null) {
+            return false;
+        }
+        for (MatchPair pair : condition.values()) {
+            for (String value : pair.matches) {
+                if (value.startsWith("$")) {
+                    return true;
+                }
+            }
+            for (String value : pair.mismatches) {
+                if (value.startsWith("$")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     @Override
     public boolean isRuntime() {
         return this.url.getParameter(RUNTIME_KEY, false);
@@ -292,6 +403,30 @@ public class ConditionRouter extends AbstractRouter {
         return result;
     }
 
+    private static final class ThenBitmap {
+        final List<?> invokers;
+
+        final URL url;
+
+        final BitSet bits;
+
+        ThenBitmap(List<?> invokers, URL url, BitSet bits) {
+            this.invokers = invokers;
+            this.url = url;
+            this.bits = bits;
+        }
+    }
+
+    private static final class WhenCache {
+        final URL url;
+
+        final ConcurrentMap<String, Boolean> results = new ConcurrentHashMap<String, Boolean>();
+
+        WhenCache(URL url) {
+            this.url = url;
+        }
+    }
+
     protected static final class MatchPair {
         final Set<String> matches = new HashSet<String>();
 
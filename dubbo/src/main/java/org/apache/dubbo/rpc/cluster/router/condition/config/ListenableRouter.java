@@ -14,15 +14,17 @@ import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.RpcException;
 import org.apache.dubbo.rpc.cluster.Router;
 import org.apache.dubbo.rpc.cluster.router.AbstractRouter;
+import org.apache.dubbo.rpc.cluster.router.BitmapRouter;
 import org.apache.dubbo.rpc.cluster.router.condition.ConditionRouter;
 import org.apache.dubbo.rpc.cluster.router.condition.config.model.ConditionRouterRule;
 import org.apache.dubbo.rpc.cluster.router.condition.config.model.ConditionRuleParser;
 
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
-public abstract class ListenableRouter extends AbstractRouter implements ConfigurationListener {
+public abstract class ListenableRouter extends AbstractRouter implements BitmapRouter, ConfigurationListener {
     public static final String NAME = "LISTENABLE_ROUTER";
 
     private static final String RULE_SUFFIX = ".condition-router";
@@ -33,6 +35,8 @@ public abstract class ListenableRouter extends AbstractRouter implements Configu
 
     private List<ConditionRouter> conditionRouters = Collections.emptyList();
 
+    private volatile List<? extends Invoker<?>> preparedInvokers;
+
     public ListenableRouter(DynamicConfiguration configuration, URL url, String ruleKey) {
         super(configuration, url);
         this.force = false;
@@ -68,6 +72,23 @@ public abstract class ListenableRouter extends AbstractRouter implements Configu
         return invokers;
     }
 
+    @Override
+    public <T> void prepare(List<Invoker<T>> invokers) {
+        this.preparedInvokers = invokers;
+        for (ConditionRouter router : conditionRouters) {
+            router.prepare(invokers);
+        }
+    }
+
+    @Override
+    public <T> BitSet route(List<Invoker<T>> invokers, BitSet candidates, URL url, Invocation invocation) {
+        List<ConditionRouter> routers = conditionRouters;
+        for (ConditionRouter router : routers) {
+            candidates = router.route(invokers, candidates, url, invocation);
+        }
+        return candidates;
+    }
+
     @Override
     public int getPriority() {
         return DEFAULT_PRIORITY;
@@ -84,10 +105,21 @@ public abstract class ListenableRouter extends AbstractRouter implements Configu
 
     private void generateConditions(ConditionRouterRule rule) {
         if (rule != null && rule.isValid()) {
-            this.conditionRouters = rule.getConditions().stream().map(condition -> new ConditionRouter(condition, rule.isForce(), rule.isEnabled())).collect(Collectors.toList());
+            List<ConditionRouter> routers = rule.getConditions().stream().map(condition -> new ConditionRouter(condition, rule.isForce(), rule.isEnabled())).collect(Collectors.toList());
+            // 规则变更时，用最近一次的 invoker 列表预先计算新规则的位图
+            List<? extends Invoker<?>> invokers = preparedInvokers;
+            if (invokers != null) {
+                routers.forEach(router -> prepare(router, invokers));
+            }
+            this.conditionRouters = routers;
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T> void prepare(ConditionRouter router, List<? extends Invoker<?>> invokers) {
+        router.prepare((List<Invoker<T>>) invokers);
+    }
+
     private synchronized void init(String ruleKey) {
         if (StringUtils.isEmpty(ruleKey)) {
             return;
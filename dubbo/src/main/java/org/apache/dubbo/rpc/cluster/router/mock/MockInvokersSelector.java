@@ -6,23 +6,81 @@ import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.RpcException;
 import org.apache.dubbo.rpc.cluster.router.AbstractRouter;
+import org.apache.dubbo.rpc.cluster.router.BitmapRouter;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import static org.apache.dubbo.rpc.cluster.Constants.INVOCATION_NEED_MOCK;
 import static org.apache.dubbo.rpc.cluster.Constants.MOCK_PROTOCOL;
 
-public class MockInvokersSelector extends AbstractRouter {
+public class MockInvokersSelector extends AbstractRouter implements BitmapRouter {
 
     public static final String NAME = "MOCK_ROUTER";
 
     private static final int MOCK_INVOKERS_DEFAULT_PRIORITY = Integer.MIN_VALUE;
 
+    /**
+     * mock 协议 invoker 的位图
+     */
+    private volatile MockBitmap mockBitmap;
+
     public MockInvokersSelector() {
         this.priority = MOCK_INVOKERS_DEFAULT_PRIORITY;
     }
 
+    @Override
+    public <T> void prepare(List<Invoker<T>> invokers) {
+        this.mockBitmap = buildMockBitmap(invokers);
+    }
+
+    /**
+     * 与 route(List) 一致：没有 mock 提供者时原样返回候选位图
+     */
+    @Override
+    public <T> BitSet route(List<Invoker<T>> invokers, BitSet candidates, URL url, Invocation invocation) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        String value = invocation.getAttachments() == null ? null : invocation.getAttachments().get(INVOCATION_NEED_MOCK);
+        boolean needMock = Boolean.TRUE.toString().equalsIgnoreCase(value);
+        if (value != null && !needMock) {
+            return candidates;
+        }
+        BitSet mock = getMockBitmap(invokers);
+        if (!mock.intersects(candidates)) {
+            // 需要 mock 但没有 mock 提供者时 route(List) 返回 null，交给列表路由处理
+            return needMock ? null : candidates;
+        }
+        BitSet result = (BitSet) candidates.clone();
+        if (needMock) {
+            result.and(mock);
+        } else {
+            result.andNot(mock);
+        }
+        return result;
+    }
+
+    private <T> BitSet getMockBitmap(List<Invoker<T>> invokers) {
+        MockBitmap bitmap = mockBitmap;
+        if (bitmap == null || bitmap.invokers != invokers) {
+            bitmap = buildMockBitmap(invokers);
+            mockBitmap = bitmap;
+        }
+        return bitmap.bits;
+    }
+
+    private static <T> MockBitmap buildMockBitmap(List<Invoker<T>> invokers) {
+        BitSet bits = new BitSet(invokers.size());
+        for (int i = 0; i < invokers.size(); i++) {
+            if (invokers.get(i).getUrl().getProtocol().equals(MOCK_PROTOCOL)) {
+                bits.set(i);
+            }
+        }
+        return new MockBitmap(invokers, bits);
+    }
+
     @Override
     public <T> List<Invoker<T>> route(final List<Invoker<T>> invokers, URL url, final Invocation invocation) throws RpcException {
         if (CollectionUtils.isEmpty(invokers)) {
@@ -79,4 +137,15 @@ public class MockInvokersSelector extends AbstractRouter {
         return hasMockProvider;
     }
 
+    private static final class MockBitmap {
+        final List<?> invokers;
+
+        final BitSet bits;
+
+        MockBitmap(List<?> invokers, BitSet bits) {
+            this.invokers = invokers;
+            this.bits = bits;
+        }
+    }
+
 }
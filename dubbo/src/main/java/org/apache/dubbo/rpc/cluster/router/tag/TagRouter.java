@@ -16,18 +16,22 @@ import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.RpcException;
 import org.apache.dubbo.rpc.cluster.Constants;
 import org.apache.dubbo.rpc.cluster.router.AbstractRouter;
+import org.apache.dubbo.rpc.cluster.router.BitmapRouter;
 import org.apache.dubbo.rpc.cluster.router.tag.model.TagRouterRule;
 import org.apache.dubbo.rpc.cluster.router.tag.model.TagRuleParser;
 
 import java.net.UnknownHostException;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static org.apache.dubbo.common.constants.RpcConstants.FORCE_USE_TAG;
 import static org.apache.dubbo.rpc.cluster.Constants.TAG_KEY;
 
-public class TagRouter extends AbstractRouter implements ConfigurationListener {
+public class TagRouter extends AbstractRouter implements BitmapRouter, ConfigurationListener {
     public static final String NAME = "TAG_ROUTER";
 
     private static final int TAG_ROUTER_DEFAULT_PRIORITY = 100;
@@ -40,6 +44,11 @@ public class TagRouter extends AbstractRouter implements ConfigurationListener {
 
     private String application;
 
+    /**
+     * invoker 静态 tag 的位图
+     */
+    private volatile TagBitmap tagBitmap;
+
     public TagRouter(DynamicConfiguration configuration, URL url) {
         super(configuration, url);
         this.priority = TAG_ROUTER_DEFAULT_PRIORITY;
@@ -109,6 +118,69 @@ public class TagRouter extends AbstractRouter implements ConfigurationListener {
         }
     }
 
+    @Override
+    public <T> void prepare(List<Invoker<T>> invokers) {
+        this.tagBitmap = buildTagBitmap(invokers);
+    }
+
+    /**
+     * 只处理没有动态标签规则的情况，与 filterUsingStaticTag 一致；有动态规则时返回 null 交给列表路由
+     */
+    @Override
+    public <T> BitSet route(List<Invoker<T>> invokers, BitSet candidates, URL url, Invocation invocation) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        final TagRouterRule tagRouterRuleCopy = tagRouterRule;
+        if (tagRouterRuleCopy != null && tagRouterRuleCopy.isValid() && tagRouterRuleCopy.isEnabled()) {
+            return null;
+        }
+        TagBitmap bitmap = getTagBitmap(invokers);
+        String tag = StringUtils.isEmpty(invocation.getAttachment(Constants.TAG_KEY)) ? url.getParameter(Constants.TAG_KEY) : invocation.getAttachment(Constants.TAG_KEY);
+        if (!StringUtils.isEmpty(tag)) {
+            BitSet tagged = bitmap.tagged.get(tag);
+            if (tagged != null && tagged.intersects(candidates)) {
+                return intersect(candidates, tagged);
+            }
+            if (isForceUseTag(invocation)) {
+                return new BitSet();
+            }
+        }
+        return intersect(candidates, bitmap.untagged);
+    }
+
+    /**
+     * 交集与 candidates 相同时返回 candidates 本身，表示不做过滤
+     */
+    private static BitSet intersect(BitSet candidates, BitSet bits) {
+        BitSet result = (BitSet) candidates.clone();
+        result.and(bits);
+        return result.equals(candidates) ? candidates : result;
+    }
+
+    private <T> TagBitmap getTagBitmap(List<Invoker<T>> invokers) {
+        TagBitmap bitmap = tagBitmap;
+        if (bitmap == null || bitmap.invokers != invokers) {
+            bitmap = buildTagBitmap(invokers);
+            tagBitmap = bitmap;
+        }
+        return bitmap;
+    }
+
+    private static <T> TagBitmap buildTagBitmap(List<Invoker<T>> invokers) {
+        Map<String, BitSet> tagged = new HashMap<>();
+        BitSet untagged = new BitSet(invokers.size());
+        for (int i = 0; i < invokers.size(); i++) {
+            String tag = invokers.get(i).getUrl().getParameter(TAG_KEY);
+            if (StringUtils.isEmpty(tag)) {
+                untagged.set(i);
+            } else {
+                tagged.computeIfAbsent(tag, k -> new BitSet(invokers.size())).set(i);
+            }
+        }
+        return new TagBitmap(invokers, tagged, untagged);
+    }
+
     private <T> List<Invoker<T>> filterUsingStaticTag(List<Invoker<T>> invokers, URL url, Invocation invocation) {
         List<Invoker<T>> result = invokers;
         String tag = StringUtils.isEmpty(invocation.getAttachment(Constants.TAG_KEY)) ? url.getParameter(Constants.TAG_KEY) : invocation.getAttachment(Constants.TAG_KEY);
@@ -164,6 +236,20 @@ public class TagRouter extends AbstractRouter implements ConfigurationListener {
         return false;
     }
 
+    private static final class TagBitmap {
+        final List<?> invokers;
+
+        final Map<String, BitSet> tagged;
+
+        final BitSet untagged;
+
+        TagBitmap(List<?> invokers, Map<String, BitSet> tagged, BitSet untagged) {
+            this.invokers = invokers;
+            this.tagged = tagged;
+            this.untagged = untagged;
+        }
+    }
+
     public void setApplication(String app) {
         this.application = app;
     }
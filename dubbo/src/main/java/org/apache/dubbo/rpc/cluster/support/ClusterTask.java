@@ -0,0 +1,111 @@
+package org.apache.dubbo.rpc.cluster.support;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.threadlocal.NamedInternalThreadFactory;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.dubbo.rpc.cluster.Constants.CLUSTER_QUEUES_KEY;
+import static org.apache.dubbo.rpc.cluster.Constants.CLUSTER_THREADS_KEY;
+import static org.apache.dubbo.rpc.cluster.Constants.DEFAULT_CLUSTER_QUEUES;
+import static org.apache.dubbo.rpc.cluster.Constants.DEFAULT_CLUSTER_THREADS;
+
+/**
+ * ForkingClusterInvoker和MergeableClusterInvoker的一次并行调用
+ * 所有集群调用共用一个有界线程池，线程数和队列长度由第一个使用它的URL上的cluster.threads/cluster.queues决定
+ * invoker返回AsyncRpcResult时不在线程里等待，由结果的future完成本任务
+ * cancel使还在排队的任务不再执行，并中断正在等待响应的调用，释放线程
+ */
+class ClusterTask extends CompletableFuture<Result> implements Runnable {
+
+    private static volatile ThreadPoolExecutor executor;
+
+    private final Invoker<?> invoker;
+
+    private final Invocation invocation;
+
+    private volatile Future<?> future;
+
+    private ClusterTask(Invoker<?> invoker, Invocation invocation) {
+        this.invoker = invoker;
+        this.invocation = invocation;
+    }
+
+    /**
+     * @param runIfRejected 线程池已满时是否在当前线程上调用，否则以RpcException结束
+     */
+    static ClusterTask submit(URL url, Invoker<?> invoker, Invocation invocation, boolean runIfRejected) {
+        ClusterTask task = new ClusterTask(invoker, invocation);
+        try {
+            task.future = getExecutor(url).submit(task);
+        } catch (RejectedExecutionException e) {
+            if (runIfRejected) {
+                task.run();
+            } else {
+                task.completeExceptionally(new RpcException("Cluster executor is exhausted, failed to invoke " + invoker.getUrl() + ", cause: " + e.getMessage(), e));
+            }
+        }
+        return task;
+    }
+
+    private static ThreadPoolExecutor getExecutor(URL url) {
+        if (executor == null) {
+            synchronized (ClusterTask.class) {
+                if (executor == null) {
+                    int threads = url.getParameter(CLUSTER_THREADS_KEY, DEFAULT_CLUSTER_THREADS);
+                    int queues = url.getParameter(CLUSTER_QUEUES_KEY, DEFAULT_CLUSTER_QUEUES);
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(Math.max(queues, 1)), new NamedInternalThreadFactory("DubboClusterExecutor", true));
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = pool;
+                }
+            }
+        }
+        return executor;
+    }
+
+    @Override
+    public void run() {
+        if (isDone()) {
+            return;
+        }
+        try {
+            Result result = invoker.invoke(invocation);
+            if (result instanceof AsyncRpcResult) {
+                ((AsyncRpcResult) result).getResultFuture().whenComplete((r, t) -> {
+                    if (t != null) {
+                        completeExceptionally(t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+                    } else {
+                        complete(r);
+                    }
+                });
+            } else {
+                complete(result);
+            }
+        } catch (Throwable t) {
+            completeExceptionally(t);
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        Future<?> f = future;
+        if (f != null) {
+            f.cancel(mayInterruptIfRunning);
+        }
+        return cancelled;
+    }
+
+}
@@ -1,6 +1,5 @@
 package org.apache.dubbo.rpc.cluster.support;
 
-import org.apache.dubbo.common.threadlocal.NamedInternalThreadFactory;
 import org.apache.dubbo.rpc.*;
 import org.apache.dubbo.rpc.cluster.Directory;
 import org.apache.dubbo.rpc.cluster.LoadBalance;
@@ -16,14 +15,12 @@ import static org.apache.dubbo.rpc.cluster.Constants.DEFAULT_FORKS;
 import static org.apache.dubbo.rpc.cluster.Constants.FORKS_KEY;
 
 /**
- * 在运行时通过线程池创建多个线程，并发调用多个服务提供者
- * 只要有一个服务提供者成功返回了结果，doInvoke方法就会立即结束运行
+ * 在所有集群调用共享的有界线程池中并发调用多个服务提供者，见ClusterTask
+ * 只要有一个服务提供者成功返回了结果，doInvoke方法就会立即结束运行，并取消其余的调用
  * 应用场景是在一些对实时性要求比较高读操作（注意是读操作，并行写操作可能不安全）下使用，但这将会耗费更多的资源
  */
 public class ForkingClusterInvoker<T> extends AbstractClusterInvoker<T> {
 
-    private final ExecutorService executor = Executors.newCachedThreadPool(new NamedInternalThreadFactory("forking-cluster-timer", true));
-
     public ForkingClusterInvoker(Directory<T> directory) {
         super(directory);
     }
@@ -58,55 +55,47 @@ public class ForkingClusterInvoker<T> extends AbstractClusterInvoker<T> {
             }
             // ----------------------✨ 分割线1 ✨---------------------- //
             /*
-             * 通过线程池并发调用多个Invoker，并将结果存储在阻塞队列中
+             * 在共享的有界线程池中并发调用多个Invoker
+             * 第一个成功的结果完成first，全部失败时以最后一个异常完成first
              */
             RpcContext.getContext().setInvokers((List) selected);
             final AtomicInteger count = new AtomicInteger();
-            final BlockingQueue<Object> ref = new LinkedBlockingQueue<>();
+            final CompletableFuture<Result> first = new CompletableFuture<>();
+            final List<ClusterTask> tasks = new ArrayList<>(selected.size());
             // 遍历selected列表
             for (final Invoker<T> invoker : selected) {
-                // 为每个Invoker创建一个执行线程
-                executor.execute(new Runnable() {
-                    @Override
-                    public void run() {
-                        try {
-                            // 进行远程调用
-                            Result result = invoker.invoke(invocation);
-                            // 将结果存到阻塞队列中
-                            ref.offer(result);
-                        } catch (Throwable e) {
-                            int value = count.incrementAndGet();
-                            // 仅在value>=selected.size()时，才将异常对象放入阻塞队列中
-                            /*
-                             * 在并行调用多个服务提供者的情况下，只要有一个服务提供者能够成功返回结果，而其他全部失败
-                             * 此时ForkingClusterInvoker仍应该返回成功的结果，而非抛出异常
-                             * 在value >= selected.size()时将异常对象放入阻塞队列中，可以保证异常对象不会出现在正常结果的前面，这样可从阻塞队列中优先取出正常的结果
-                             */
-                            if (value >= selected.size()) {
-                                // 将异常对象存入到阻塞队列中
-                                ref.offer(e);
-                            }
-                        }
+                ClusterTask task = ClusterTask.submit(getUrl(), invoker, invocation, false);
+                tasks.add(task);
+                task.whenComplete((result, e) -> {
+                    if (e == null) {
+                        first.complete(result);
+                    } else if (count.incrementAndGet() >= selected.size()) {
+                        /*
+                         * 在并行调用多个服务提供者的情况下，只要有一个服务提供者能够成功返回结果，而其他全部失败
+                         * 此时ForkingClusterInvoker仍应该返回成功的结果，而非抛出异常
+                         */
+                        first.completeExceptionally(e);
                     }
                 });
             }
             // ----------------------✨ 分割线2 ✨---------------------- //
             /*
-             * 从阻塞队列中获取返回结果，并对返回结果类型进行判断
-             * 如果为异常类型，则直接抛出，否则返回
+             * 等待第一个结果，如果为异常类型，则直接抛出，否则返回
+             * 无论成败都取消其余分支，释放它们占用的线程
              */
             try {
-                // 从阻塞队列中取出远程调用结果
-                Object ret = ref.poll(timeout, TimeUnit.MILLISECONDS);
-                // 如果结果类型为Throwable，则抛出异常
-                if (ret instanceof Throwable) {
-                    Throwable e = (Throwable) ret;
-                    throw new RpcException(e instanceof RpcException ? ((RpcException) e).getCode() : 0, "Failed to forking invoke provider " + selected + ", but no luck to perform the invocation. Last error is: " + e.getMessage(), e.getCause() != null ? e.getCause() : e);
-                }
-                // 返回结果
-                return (Result) ret;
+                return first.get(timeout, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException ee) {
+                Throwable e = ee.getCause();
+                throw new RpcException(e instanceof RpcException ? ((RpcException) e).getCode() : 0, "Failed to forking invoke provider " + selected + ", but no luck to perform the invocation. Last error is: " + e.getMessage(), e.getCause() != null ? e.getCause() : e);
+            } catch (TimeoutException e) {
+                throw new RpcException(RpcException.TIMEOUT_EXCEPTION, "Failed to forking invoke provider " + selected + ", no result returned in " + timeout + "ms");
             } catch (InterruptedException e) {
                 throw new RpcException("Failed to forking invoke provider " + selected + ", but no luck to perform the invocation. Last error is: " + e.getMessage(), e);
+            } finally {
+                for (ClusterTask task : tasks) {
+                    task.cancel(true);
+                }
             }
         } finally {
             RpcContext.getContext().clearAttachments();
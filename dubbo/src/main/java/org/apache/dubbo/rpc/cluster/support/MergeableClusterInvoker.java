@@ -5,7 +5,6 @@ import org.apache.dubbo.common.extension.ExtensionLoader;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
 import org.apache.dubbo.common.utils.ConfigUtils;
-import org.apache.dubbo.common.utils.NamedThreadFactory;
 import org.apache.dubbo.rpc.*;
 import org.apache.dubbo.rpc.cluster.Directory;
 import org.apache.dubbo.rpc.cluster.LoadBalance;
@@ -16,10 +15,10 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.*;
+import java.util.concurrent.TimeUnit;
 
 import static org.apache.dubbo.common.constants.CommonConstants.*;
 import static org.apache.dubbo.common.constants.RpcConstants.MERGER_KEY;
@@ -29,8 +28,6 @@ public class MergeableClusterInvoker<T> extends AbstractClusterInvoker<T> {
 
     private static final Logger log = LoggerFactory.getLogger(MergeableClusterInvoker.class);
 
-    private ExecutorService executor = Executors.newCachedThreadPool(new NamedThreadFactory("mergeable-cluster-executor", true));
-
     public MergeableClusterInvoker(Directory<T> directory) {
         super(directory);
     }
@@ -61,30 +58,33 @@ public class MergeableClusterInvoker<T> extends AbstractClusterInvoker<T> {
         } catch (NoSuchMethodException e) {
             returnType = null;
         }
-        Map<String, Future<Result>> results = new HashMap<String, Future<Result>>();
+        // 所有分组在共享线程池中并行调用，线程池满时在当前线程上调用，保证每个分组都有结果参与合并
+        Map<String, ClusterTask> results = new LinkedHashMap<String, ClusterTask>();
         for (final Invoker<T> invoker : invokers) {
-            Future<Result> future = executor.submit(new Callable<Result>() {
-                @Override
-                public Result call() throws Exception {
-                    return invoker.invoke(new RpcInvocation(invocation, invoker));
-                }
-            });
-            results.put(invoker.getUrl().getServiceKey(), future);
+            results.put(invoker.getUrl().getServiceKey(), ClusterTask.submit(getUrl(), invoker, new RpcInvocation(invocation, invoker), true));
         }
         Object result = null;
         List<Result> resultList = new ArrayList<Result>(results.size());
         int timeout = getUrl().getMethodParameter(invocation.getMethodName(), TIMEOUT_KEY, DEFAULT_TIMEOUT);
-        for (Map.Entry<String, Future<Result>> entry : results.entrySet()) {
-            Future<Result> future = entry.getValue();
-            try {
-                Result r = future.get(timeout, TimeUnit.MILLISECONDS);
-                if (r.hasException()) {
-                    log.error("Invoke " + getGroupDescFromServiceKey(entry.getKey()) + " failed: " + r.getException().getMessage(), r.getException());
-                } else {
-                    resultList.add(r);
+        long deadline = System.currentTimeMillis() + timeout;
+        try {
+            for (Map.Entry<String, ClusterTask> entry : results.entrySet()) {
+                try {
+                    // 所有分组共用一个超时时间，而不是每个分组各等待一次
+                    Result r = entry.getValue().get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+                    if (r.hasException()) {
+                        log.error("Invoke " + getGroupDescFromServiceKey(entry.getKey()) + " failed: " + r.getException().getMessage(), r.getException());
+                    } else {
+                        resultList.add(r);
+                    }
+                } catch (Exception e) {
+                    throw new RpcException("Failed to invoke service " + entry.getKey() + ": " + e.getMessage(), e);
                 }
-            } catch (Exception e) {
-                throw new RpcException("Failed to invoke service " + entry.getKey() + ": " + e.getMessage(), e);
+            }
+        } finally {
+            // 出错或超时时取消还没有返回的分组
+            for (ClusterTask task : results.values()) {
+                task.cancel(true);
             }
         }
         if (resultList.isEmpty()) {
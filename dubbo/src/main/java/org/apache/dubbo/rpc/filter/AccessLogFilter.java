@@ -1,31 +1,38 @@
 package org.apache.dubbo.rpc.filter;
 
+import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.extension.Activate;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
-import org.apache.dubbo.common.utils.ConcurrentHashSet;
 import org.apache.dubbo.common.utils.ConfigUtils;
 import org.apache.dubbo.common.utils.NamedThreadFactory;
 import org.apache.dubbo.rpc.*;
 import org.apache.dubbo.rpc.support.AccessLogData;
+import org.apache.dubbo.rpc.support.AccessLogFileWriter;
+import org.apache.dubbo.rpc.support.AccessLogRingBuffer;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 import static org.apache.dubbo.common.constants.CommonConstants.*;
-import static org.apache.dubbo.common.constants.RpcConstants.ACCESS_LOG_KEY;
-
+import static org.apache.dubbo.common.constants.RpcConstants.*;
+
+/**
+ * 访问日志
+ * 日志在调用线程上格式化成字节记录，写入每个日志各自的有界环形缓冲区，由Dubbo-Access-Log线程按顺序写入一直打开的文件通道
+ * 缓冲区满时按accesslog.policy丢弃或短暂等待，丢弃数可通过getDroppedCounts查看
+ * 文件跨天或超过accesslog.max.file.size时滚动
+ */
 @Activate(group = PROVIDER, value = ACCESS_LOG_KEY)
 public class AccessLogFilter implements Filter {
 
@@ -33,31 +40,39 @@ public class AccessLogFilter implements Filter {
 
     private static final String ACCESS_LOG_KEY = "dubbo.accesslog";
 
-    private static final int LOG_MAX_BUFFER = 5000;
+    private static final long LOG_OUTPUT_INTERVAL = 100;
 
-    private static final long LOG_OUTPUT_INTERVAL = 5000;
+    /**
+     * block策略下等待缓冲区空位的最长时间，超时后丢弃，避免磁盘故障时拖住业务线程
+     */
+    private static final long LOG_BLOCK_TIMEOUT = TimeUnit.MILLISECONDS.toNanos(100);
 
-    private static final String FILE_DATE_FORMAT = "yyyyMMdd";
+    /**
+     * 每轮每个日志最多写出的记录数，避免一个持续繁忙的日志饿死其他日志
+     */
+    private static final int LOG_DRAIN_LIMIT = 64 * 1024;
 
-    private static final DateFormat FILE_NAME_FORMATTER = new SimpleDateFormat(FILE_DATE_FORMAT);
+    private static final byte[] LINE_SEPARATOR = "\r\n".getBytes(StandardCharsets.UTF_8);
 
-    private static final Map<String, Set<AccessLogData>> LOG_ENTRIES = new ConcurrentHashMap<String, Set<AccessLogData>>();
+    private static final Map<String, AccessLog> LOG_ENTRIES = new ConcurrentHashMap<String, AccessLog>();
 
     private static final ScheduledExecutorService LOG_SCHEDULED = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("Dubbo-Access-Log", true));
 
+    private static final AtomicBoolean LOG_STARTED = new AtomicBoolean();
+
     public AccessLogFilter() {
-        LOG_SCHEDULED.scheduleWithFixedDelay(this::writeLogToFile, LOG_OUTPUT_INTERVAL, LOG_OUTPUT_INTERVAL, TimeUnit.MILLISECONDS);
+        if (LOG_STARTED.compareAndSet(false, true)) {
+            LOG_SCHEDULED.scheduleWithFixedDelay(AccessLogFilter::writeLogToFile, LOG_OUTPUT_INTERVAL, LOG_OUTPUT_INTERVAL, TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
     public Result invoke(Invoker<?> invoker, Invocation inv) throws RpcException {
-
-
         try {
             String accessLogKey = invoker.getUrl().getParameter(ACCESS_LOG_KEY);
             if (ConfigUtils.isNotEmpty(accessLogKey)) {
-                AccessLogData logData = buildAccessLogData(invoker, inv);
-                log(accessLogKey, logData);
+                AccessLog accessLog = LOG_ENTRIES.computeIfAbsent(accessLogKey, k -> new AccessLog(k, invoker.getUrl()));
+                accessLog.append(buildAccessLogData(invoker, inv));
             }
         } catch (Throwable t) {
             logger.warn("Exception in AccessLogFilter of service(" + invoker + " -> " + inv + ")", t);
@@ -65,52 +80,28 @@ public class AccessLogFilter implements Filter {
         return invoker.invoke(inv);
     }
 
-    private void log(String accessLog, AccessLogData accessLogData) {
-        Set<AccessLogData> logSet = LOG_ENTRIES.computeIfAbsent(accessLog, k -> new ConcurrentHashSet<>());
-        if (logSet.size() < LOG_MAX_BUFFER) {
-            logSet.add(accessLogData);
-        } else {
-            logger.warn("AccessLog buffer is full skipping buffer ");
-        }
-    }
-
-    private void writeLogToFile() {
-        if (!LOG_ENTRIES.isEmpty()) {
-            for (Map.Entry<String, Set<AccessLogData>> entry : LOG_ENTRIES.entrySet()) {
-                try {
-                    String accessLog = entry.getKey();
-                    Set<AccessLogData> logSet = entry.getValue();
-                    if (ConfigUtils.isDefault(accessLog)) {
-                        processWithServiceLogger(logSet);
-                    } else {
-                        File file = new File(accessLog);
-                        createIfLogDirAbsent(file);
-                        if (logger.isDebugEnabled()) {
-                            logger.debug("Append log to " + accessLog);
-                        }
-                        renameFile(file);
-                        processWithAccessKeyLogger(logSet, file);
-                    }
-
-                } catch (Exception e) {
-                    logger.error(e.getMessage(), e);
-                }
-            }
+    /**
+     * 各访问日志因缓冲区满而丢弃的记录数
+     */
+    public static Map<String, Long> getDroppedCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        for (Map.Entry<String, AccessLog> entry : LOG_ENTRIES.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().buffer.getDroppedCount());
         }
+        return counts;
     }
 
-    private void processWithAccessKeyLogger(Set<AccessLogData> logSet, File file) throws IOException {
-        try (FileWriter writer = new FileWriter(file, true)) {
-            for (Iterator<AccessLogData> iterator = logSet.iterator(); iterator.hasNext(); iterator.remove()) {
-                writer.write(iterator.next().getLogMessage());
-                writer.write("\r\n");
+    private static void writeLogToFile() {
+        for (AccessLog accessLog : LOG_ENTRIES.values()) {
+            try {
+                accessLog.drain();
+            } catch (Throwable e) {
+                logger.error(e.getMessage(), e);
             }
-            writer.flush();
         }
     }
 
     private AccessLogData buildAccessLogData(Invoker<?> invoker, Invocation inv) {
-        RpcContext context = RpcContext.getContext();
         AccessLogData logData = AccessLogData.newLogData();
         logData.setServiceName(invoker.getInterface().getName());
         logData.setMethodName(inv.getMethodName());
@@ -122,29 +113,105 @@ public class AccessLogFilter implements Filter {
         return logData;
     }
 
-    private void processWithServiceLogger(Set<AccessLogData> logSet) {
-        for (Iterator<AccessLogData> iterator = logSet.iterator(); iterator.hasNext(); iterator.remove()) {
-            AccessLogData logData = iterator.next();
-            LoggerFactory.getLogger(ACCESS_LOG_KEY + "." + logData.getServiceName()).info(logData.getLogMessage());
+    private static class AccessLog {
+
+        private final String name;
+
+        private final AccessLogRingBuffer<Object> buffer;
+
+        private final boolean block;
+
+        /**
+         * accesslog=true/default时输出到日志框架，为null
+         */
+        private final AccessLogFileWriter writer;
+
+        AccessLog(String name, URL url) {
+            this.name = name;
+            this.buffer = new AccessLogRingBuffer<>(url.getParameter(ACCESS_LOG_BUFFER_KEY, DEFAULT_ACCESS_LOG_BUFFER));
+            this.block = ACCESS_LOG_POLICY_BLOCK.equals(url.getParameter(ACCESS_LOG_POLICY_KEY, ACCESS_LOG_POLICY_DROP));
+            this.writer = ConfigUtils.isDefault(name) ? null : new AccessLogFileWriter(new File(name), url.getParameter(ACCESS_LOG_MAX_FILE_SIZE_KEY, 0L));
+        }
+
+        void append(AccessLogData logData) {
+            Object record;
+            if (writer == null) {
+                record = new LoggerRecord(ACCESS_LOG_KEY + "." + logData.getServiceName(), logData.getLogMessage());
+            } else {
+                byte[] message = logData.getLogMessage().getBytes(StandardCharsets.UTF_8);
+                byte[] bytes = new byte[message.length + LINE_SEPARATOR.length];
+                System.arraycopy(message, 0, bytes, 0, message.length);
+                System.arraycopy(LINE_SEPARATOR, 0, bytes, message.length, LINE_SEPARATOR.length);
+                record = bytes;
+            }
+            if (buffer.offer(record) || (block && offerBlocking(record))) {
+                return;
+            }
+            buffer.recordDropped();
+            long dropped = buffer.getDroppedCount();
+            if (dropped == 1 || dropped % 10000 == 0) {
+                logger.warn("AccessLog buffer of " + name + " is full, " + dropped + " records dropped so far");
+            }
         }
-    }
 
-    private void createIfLogDirAbsent(File file) {
-        File dir = file.getParentFile();
-        if (null != dir && !dir.exists()) {
-            dir.mkdirs();
+        private boolean offerBlocking(Object record) {
+            long deadline = System.nanoTime() + LOG_BLOCK_TIMEOUT;
+            while (System.nanoTime() - deadline < 0) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+                if (buffer.offer(record)) {
+                    return true;
+                }
+            }
+            return false;
         }
-    }
 
-    private void renameFile(File file) {
-        if (file.exists()) {
-            String now = FILE_NAME_FORMATTER.format(new Date());
-            String last = FILE_NAME_FORMATTER.format(new Date(file.lastModified()));
-            if (!now.equals(last)) {
-                File archive = new File(file.getAbsolutePath() + "." + last);
-                file.renameTo(archive);
+        void drain() throws IOException {
+            Object record = buffer.poll();
+            if (record == null) {
+                return;
+            }
+            int count = 1;
+            if (writer == null) {
+                for (; record != null; record = count++ < LOG_DRAIN_LIMIT ? buffer.poll() : null) {
+                    LoggerRecord loggerRecord = (LoggerRecord) record;
+                    LoggerFactory.getLogger(loggerRecord.logger).info(loggerRecord.message);
+                }
+                return;
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Append log to " + name);
+            }
+            try {
+                writer.checkDate();
+                for (; ; ) {
+                    writer.write((byte[]) record);
+                    if (count >= LOG_DRAIN_LIMIT || (record = buffer.poll()) == null) {
+                        break;
+                    }
+                    count++;
+                }
+                writer.flush();
+            } catch (IOException e) {
+                // 只丢弃本批已取出的记录，其余记录留在缓冲区等下一轮写入；丢弃未写出的数据并关闭文件，下次写入时重新打开
+                buffer.recordDropped(count);
+                writer.abort();
+                throw e;
             }
         }
+
+    }
+
+    private static class LoggerRecord {
+
+        private final String logger;
+
+        private final String message;
+
+        LoggerRecord(String logger, String message) {
+            this.logger = logger;
+            this.message = message;
+        }
+
     }
 
 }
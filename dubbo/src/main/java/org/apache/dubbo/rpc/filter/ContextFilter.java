@@ -3,8 +3,10 @@ package org.apache.dubbo.rpc.filter;
 import org.apache.dubbo.common.extension.Activate;
 import org.apache.dubbo.rpc.*;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import static org.apache.dubbo.common.constants.CommonConstants.*;
 import static org.apache.dubbo.common.constants.RpcConstants.*;
@@ -13,28 +15,24 @@ import static org.apache.dubbo.common.constants.RpcConstants.*;
 public class ContextFilter implements Filter {
     private static final String TAG_KEY = "dubbo.tag";
 
+    /**
+     * 不传递到服务端RpcContext中的附件
+     */
+    private static final Set<String> UNLOADING_KEYS = new HashSet<>(Arrays.asList(PATH_KEY, INTERFACE_KEY, GROUP_KEY,
+            VERSION_KEY, DUBBO_VERSION_KEY, TOKEN_KEY, TIMEOUT_KEY, ASYNC_KEY, TAG_KEY, FORCE_USE_TAG));
+
     @Override
     public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        RpcContext context = RpcContext.getContext();
+        context.setInvoker(invoker).setInvocation(invocation).setLocalAddress(invoker.getUrl().getHost(), invoker.getUrl().getPort()).setRemoteApplicationName(invoker.getUrl().getParameter(REMOTE_APPLICATION_KEY));
         Map<String, String> attachments = invocation.getAttachments();
         if (attachments != null) {
-            attachments = new HashMap<>(attachments);
-            attachments.remove(PATH_KEY);
-            attachments.remove(INTERFACE_KEY);
-            attachments.remove(GROUP_KEY);
-            attachments.remove(VERSION_KEY);
-            attachments.remove(DUBBO_VERSION_KEY);
-            attachments.remove(TOKEN_KEY);
-            attachments.remove(TIMEOUT_KEY);
-            attachments.remove(ASYNC_KEY);
-            attachments.remove(TAG_KEY);
-            attachments.remove(FORCE_USE_TAG);
-        }
-        RpcContext.getContext().setInvoker(invoker).setInvocation(invocation).setLocalAddress(invoker.getUrl().getHost(), invoker.getUrl().getPort()).setRemoteApplicationName(invoker.getUrl().getParameter(REMOTE_APPLICATION_KEY));
-        if (attachments != null) {
-            if (RpcContext.getContext().getAttachments() != null) {
-                RpcContext.getContext().getAttachments().putAll(attachments);
-            } else {
-                RpcContext.getContext().setAttachments(attachments);
+            // 直接写入上下文的附件表，不再先复制一份再删除
+            Map<String, String> contextAttachments = context.getAttachments();
+            for (Map.Entry<String, String> entry : attachments.entrySet()) {
+                if (!UNLOADING_KEYS.contains(entry.getKey())) {
+                    contextAttachments.put(entry.getKey(), entry.getValue());
+                }
             }
         }
         if (invocation instanceof RpcInvocation) {
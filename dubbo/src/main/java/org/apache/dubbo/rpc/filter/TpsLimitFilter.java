@@ -5,20 +5,31 @@ import org.apache.dubbo.common.extension.Activate;
 import org.apache.dubbo.rpc.*;
 import org.apache.dubbo.rpc.filter.tps.DefaultTPSLimiter;
 import org.apache.dubbo.rpc.filter.tps.TPSLimiter;
+import org.apache.dubbo.rpc.filter.tps.TokenBucketTPSLimiter;
 
+import static org.apache.dubbo.common.constants.RpcConstants.TPS_LIMITER_KEY;
 import static org.apache.dubbo.common.constants.RpcConstants.TPS_LIMIT_RATE_KEY;
 
 @Activate(group = CommonConstants.PROVIDER, value = TPS_LIMIT_RATE_KEY)
 public class TpsLimitFilter implements Filter {
 
+    private static final String TOKEN_BUCKET_LIMITER = "tokenbucket";
+
     private final TPSLimiter tpsLimiter = new DefaultTPSLimiter();
 
+    private final TokenBucketTPSLimiter tokenBucketLimiter = new TokenBucketTPSLimiter();
+
     @Override
     public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
-        if (!tpsLimiter.isAllowable(invoker.getUrl(), invocation)) {
+        TPSLimiter limiter = TOKEN_BUCKET_LIMITER.equals(invoker.getUrl().getParameter(TPS_LIMITER_KEY)) ? tokenBucketLimiter : tpsLimiter;
+        if (!limiter.isAllowable(invoker.getUrl(), invocation)) {
             throw new RpcException("Failed to invoke service " + invoker.getInterface().getName() + "." + invocation.getMethodName() + " because exceed max service tps.");
         }
         return invoker.invoke(invocation);
     }
 
+    public TokenBucketTPSLimiter getTokenBucketLimiter() {
+        return tokenBucketLimiter;
+    }
+
 }
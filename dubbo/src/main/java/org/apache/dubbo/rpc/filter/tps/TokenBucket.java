@@ -0,0 +1,107 @@
+package org.apache.dubbo.rpc.filter.tps;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁令牌桶，使用GCRA算法：只维护一个“理论到达时间”，每个请求把它推后一个令牌间隔，
+ * 超过突发容许量则拒绝。令牌随时间平滑补充，不存在固定窗口边界处的突刺
+ */
+public class TokenBucket {
+
+    private final String name;
+
+    private final int rate;
+
+    private final long interval;
+
+    private final int burst;
+
+    /**
+     * 产生一个令牌的时间间隔（纳秒）
+     */
+    private final long emissionNanos;
+
+    /**
+     * 允许透支的时间，即桶容量对应的时间
+     */
+    private final long toleranceNanos;
+
+    private final AtomicLong theoreticalArrival;
+
+    private final LongAdder admitted = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    TokenBucket(String name, int rate, long interval, int burst) {
+        this.name = name;
+        this.rate = rate;
+        this.interval = interval;
+        this.burst = burst;
+        this.emissionNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(interval) / rate);
+        this.toleranceNanos = emissionNanos * burst;
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        for (; ; ) {
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, now) + emissionNanos;
+            if (next - now > toleranceNanos) {
+                rejected.increment();
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                admitted.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 当前桶内可用令牌数
+     */
+    public long getAvailableTokens() {
+        long backlog = Math.max(0, theoreticalArrival.get() - System.nanoTime());
+        return Math.max(0, toleranceNanos - backlog) / emissionNanos;
+    }
+
+    /**
+     * 当前令牌补充速率（每秒）
+     */
+    public double getCurrentRate() {
+        return TimeUnit.SECONDS.toNanos(1) / (double) emissionNanos;
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public long getInterval() {
+        return interval;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenBucket [name=" + name + ", rate=" + rate + ", interval=" + interval + ", burst=" + burst + ", available=" + getAvailableTokens() + ", admitted=" + getAdmitted() + ", rejected=" + getRejected() + "]";
+    }
+
+}
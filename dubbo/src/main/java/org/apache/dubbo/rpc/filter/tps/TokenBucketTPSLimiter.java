@@ -0,0 +1,117 @@
+package org.apache.dubbo.rpc.filter.tps;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.utils.StringUtils;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.RpcContext;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.apache.dubbo.common.constants.CommonConstants.COMMA_SPLIT_PATTERN;
+import static org.apache.dubbo.common.constants.RpcConstants.*;
+
+/**
+ * 基于令牌桶的限流器，可按服务、方法、消费者应用划分限流范围（tps.scope=service,method,application），
+ * 方法级别的 tps/tps.interval/tps.burst 配置优先于服务级别，配置了方法级别限流的方法总是使用自己的令牌桶
+ */
+public class TokenBucketTPSLimiter implements TPSLimiter {
+
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<String, TokenBucket>();
+
+    /**
+     * 方法名 - 方法级别的限流参数名
+     */
+    private final ConcurrentMap<String, String[]> methodKeys = new ConcurrentHashMap<String, String[]>();
+
+    @Override
+    public boolean isAllowable(URL url, Invocation invocation) {
+        String method = invocation.getMethodName();
+        boolean methodLevel = hasMethodConfig(url, method);
+        String key = getKey(url, invocation, methodLevel);
+        int rate;
+        long interval;
+        int burst;
+        if (methodLevel) {
+            rate = url.getMethodParameter(method, TPS_LIMIT_RATE_KEY, -1);
+            interval = url.getMethodParameter(method, TPS_LIMIT_INTERVAL_KEY, DEFAULT_TPS_LIMIT_INTERVAL);
+            burst = url.getMethodParameter(method, TPS_LIMIT_BURST_KEY, rate);
+        } else {
+            rate = url.getParameter(TPS_LIMIT_RATE_KEY, -1);
+            interval = url.getParameter(TPS_LIMIT_INTERVAL_KEY, DEFAULT_TPS_LIMIT_INTERVAL);
+            burst = url.getParameter(TPS_LIMIT_BURST_KEY, rate);
+        }
+        if (rate <= 0) {
+            buckets.remove(key);
+            return true;
+        }
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null || bucket.getRate() != rate || bucket.getInterval() != interval || bucket.getBurst() != burst) {
+            // 配置变更时替换令牌桶
+            TokenBucket created = new TokenBucket(key, rate, interval, burst);
+            if (bucket == null) {
+                bucket = buckets.putIfAbsent(key, created);
+                if (bucket == null) {
+                    bucket = created;
+                }
+            } else {
+                buckets.put(key, created);
+                bucket = created;
+            }
+        }
+        return bucket.tryAcquire();
+    }
+
+    /**
+     * 当前所有令牌桶，key为限流范围
+     */
+    public Map<String, TokenBucket> getBuckets() {
+        return Collections.unmodifiableMap(buckets);
+    }
+
+    /**
+     * 方法自身是否配置了 tps/tps.interval/tps.burst，不含服务级别的配置
+     */
+    private boolean hasMethodConfig(URL url, String method) {
+        String[] keys = methodKeys.get(method);
+        if (keys == null) {
+            keys = new String[]{method + "." + TPS_LIMIT_RATE_KEY, method + "." + TPS_LIMIT_INTERVAL_KEY, method + "." + TPS_LIMIT_BURST_KEY};
+            methodKeys.putIfAbsent(method, keys);
+        }
+        for (String key : keys) {
+            if (StringUtils.isNotEmpty(url.getParameter(key))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param methodLevel 为true时限流范围总是包含方法，不同方法的配置不会共用一个令牌桶
+     */
+    private static String getKey(URL url, Invocation invocation, boolean methodLevel) {
+        String serviceKey = url.getServiceKey();
+        String scope = url.getParameter(TPS_LIMIT_SCOPE_KEY, TPS_LIMIT_SCOPE_SERVICE);
+        if (TPS_LIMIT_SCOPE_SERVICE.equals(scope)) {
+            return methodLevel ? serviceKey + '#' + invocation.getMethodName() : serviceKey;
+        }
+        StringBuilder key = new StringBuilder(serviceKey);
+        boolean method = false;
+        for (String s : COMMA_SPLIT_PATTERN.split(scope)) {
+            if (TPS_LIMIT_SCOPE_METHOD.equals(s)) {
+                key.append('#').append(invocation.getMethodName());
+                method = true;
+            } else if (TPS_LIMIT_SCOPE_APPLICATION.equals(s)) {
+                String application = RpcContext.getContext().getRemoteApplicationName();
+                key.append('@').append(StringUtils.isEmpty(application) ? "" : application);
+            }
+        }
+        if (methodLevel && !method) {
+            key.append('#').append(invocation.getMethodName());
+        }
+        return key.toString();
+    }
+
+}
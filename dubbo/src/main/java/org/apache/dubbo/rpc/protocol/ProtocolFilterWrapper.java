@@ -36,47 +36,7 @@ public class ProtocolFilterWrapper implements Protocol {
             for (int i = filters.size() - 1; i >= 0; i--) {
                 final Filter filter = filters.get(i);
                 final Invoker<T> next = last;
-                last = new Invoker<T>() {
-
-                    @Override
-                    public Class<T> getInterface() {
-                        return invoker.getInterface();
-                    }
-
-                    @Override
-                    public URL getUrl() {
-                        return invoker.getUrl();
-                    }
-
-                    @Override
-                    public boolean isAvailable() {
-                        return invoker.isAvailable();
-                    }
-
-
-                    @Override
-                    public Result invoke(Invocation invocation) throws RpcException {
-                        // 把下一个Invoker作为参数传入
-                        Result result = filter.invoke(next, invocation);
-                        if (result instanceof AsyncRpcResult) {
-                            AsyncRpcResult asyncResult = (AsyncRpcResult) result;
-                            asyncResult.thenApplyWithContext(r -> filter.onResponse(r, invoker, invocation));
-                            return asyncResult;
-                        } else {
-                            return filter.onResponse(result, invoker, invocation);
-                        }
-                    }
-
-                    @Override
-                    public void destroy() {
-                        invoker.destroy();
-                    }
-
-                    @Override
-                    public String toString() {
-                        return invoker.toString();
-                    }
-                };
+                last = new FilterChainNode<T>(invoker, filter, next);
             }
         }
         return last;
@@ -114,4 +74,64 @@ public class ProtocolFilterWrapper implements Protocol {
         protocol.destroy();
     }
 
+    /**
+     * 过滤链上的节点，getOriginalInvoker返回整条链包裹的Invoker，injvm直连模式用它绕过过滤链
+     */
+    public static class FilterChainNode<T> implements Invoker<T> {
+
+        private final Invoker<T> invoker;
+
+        private final Filter filter;
+
+        private final Invoker<T> next;
+
+        FilterChainNode(Invoker<T> invoker, Filter filter, Invoker<T> next) {
+            this.invoker = invoker;
+            this.filter = filter;
+            this.next = next;
+        }
+
+        public Invoker<T> getOriginalInvoker() {
+            return invoker;
+        }
+
+        @Override
+        public Class<T> getInterface() {
+            return invoker.getInterface();
+        }
+
+        @Override
+        public URL getUrl() {
+            return invoker.getUrl();
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return invoker.isAvailable();
+        }
+
+        @Override
+        public Result invoke(Invocation invocation) throws RpcException {
+            // 把下一个Invoker作为参数传入
+            Result result = filter.invoke(next, invocation);
+            if (result instanceof AsyncRpcResult) {
+                AsyncRpcResult asyncResult = (AsyncRpcResult) result;
+                asyncResult.thenApplyWithContext(r -> filter.onResponse(r, invoker, invocation));
+                return asyncResult;
+            } else {
+                return filter.onResponse(result, invoker, invocation);
+            }
+        }
+
+        @Override
+        public void destroy() {
+            invoker.destroy();
+        }
+
+        @Override
+        public String toString() {
+            return invoker.toString();
+        }
+    }
+
 }
@@ -98,7 +98,7 @@ public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Dec
                 for (int i = 0; i < args.length; i++) {
                     try {
                         // 解析运行时参数
-                        args[i] = in.readObject(pts[i]);
+                        args[i] = StreamCodecSupport.isStream(pts[i]) ? StreamCodecSupport.decode(channel, in) : in.readObject(pts[i]);
                     } catch (Exception e) {
                         if (log.isWarnEnabled()) {
                             log.warn("Decode argument failed: " + e.getMessage(), e);
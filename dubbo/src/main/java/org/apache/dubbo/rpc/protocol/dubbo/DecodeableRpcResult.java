@@ -118,6 +118,8 @@ public class DecodeableRpcResult extends RpcResult implements Codec, Decodeable
             Object value = null;
             if (ArrayUtils.isEmpty(returnTypes)) {
                 value = in.readObject();
+            } else if (returnTypes[0] instanceof Class && StreamCodecSupport.isStream((Class<?>) returnTypes[0])) {
+                value = StreamCodecSupport.decode(channel, in);
             } else if (returnTypes.length == 1) {
                 value = in.readObject((Class<?>) returnTypes[0]);
             } else {
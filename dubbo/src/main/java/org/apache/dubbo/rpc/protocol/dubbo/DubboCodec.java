@@ -194,7 +194,7 @@ public class DubboCodec extends ExchangeCodec {
         if (args != null) {
             for (int i = 0; i < args.length; i++) {
                 // 对运行时参数进行序列化
-                out.writeObject(encodeInvocationArgument(channel, inv, i));
+                out.writeObject(StreamCodecSupport.encode(channel, encodeInvocationArgument(channel, inv, i)));
             }
         }
         // 序列化attachments
@@ -219,8 +219,8 @@ public class DubboCodec extends ExchangeCodec {
             else {
                 // 序列化响应类型
                 out.writeByte(attach ? RESPONSE_VALUE_WITH_ATTACHMENTS : RESPONSE_VALUE);
-                // 序列化调用结果
-                out.writeObject(ret);
+                // 序列化调用结果，InputStream以流的方式发送
+                out.writeObject(StreamCodecSupport.encode(channel, ret));
             }
         }
         // 异常信息非空
@@ -1,5 +1,6 @@
 package org.apache.dubbo.rpc.protocol.dubbo;
 
+import org.apache.dubbo.remoting.transport.dispatcher.isolation.IsolatedExecutors;
 import org.apache.dubbo.rpc.Exporter;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.protocol.AbstractExporter;
@@ -22,6 +23,7 @@ public class DubboExporter<T> extends AbstractExporter<T> {
     public void unexport() {
         super.unexport();
         exporterMap.remove(key);
+        IsolatedExecutors.unregister(getInvoker().getUrl());
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package org.apache.dubbo.rpc.protocol.dubbo;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.remoting.transport.dispatcher.isolation.IsolationKeyResolver;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.support.ProtocolUtils;
+
+import static org.apache.dubbo.common.constants.CommonConstants.GROUP_KEY;
+import static org.apache.dubbo.common.constants.CommonConstants.PATH_KEY;
+import static org.apache.dubbo.common.constants.CommonConstants.VERSION_KEY;
+
+/**
+ * 与 DubboProtocol.getInvoker 查找exporterMap一样，以 [分组/]服务路径[:版本]:端口 区分服务
+ */
+class DubboIsolationKeyResolver implements IsolationKeyResolver {
+
+    static final DubboIsolationKeyResolver INSTANCE = new DubboIsolationKeyResolver();
+
+    @Override
+    public String serviceKey(URL url) {
+        return ProtocolUtils.serviceKey(url);
+    }
+
+    @Override
+    public String serviceKey(int port, Object data) {
+        if (!(data instanceof Invocation)) {
+            return null;
+        }
+        Invocation invocation = (Invocation) data;
+        String path = invocation.getAttachment(PATH_KEY);
+        if (path == null) {
+            return null;
+        }
+        return ProtocolUtils.serviceKey(port, path, invocation.getAttachment(VERSION_KEY), invocation.getAttachment(GROUP_KEY));
+    }
+
+    @Override
+    public String methodName(Object data) {
+        return ((Invocation) data).getMethodName();
+    }
+
+}
@@ -13,6 +13,8 @@ import org.apache.dubbo.remoting.RemotingException;
 import org.apache.dubbo.remoting.Transporter;
 import org.apache.dubbo.remoting.exchange.*;
 import org.apache.dubbo.remoting.exchange.support.ExchangeHandlerAdapter;
+import org.apache.dubbo.remoting.transport.dispatcher.isolation.IsolatedExecutors;
+import org.apache.dubbo.remoting.transport.dispatcher.isolation.IsolationDispatcher;
 import org.apache.dubbo.rpc.*;
 import org.apache.dubbo.rpc.protocol.AbstractProtocol;
 
@@ -261,6 +263,10 @@ public class DubboProtocol extends AbstractProtocol {
             }
         }
         // 启动服务器
+        if (IsolationDispatcher.NAME.equals(url.getParameter(RemotingConstants.DISPATCHER_KEY))) {
+            // 登记服务URL，isolation派发策略按其中的isolation.*参数为该服务创建独立线程池
+            IsolatedExecutors.register(url, DubboIsolationKeyResolver.INSTANCE);
+        }
         openServer(url);
         // 优化序列化
         optimizeSerialization(url);
@@ -0,0 +1,49 @@
+package org.apache.dubbo.rpc.protocol.dubbo;
+
+import org.apache.dubbo.common.serialize.ObjectInput;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.exchange.support.stream.ChannelStreams;
+import org.apache.dubbo.remoting.exchange.support.stream.StreamReference;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * dubbo协议中InputStream类型的参数和返回值的编解码
+ * 发送方开启stream时以StreamReference的字符串代替流本身，内容由ChannelStreams分块发送，大的参数和返回值不再整体进入一个消息体；
+ * 未开启时按原方式序列化，接收方两种形式都能解码
+ */
+final class StreamCodecSupport {
+
+    private StreamCodecSupport() {
+    }
+
+    static boolean isStream(Class<?> type) {
+        return type != null && InputStream.class.isAssignableFrom(type);
+    }
+
+    static Object encode(Channel channel, Object value) {
+        if (value instanceof InputStream && ChannelStreams.isEnabled(channel)) {
+            return ChannelStreams.send(channel, (InputStream) value).toToken();
+        }
+        return value;
+    }
+
+    /**
+     * 读取声明为InputStream的参数或返回值
+     * 不按声明类型读取：声明类型的反序列化器只认整体序列化的流，读不出StreamReference的字符串
+     */
+    static Object decode(Channel channel, ObjectInput in) throws IOException, ClassNotFoundException {
+        Object value = in.readObject();
+        StreamReference reference = StreamReference.parse(value);
+        if (reference != null) {
+            return ChannelStreams.receive(channel, reference);
+        }
+        if (value instanceof byte[]) {
+            return new ByteArrayInputStream((byte[]) value);
+        }
+        return value;
+    }
+
+}
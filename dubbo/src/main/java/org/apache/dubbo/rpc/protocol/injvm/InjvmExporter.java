@@ -19,6 +19,7 @@ package org.apache.dubbo.rpc.protocol.injvm;
 import org.apache.dubbo.rpc.Exporter;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.protocol.AbstractExporter;
+import org.apache.dubbo.rpc.protocol.ProtocolFilterWrapper.FilterChainNode;
 
 import java.util.Map;
 
@@ -31,13 +32,28 @@ class InjvmExporter<T> extends AbstractExporter<T> {
 
     private final Map<String, Exporter<?>> exporterMap;
 
+    /**
+     * 服务端过滤链包裹的原始Invoker，即ProxyFactory基于Wrapper生成的Invoker，暴露时解析一次
+     */
+    private final Invoker<T> directInvoker;
+
+    @SuppressWarnings("unchecked")
     InjvmExporter(Invoker<T> invoker, String key, Map<String, Exporter<?>> exporterMap) {
         super(invoker);
         this.key = key;
         this.exporterMap = exporterMap;
+        this.directInvoker = invoker instanceof FilterChainNode ? ((FilterChainNode<T>) invoker).getOriginalInvoker() : invoker;
         exporterMap.put(key, this);
     }
 
+    Invoker<T> getDirectInvoker() {
+        return directInvoker;
+    }
+
+    boolean isExported() {
+        return exporterMap.get(key) == this;
+    }
+
     @Override
     public void unexport() {
         super.unexport();
@@ -19,17 +19,25 @@ package org.apache.dubbo.rpc.protocol.injvm;
 import org.apache.dubbo.common.URL;
 import org.apache.dubbo.rpc.Exporter;
 import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Result;
 import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcResult;
 import org.apache.dubbo.rpc.protocol.AbstractInvoker;
 
 import java.util.Map;
 
 import static org.apache.dubbo.common.constants.CommonConstants.LOCALHOST_VALUE;
+import static org.apache.dubbo.common.constants.RpcConstants.$ECHO;
+import static org.apache.dubbo.common.constants.RpcConstants.$INVOKE;
+import static org.apache.dubbo.common.constants.RpcConstants.INJVM_DIRECT_KEY;
 
 /**
  * InjvmInvoker
+ * 找到的InjvmExporter被缓存，直到它被注销，不再在每次调用时拼接服务key查找
+ * injvm.direct=true时直接调用服务端的原始Invoker，不经过AbstractInvoker的附件和RpcContext处理，也不经过服务端过滤链；
+ * $invoke 和 $echo 依赖服务端的 GenericFilter、EchoFilter 处理，仍走普通路径
  */
 class InjvmInvoker<T> extends AbstractInvoker<T> {
 
@@ -37,10 +45,15 @@ class InjvmInvoker<T> extends AbstractInvoker<T> {
 
     private final Map<String, Exporter<?>> exporterMap;
 
+    private final boolean direct;
+
+    private volatile InjvmExporter<?> exporter;
+
     InjvmInvoker(Class<T> type, URL url, String key, Map<String, Exporter<?>> exporterMap) {
         super(type, url);
         this.key = key;
         this.exporterMap = exporterMap;
+        this.direct = url.getParameter(INJVM_DIRECT_KEY, false);
     }
 
     @Override
@@ -54,13 +67,46 @@ class InjvmInvoker<T> extends AbstractInvoker<T> {
     }
 
     @Override
-    public Result doInvoke(Invocation invocation) throws Throwable {
-        Exporter<?> exporter = InjvmProtocol.getExporter(exporterMap, getUrl());
-        if (exporter == null) {
-            throw new RpcException("Service [" + key + "] not found.");
+    public Result invoke(Invocation invocation) throws RpcException {
+        if (!direct || isFilterOnly(invocation.getMethodName())) {
+            return super.invoke(invocation);
         }
+        Invoker<?> invoker = getExporter().getDirectInvoker();
+        try {
+            return invoker.invoke(invocation);
+        } catch (RpcException e) {
+            if (e.isBiz()) {
+                return new RpcResult(e);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Result doInvoke(Invocation invocation) throws Throwable {
+        Exporter<?> exporter = getExporter();
         RpcContext.getContext().setRemoteAddress(LOCALHOST_VALUE, 0);
         return exporter.getInvoker().invoke(invocation);
     }
 
+    /**
+     * 服务实现中没有这些方法，只能由服务端过滤链处理
+     */
+    private static boolean isFilterOnly(String methodName) {
+        return $INVOKE.equals(methodName) || $ECHO.equals(methodName);
+    }
+
+    private InjvmExporter<?> getExporter() {
+        InjvmExporter<?> cached = exporter;
+        if (cached != null && cached.isExported()) {
+            return cached;
+        }
+        cached = (InjvmExporter<?>) InjvmProtocol.getExporter(exporterMap, getUrl());
+        if (cached == null) {
+            throw new RpcException("Service [" + key + "] not found.");
+        }
+        exporter = cached;
+        return cached;
+    }
+
 }
@@ -4,8 +4,8 @@ import com.alibaba.fastjson.JSON;
 import org.apache.dubbo.common.utils.StringUtils;
 import org.apache.dubbo.rpc.RpcContext;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
@@ -15,7 +15,10 @@ public final class AccessLogData {
 
     private static final String MESSAGE_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
 
-    private static final DateFormat MESSAGE_DATE_FORMATTER = new SimpleDateFormat(MESSAGE_DATE_FORMAT);
+    /**
+     * 日志在调用线程上格式化，DateTimeFormatter是线程安全的
+     */
+    private static final DateTimeFormatter MESSAGE_DATE_FORMATTER = DateTimeFormatter.ofPattern(MESSAGE_DATE_FORMAT).withZone(ZoneId.systemDefault());
 
     private static final String VERSION = "version";
 
@@ -104,7 +107,7 @@ public final class AccessLogData {
 
     public String getLogMessage() {
         StringBuilder sn = new StringBuilder();
-        sn.append("[").append(MESSAGE_DATE_FORMATTER.format(getInvocationTime())).append("] ").append(get(REMOTE_HOST)).append(":").append(get(REMOTE_PORT)).append(" -> ").append(get(LOCAL_HOST)).append(":").append(get(LOCAL_PORT)).append(" - ");
+        sn.append("[").append(MESSAGE_DATE_FORMATTER.format(getInvocationTime().toInstant())).append("] ").append(get(REMOTE_HOST)).append(":").append(get(REMOTE_PORT)).append(" -> ").append(get(LOCAL_HOST)).append(":").append(get(LOCAL_PORT)).append(" - ");
         String group = get(GROUP) != null ? get(GROUP).toString() : "";
         if (StringUtils.isNotEmpty(group.toString())) {
             sn.append(group).append("/");
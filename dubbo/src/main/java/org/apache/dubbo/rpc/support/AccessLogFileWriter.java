@@ -0,0 +1,146 @@
+package org.apache.dubbo.rpc.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 访问日志文件写入器，只由写日志线程使用
+ * 文件通道在两次写入之间保持打开，记录先拷贝到直接内存缓冲区，满了或flush时一次写入
+ * 跨天时把当前文件重命名为 文件名.yyyyMMdd；配置了maxFileSize时，超出大小重命名为 文件名.yyyyMMdd.序号
+ */
+public class AccessLogFileWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final DateTimeFormatter FILE_NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final File file;
+
+    private final long maxFileSize;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private FileChannel channel;
+
+    private long size;
+
+    /**
+     * 当前文件对应的日期
+     */
+    private LocalDate date;
+
+    public AccessLogFileWriter(File file, long maxFileSize) {
+        this.file = file;
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * 每批写入前调用一次，跨天时滚动文件
+     */
+    public void checkDate() throws IOException {
+        if (channel == null) {
+            open();
+        }
+        LocalDate today = LocalDate.now();
+        if (!today.equals(date)) {
+            roll(today);
+        }
+    }
+
+    public void write(byte[] record) throws IOException {
+        if (channel == null) {
+            open();
+        }
+        if (maxFileSize > 0 && size + buffer.position() + record.length > maxFileSize && size + buffer.position() > 0) {
+            roll(date);
+        }
+        if (record.length > buffer.remaining()) {
+            flush();
+        }
+        if (record.length > buffer.capacity()) {
+            writeFully(ByteBuffer.wrap(record));
+        } else {
+            buffer.put(record);
+        }
+    }
+
+    public void flush() throws IOException {
+        if (channel == null || buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * 写入失败后调用，缓冲区可能处于写了一半的状态，不再尝试写出
+     */
+    public void abort() {
+        buffer.clear();
+        closeChannel();
+    }
+
+    public void close() {
+        try {
+            flush();
+        } catch (IOException ignored) {
+        }
+        closeChannel();
+    }
+
+    private void writeFully(ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            size += channel.write(src);
+        }
+    }
+
+    private void open() throws IOException {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists()) {
+            dir.mkdirs();
+        }
+        if (file.exists()) {
+            date = Instant.ofEpochMilli(file.lastModified()).atZone(ZoneId.systemDefault()).toLocalDate();
+        } else {
+            date = LocalDate.now();
+        }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = channel.size();
+    }
+
+    private void roll(LocalDate today) throws IOException {
+        flush();
+        closeChannel();
+        if (size > 0 || file.length() > 0) {
+            String suffix = FILE_NAME_FORMATTER.format(date);
+            File archive = new File(file.getAbsolutePath() + "." + suffix);
+            // 按大小滚动时同一天会产生多个文件
+            for (int i = 1; archive.exists(); i++) {
+                archive = new File(file.getAbsolutePath() + "." + suffix + "." + i);
+            }
+            file.renameTo(archive);
+        }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = channel.size();
+        date = today;
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.apache.dubbo.rpc.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有界多生产者单消费者环形缓冲区，保持写入顺序
+ * 每个槽位有一个序号：序号等于写入位置时可写，等于写入位置+1时可读，消费后设为下一圈的写入位置
+ * 生产者只对tail做一次CAS，缓冲区满时offer返回false，由调用方决定丢弃或等待
+ */
+public class AccessLogRingBuffer<E> {
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> elements;
+
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * 只有消费线程访问
+     */
+    private long head;
+
+    public AccessLogRingBuffer(int capacity) {
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(E e) {
+        for (; ; ) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, e);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (sequence < position) {
+                // 该槽位还是上一圈未消费的元素，缓冲区已满
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 只能由单个消费线程调用
+     *
+     * @return 缓冲区为空时返回null
+     */
+    public E poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        E e = elements.get(index);
+        elements.lazySet(index, null);
+        sequences.set(index, head + mask + 1);
+        head++;
+        return e;
+    }
+
+    public void recordDropped() {
+        dropped.increment();
+    }
+
+    public void recordDropped(long count) {
+        dropped.add(count);
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+}
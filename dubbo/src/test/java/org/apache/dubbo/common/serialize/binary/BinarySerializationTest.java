@@ -0,0 +1,173 @@
+package org.apache.dubbo.common.serialize.binary;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.serialize.Constants;
+import org.apache.dubbo.common.serialize.ObjectOutput;
+import org.apache.dubbo.common.serialize.support.SerializableClassRegistry;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.exchange.Response;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.protocol.dubbo.DecodeableRpcResult;
+import org.apache.dubbo.rpc.protocol.dubbo.DubboCodec;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+public class BinarySerializationTest {
+
+    private static final URL URL = org.apache.dubbo.common.URL.valueOf("dubbo://127.0.0.1:20880/test?serialization=binary");
+
+    @Test
+    public void testException() throws Exception {
+        IllegalStateException cause = new IllegalStateException("cause");
+        RpcException exception = new RpcException(RpcException.TIMEOUT_EXCEPTION, "timeout", cause);
+        exception.addSuppressed(new IOException("suppressed"));
+
+        RpcException result = (RpcException) roundTrip(exception);
+        Assert.assertEquals("timeout", result.getMessage());
+        Assert.assertEquals(RpcException.TIMEOUT_EXCEPTION, result.getCode());
+        assertStackTrace(exception.getStackTrace(), result.getStackTrace());
+        Assert.assertEquals(IllegalStateException.class, result.getCause().getClass());
+        Assert.assertEquals("cause", result.getCause().getMessage());
+        assertStackTrace(cause.getStackTrace(), result.getCause().getStackTrace());
+        Assert.assertEquals(1, result.getSuppressed().length);
+        Assert.assertEquals("suppressed", result.getSuppressed()[0].getMessage());
+    }
+
+    @Test
+    public void testExceptionWithCauseConstructor() throws Exception {
+        CauseOnlyException exception = new CauseOnlyException("failed", new IllegalArgumentException("bad"), 7);
+
+        CauseOnlyException result = (CauseOnlyException) roundTrip(exception);
+        Assert.assertEquals("failed", result.getMessage());
+        Assert.assertEquals("bad", result.getCause().getMessage());
+        Assert.assertEquals(7, result.errorCode);
+    }
+
+    @Test
+    public void testExceptionResponse() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutput out = new BinarySerialization().serialize(URL, bytes);
+        out.writeByte(DubboCodec.RESPONSE_WITH_EXCEPTION_WITH_ATTACHMENTS);
+        out.writeObject(new RpcException(RpcException.BIZ_EXCEPTION, "biz"));
+        out.writeObject(Collections.singletonMap("k", "v"));
+        out.flushBuffer();
+
+        Channel channel = (Channel) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Channel.class},
+                (proxy, method, args) -> "getUrl".equals(method.getName()) ? URL : null);
+        ByteArrayInputStream input = new ByteArrayInputStream(bytes.toByteArray());
+        DecodeableRpcResult result = new DecodeableRpcResult(channel, new Response(1), input, null, Constants.BINARY_SERIALIZATION_ID);
+        result.decode(channel, input);
+
+        Assert.assertTrue(result.getException() instanceof RpcException);
+        Assert.assertEquals("biz", result.getException().getMessage());
+        Assert.assertEquals(RpcException.BIZ_EXCEPTION, ((RpcException) result.getException()).getCode());
+        Assert.assertEquals("v", result.getAttachment("k"));
+    }
+
+    @Test
+    public void testValueTypes() throws Exception {
+        Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        timestamp.setNanos(123456789);
+        List<Object> values = Arrays.asList(timestamp, new java.sql.Date(0), Instant.ofEpochSecond(1, 2),
+                LocalDate.of(2019, 6, 1), LocalDateTime.of(2019, 6, 1, 12, 30, 15, 7),
+                ZonedDateTime.of(2019, 6, 1, 12, 0, 0, 0, ZoneId.of("Asia/Shanghai")), ZoneOffset.ofHours(8),
+                Duration.ofMillis(1500), UUID.randomUUID(), Locale.SIMPLIFIED_CHINESE, Currency.getInstance("CNY"),
+                URI.create("dubbo://127.0.0.1:20880/test"));
+        for (Object value : values) {
+            Assert.assertEquals(value, roundTrip(value));
+        }
+    }
+
+    @Test
+    public void testDeclaredContainerType() throws Exception {
+        LinkedList<String> list = new LinkedList<>(Arrays.asList("a", "b"));
+        Assert.assertEquals(LinkedList.class, roundTrip(list).getClass());
+
+        Map<TimeUnit, String> enumMap = new EnumMap<>(TimeUnit.class);
+        enumMap.put(TimeUnit.SECONDS, "s");
+        Assert.assertEquals(enumMap, roundTrip(enumMap));
+
+        EnumSet<TimeUnit> enumSet = EnumSet.of(TimeUnit.DAYS, TimeUnit.HOURS);
+        Assert.assertEquals(enumSet, roundTrip(enumSet));
+        Assert.assertEquals(EnumSet.noneOf(TimeUnit.class), roundTrip(EnumSet.noneOf(TimeUnit.class)));
+
+        // 实际类型没有无参构造器时按接口选择实现
+        Object sorted = roundTrip(Collections.unmodifiableSortedMap(new TreeMap<>(Collections.singletonMap("k", "v"))));
+        Assert.assertTrue(sorted instanceof SortedMap);
+        Object queue = roundTrip(Collections.asLifoQueue(new LinkedList<>()));
+        Assert.assertTrue(queue instanceof Queue);
+
+        SerializableClassRegistry.registerClass(Holder.class);
+        Holder holder = new Holder();
+        holder.list = Collections.unmodifiableList(new LinkedList<>(Arrays.asList("a")));
+        holder.map = Collections.unmodifiableSortedMap(new TreeMap<>(Collections.singletonMap("k", "v")));
+        Holder result = (Holder) roundTrip(holder);
+        Assert.assertEquals(Arrays.asList("a"), result.list);
+        Assert.assertTrue(result.map instanceof SortedMap);
+        Assert.assertEquals("v", result.map.get("k"));
+    }
+
+    private static void assertStackTrace(StackTraceElement[] expected, StackTraceElement[] actual) {
+        Assert.assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i].getClassName(), actual[i].getClassName());
+            Assert.assertEquals(expected[i].getMethodName(), actual[i].getMethodName());
+            Assert.assertEquals(expected[i].getFileName(), actual[i].getFileName());
+            Assert.assertEquals(expected[i].getLineNumber(), actual[i].getLineNumber());
+        }
+    }
+
+    private static Object roundTrip(Object obj) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryObjectOutput out = new BinaryObjectOutput(bytes);
+        out.writeObject(obj);
+        out.flushBuffer();
+        return new BinaryObjectInput(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    }
+
+    static class CauseOnlyException extends RuntimeException {
+
+        private final int errorCode;
+
+        CauseOnlyException(String message, Throwable cause, int errorCode) {
+            super(message, cause);
+            this.errorCode = errorCode;
+        }
+    }
+
+    static class Holder {
+
+        List<String> list;
+
+        Map<String, String> map;
+    }
+
+}
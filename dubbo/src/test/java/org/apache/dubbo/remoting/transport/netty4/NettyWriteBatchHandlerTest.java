@@ -0,0 +1,47 @@
+package org.apache.dubbo.remoting.transport.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.dubbo.common.URL;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NettyWriteBatchHandlerTest {
+
+    @Test
+    public void testSmallWriteFlushedAfterByteLimitFlush() throws Exception {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/test?write.batch.bytes=100&write.batch.latency=1000");
+        NettyWriteBatchHandler.Stats stats = new NettyWriteBatchHandler.Stats();
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyWriteBatchHandler(url, stats));
+
+        // 小消息安排延迟刷出
+        channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[10]));
+        Assert.assertNull(channel.readOutbound());
+
+        // 达到字节数上限立即刷出，同时取消了待执行的延迟刷出
+        channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[200]));
+        assertOutbound(channel, 10);
+        assertOutbound(channel, 200);
+        Assert.assertNull(channel.readOutbound());
+
+        // 之后的小消息仍要在延迟时间内刷出
+        channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[20]));
+        Assert.assertNull(channel.readOutbound());
+        Thread.sleep(10);
+        channel.runPendingTasks();
+        assertOutbound(channel, 20);
+
+        Assert.assertEquals(2, stats.getBatches());
+        Assert.assertEquals(3, stats.getMessages());
+        channel.finishAndReleaseAll();
+    }
+
+    private static void assertOutbound(EmbeddedChannel channel, int bytes) {
+        ByteBuf buf = channel.readOutbound();
+        Assert.assertNotNull(buf);
+        Assert.assertEquals(bytes, buf.readableBytes());
+        buf.release();
+    }
+
+}
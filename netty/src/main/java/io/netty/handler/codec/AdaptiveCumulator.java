@@ -0,0 +1,151 @@
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+
+/**
+ * 自适应累积器，根据当前未解码完的帧大小和平均读取大小在合并和组合之间切换
+ * 1. 未解码完的帧较小，或者每次读到的数据很少：与MERGE_CUMULATOR一样复制到累积区，
+ *    容量不够时如果丢弃已读字节就能放下且需要移动的字节不多于已读字节，先丢弃已读字节再写入，否则按allocator的增长策略扩容
+ * 2. 未解码完的帧达到compositeThreshold且平均读取大小不小于minComponentSize：新读入的数据作为组件加入CompositeByteBuf，不再复制
+ * 3. 累积区被解码出的retainedSlice等引用（refCnt>1）时不能写入，帧较小时复制到新缓冲区，帧较大时把原累积区作为组件包装起来
+ * 累积区已读完时直接用新读入的数据作为累积区
+ * 有状态，每个ByteToMessageDecoder使用一个实例：setCumulator(new AdaptiveCumulator())
+ */
+public final class AdaptiveCumulator implements ByteToMessageDecoder.Cumulator {
+
+    private static final int DEFAULT_COMPOSITE_THRESHOLD = 64 * 1024;
+    private static final int DEFAULT_MIN_COMPONENT_SIZE = 4096;
+
+    /**
+     * 所有实例累积时复制的字节总数
+     */
+    private static final LongCounter TOTAL_COPIED_BYTES = PlatformDependent.newLongCounter();
+
+    private final int compositeThreshold;
+    private final int minComponentSize;
+
+    /**
+     * 平均读取大小，权重1/8
+     */
+    private int avgReadSize;
+
+    private long copiedBytes;
+    private long mergedReads;
+    private long compositeReads;
+
+    public AdaptiveCumulator() {
+        this(DEFAULT_COMPOSITE_THRESHOLD, DEFAULT_MIN_COMPONENT_SIZE);
+    }
+
+    public AdaptiveCumulator(int compositeThreshold, int minComponentSize) {
+        this.compositeThreshold = checkPositive(compositeThreshold, "compositeThreshold");
+        this.minComponentSize = checkPositive(minComponentSize, "minComponentSize");
+    }
+
+    public static long totalCopiedBytes() {
+        return TOTAL_COPIED_BYTES.value();
+    }
+
+    @Override
+    public ByteBuf cumulate(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf in) {
+        final int readable = in.readableBytes();
+        avgReadSize = avgReadSize == 0 ? readable : avgReadSize + ((readable - avgReadSize) >> 3);
+
+        final int pending = cumulation.readableBytes();
+        if (pending == 0) {
+            // 累积区已读完，直接换成新读入的数据
+            cumulation.release();
+            mergedReads++;
+            return in;
+        }
+        if (readable == 0) {
+            in.release();
+            return cumulation;
+        }
+
+        if (pending >= compositeThreshold && (avgReadSize >= minComponentSize || cumulation.refCnt() > 1)) {
+            compositeReads++;
+            if (cumulation instanceof CompositeByteBuf && cumulation.refCnt() == 1) {
+                // 大帧解码完之前继续追加组件
+                return ((CompositeByteBuf) cumulation).addComponent(true, in);
+            }
+            CompositeByteBuf composite = alloc.compositeBuffer(Integer.MAX_VALUE);
+            composite.addFlattenedComponents(true, cumulation);
+            return composite.addComponent(true, in);
+        }
+
+        mergedReads++;
+        try {
+            final ByteBuf buffer;
+            if (cumulation.refCnt() > 1 || cumulation.isReadOnly() || cumulation instanceof CompositeByteBuf) {
+                buffer = expand(alloc, cumulation, pending + readable);
+            } else if (cumulation.writableBytes() >= readable) {
+                buffer = cumulation;
+            } else if (cumulation.readerIndex() >= readable - cumulation.writableBytes()
+                    && pending <= cumulation.readerIndex()) {
+                // 丢弃已读字节即可放下，且移动的字节不比丢弃的多
+                cumulation.discardReadBytes();
+                copied(pending);
+                buffer = cumulation;
+            } else if (cumulation.writerIndex() > cumulation.maxCapacity() - readable) {
+                buffer = expand(alloc, cumulation, pending + readable);
+            } else {
+                // writeBytes自动扩容时会复制已写入的字节
+                copied(cumulation.writerIndex());
+                buffer = cumulation;
+            }
+            buffer.writeBytes(in);
+            copied(readable);
+            return buffer;
+        } finally {
+            in.release();
+        }
+    }
+
+    private ByteBuf expand(ByteBufAllocator alloc, ByteBuf cumulation, int minCapacity) {
+        copied(cumulation.readableBytes());
+        int capacity = alloc.calculateNewCapacity(minCapacity, Integer.MAX_VALUE);
+        ByteBuf buffer = alloc.buffer(capacity);
+        buffer.writeBytes(cumulation);
+        cumulation.release();
+        return buffer;
+    }
+
+    private void copied(int bytes) {
+        copiedBytes += bytes;
+        TOTAL_COPIED_BYTES.add(bytes);
+    }
+
+    /**
+     * 该解码器累积时复制的字节数
+     */
+    public long copiedBytes() {
+        return copiedBytes;
+    }
+
+    /**
+     * 以复制方式累积的次数
+     */
+    public long mergedReads() {
+        return mergedReads;
+    }
+
+    /**
+     * 以组件方式累积的次数
+     */
+    public long compositeReads() {
+        return compositeReads;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveCumulator(copiedBytes: " + copiedBytes + ", mergedReads: " + mergedReads
+                + ", compositeReads: " + compositeReads + ", avgReadSize: " + avgReadSize + ')';
+    }
+}
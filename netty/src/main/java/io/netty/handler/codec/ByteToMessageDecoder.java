@@ -19,7 +19,7 @@ import static io.netty.util.internal.ObjectUtil.checkPositive;
 public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter {
 
     /*
-     * 两个累积器
+     * 两个累积器，按帧大小和读取大小自动切换的见AdaptiveCumulator
      */
 
     public static final Cumulator MERGE_CUMULATOR = new Cumulator() {
@@ -0,0 +1,213 @@
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.ByteProcessor;
+
+import java.util.List;
+
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+
+/**
+ * 按一个或多个分隔符切分帧，取最近的分隔符；多个分隔符同时出现在同一位置时取最长的
+ * 分隔符为Delimiters.lineDelimiter()时交给LineBasedFrameDecoder处理
+ * 用ByteProcessor.IndexOfProcessor查找分隔符首字节，再比较剩余字节；帧是retainedSlice，不复制字节
+ */
+public class DelimiterBasedFrameDecoder extends ByteToMessageDecoder {
+
+    private final byte[][] delimiters;
+    private final ByteProcessor[] firstByteFinders;
+    private final int maxFrameLength;
+    private final boolean stripDelimiter;
+    private final boolean failFast;
+    private boolean discardingTooLongFrame;
+    private int tooLongFrameLength;
+    private final LineBasedFrameDecoder lineBasedDecoder;
+
+    public DelimiterBasedFrameDecoder(int maxFrameLength, ByteBuf delimiter) {
+        this(maxFrameLength, true, delimiter);
+    }
+
+    public DelimiterBasedFrameDecoder(int maxFrameLength, boolean stripDelimiter, ByteBuf delimiter) {
+        this(maxFrameLength, stripDelimiter, true, delimiter);
+    }
+
+    public DelimiterBasedFrameDecoder(int maxFrameLength, boolean stripDelimiter, boolean failFast, ByteBuf delimiter) {
+        this(maxFrameLength, stripDelimiter, failFast, new ByteBuf[]{delimiter});
+    }
+
+    public DelimiterBasedFrameDecoder(int maxFrameLength, ByteBuf... delimiters) {
+        this(maxFrameLength, true, delimiters);
+    }
+
+    public DelimiterBasedFrameDecoder(int maxFrameLength, boolean stripDelimiter, ByteBuf... delimiters) {
+        this(maxFrameLength, stripDelimiter, true, delimiters);
+    }
+
+    public DelimiterBasedFrameDecoder(int maxFrameLength, boolean stripDelimiter, boolean failFast, ByteBuf... delimiters) {
+        checkPositive(maxFrameLength, "maxFrameLength");
+        if (delimiters == null) {
+            throw new NullPointerException("delimiters");
+        }
+        if (delimiters.length == 0) {
+            throw new IllegalArgumentException("empty delimiters");
+        }
+
+        if (isLineBased(delimiters) && !isSubclass()) {
+            lineBasedDecoder = new LineBasedFrameDecoder(maxFrameLength, stripDelimiter, failFast);
+            this.delimiters = null;
+            this.firstByteFinders = null;
+        } else {
+            this.delimiters = new byte[delimiters.length][];
+            this.firstByteFinders = new ByteProcessor[delimiters.length];
+            for (int i = 0; i < delimiters.length; i++) {
+                ByteBuf d = delimiters[i];
+                validateDelimiter(d);
+                byte[] bytes = new byte[d.readableBytes()];
+                d.getBytes(d.readerIndex(), bytes);
+                this.delimiters[i] = bytes;
+                this.firstByteFinders[i] = new ByteProcessor.IndexOfProcessor(bytes[0]);
+            }
+            lineBasedDecoder = null;
+        }
+        this.maxFrameLength = maxFrameLength;
+        this.stripDelimiter = stripDelimiter;
+        this.failFast = failFast;
+    }
+
+    private static boolean isLineBased(final ByteBuf[] delimiters) {
+        if (delimiters.length != 2) {
+            return false;
+        }
+        ByteBuf a = delimiters[0];
+        ByteBuf b = delimiters[1];
+        if (a.capacity() < b.capacity()) {
+            a = delimiters[1];
+            b = delimiters[0];
+        }
+        return a.capacity() == 2 && b.capacity() == 1
+                && a.getByte(0) == '\r' && a.getByte(1) == '\n'
+                && b.getByte(0) == '\n';
+    }
+
+    private boolean isSubclass() {
+        return getClass() != DelimiterBasedFrameDecoder.class;
+    }
+
+    @Override
+    protected final void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        Object decoded = decode(ctx, in);
+        if (decoded != null) {
+            out.add(decoded);
+        }
+    }
+
+    protected Object decode(ChannelHandlerContext ctx, ByteBuf buffer) throws Exception {
+        if (lineBasedDecoder != null) {
+            return lineBasedDecoder.decode(ctx, buffer);
+        }
+        // 找出最近的分隔符
+        int minFrameLength = Integer.MAX_VALUE;
+        byte[] minDelim = null;
+        for (int i = 0; i < delimiters.length; i++) {
+            byte[] delim = delimiters[i];
+            int frameLength = indexOf(buffer, delim, firstByteFinders[i]);
+            if (frameLength >= 0 && (frameLength < minFrameLength
+                    || frameLength == minFrameLength && delim.length > minDelim.length)) {
+                minFrameLength = frameLength;
+                minDelim = delim;
+            }
+        }
+
+        if (minDelim != null) {
+            int minDelimLength = minDelim.length;
+            ByteBuf frame;
+
+            if (discardingTooLongFrame) {
+                // 之前丢弃的超长帧到此结束
+                discardingTooLongFrame = false;
+                buffer.skipBytes(minFrameLength + minDelimLength);
+
+                int tooLongFrameLength = this.tooLongFrameLength;
+                this.tooLongFrameLength = 0;
+                if (!failFast) {
+                    fail(tooLongFrameLength);
+                }
+                return null;
+            }
+
+            if (minFrameLength > maxFrameLength) {
+                buffer.skipBytes(minFrameLength + minDelimLength);
+                fail(minFrameLength);
+                return null;
+            }
+
+            if (stripDelimiter) {
+                frame = buffer.readRetainedSlice(minFrameLength);
+                buffer.skipBytes(minDelimLength);
+            } else {
+                frame = buffer.readRetainedSlice(minFrameLength + minDelimLength);
+            }
+
+            return frame;
+        } else {
+            if (!discardingTooLongFrame) {
+                if (buffer.readableBytes() > maxFrameLength) {
+                    tooLongFrameLength = buffer.readableBytes();
+                    buffer.skipBytes(buffer.readableBytes());
+                    discardingTooLongFrame = true;
+                    if (failFast) {
+                        fail(tooLongFrameLength);
+                    }
+                }
+            } else {
+                tooLongFrameLength += buffer.readableBytes();
+                buffer.skipBytes(buffer.readableBytes());
+            }
+            return null;
+        }
+    }
+
+    private void fail(long frameLength) {
+        if (frameLength > 0) {
+            throw new TooLongFrameException(
+                    "frame length exceeds " + maxFrameLength + ": " + frameLength + " - discarded");
+        } else {
+            throw new TooLongFrameException(
+                    "frame length exceeds " + maxFrameLength + " - discarding");
+        }
+    }
+
+    /**
+     * 返回分隔符相对readerIndex的位置，没有找到返回-1
+     */
+    private static int indexOf(ByteBuf haystack, byte[] needle, ByteProcessor firstByteFinder) {
+        int readerIndex = haystack.readerIndex();
+        int writerIndex = haystack.writerIndex();
+        int index = readerIndex;
+        while (index < writerIndex) {
+            int i = haystack.forEachByte(index, writerIndex - index, firstByteFinder);
+            if (i < 0 || i > writerIndex - needle.length) {
+                return -1;
+            }
+            int j = 1;
+            while (j < needle.length && haystack.getByte(i + j) == needle[j]) {
+                j++;
+            }
+            if (j == needle.length) {
+                return i - readerIndex;
+            }
+            index = i + 1;
+        }
+        return -1;
+    }
+
+    private static void validateDelimiter(ByteBuf delimiter) {
+        if (delimiter == null) {
+            throw new NullPointerException("delimiter");
+        }
+        if (!delimiter.isReadable()) {
+            throw new IllegalArgumentException("empty delimiter");
+        }
+    }
+}
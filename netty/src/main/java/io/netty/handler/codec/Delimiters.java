@@ -0,0 +1,30 @@
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * DelimiterBasedFrameDecoder常用的分隔符
+ */
+public final class Delimiters {
+
+    /**
+     * \0
+     */
+    public static ByteBuf[] nulDelimiter() {
+        return new ByteBuf[]{Unpooled.wrappedBuffer(new byte[]{0})};
+    }
+
+    /**
+     * \r\n和\n
+     */
+    public static ByteBuf[] lineDelimiter() {
+        return new ByteBuf[]{
+                Unpooled.wrappedBuffer(new byte[]{'\r', '\n'}),
+                Unpooled.wrappedBuffer(new byte[]{'\n'}),
+        };
+    }
+
+    private Delimiters() {
+    }
+}
@@ -0,0 +1,35 @@
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.util.List;
+
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+
+/**
+ * 按固定长度切分帧，帧是累积缓冲区的retainedSlice，不复制字节
+ */
+public class FixedLengthFrameDecoder extends ByteToMessageDecoder {
+
+    private final int frameLength;
+
+    public FixedLengthFrameDecoder(int frameLength) {
+        this.frameLength = checkPositive(frameLength, "frameLength");
+    }
+
+    @Override
+    protected final void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        Object decoded = decode(ctx, in);
+        if (decoded != null) {
+            out.add(decoded);
+        }
+    }
+
+    protected Object decode(@SuppressWarnings("UnusedParameters") ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+        if (in.readableBytes() < frameLength) {
+            return null;
+        }
+        return in.readRetainedSlice(frameLength);
+    }
+}
@@ -0,0 +1,223 @@
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.nio.ByteOrder;
+import java.util.List;
+
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * 按长度字段切分帧
+ * lengthFieldOffset: 长度字段在帧中的偏移
+ * lengthFieldLength: 长度字段的字节数，1/2/3/4/8
+ * lengthAdjustment: 长度字段的值加上该值后为长度字段之后的字节数
+ * initialBytesToStrip: 帧中需要跳过的头部字节数
+ * 例如dubbo协议16字节头部、12字节处4字节长度：new LengthFieldBasedFrameDecoder(maxFrameLength, 12, 4, 0, 0)
+ * 帧是累积缓冲区的retainedSlice，不复制字节；累积缓冲区被整体读完后由ByteToMessageDecoder释放，切片仍持有引用
+ */
+public class LengthFieldBasedFrameDecoder extends ByteToMessageDecoder {
+
+    private final ByteOrder byteOrder;
+    private final int maxFrameLength;
+    private final int lengthFieldOffset;
+    private final int lengthFieldLength;
+    private final int lengthFieldEndOffset;
+    private final int lengthAdjustment;
+    private final int initialBytesToStrip;
+    private final boolean failFast;
+    private boolean discardingTooLongFrame;
+    private long tooLongFrameLength;
+    private long bytesToDiscard;
+
+    public LengthFieldBasedFrameDecoder(int maxFrameLength, int lengthFieldOffset, int lengthFieldLength) {
+        this(maxFrameLength, lengthFieldOffset, lengthFieldLength, 0, 0);
+    }
+
+    public LengthFieldBasedFrameDecoder(int maxFrameLength, int lengthFieldOffset, int lengthFieldLength,
+                                        int lengthAdjustment, int initialBytesToStrip) {
+        this(maxFrameLength, lengthFieldOffset, lengthFieldLength, lengthAdjustment, initialBytesToStrip, true);
+    }
+
+    public LengthFieldBasedFrameDecoder(int maxFrameLength, int lengthFieldOffset, int lengthFieldLength,
+                                        int lengthAdjustment, int initialBytesToStrip, boolean failFast) {
+        this(ByteOrder.BIG_ENDIAN, maxFrameLength, lengthFieldOffset, lengthFieldLength,
+                lengthAdjustment, initialBytesToStrip, failFast);
+    }
+
+    public LengthFieldBasedFrameDecoder(ByteOrder byteOrder, int maxFrameLength, int lengthFieldOffset,
+                                        int lengthFieldLength, int lengthAdjustment, int initialBytesToStrip,
+                                        boolean failFast) {
+        if (byteOrder == null) {
+            throw new NullPointerException("byteOrder");
+        }
+        checkPositive(maxFrameLength, "maxFrameLength");
+        checkPositiveOrZero(lengthFieldOffset, "lengthFieldOffset");
+        checkPositiveOrZero(initialBytesToStrip, "initialBytesToStrip");
+        if (lengthFieldOffset > maxFrameLength - lengthFieldLength) {
+            throw new IllegalArgumentException(
+                    "maxFrameLength (" + maxFrameLength + ") must be equal to or greater than lengthFieldOffset ("
+                            + lengthFieldOffset + ") + lengthFieldLength (" + lengthFieldLength + ").");
+        }
+        this.byteOrder = byteOrder;
+        this.maxFrameLength = maxFrameLength;
+        this.lengthFieldOffset = lengthFieldOffset;
+        this.lengthFieldLength = lengthFieldLength;
+        this.lengthAdjustment = lengthAdjustment;
+        this.lengthFieldEndOffset = lengthFieldOffset + lengthFieldLength;
+        this.initialBytesToStrip = initialBytesToStrip;
+        this.failFast = failFast;
+    }
+
+    @Override
+    protected final void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        Object decoded = decode(ctx, in);
+        if (decoded != null) {
+            out.add(decoded);
+        }
+    }
+
+    private void discardingTooLongFrame(ByteBuf in) {
+        long bytesToDiscard = this.bytesToDiscard;
+        int localBytesToDiscard = (int) Math.min(bytesToDiscard, in.readableBytes());
+        in.skipBytes(localBytesToDiscard);
+        bytesToDiscard -= localBytesToDiscard;
+        this.bytesToDiscard = bytesToDiscard;
+        failIfNecessary(false);
+    }
+
+    private static void failOnNegativeLengthField(ByteBuf in, long frameLength, int lengthFieldEndOffset) {
+        in.skipBytes(lengthFieldEndOffset);
+        throw new CorruptedFrameException("negative pre-adjustment length field: " + frameLength);
+    }
+
+    private static void failOnFrameLengthLessThanLengthFieldEndOffset(ByteBuf in, long frameLength, int lengthFieldEndOffset) {
+        in.skipBytes(lengthFieldEndOffset);
+        throw new CorruptedFrameException(
+                "Adjusted frame length (" + frameLength + ") is less than lengthFieldEndOffset: " + lengthFieldEndOffset);
+    }
+
+    private void exceededFrameLength(ByteBuf in, long frameLength) {
+        long discard = frameLength - in.readableBytes();
+        tooLongFrameLength = frameLength;
+        if (discard < 0) {
+            // 整个超长帧已经在缓冲区中，直接跳过
+            in.skipBytes((int) frameLength);
+        } else {
+            discardingTooLongFrame = true;
+            bytesToDiscard = discard;
+            in.skipBytes(in.readableBytes());
+        }
+        failIfNecessary(true);
+    }
+
+    private static void failOnFrameLengthLessThanInitialBytesToStrip(ByteBuf in, long frameLength, int initialBytesToStrip) {
+        in.skipBytes((int) frameLength);
+        throw new CorruptedFrameException(
+                "Adjusted frame length (" + frameLength + ") is less than initialBytesToStrip: " + initialBytesToStrip);
+    }
+
+    protected Object decode(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+        if (discardingTooLongFrame) {
+            discardingTooLongFrame(in);
+        }
+
+        if (in.readableBytes() < lengthFieldEndOffset) {
+            return null;
+        }
+
+        int actualLengthFieldOffset = in.readerIndex() + lengthFieldOffset;
+        long frameLength = getUnadjustedFrameLength(in, actualLengthFieldOffset, lengthFieldLength, byteOrder);
+
+        if (frameLength < 0) {
+            failOnNegativeLengthField(in, frameLength, lengthFieldEndOffset);
+        }
+
+        frameLength += lengthAdjustment + lengthFieldEndOffset;
+
+        if (frameLength < lengthFieldEndOffset) {
+            failOnFrameLengthLessThanLengthFieldEndOffset(in, frameLength, lengthFieldEndOffset);
+        }
+
+        if (frameLength > maxFrameLength) {
+            exceededFrameLength(in, frameLength);
+            return null;
+        }
+
+        int frameLengthInt = (int) frameLength;
+        if (in.readableBytes() < frameLengthInt) {
+            return null;
+        }
+
+        if (initialBytesToStrip > frameLengthInt) {
+            failOnFrameLengthLessThanInitialBytesToStrip(in, frameLength, initialBytesToStrip);
+        }
+        in.skipBytes(initialBytesToStrip);
+
+        int readerIndex = in.readerIndex();
+        int actualFrameLength = frameLengthInt - initialBytesToStrip;
+        ByteBuf frame = extractFrame(ctx, in, readerIndex, actualFrameLength);
+        in.readerIndex(readerIndex + actualFrameLength);
+        return frame;
+    }
+
+    protected long getUnadjustedFrameLength(ByteBuf buf, int offset, int length, ByteOrder order) {
+        boolean littleEndian = order == ByteOrder.LITTLE_ENDIAN;
+        long frameLength;
+        switch (length) {
+            case 1:
+                frameLength = buf.getUnsignedByte(offset);
+                break;
+            case 2:
+                frameLength = littleEndian ? buf.getUnsignedShortLE(offset) : buf.getUnsignedShort(offset);
+                break;
+            case 3:
+                frameLength = littleEndian ? buf.getUnsignedMediumLE(offset) : buf.getUnsignedMedium(offset);
+                break;
+            case 4:
+                frameLength = littleEndian ? buf.getUnsignedIntLE(offset) : buf.getUnsignedInt(offset);
+                break;
+            case 8:
+                frameLength = littleEndian ? buf.getLongLE(offset) : buf.getLong(offset);
+                break;
+            default:
+                throw new DecoderException(
+                        "unsupported lengthFieldLength: " + lengthFieldLength + " (expected: 1, 2, 3, 4, or 8)");
+        }
+        return frameLength;
+    }
+
+    private void failIfNecessary(boolean firstDetectionOfTooLongFrame) {
+        if (bytesToDiscard == 0) {
+            long tooLongFrameLength = this.tooLongFrameLength;
+            this.tooLongFrameLength = 0;
+            discardingTooLongFrame = false;
+            if (!failFast || firstDetectionOfTooLongFrame) {
+                fail(tooLongFrameLength);
+            }
+        } else {
+            if (failFast && firstDetectionOfTooLongFrame) {
+                fail(tooLongFrameLength);
+            }
+        }
+    }
+
+    /**
+     * 取出帧，默认返回retainedSlice；需要独立内存的子类可以改为复制
+     */
+    protected ByteBuf extractFrame(ChannelHandlerContext ctx, ByteBuf buffer, int index, int length) {
+        return buffer.retainedSlice(index, length);
+    }
+
+    private void fail(long frameLength) {
+        if (frameLength > 0) {
+            throw new TooLongFrameException(
+                    "Adjusted frame length exceeds " + maxFrameLength + ": " + frameLength + " - discarded");
+        } else {
+            throw new TooLongFrameException(
+                    "Adjusted frame length exceeds " + maxFrameLength + " - discarding");
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.ByteProcessor;
+
+import java.util.List;
+
+/**
+ * 按\n或\r\n切分帧
+ * 用ByteProcessor.FIND_LF查找换行，只扫描上次之后新到达的字节；帧是retainedSlice，不复制字节
+ */
+public class LineBasedFrameDecoder extends ByteToMessageDecoder {
+
+    private final int maxLength;
+    private final boolean failFast;
+    private final boolean stripDelimiter;
+
+    /**
+     * 超长时是否正在丢弃字节
+     */
+    private boolean discarding;
+    private int discardedBytes;
+
+    /**
+     * 上次扫描到的位置（相对readerIndex）
+     */
+    private int offset;
+
+    public LineBasedFrameDecoder(final int maxLength) {
+        this(maxLength, true, false);
+    }
+
+    public LineBasedFrameDecoder(final int maxLength, final boolean stripDelimiter, final boolean failFast) {
+        this.maxLength = maxLength;
+        this.failFast = failFast;
+        this.stripDelimiter = stripDelimiter;
+    }
+
+    @Override
+    protected final void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        Object decoded = decode(ctx, in);
+        if (decoded != null) {
+            out.add(decoded);
+        }
+    }
+
+    protected Object decode(ChannelHandlerContext ctx, ByteBuf buffer) throws Exception {
+        final int eol = findEndOfLine(buffer);
+        if (!discarding) {
+            if (eol >= 0) {
+                final ByteBuf frame;
+                final int length = eol - buffer.readerIndex();
+                final int delimLength = buffer.getByte(eol) == '\r' ? 2 : 1;
+
+                if (length > maxLength) {
+                    buffer.readerIndex(eol + delimLength);
+                    fail(ctx, length);
+                    return null;
+                }
+
+                if (stripDelimiter) {
+                    frame = buffer.readRetainedSlice(length);
+                    buffer.skipBytes(delimLength);
+                } else {
+                    frame = buffer.readRetainedSlice(length + delimLength);
+                }
+
+                return frame;
+            } else {
+                final int length = buffer.readableBytes();
+                if (length > maxLength) {
+                    discardedBytes = length;
+                    buffer.readerIndex(buffer.writerIndex());
+                    discarding = true;
+                    offset = 0;
+                    if (failFast) {
+                        fail(ctx, "over " + discardedBytes);
+                    }
+                }
+                return null;
+            }
+        } else {
+            if (eol >= 0) {
+                final int length = discardedBytes + eol - buffer.readerIndex();
+                final int delimLength = buffer.getByte(eol) == '\r' ? 2 : 1;
+                buffer.readerIndex(eol + delimLength);
+                discardedBytes = 0;
+                discarding = false;
+                if (!failFast) {
+                    fail(ctx, length);
+                }
+            } else {
+                discardedBytes += buffer.readableBytes();
+                buffer.readerIndex(buffer.writerIndex());
+                // 丢弃期间不需要保留扫描位置
+                offset = 0;
+            }
+            return null;
+        }
+    }
+
+    private void fail(final ChannelHandlerContext ctx, int length) {
+        fail(ctx, String.valueOf(length));
+    }
+
+    private void fail(final ChannelHandlerContext ctx, String length) {
+        ctx.fireExceptionCaught(
+                new TooLongFrameException(
+                        "frame length (" + length + ") exceeds the allowed maximum (" + maxLength + ')'));
+    }
+
+    /**
+     * @return 行结束符的下标（\r\n时为\r的下标），没有找到时返回-1
+     */
+    private int findEndOfLine(final ByteBuf buffer) {
+        int totalLength = buffer.readableBytes();
+        int i = buffer.forEachByte(buffer.readerIndex() + offset, totalLength - offset, ByteProcessor.FIND_LF);
+        if (i >= 0) {
+            offset = 0;
+            if (i > buffer.readerIndex() && buffer.getByte(i - 1) == '\r') {
+                i--;
+            }
+        } else {
+            offset = totalLength;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,21 @@
+package io.netty.handler.codec;
+
+public class TooLongFrameException extends DecoderException {
+
+    private static final long serialVersionUID = -2526958893347417085L;
+
+    public TooLongFrameException() {
+    }
+
+    public TooLongFrameException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public TooLongFrameException(String message) {
+        super(message);
+    }
+
+    public TooLongFrameException(Throwable cause) {
+        super(cause);
+    }
+}
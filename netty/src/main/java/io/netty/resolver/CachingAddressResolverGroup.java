@@ -0,0 +1,234 @@
+package io.netty.resolver;
+
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * 不阻塞EventLoop的地址解析器组
+ * 1. IP字面量直接转换，hosts文件中的名字直接返回
+ * 2. 其余名字在专用线程上调用阻塞的解析器，成功和UnknownHostException分别按TTL缓存
+ * 3. 同一个名字同时只有一次查询，并发的解析共用查询结果
+ * 缓存由所有EventLoop共享，重连风暴时同一个名字只查询一次
+ */
+@UnstableApi
+public class CachingAddressResolverGroup extends AddressResolverGroup<InetSocketAddress> {
+
+    private static final long DEFAULT_TTL = SystemPropertyUtil.getLong("io.netty.resolver.cache.ttl", 30);
+
+    private static final long DEFAULT_NEGATIVE_TTL = SystemPropertyUtil.getLong("io.netty.resolver.cache.negativeTtl", 10);
+
+    private static final int DEFAULT_MAX_ENTRIES = SystemPropertyUtil.getInt("io.netty.resolver.cache.maxEntries", 4096);
+
+    private static final int DEFAULT_LOOKUP_THREADS = SystemPropertyUtil.getInt("io.netty.resolver.lookupThreads", 4);
+
+    public static final CachingAddressResolverGroup INSTANCE = new CachingAddressResolverGroup();
+
+    private final NameResolver<InetAddress> lookupResolver;
+    private final Executor lookupExecutor;
+    private final boolean ownsLookupExecutor;
+    private final HostsFileEntriesResolver hostsFileEntriesResolver;
+    private final ResolvedAddressTypes resolvedAddressTypes;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final int maxEntries;
+
+    private final ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<String, Entry>();
+    private final ConcurrentMap<String, Promise<List<InetAddress>>> lookups = new ConcurrentHashMap<String, Promise<List<InetAddress>>>();
+
+    public CachingAddressResolverGroup() {
+        this(new DefaultNameResolver(GlobalEventExecutor.INSTANCE), null, HostsFileEntriesResolver.DEFAULT,
+                DEFAULT_TTL, DEFAULT_NEGATIVE_TTL, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param lookupResolver 在查询线程上调用，可以阻塞，测试时可换成本地的桩解析器
+     * @param lookupExecutor 执行查询的线程，null时创建有界的守护线程池
+     * @param ttlSeconds 成功结果的缓存时间，0表示不缓存
+     * @param negativeTtlSeconds UnknownHostException的缓存时间，0表示不缓存
+     */
+    public CachingAddressResolverGroup(NameResolver<InetAddress> lookupResolver, Executor lookupExecutor,
+                                       HostsFileEntriesResolver hostsFileEntriesResolver,
+                                       long ttlSeconds, long negativeTtlSeconds, int maxEntries) {
+        this.lookupResolver = checkNotNull(lookupResolver, "lookupResolver");
+        this.hostsFileEntriesResolver = checkNotNull(hostsFileEntriesResolver, "hostsFileEntriesResolver");
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(checkPositiveOrZero(ttlSeconds, "ttlSeconds"));
+        this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(checkPositiveOrZero(negativeTtlSeconds, "negativeTtlSeconds"));
+        this.maxEntries = checkPositive(maxEntries, "maxEntries");
+        if (lookupExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_LOOKUP_THREADS, DEFAULT_LOOKUP_THREADS, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new DefaultThreadFactory("netty-resolver", true));
+            executor.allowCoreThreadTimeOut(true);
+            this.lookupExecutor = executor;
+            this.ownsLookupExecutor = true;
+        } else {
+            this.lookupExecutor = lookupExecutor;
+            this.ownsLookupExecutor = false;
+        }
+        if (NetUtil.isIpV4StackPreferred()) {
+            resolvedAddressTypes = ResolvedAddressTypes.IPV4_ONLY;
+        } else if (NetUtil.isIpV6AddressesPreferred()) {
+            resolvedAddressTypes = ResolvedAddressTypes.IPV6_PREFERRED;
+        } else {
+            resolvedAddressTypes = ResolvedAddressTypes.IPV4_PREFERRED;
+        }
+    }
+
+    @Override
+    protected AddressResolver<InetSocketAddress> newResolver(EventExecutor executor) throws Exception {
+        return new CachingNameResolver(executor, this).asAddressResolver();
+    }
+
+    /**
+     * @return 在GlobalEventExecutor上完成的Future
+     */
+    Future<List<InetAddress>> resolveAll(String inetHost) {
+        byte[] bytes = NetUtil.createByteArrayFromIpAddressString(inetHost);
+        if (bytes != null) {
+            try {
+                return GlobalEventExecutor.INSTANCE.newSucceededFuture(Collections.singletonList(InetAddress.getByAddress(bytes)));
+            } catch (UnknownHostException e) {
+                return GlobalEventExecutor.INSTANCE.newFailedFuture(e);
+            }
+        }
+        InetAddress hostsFileEntry = hostsFileEntriesResolver.address(inetHost, resolvedAddressTypes);
+        if (hostsFileEntry != null) {
+            return GlobalEventExecutor.INSTANCE.newSucceededFuture(Collections.singletonList(hostsFileEntry));
+        }
+
+        final String key = inetHost.toLowerCase(Locale.ENGLISH);
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            if (entry.expiresAt - System.nanoTime() > 0) {
+                return entry.future;
+            }
+            cache.remove(key, entry);
+        }
+
+        Promise<List<InetAddress>> lookup = lookups.get(key);
+        if (lookup != null) {
+            return lookup;
+        }
+        final Promise<List<InetAddress>> newLookup = GlobalEventExecutor.INSTANCE.newPromise();
+        lookup = lookups.putIfAbsent(key, newLookup);
+        if (lookup != null) {
+            return lookup;
+        }
+        // 先缓存再移除进行中的查询，之后到达的解析总能看到其中之一
+        newLookup.addListener(new FutureListener<List<InetAddress>>() {
+            @Override
+            public void operationComplete(Future<List<InetAddress>> future) throws Exception {
+                cache(key, future);
+                lookups.remove(key, newLookup);
+            }
+        });
+        lookup(inetHost, newLookup);
+        return newLookup;
+    }
+
+    private void lookup(final String inetHost, final Promise<List<InetAddress>> promise) {
+        try {
+            lookupExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        lookupResolver.resolveAll(inetHost).addListener(new FutureListener<List<InetAddress>>() {
+                            @Override
+                            public void operationComplete(Future<List<InetAddress>> future) throws Exception {
+                                if (!future.isSuccess()) {
+                                    promise.tryFailure(future.cause());
+                                } else if (future.getNow() == null || future.getNow().isEmpty()) {
+                                    promise.tryFailure(new UnknownHostException(inetHost));
+                                } else {
+                                    promise.trySuccess(future.getNow());
+                                }
+                            }
+                        });
+                    } catch (Throwable t) {
+                        promise.tryFailure(t);
+                    }
+                }
+            });
+        } catch (Throwable t) {
+            promise.tryFailure(t);
+        }
+    }
+
+    private void cache(String key, Future<List<InetAddress>> future) {
+        long ttl;
+        if (future.isSuccess()) {
+            ttl = ttlNanos;
+        } else {
+            ttl = future.cause() instanceof UnknownHostException ? negativeTtlNanos : 0;
+        }
+        if (ttl <= 0) {
+            return;
+        }
+        if (cache.size() >= maxEntries) {
+            evict();
+        }
+        cache.put(key, new Entry(future, System.nanoTime() + ttl));
+    }
+
+    /**
+     * 先清除过期的条目，仍然超出上限时任意清除一半
+     */
+    private void evict() {
+        long now = System.nanoTime();
+        for (Iterator<Entry> i = cache.values().iterator(); i.hasNext();) {
+            if (i.next().expiresAt - now <= 0) {
+                i.remove();
+            }
+        }
+        int excess = cache.size() - maxEntries / 2;
+        for (Iterator<Entry> i = cache.values().iterator(); excess > 0 && i.hasNext(); excess--) {
+            i.next();
+            i.remove();
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        cache.clear();
+        lookupResolver.close();
+        if (ownsLookupExecutor) {
+            ((ExecutorService) lookupExecutor).shutdown();
+        }
+    }
+
+    private static final class Entry {
+        final Future<List<InetAddress>> future;
+        final long expiresAt;
+
+        Entry(Future<List<InetAddress>> future, long expiresAt) {
+            this.future = future;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
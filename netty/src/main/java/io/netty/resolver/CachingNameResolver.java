@@ -0,0 +1,52 @@
+package io.netty.resolver;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.UnstableApi;
+
+import java.net.InetAddress;
+import java.util.List;
+
+/**
+ * CachingAddressResolverGroup为每个EventLoop创建的解析器，缓存和查询线程由所属的group共享
+ */
+@UnstableApi
+final class CachingNameResolver extends InetNameResolver {
+
+    private final CachingAddressResolverGroup group;
+
+    CachingNameResolver(EventExecutor executor, CachingAddressResolverGroup group) {
+        super(executor);
+        this.group = group;
+    }
+
+    @Override
+    protected void doResolve(String inetHost, final Promise<InetAddress> promise) throws Exception {
+        group.resolveAll(inetHost).addListener(new FutureListener<List<InetAddress>>() {
+            @Override
+            public void operationComplete(Future<List<InetAddress>> future) throws Exception {
+                if (future.isSuccess()) {
+                    promise.trySuccess(future.getNow().get(0));
+                } else {
+                    promise.tryFailure(future.cause());
+                }
+            }
+        });
+    }
+
+    @Override
+    protected void doResolveAll(String inetHost, final Promise<List<InetAddress>> promise) throws Exception {
+        group.resolveAll(inetHost).addListener(new FutureListener<List<InetAddress>>() {
+            @Override
+            public void operationComplete(Future<List<InetAddress>> future) throws Exception {
+                if (future.isSuccess()) {
+                    promise.trySuccess(future.getNow());
+                } else {
+                    promise.tryFailure(future.cause());
+                }
+            }
+        });
+    }
+}
@@ -12,9 +12,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 public final class GlobalEventExecutor extends AbstractScheduledEventExecutor implements OrderedEventExecutor {
 
-    public static final GlobalEventExecutor INSTANCE = new GlobalEventExecutor();
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(GlobalEventExecutor.class);
     private static final long SCHEDULE_QUIET_PERIOD_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+    public static final GlobalEventExecutor INSTANCE = new GlobalEventExecutor();
     final BlockingQueue<Runnable> taskQueue = new LinkedBlockingQueue<Runnable>();
     final ScheduledFutureTask<Void> quietPeriodTask = new ScheduledFutureTask<Void>(this, Executors.<Void>callable(new Runnable() {
         @Override